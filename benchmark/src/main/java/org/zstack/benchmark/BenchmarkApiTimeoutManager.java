@@ -0,0 +1,32 @@
+package org.zstack.benchmark;
+
+import org.zstack.core.timeout.ApiTimeoutManager;
+import org.zstack.header.message.ConfigurableTimeoutMessage;
+import org.zstack.header.message.Message;
+import org.zstack.header.message.NeedReplyMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * fixed timeouts instead of the database backed ApiTimeoutManagerImpl
+ */
+public class BenchmarkApiTimeoutManager implements ApiTimeoutManager {
+    private static final long TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    @Override
+    public Long getTimeout() {
+        return TIMEOUT;
+    }
+
+    @Override
+    public long getMessageTimeout(ConfigurableTimeoutMessage msg) {
+        return TIMEOUT;
+    }
+
+    @Override
+    public void setMessageTimeout(Message msg) {
+        if (msg instanceof NeedReplyMessage && ((NeedReplyMessage) msg).getTimeout() <= 0) {
+            ((NeedReplyMessage) msg).setTimeout(TIMEOUT);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.zstack.benchmark;
+
+import org.zstack.core.cloudbus.DeadMessageManager;
+import org.zstack.header.message.Message;
+
+/**
+ * benchmarks run a single management node, there is never a node to resend to
+ */
+public class BenchmarkDeadMessageManager implements DeadMessageManager {
+    @Override
+    public boolean handleManagementNodeNotFoundError(String managementNodeUuid, Message message, Runnable rsendFunc) {
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+package org.zstack.benchmark;
+
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.zstack.core.cloudbus.CloudBus;
+import org.zstack.core.cloudbus.CloudBusGlobalConfig;
+import org.zstack.core.config.GlobalConfig;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.header.exception.CloudRuntimeException;
+
+import java.lang.reflect.Field;
+
+/**
+ * Boots the minimal spring context described in benchmark/BenchmarkContext.xml once per
+ * benchmark JVM. Nothing here touches MySQL, management node heartbeat or agents.
+ */
+public class BenchmarkEnvironment {
+    private static final String CONTEXT_XML = "benchmark/BenchmarkContext.xml";
+
+    private static volatile BenchmarkEnvironment instance;
+
+    private final ClassPathXmlApplicationContext context;
+
+    private BenchmarkEnvironment() {
+        // global configs are normally loaded from database by GlobalConfigFacade,
+        // set the ones read on the benchmarked paths by hand
+        setGlobalConfigValue(CloudBusGlobalConfig.STATISTICS_ON, "false");
+
+        context = new ClassPathXmlApplicationContext(CONTEXT_XML);
+        context.registerShutdownHook();
+    }
+
+    public static BenchmarkEnvironment get() {
+        if (instance == null) {
+            synchronized (BenchmarkEnvironment.class) {
+                if (instance == null) {
+                    instance = new BenchmarkEnvironment();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    public <T> T getBean(Class<T> clz) {
+        return context.getBean(clz);
+    }
+
+    public CloudBus getCloudBus() {
+        return getBean(CloudBus.class);
+    }
+
+    public ThreadFacade getThreadFacade() {
+        return getBean(ThreadFacade.class);
+    }
+
+    static void setGlobalConfigValue(GlobalConfig config, String value) {
+        try {
+            Field f = GlobalConfig.class.getDeclaredField("value");
+            f.setAccessible(true);
+            f.set(config, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new CloudRuntimeException(e);
+        }
+    }
+}
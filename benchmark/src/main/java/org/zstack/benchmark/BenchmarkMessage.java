@@ -0,0 +1,42 @@
+package org.zstack.benchmark;
+
+import org.zstack.core.Platform;
+import org.zstack.header.message.NeedReplyMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * a message with a configurable payload, used to measure bus and serialization cost by message size
+ */
+public class BenchmarkMessage extends NeedReplyMessage {
+    private String resourceUuid;
+    private List<String> payload;
+
+    public static BenchmarkMessage withPayload(int payloadSize) {
+        BenchmarkMessage msg = new BenchmarkMessage();
+        msg.setResourceUuid(Platform.getUuid());
+        List<String> payload = new ArrayList<>(payloadSize);
+        for (int i = 0; i < payloadSize; i++) {
+            payload.add(Platform.getUuid());
+        }
+        msg.setPayload(payload);
+        return msg;
+    }
+
+    public String getResourceUuid() {
+        return resourceUuid;
+    }
+
+    public void setResourceUuid(String resourceUuid) {
+        this.resourceUuid = resourceUuid;
+    }
+
+    public List<String> getPayload() {
+        return payload;
+    }
+
+    public void setPayload(List<String> payload) {
+        this.payload = payload;
+    }
+}
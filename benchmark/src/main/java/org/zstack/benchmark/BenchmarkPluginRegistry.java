@@ -0,0 +1,53 @@
+package org.zstack.benchmark;
+
+import org.zstack.core.componentloader.PluginExtension;
+import org.zstack.core.componentloader.PluginRegistry;
+import org.zstack.utils.function.Function;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * a plugin registry that only knows extensions defined dynamically by benchmarks,
+ * so no component is loaded from the spring XMLs of the full product
+ */
+public class BenchmarkPluginRegistry implements PluginRegistry {
+    private final Map<Class, List<Object>> dynamicExtensions = new ConcurrentHashMap<>();
+
+    @Override
+    public List<PluginExtension> getExtensionByInterfaceName(String interfaceName) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public <T> List<T> getExtensionList(Class<T> clazz) {
+        List exts = dynamicExtensions.get(clazz);
+        return exts == null ? new ArrayList<>() : new ArrayList<T>(exts);
+    }
+
+    @Override
+    public <T, K> void saveExtensionAsMap(Class<T> clazz, Function<K, T> func) {
+    }
+
+    @Override
+    public <T> T getExtensionFromMap(Object key, Class<T> clazz) {
+        return null;
+    }
+
+    @Override
+    public <T, K> void saveExtensionListAsMap(Class<T> clazz, Function<K, T> func) {
+    }
+
+    @Override
+    public <T> List getExtensionListFromMap(Object key, Class<T> clazz) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void defineDynamicExtension(Class interfaceClass, Object instance) {
+        dynamicExtensions.computeIfAbsent(interfaceClass, k -> Collections.synchronizedList(new ArrayList<>())).add(instance);
+    }
+}
@@ -0,0 +1,17 @@
+package org.zstack.benchmark;
+
+import org.zstack.header.message.MessageReply;
+
+import java.util.List;
+
+public class BenchmarkReply extends MessageReply {
+    private List<String> payload;
+
+    public List<String> getPayload() {
+        return payload;
+    }
+
+    public void setPayload(List<String> payload) {
+        this.payload = payload;
+    }
+}
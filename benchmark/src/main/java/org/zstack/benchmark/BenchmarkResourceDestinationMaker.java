@@ -0,0 +1,53 @@
+package org.zstack.benchmark;
+
+import org.zstack.core.Platform;
+import org.zstack.core.cloudbus.ManagementNodeNotFoundException;
+import org.zstack.core.cloudbus.ResourceDestinationMaker;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * every resource is owned by the local management node
+ */
+public class BenchmarkResourceDestinationMaker implements ResourceDestinationMaker {
+    @Override
+    public String makeDestination(String resourceUuid) {
+        return Platform.getManagementServerId();
+    }
+
+    @Override
+    public boolean isManagedByUs(String resourceUuid) {
+        return true;
+    }
+
+    @Override
+    public Collection<String> getManagementNodesInHashRing() {
+        return Collections.singletonList(Platform.getManagementServerId());
+    }
+
+    @Override
+    public NodeInfo getNodeInfo(String nodeUuid) {
+        throw new ManagementNodeNotFoundException(nodeUuid);
+    }
+
+    @Override
+    public Collection<NodeInfo> getAllNodeInfo() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int getManagementNodeCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean isNodeInCircle(String nodeId) {
+        return Platform.getManagementServerId().equals(nodeId);
+    }
+
+    @Override
+    public OwnershipSnapshot getOwnershipSnapshot() {
+        return resourceUuid -> Platform.getManagementServerId();
+    }
+}
@@ -0,0 +1,74 @@
+package org.zstack.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.zstack.core.thread.ChainTask;
+import org.zstack.core.thread.SyncTaskChain;
+import org.zstack.core.thread.ThreadFacade;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChainTask throughput of DispatchQueueImpl.chainSubmit() spread over a number of sync signatures,
+ * run with -t N to see how submitters on unrelated signatures contend
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ChainTaskSubmitBenchmark {
+    private static final int TASKS_PER_INVOCATION = 1000;
+
+    @Param({"1", "100", "10000"})
+    public int queueCount;
+
+    @Param({"1", "10"})
+    public int syncLevel;
+
+    private ThreadFacade thdf;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        thdf = BenchmarkEnvironment.get().getThreadFacade();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS_PER_INVOCATION)
+    public void chainSubmit(Cursor cursor) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(TASKS_PER_INVOCATION);
+        for (int i = 0; i < TASKS_PER_INVOCATION; i++) {
+            String signature = "benchmark-queue-" + (cursor.next++ % queueCount);
+            thdf.chainSubmit(new ChainTask(null) {
+                @Override
+                public String getSyncSignature() {
+                    return signature;
+                }
+
+                @Override
+                public void run(SyncTaskChain chain) {
+                    latch.countDown();
+                    chain.next();
+                }
+
+                @Override
+                public String getName() {
+                    return signature;
+                }
+
+                @Override
+                protected int getSyncLevel() {
+                    return syncLevel;
+                }
+            });
+        }
+
+        latch.await();
+    }
+}
@@ -0,0 +1,55 @@
+package org.zstack.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.zstack.core.cloudbus.CloudBusBinaryCodec;
+import org.zstack.core.cloudbus.CloudBusGson;
+import org.zstack.header.message.Message;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CloudBusGson encode/decode of a message, this is what every inter-management-node message pays.
+ * toBinary/fromBinary measure the same message in CloudBusWireFormat.Binary
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CloudBusGsonBenchmark {
+    @Param({"1", "100", "1000", "10000"})
+    public int payloadSize;
+
+    private BenchmarkMessage msg;
+    private String json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        msg = BenchmarkMessage.withPayload(payloadSize);
+        msg.setServiceId("benchmark.echo");
+        json = CloudBusGson.toJson(msg);
+        binary = CloudBusGson.toBinary(msg);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return CloudBusGson.toJson(msg);
+    }
+
+    @Benchmark
+    public Message fromJson() {
+        return CloudBusGson.fromJson(json);
+    }
+
+    @Benchmark
+    public byte[] toBinary() {
+        return CloudBusGson.toBinary(msg);
+    }
+
+    @Benchmark
+    public Message fromBinary() {
+        return CloudBusGson.fromJsonTree(CloudBusBinaryCodec.decode(binary));
+    }
+}
@@ -0,0 +1,67 @@
+package org.zstack.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.zstack.core.cloudbus.CloudBus;
+import org.zstack.core.cloudbus.CloudBusCallBack;
+import org.zstack.header.message.MessageReply;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * round trip of NeedReplyMessage through CloudBusImpl3.send() to a local service
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CloudBusSendBenchmark {
+    private static final int MESSAGES_PER_INVOCATION = 1000;
+
+    @Param({"1", "100", "1000"})
+    public int payloadSize;
+
+    private CloudBus bus;
+    private EchoService service;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bus = BenchmarkEnvironment.get().getCloudBus();
+        service = new EchoService(bus);
+        bus.registerService(service);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bus.unregisterService(service);
+    }
+
+    private BenchmarkMessage newMessage() {
+        BenchmarkMessage msg = BenchmarkMessage.withPayload(payloadSize);
+        bus.makeLocalServiceId(msg, EchoService.SERVICE_ID);
+        return msg;
+    }
+
+    @Benchmark
+    public MessageReply call() {
+        return bus.call(newMessage());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void send() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(MESSAGES_PER_INVOCATION);
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            bus.send(newMessage(), new CloudBusCallBack(null) {
+                @Override
+                public void run(MessageReply reply) {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+    }
+}
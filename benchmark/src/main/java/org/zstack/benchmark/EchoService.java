@@ -0,0 +1,44 @@
+package org.zstack.benchmark;
+
+import org.zstack.core.cloudbus.CloudBus;
+import org.zstack.header.AbstractService;
+import org.zstack.header.message.Message;
+
+/**
+ * replies every BenchmarkMessage with its own payload
+ */
+public class EchoService extends AbstractService {
+    public static final String SERVICE_ID = "benchmark.echo";
+
+    private final CloudBus bus;
+
+    public EchoService(CloudBus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public void handleMessage(Message msg) {
+        if (msg instanceof BenchmarkMessage) {
+            BenchmarkReply reply = new BenchmarkReply();
+            reply.setPayload(((BenchmarkMessage) msg).getPayload());
+            bus.reply(msg, reply);
+        } else {
+            bus.dealWithUnknownMessage(msg);
+        }
+    }
+
+    @Override
+    public String getId() {
+        return bus.makeLocalServiceId(SERVICE_ID);
+    }
+
+    @Override
+    public boolean start() {
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        return true;
+    }
+}
@@ -0,0 +1,101 @@
+package org.zstack.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.zstack.core.cloudbus.EventPathTrie;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * finding the callbacks of a canonical event in EventFacadeImpl, the regex scan over all
+ * registered callbacks it used to do against the EventPathTrie lookup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EventPathDispatchBenchmark {
+    private static final String[] TEMPLATES = {
+            "/vm/state/change/%s/{uuid}",
+            "/host/status/change/%s/{uuid}",
+            "/primaryStorage/status/change/%s/{uuid}",
+            "/managementnode/%s/{nodeUuid}",
+    };
+
+    private static class Callback {
+        final Pattern pattern;
+
+        Callback(String path) {
+            pattern = Pattern.compile(createRegexFromGlob(path.replaceAll("\\{.*\\}", ".*")));
+        }
+    }
+
+    @Param({"10000"})
+    public int callbacks;
+
+    private final Map<String, Callback> callbackMap = new ConcurrentHashMap<>();
+    private final EventPathTrie<Callback> trie = new EventPathTrie<>(c -> c.pattern);
+    private String[] events;
+    private int next;
+
+    // in line with EventFacadeImpl.createRegexFromGlob()
+    private static String createRegexFromGlob(String glob) {
+        StringBuilder out = new StringBuilder("^");
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*': out.append(".*"); break;
+                case '?': out.append('.'); break;
+                case '\\': out.append("\\\\"); break;
+                default: out.append(c);
+            }
+        }
+        return out.append('$').toString();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // most callbacks wait for an event of a single resource like event based GC jobs,
+        // a few listen to all of them
+        for (int i = 0; i < callbacks; i++) {
+            String path = i % 100 == 0 ? String.format(TEMPLATES[i % TEMPLATES.length], "*")
+                    : String.format(TEMPLATES[i % TEMPLATES.length], "resource-" + i);
+            Callback cb = new Callback(path);
+            String key = UUID.randomUUID().toString();
+            callbackMap.put(key, cb);
+            trie.put(key, path, cb);
+        }
+
+        events = new String[1024];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = String.format(TEMPLATES[i % TEMPLATES.length], "resource-" + i)
+                    .replaceAll("\\{.*\\}", UUID.randomUUID().toString().replace("-", ""));
+        }
+    }
+
+    private String nextEvent() {
+        next = (next + 1) & (events.length - 1);
+        return events[next];
+    }
+
+    @Benchmark
+    public List<Callback> regexScan() {
+        String path = nextEvent();
+        Map<String, Callback> copy = new HashMap<>(callbackMap);
+        List<Callback> ret = new ArrayList<>();
+        for (Callback cb : copy.values()) {
+            if (path.matches(cb.pattern.pattern())) {
+                ret.add(cb);
+            }
+        }
+        return ret;
+    }
+
+    @Benchmark
+    public List<Callback> trie() {
+        return trie.match(nextEvent());
+    }
+}
@@ -0,0 +1,63 @@
+package org.zstack.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.zstack.kvm.KVMAgentCommandEncoder;
+import org.zstack.kvm.KVMAgentCommands;
+import org.zstack.kvm.KVMConstant;
+import org.zstack.kvm.KVMHostAddons;
+import org.zstack.utils.gson.JSONObjectUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * encoding of an agent command plus kvmHostAddons done by KVMHost.Http for every agent call,
+ * legacy() is the encode/decode/regex splice KVMHost used to do
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class KVMAgentCommandEncodeBenchmark {
+    @Param({"1", "100", "1000"})
+    public int vmCount;
+
+    private KVMAgentCommands.CheckVmStateCmd cmd;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cmd = new KVMAgentCommands.CheckVmStateCmd();
+        cmd.hostUuid = "d2b6b4f6a1b34c0e9a7e3d1b0c6f5a42";
+        cmd.vmUuids = new ArrayList<>();
+        for (int i = 0; i < vmCount; i++) {
+            cmd.vmUuids.add(String.format("%032d", i));
+        }
+    }
+
+    private static LinkedHashMap addon() {
+        LinkedHashMap m = new LinkedHashMap();
+        m.put("qos", "default");
+        return m;
+    }
+
+    @Benchmark
+    public String legacy(Blackhole bh) {
+        String commandStr = JSONObjectUtil.toJsonString(cmd);
+        bh.consume(JSONObjectUtil.toObject(commandStr, LinkedHashMap.class));
+        LinkedHashMap kvmHostAddon = new LinkedHashMap();
+        kvmHostAddon.putAll(addon());
+        return commandStr.replaceAll("\\}$",
+                String.format(",\"%s\":%s}", KVMConstant.KVM_HOST_ADDONS, JSONObjectUtil.toJsonString(kvmHostAddon)));
+    }
+
+    @Benchmark
+    public String singlePass() {
+        KVMHostAddons addons = new KVMHostAddons();
+        addons.putAll(addon());
+        return KVMAgentCommandEncoder.encode(cmd, addons);
+    }
+}
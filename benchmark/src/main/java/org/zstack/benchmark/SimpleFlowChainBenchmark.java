@@ -0,0 +1,58 @@
+package org.zstack.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.zstack.core.workflow.FlowChainBuilder;
+import org.zstack.header.core.workflow.*;
+import org.zstack.header.errorcode.ErrorCode;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cost of running a SimpleFlowChain of no-op flows, the flows complete synchronously so the
+ * measurement is the chain machinery itself
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SimpleFlowChainBenchmark {
+    @Param({"1", "10", "50"})
+    public int chainLength;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkEnvironment.get();
+    }
+
+    @Benchmark
+    public boolean run() {
+        FlowChain chain = FlowChainBuilder.newSimpleFlowChain();
+        chain.setName("benchmark-chain");
+        for (int i = 0; i < chainLength; i++) {
+            chain.then(new NoRollbackFlow() {
+                @Override
+                public void run(FlowTrigger trigger, Map data) {
+                    trigger.next();
+                }
+            });
+        }
+
+        boolean[] done = {false};
+        chain.done(new FlowDoneHandler(null) {
+            @Override
+            public void handle(Map data) {
+                done[0] = true;
+            }
+        }).error(new FlowErrorHandler(null) {
+            @Override
+            public void handle(ErrorCode errCode, Map data) {
+                throw new IllegalStateException(errCode.toString());
+            }
+        }).start();
+
+        return done[0];
+    }
+}
@@ -0,0 +1,55 @@
+package org.zstack.benchmark;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.*;
+import org.zstack.header.zql.ASTNode;
+import org.zstack.zql.antlr4.ZQLLexer;
+import org.zstack.zql.antlr4.ZQLParser;
+import org.zstack.zql.ast.parser.visitors.QueryVisitor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * the ANTLR lex/parse/AST pass ZQL.getResultList() runs for every ZQL.fromString() text
+ * before it touches the database
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ZQLParseBenchmark {
+    private static final Map<String, String> QUERIES = new HashMap<>();
+
+    static {
+        QUERIES.put("simple", "query vminstance");
+        QUERIES.put("conditions", "query vminstance where state = 'Running' and hypervisorType = 'KVM' and memorySize > 1024 order by createDate desc limit 100 offset 200");
+        QUERIES.put("nested", "query vminstance where vmNics.l3Network.l2Network.zoneUuid in (query zone.uuid where name like '%zone%') return with (total)");
+    }
+
+    @Param({"simple", "conditions", "nested"})
+    public String query;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        text = QUERIES.get(query);
+    }
+
+    @Benchmark
+    public List<ASTNode.Query> parse() {
+        ZQLLexer l = new ZQLLexer(CharStreams.fromString(text));
+        ZQLParser p = new ZQLParser(new CommonTokenStream(l));
+        return p.zqls().zql().stream()
+                .filter(ctx -> ctx instanceof ZQLParser.QueryGrammarContext)
+                .map(ctx -> ((ZQLParser.QueryGrammarContext) ctx).query().accept(new QueryVisitor()))
+                .collect(Collectors.toList());
+    }
+}
@@ -7,37 +7,29 @@ import org.springframework.transaction.annotation.Transactional;
 import org.zstack.core.CoreGlobalProperty;
 import org.zstack.core.Platform;
 import org.zstack.core.db.DatabaseFacade;
+import org.zstack.core.db.Q;
 import org.zstack.header.allocator.AbstractHostAllocatorFlow;
+import org.zstack.header.allocator.HostAllocatorSpec;
 import org.zstack.header.exception.CloudRuntimeException;
 import org.zstack.header.host.HostVO;
 import org.zstack.header.network.l2.L2NetworkClusterRefVO;
+import org.zstack.header.network.l3.L3NetworkVO;
+import org.zstack.header.network.l3.L3NetworkVO_;
 
 import javax.persistence.TypedQuery;
 import java.util.*;
 
 @Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
-public class AttachedL2NetworkAllocatorFlow extends AbstractHostAllocatorFlow {
+public class AttachedL2NetworkAllocatorFlow extends AbstractHostAllocatorFlow implements HostCandidateIndexFilter {
 
     @Autowired
     private DatabaseFacade dbf;
 
-    @Transactional(readOnly = true)
-    private List<HostVO> allocate(Collection<String> l3NetworkUuids, Collection<String> hostUuids) {
-        String sql = "select l3.l2NetworkUuid from L3NetworkVO l3 where l3.uuid in (:l3uuids)";
-        TypedQuery<String> q = dbf.getEntityManager().createQuery(sql, String.class);
-        q.setParameter("l3uuids", l3NetworkUuids);
-        List<String> l2uuids = q.getResultList();
-        if (l2uuids.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        sql = "select ref from L2NetworkClusterRefVO ref where ref.l2NetworkUuid in (:l2uuids)";
+    private Set<String> getClustersAttachedToAll(List<String> l2uuids) {
+        String sql = "select ref from L2NetworkClusterRefVO ref where ref.l2NetworkUuid in (:l2uuids)";
         TypedQuery<L2NetworkClusterRefVO> rq = dbf.getEntityManager().createQuery(sql, L2NetworkClusterRefVO.class);
         rq.setParameter("l2uuids", l2uuids);
         List<L2NetworkClusterRefVO> refs = rq.getResultList();
-        if (refs.isEmpty()) {
-            return new ArrayList<>();
-        }
 
         Map<String, Set<String>> l2ClusterMap = new HashMap<>();
         for (L2NetworkClusterRefVO ref : refs) {
@@ -51,7 +43,20 @@ public class AttachedL2NetworkAllocatorFlow extends AbstractHostAllocatorFlow {
                 clusterUuids.add(e.getKey());
             }
         }
+        return clusterUuids;
+    }
 
+    @Transactional(readOnly = true)
+    private List<HostVO> allocate(Collection<String> l3NetworkUuids, Collection<String> hostUuids) {
+        String sql = "select l3.l2NetworkUuid from L3NetworkVO l3 where l3.uuid in (:l3uuids)";
+        TypedQuery<String> q = dbf.getEntityManager().createQuery(sql, String.class);
+        q.setParameter("l3uuids", l3NetworkUuids);
+        List<String> l2uuids = q.getResultList();
+        if (l2uuids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> clusterUuids = getClustersAttachedToAll(l2uuids);
         if (clusterUuids.isEmpty()) {
             return new ArrayList<>();
         }
@@ -82,6 +87,24 @@ public class AttachedL2NetworkAllocatorFlow extends AbstractHostAllocatorFlow {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public BitSet filter(HostCandidateIndex.Snapshot index, HostAllocatorSpec spec) {
+        if (spec.getL3NetworkUuids().isEmpty()) {
+            return null;
+        }
+
+        List<String> l2uuids = Q.New(L3NetworkVO.class).select(L3NetworkVO_.l2NetworkUuid)
+                .in(L3NetworkVO_.uuid, spec.getL3NetworkUuids())
+                .listValues();
+        if (l2uuids.isEmpty()) {
+            return new BitSet();
+        }
+
+        // the attachments are read from the database, only the hosts of the clusters come from the index
+        return index.getHostsInClusters(getClustersAttachedToAll(l2uuids));
+    }
+
     @Override
     public void allocate() {
         if (spec.getL3NetworkUuids().isEmpty()) {
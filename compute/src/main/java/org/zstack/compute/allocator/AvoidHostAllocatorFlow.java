@@ -4,14 +4,27 @@ import org.springframework.beans.factory.annotation.Autowire;
 import org.springframework.beans.factory.annotation.Configurable;
 import org.zstack.core.Platform;
 import org.zstack.header.allocator.AbstractHostAllocatorFlow;
+import org.zstack.header.allocator.HostAllocatorSpec;
 import org.zstack.header.host.HostVO;
 import org.zstack.utils.CollectionUtils;
 import org.zstack.utils.function.Function;
 
+import java.util.BitSet;
 import java.util.List;
 
 @Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
-public class AvoidHostAllocatorFlow extends AbstractHostAllocatorFlow {
+public class AvoidHostAllocatorFlow extends AbstractHostAllocatorFlow implements HostCandidateIndexFilter {
+    @Override
+    public BitSet filter(HostCandidateIndex.Snapshot index, HostAllocatorSpec spec) {
+        if (spec.getAvoidHostUuids().isEmpty()) {
+            return null;
+        }
+
+        BitSet ret = index.getHosts();
+        ret.andNot(index.getHostsByUuids(spec.getAvoidHostUuids()));
+        return ret;
+    }
+
     @Override
     public void allocate() {
         throwExceptionIfIAmTheFirstFlow();
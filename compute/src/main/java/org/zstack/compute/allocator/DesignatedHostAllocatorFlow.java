@@ -8,6 +8,7 @@ import org.zstack.core.Platform;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.header.allocator.AbstractHostAllocatorFlow;
 import org.zstack.header.allocator.HostAllocatorConstant;
+import org.zstack.header.allocator.HostAllocatorSpec;
 import org.zstack.header.host.HostState;
 import org.zstack.header.host.HostStatus;
 import org.zstack.header.host.HostVO;
@@ -16,9 +17,11 @@ import org.zstack.utils.logging.CLogger;
 
 import javax.persistence.TypedQuery;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 @Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
-public class DesignatedHostAllocatorFlow extends AbstractHostAllocatorFlow {
+public class DesignatedHostAllocatorFlow extends AbstractHostAllocatorFlow implements HostCandidateIndexFilter {
     private static final CLogger logger = Utils.getLogger(DesignatedHostAllocatorFlow.class);
 
     @Autowired
@@ -73,6 +76,32 @@ public class DesignatedHostAllocatorFlow extends AbstractHostAllocatorFlow {
         return ret;
     }
 
+    @Override
+    public BitSet filter(HostCandidateIndex.Snapshot index, HostAllocatorSpec spec) {
+        String zoneUuid = (String) spec.getExtraData().get(HostAllocatorConstant.LocationSelector.zone);
+        String clusterUuid = (String) spec.getExtraData().get(HostAllocatorConstant.LocationSelector.cluster);
+        String hostUuid = (String) spec.getExtraData().get(HostAllocatorConstant.LocationSelector.host);
+
+        if (zoneUuid == null && clusterUuid == null && hostUuid == null && spec.getHypervisorType() == null) {
+            return null;
+        }
+
+        BitSet ret = index.getHosts();
+        if (zoneUuid != null) {
+            ret.and(index.getHostsInZone(zoneUuid));
+        }
+        if (clusterUuid != null) {
+            ret.and(index.getHostsInClusters(Collections.singletonList(clusterUuid)));
+        }
+        if (hostUuid != null) {
+            ret.and(index.getHostsByUuids(Collections.singletonList(hostUuid)));
+        }
+        if (spec.getHypervisorType() != null) {
+            ret.and(index.getHostsOfHypervisorType(spec.getHypervisorType()));
+        }
+        return ret;
+    }
+
     @Override
     public void allocate() {
         String zoneUuid = (String) spec.getExtraData().get(HostAllocatorConstant.LocationSelector.zone);
@@ -0,0 +1,48 @@
+package org.zstack.compute.allocator;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * latencies in milliseconds of the last allocations, percentiles are calculated
+ * when read
+ */
+class HostAllocationLatency {
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final long[] samples;
+    private long count;
+
+    HostAllocationLatency(int size) {
+        samples = new long[size];
+    }
+
+    synchronized void record(long millis) {
+        samples[(int) (count % samples.length)] = millis;
+        count++;
+    }
+
+    Map<String, Long> getPercentiles() {
+        long[] sorted;
+        long total;
+        synchronized (this) {
+            total = count;
+            sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        Arrays.sort(sorted);
+
+        Map<String, Long> ret = new LinkedHashMap<>();
+        ret.put("count", total);
+        if (sorted.length == 0) {
+            return ret;
+        }
+
+        for (double p : PERCENTILES) {
+            int i = (int) Math.ceil(p / 100 * sorted.length) - 1;
+            ret.put(String.format("p%d", (int) p), sorted[Math.max(i, 0)]);
+        }
+        ret.put("max", sorted[sorted.length - 1]);
+        return ret;
+    }
+}
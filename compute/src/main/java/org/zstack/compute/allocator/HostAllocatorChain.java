@@ -14,6 +14,7 @@ import org.zstack.header.errorcode.ErrorCode;
 import org.zstack.header.errorcode.OperationFailureException;
 import org.zstack.header.host.HostInventory;
 import org.zstack.header.host.HostVO;
+import org.zstack.header.host.HostVO_;
 import org.zstack.header.vm.VmInstanceInventory;
 import org.zstack.utils.DebugUtils;
 import org.zstack.utils.SizeUtils;
@@ -53,12 +54,18 @@ public class HostAllocatorChain implements HostAllocatorTrigger, HostAllocatorSt
 
     private Set<ErrorCode> seriesErrorWhenPagination = new HashSet<>();
 
+    // hosts HostCandidateIndex finds for the allocation, null if the flows run on the database
+    private List<String> indexedHostUuids;
+    private int indexedOffset;
+
     @Autowired
     private ErrorFacade errf;
     @Autowired
     private PluginRegistry pluginRgty;
     @Autowired
     private HostCapacityOverProvisioningManager ratioMgr;
+    @Autowired
+    private HostCandidateIndex candidateIndex;
 
     public HostAllocatorSpec getAllocationSpec() {
         return allocationSpec;
@@ -85,6 +92,7 @@ public class HostAllocatorChain implements HostAllocatorTrigger, HostAllocatorSt
     }
 
     private void done() {
+        candidateIndex.countAllocation(indexedHostUuids != null);
         if (result == null) {
             if (isDryRun) {
                 if (HostAllocatorError.NO_AVAILABLE_HOST.toString().equals(errorCode.getCode())) {
@@ -121,9 +129,55 @@ public class HostAllocatorChain implements HostAllocatorTrigger, HostAllocatorSt
         it = flows.iterator();
         result = null;
         skipCounter = 0;
+        if (indexedHostUuids != null) {
+            result = nextIndexedHosts();
+            if (result == null) {
+                startOverOnDatabase();
+                return;
+            }
+
+            // the candidates are loaded already, no flow queries hosts by pages
+            skipCounter = -1;
+        }
+
         runFlow(it.next());
     }
 
+    /**
+     * the flows found no host in the candidates from HostCandidateIndex, run them on the
+     * database then, so the failure is reported the same as without the index
+     */
+    private void startOverOnDatabase() {
+        logger.debug(String.format("[Host Allocation]: no host found in %s candidate hosts from the host candidate index," +
+                " allocate on the database", indexedHostUuids.size()));
+        indexedHostUuids = null;
+        seriesErrorWhenPagination.clear();
+        if (paginationInfo != null) {
+            paginationInfo.setOffset(0);
+        }
+        startOver();
+    }
+
+    /**
+     * loads the next page of the hosts found in HostCandidateIndex, or all of them if
+     * pagination is disabled; returns null when no host is left
+     */
+    private List<HostVO> nextIndexedHosts() {
+        int limit = paginationInfo == null ? indexedHostUuids.size() : paginationInfo.getLimit();
+        while (indexedOffset < indexedHostUuids.size()) {
+            List<String> uuids = indexedHostUuids.subList(indexedOffset, Math.min(indexedOffset + limit, indexedHostUuids.size()));
+            indexedOffset += uuids.size();
+
+            // hosts deleted after the lookup are not found
+            List<HostVO> vos = Q.New(HostVO.class).in(HostVO_.uuid, uuids).list();
+            if (!vos.isEmpty()) {
+                return vos;
+            }
+        }
+
+        return null;
+    }
+
     private void runFlow(AbstractHostAllocatorFlow flow) {
         try {
             lastFlow = flow;
@@ -158,9 +212,49 @@ public class HostAllocatorChain implements HostAllocatorTrigger, HostAllocatorSt
             paginationInfo = new HostAllocationPaginationInfo();
             paginationInfo.setLimit(HostAllocatorGlobalConfig.PAGINATION_LIMIT.value(Integer.class));
         }
-        it = flows.iterator();
-        DebugUtils.Assert(it.hasNext(), "can not run an empty host allocation chain");
-        runFlow(it.next());
+
+        if (HostAllocatorGlobalConfig.USE_CANDIDATE_INDEX.value(Boolean.class)) {
+            indexedHostUuids = filterByIndex();
+        }
+
+        DebugUtils.Assert(!flows.isEmpty(), "can not run an empty host allocation chain");
+        startOver();
+    }
+
+    /**
+     * intersects the hosts every flow supporting HostCandidateIndex may pass, so only these
+     * hosts are loaded; all flows still run on them, in their order. Returns null if no flow
+     * restricts the hosts
+     */
+    private List<String> filterByIndex() {
+        HostCandidateIndex.Snapshot index = candidateIndex.getSnapshot();
+        BitSet hosts = null;
+        List<String> filters = new ArrayList<>();
+        for (AbstractHostAllocatorFlow flow : flows) {
+            if (!(flow instanceof HostCandidateIndexFilter)) {
+                continue;
+            }
+
+            BitSet ret = ((HostCandidateIndexFilter) flow).filter(index, allocationSpec);
+            if (ret == null) {
+                continue;
+            }
+
+            filters.add(flow.getClass().getSimpleName());
+            if (hosts == null) {
+                hosts = ret;
+            } else {
+                hosts.and(ret);
+            }
+        }
+
+        if (hosts == null) {
+            return null;
+        }
+
+        logger.debug(String.format("[Host Allocation]: flows%s found %s of %s hosts in the host candidate index",
+                filters, hosts.cardinality(), index.size()));
+        return index.getHostUuids(hosts);
     }
 
     private void allocate(ReturnValueCompletion<List<HostInventory>> completion) {
@@ -221,6 +315,11 @@ public class HostAllocatorChain implements HostAllocatorTrigger, HostAllocatorSt
     }
 
     private void fail(ErrorCode errorCode) {
+        if (indexedHostUuids != null) {
+            startOverOnDatabase();
+            return;
+        }
+
         result = null;
         if (seriesErrorWhenPagination.isEmpty()) {
             logger.debug(String.format("[Host Allocation] flow[%s] failed to allocate host; %s",
@@ -28,4 +28,8 @@ public class HostAllocatorGlobalConfig {
     public static GlobalConfig HOST_ALLOCATOR_CONCURRENT_LEVEL = new GlobalConfig(CATEGORY, "hostAllocator.concurrent.level");
     @GlobalConfigValidation
     public static GlobalConfig HOST_ALLOCATOR_MAX_MEMORY = new GlobalConfig(CATEGORY, "hostAllocator.checkHostMem");
+    @GlobalConfigValidation
+    public static GlobalConfig HOST_CAPACITY_OPTIMISTIC_UPDATE = new GlobalConfig(CATEGORY, "hostCapacity.optimisticUpdate");
+    @GlobalConfigValidation
+    public static GlobalConfig USE_CANDIDATE_INDEX = new GlobalConfig(CATEGORY, "candidateIndex");
 }
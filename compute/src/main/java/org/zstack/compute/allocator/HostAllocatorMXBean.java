@@ -0,0 +1,11 @@
+package org.zstack.compute.allocator;
+
+import java.util.Map;
+
+public interface HostAllocatorMXBean {
+    Map<String, Long> getAllocationLatencyPercentiles();
+
+    long getIndexedAllocations();
+
+    long getDatabaseAllocations();
+}
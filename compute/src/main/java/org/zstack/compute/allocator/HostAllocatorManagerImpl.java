@@ -10,6 +10,7 @@ import org.zstack.core.db.Q;
 import org.zstack.core.db.SimpleQuery;
 import org.zstack.core.db.SimpleQuery.Op;
 import org.zstack.core.errorcode.ErrorFacade;
+import org.zstack.core.jmx.JmxFacade;
 import org.zstack.core.thread.ChainTask;
 import org.zstack.core.thread.SyncTaskChain;
 import org.zstack.core.thread.ThreadFacade;
@@ -51,16 +52,19 @@ import javax.persistence.TypedQuery;
 import java.text.DecimalFormat;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import static org.zstack.core.Platform.operr;
 import static org.zstack.utils.CollectionDSL.list;
 
-public class HostAllocatorManagerImpl extends AbstractService implements HostAllocatorManager, VmAbnormalLifeCycleExtensionPoint {
+public class HostAllocatorManagerImpl extends AbstractService implements HostAllocatorManager, VmAbnormalLifeCycleExtensionPoint,
+        HostAllocatorMXBean {
     private static final CLogger logger = Utils.getLogger(HostAllocatorManagerImpl.class);
 
     private Map<String, HostAllocatorStrategyFactory> factories = Collections.synchronizedMap(new HashMap<String, HostAllocatorStrategyFactory>());
     private Map<String, List<String>> backupStoragePrimaryStorageMetrics;
     private Map<String, List<String>> primaryStorageBackupStorageMetrics = new HashMap<>();
+    private final HostAllocationLatency latency = new HostAllocationLatency(1024);
 
     @Autowired
     private CloudBus bus;
@@ -78,6 +82,10 @@ public class HostAllocatorManagerImpl extends AbstractService implements HostAll
     private ErrorFacade errf;
     @Autowired
     private ThreadFacade thdf;
+    @Autowired
+    private JmxFacade jmxf;
+    @Autowired
+    private HostCandidateIndex candidateIndex;
 
     @Override
     @MessageSafe
@@ -463,6 +471,7 @@ public class HostAllocatorManagerImpl extends AbstractService implements HostAll
             });
         } else {
             final AllocateHostReply reply = new AllocateHostReply();
+            final long startTime = System.nanoTime();
             FlowChain chain = FlowChainBuilder.newSimpleFlowChain();
 
             String allocatedHosts = "HOST_CANDIDATES";
@@ -530,12 +539,14 @@ public class HostAllocatorManagerImpl extends AbstractService implements HostAll
             }).done(new FlowDoneHandler(completion, msg) {
                 @Override
                 public void handle(Map data) {
+                    latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
                     bus.reply(msg, reply);
                     completion.success();
                 }
             }).error(new FlowErrorHandler(completion, msg) {
                 @Override
                 public void handle(ErrorCode errCode, Map data) {
+                    latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
                     reply.setError(errCode);
                     bus.reply(msg, reply);
                     completion.fail(errCode);
@@ -724,6 +735,7 @@ public class HostAllocatorManagerImpl extends AbstractService implements HostAll
         populateHostAllocatorStrategyFactory();
         populatePrimaryStorageBackupStorageMetrics();
         installPrimaryStorageTypeDefaultField();
+        jmxf.registerBean("HostAllocator", this);
         return true;
     }
 
@@ -760,6 +772,21 @@ public class HostAllocatorManagerImpl extends AbstractService implements HostAll
         return true;
     }
 
+    @Override
+    public Map<String, Long> getAllocationLatencyPercentiles() {
+        return latency.getPercentiles();
+    }
+
+    @Override
+    public long getIndexedAllocations() {
+        return candidateIndex.getIndexedAllocations();
+    }
+
+    @Override
+    public long getDatabaseAllocations() {
+        return candidateIndex.getDatabaseAllocations();
+    }
+
     @Override
     public HostAllocatorStrategyFactory getHostAllocatorStrategyFactory(HostAllocatorStrategyType type) {
         HostAllocatorStrategyFactory factory = factories.get(type.toString());
@@ -772,6 +799,13 @@ public class HostAllocatorManagerImpl extends AbstractService implements HostAll
 
     @Override
     public void returnComputeResourceCapacity(final String hostUuid, final long cpu, final long memory) {
+        if (HostAllocatorGlobalConfig.HOST_CAPACITY_OPTIMISTIC_UPDATE.value(Boolean.class) &&
+                new HostCapacityOptimisticUpdater(hostUuid).giveBack(cpu, ratioMgr.calculateMemoryByRatio(hostUuid, memory))) {
+            return;
+        }
+
+        // the capacity would exceed the total or the host is gone, let the locking
+        // updater handle it as it always did
         new HostCapacityUpdater(hostUuid).run(new HostCapacityUpdaterRunnable() {
             @Override
             public HostCapacityVO call(HostCapacityVO cap) {
@@ -0,0 +1,257 @@
+package org.zstack.compute.allocator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.core.cloudbus.EventCallback;
+import org.zstack.core.cloudbus.EventFacade;
+import org.zstack.core.db.SQL;
+import org.zstack.header.Component;
+import org.zstack.header.host.HostCanonicalEvents;
+import org.zstack.header.host.HostState;
+import org.zstack.header.host.HostStatus;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import javax.persistence.Tuple;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Columnar copy of the host attributes allocator flows filter on, so a chain can narrow
+ * the candidates with bitsets before loading any HostVO, see HostCandidateIndexFilter.
+ *
+ * The state and status of a host only change in HostBase, which fires the state and status
+ * changed canonical events to all management nodes, and a host never moves to another
+ * cluster or zone. A host of these events, or of the host deleted event, is marked dirty and
+ * its row is read again on the next lookup, so the index doesn't depend on the order the
+ * events arrive in. The whole index is still rebuilt every FULL_REBUILD_INTERVAL in case an
+ * event is lost while a node restarts. Everything else flows check, e.g. capacity, primary
+ * storage and tags, is read from the database by the flows as before.
+ */
+public class HostCandidateIndex implements Component {
+    private static final CLogger logger = Utils.getLogger(HostCandidateIndex.class);
+
+    private static final long FULL_REBUILD_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+
+    @Autowired
+    private EventFacade evtf;
+
+    private volatile Snapshot snapshot;
+    private final Set<String> dirtyHostUuids = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong indexedAllocations = new AtomicLong();
+    private final AtomicLong databaseAllocations = new AtomicLong();
+
+    /**
+     * an immutable view of the index, a change is applied on a copy
+     */
+    public static class Snapshot {
+        private final long createdTime;
+        private final List<String> uuids;
+        private final Map<String, Integer> positions;
+        private final BitSet hosts;
+        private final BitSet enabledAndConnected;
+        private final Map<String, BitSet> zones;
+        private final Map<String, BitSet> clusters;
+        private final Map<String, BitSet> hypervisors;
+
+        private Snapshot(List<Tuple> rows) {
+            createdTime = System.currentTimeMillis();
+            uuids = new ArrayList<>(rows.size());
+            positions = new HashMap<>();
+            hosts = new BitSet();
+            enabledAndConnected = new BitSet();
+            zones = new HashMap<>();
+            clusters = new HashMap<>();
+            hypervisors = new HashMap<>();
+            rows.forEach(this::set);
+        }
+
+        private Snapshot(Snapshot other) {
+            createdTime = other.createdTime;
+            uuids = new ArrayList<>(other.uuids);
+            positions = new HashMap<>(other.positions);
+            hosts = (BitSet) other.hosts.clone();
+            enabledAndConnected = (BitSet) other.enabledAndConnected.clone();
+            zones = copy(other.zones);
+            clusters = copy(other.clusters);
+            hypervisors = copy(other.hypervisors);
+        }
+
+        private static Map<String, BitSet> copy(Map<String, BitSet> m) {
+            Map<String, BitSet> ret = new HashMap<>();
+            m.forEach((k, v) -> ret.put(k, (BitSet) v.clone()));
+            return ret;
+        }
+
+        private void set(Tuple t) {
+            String uuid = t.get(0, String.class);
+            remove(uuid);
+
+            int i = uuids.size();
+            uuids.add(uuid);
+            positions.put(uuid, i);
+            hosts.set(i);
+            zones.computeIfAbsent(t.get(1, String.class), k -> new BitSet()).set(i);
+            clusters.computeIfAbsent(t.get(2, String.class), k -> new BitSet()).set(i);
+            hypervisors.computeIfAbsent(t.get(3, String.class), k -> new BitSet()).set(i);
+            if (t.get(4, HostState.class) == HostState.Enabled && t.get(5, HostStatus.class) == HostStatus.Connected) {
+                enabledAndConnected.set(i);
+            }
+        }
+
+        // the position is not reused, the full rebuild compacts the rows
+        private void remove(String uuid) {
+            Integer i = positions.remove(uuid);
+            if (i == null) {
+                return;
+            }
+
+            uuids.set(i, null);
+            hosts.clear(i);
+            enabledAndConnected.clear(i);
+            zones.values().forEach(b -> b.clear(i));
+            clusters.values().forEach(b -> b.clear(i));
+            hypervisors.values().forEach(b -> b.clear(i));
+        }
+
+        public int size() {
+            return positions.size();
+        }
+
+        public BitSet getHosts() {
+            return (BitSet) hosts.clone();
+        }
+
+        public BitSet getEnabledAndConnectedHosts(String hypervisorType) {
+            BitSet ret = (BitSet) enabledAndConnected.clone();
+            if (hypervisorType != null) {
+                ret.and(hypervisors.getOrDefault(hypervisorType, new BitSet()));
+            }
+            return ret;
+        }
+
+        public BitSet getHostsInZone(String zoneUuid) {
+            return (BitSet) zones.getOrDefault(zoneUuid, new BitSet()).clone();
+        }
+
+        public BitSet getHostsInClusters(Collection<String> clusterUuids) {
+            BitSet ret = new BitSet();
+            for (String clusterUuid : clusterUuids) {
+                BitSet b = clusters.get(clusterUuid);
+                if (b != null) {
+                    ret.or(b);
+                }
+            }
+            return ret;
+        }
+
+        public BitSet getHostsOfHypervisorType(String hypervisorType) {
+            return (BitSet) hypervisors.getOrDefault(hypervisorType, new BitSet()).clone();
+        }
+
+        public BitSet getHostsByUuids(Collection<String> hostUuids) {
+            BitSet ret = new BitSet();
+            for (String uuid : hostUuids) {
+                Integer i = positions.get(uuid);
+                if (i != null) {
+                    ret.set(i);
+                }
+            }
+            return ret;
+        }
+
+        public List<String> getHostUuids(BitSet hosts) {
+            List<String> ret = new ArrayList<>(hosts.cardinality());
+            for (int i = hosts.nextSetBit(0); i >= 0; i = hosts.nextSetBit(i + 1)) {
+                ret.add(uuids.get(i));
+            }
+            return ret;
+        }
+    }
+
+    private static final String HOST_COLUMNS = "select h.uuid, h.zoneUuid, h.clusterUuid, h.hypervisorType, h.state, h.status from HostVO h";
+
+    @Override
+    public boolean start() {
+        EventCallback markDirty = new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                String hostUuid;
+                if (data instanceof HostCanonicalEvents.HostStatusChangedData) {
+                    hostUuid = ((HostCanonicalEvents.HostStatusChangedData) data).getHostUuid();
+                } else if (data instanceof HostCanonicalEvents.HostStateChangedData) {
+                    hostUuid = ((HostCanonicalEvents.HostStateChangedData) data).getHostUuid();
+                } else {
+                    hostUuid = ((HostCanonicalEvents.HostDeletedData) data).getHostUuid();
+                }
+
+                dirtyHostUuids.add(hostUuid);
+            }
+        };
+
+        evtf.on(HostCanonicalEvents.HOST_STATUS_CHANGED_PATH, markDirty);
+        evtf.on(HostCanonicalEvents.HOST_STATE_CHANGED_PATH, markDirty);
+        evtf.on(HostCanonicalEvents.HOST_DELETED_PATH, markDirty);
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        return true;
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot s = snapshot;
+        if (s != null && dirtyHostUuids.isEmpty() && System.currentTimeMillis() - s.createdTime < FULL_REBUILD_INTERVAL) {
+            return s;
+        }
+
+        synchronized (this) {
+            s = snapshot;
+            if (s == null || System.currentTimeMillis() - s.createdTime >= FULL_REBUILD_INTERVAL) {
+                // events arriving from now on are applied on the next lookup
+                dirtyHostUuids.clear();
+                s = new Snapshot(SQL.New(HOST_COLUMNS, Tuple.class).list());
+                snapshot = s;
+                logger.debug(String.format("built host candidate index with %s hosts", s.size()));
+                return s;
+            }
+
+            if (dirtyHostUuids.isEmpty()) {
+                return s;
+            }
+
+            List<String> hostUuids = new ArrayList<>(dirtyHostUuids);
+            dirtyHostUuids.removeAll(hostUuids);
+
+            // the events are fired after the changes are committed, read the rows as they are now
+            List<Tuple> rows = SQL.New(HOST_COLUMNS + " where h.uuid in (:uuids)", Tuple.class)
+                    .param("uuids", hostUuids)
+                    .list();
+            s = new Snapshot(s);
+            hostUuids.forEach(s::remove);
+            rows.forEach(s::set);
+            snapshot = s;
+            logger.debug(String.format("refreshed %s hosts in host candidate index", hostUuids.size()));
+            return s;
+        }
+    }
+
+    void countAllocation(boolean indexed) {
+        if (indexed) {
+            indexedAllocations.incrementAndGet();
+        } else {
+            databaseAllocations.incrementAndGet();
+        }
+    }
+
+    public long getIndexedAllocations() {
+        return indexedAllocations.get();
+    }
+
+    public long getDatabaseAllocations() {
+        return databaseAllocations.get();
+    }
+}
@@ -0,0 +1,17 @@
+package org.zstack.compute.allocator;
+
+import org.zstack.header.allocator.HostAllocatorSpec;
+
+import java.util.BitSet;
+
+/**
+ * an allocator flow that can tell on HostCandidateIndex which hosts may pass it, so
+ * HostAllocatorChain only loads those hosts; the flow itself still runs on them
+ */
+public interface HostCandidateIndexFilter {
+    /**
+     * @return a superset of the hosts passing the flow, or null if the flow doesn't
+     * restrict the hosts for this spec
+     */
+    BitSet filter(HostCandidateIndex.Snapshot index, HostAllocatorSpec spec);
+}
@@ -0,0 +1,86 @@
+package org.zstack.compute.allocator;
+
+import org.springframework.beans.factory.annotation.Autowire;
+import org.springframework.beans.factory.annotation.Configurable;
+import org.zstack.core.db.DeadlockAutoRestart;
+import org.zstack.core.db.SQL;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+/**
+ * Updates HostCapacityVO by a single conditional UPDATE on deltas instead of
+ * loading the row with PESSIMISTIC_WRITE like HostCapacityUpdater does. An update
+ * returning 0 rows means either the host is gone or the condition doesn't hold,
+ * callers decide what to do then.
+ */
+@Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
+public class HostCapacityOptimisticUpdater {
+    private static final CLogger logger = Utils.getLogger(HostCapacityOptimisticUpdater.class);
+
+    private String hostUuid;
+
+    public HostCapacityOptimisticUpdater(String hostUuid) {
+        this.hostUuid = hostUuid;
+    }
+
+    private void logCapacityChange(String op, long cpu, long memory, int rows) {
+        if (logger.isTraceEnabled()) {
+            logger.trace(String.format("[Host Capacity] %s cpu[%s], memory[%s] on the host[uuid:%s], %s",
+                    op, cpu, memory, hostUuid, rows > 0 ? "succeeded" : "condition not met"));
+        }
+    }
+
+    /**
+     * take cpu and memory(already calculated by over-provisioning ratio) from the host,
+     * the same checks as HostCapacityReserveManagerImpl are done in the where clause
+     */
+    @DeadlockAutoRestart
+    public boolean reserve(long cpu, long memory, long reservedMemory) {
+        StringBuilder sql = new StringBuilder("update HostCapacityVO cap" +
+                " set cap.availableCpu = cap.availableCpu - :cpu," +
+                " cap.availableMemory = cap.availableMemory - :memory" +
+                " where cap.uuid = :uuid");
+        if (cpu != 0) {
+            sql.append(" and cap.availableCpu >= :cpu");
+        }
+        if (memory != 0) {
+            sql.append(" and cap.availableMemory >= :memory + :reservedMemory");
+        }
+
+        SQL q = SQL.New(sql.toString()).param("cpu", cpu).param("memory", memory).param("uuid", hostUuid);
+        if (memory != 0) {
+            q.param("reservedMemory", reservedMemory);
+        }
+
+        int rows = q.execute();
+        logCapacityChange("reserved", cpu, memory, rows);
+        return rows > 0;
+    }
+
+    @DeadlockAutoRestart
+    public boolean update(long cpu, long memory) {
+        int rows = SQL.New("update HostCapacityVO cap" +
+                " set cap.availableCpu = cap.availableCpu - :cpu," +
+                " cap.availableMemory = cap.availableMemory - :memory" +
+                " where cap.uuid = :uuid")
+                .param("cpu", cpu).param("memory", memory).param("uuid", hostUuid).execute();
+        logCapacityChange("updated", cpu, memory, rows);
+        return rows > 0;
+    }
+
+    /**
+     * give back cpu and memory, only succeeds if the result doesn't exceed the total
+     */
+    @DeadlockAutoRestart
+    public boolean giveBack(long cpu, long memory) {
+        int rows = SQL.New("update HostCapacityVO cap" +
+                " set cap.availableCpu = cap.availableCpu + :cpu," +
+                " cap.availableMemory = cap.availableMemory + :memory" +
+                " where cap.uuid = :uuid" +
+                " and cap.availableCpu + :cpu <= cap.totalCpu" +
+                " and cap.availableMemory + :memory <= cap.totalMemory")
+                .param("cpu", cpu).param("memory", memory).param("uuid", hostUuid).execute();
+        logCapacityChange("returned", cpu, memory, rows);
+        return rows > 0;
+    }
+}
@@ -0,0 +1,152 @@
+package org.zstack.compute.allocator;
+
+import org.zstack.core.db.Q;
+import org.zstack.header.allocator.HostCapacityVO;
+import org.zstack.header.allocator.HostCapacityVO_;
+import org.zstack.utils.DebugUtils;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import javax.persistence.Tuple;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-host ledger of capacity reservations. Reservations arriving while another one
+ * is writing the same host are queued, the next writer takes all of them and
+ * reserves their sum with one conditional update; only when the sum doesn't fit
+ * they are retried one by one, so each still gets its own success or failure.
+ *
+ * The write happens in whichever caller's thread holds the host lock, callers must
+ * not run inside a database transaction of their own.
+ */
+class HostCapacityReservationLedger {
+    private static final CLogger logger = Utils.getLogger(HostCapacityReservationLedger.class);
+
+    enum Result {
+        Reserved,
+        NoEnoughCpu,
+        NoEnoughMemory
+    }
+
+    private static class Reservation {
+        final long cpu;
+        final long memory;
+        final long reservedMemory;
+        Result result;
+        RuntimeException error;
+
+        Reservation(long cpu, long memory, long reservedMemory) {
+            this.cpu = cpu;
+            this.memory = memory;
+            this.reservedMemory = reservedMemory;
+        }
+
+        boolean isDone() {
+            return result != null || error != null;
+        }
+
+        // returning capacity through reserveCapacity() with negative numbers has its own
+        // checks, only pure reservations are summed up
+        boolean isCoalescable() {
+            return cpu >= 0 && memory >= 0;
+        }
+    }
+
+    private static class HostLedger {
+        final Queue<Reservation> pending = new ConcurrentLinkedQueue<>();
+        final ReentrantLock lock = new ReentrantLock();
+    }
+
+    private final Map<String, HostLedger> ledgers = new ConcurrentHashMap<>();
+
+    Result reserve(String hostUuid, long cpu, long memory, long reservedMemory) {
+        HostLedger ledger = ledgers.computeIfAbsent(hostUuid, k -> new HostLedger());
+        Reservation r = new Reservation(cpu, memory, reservedMemory);
+        ledger.pending.add(r);
+
+        ledger.lock.lock();
+        try {
+            if (!r.isDone()) {
+                flush(hostUuid, ledger);
+            }
+        } finally {
+            ledger.lock.unlock();
+        }
+
+        DebugUtils.Assert(r.isDone(), String.format("reservation on the host[uuid:%s] not handled", hostUuid));
+        if (r.error != null) {
+            throw r.error;
+        }
+
+        return r.result;
+    }
+
+    void forget(String hostUuid) {
+        ledgers.remove(hostUuid);
+    }
+
+    private void flush(String hostUuid, HostLedger ledger) {
+        List<Reservation> batch = new ArrayList<>();
+        Reservation r;
+        while ((r = ledger.pending.poll()) != null) {
+            batch.add(r);
+        }
+
+        try {
+            List<Reservation> coalescable = new ArrayList<>();
+            List<Reservation> singles = new ArrayList<>();
+            batch.forEach(it -> (it.isCoalescable() ? coalescable : singles).add(it));
+
+            if (coalescable.size() > 1) {
+                long cpu = coalescable.stream().mapToLong(it -> it.cpu).sum();
+                long memory = coalescable.stream().mapToLong(it -> it.memory).sum();
+                long reservedMemory = coalescable.stream().mapToLong(it -> it.reservedMemory).max().getAsLong();
+                if (new HostCapacityOptimisticUpdater(hostUuid).reserve(cpu, memory, reservedMemory)) {
+                    coalescable.forEach(it -> it.result = Result.Reserved);
+                    logger.debug(String.format("[Host Capacity] reserved %s requests[cpu:%s, memory:%s] on the host[uuid:%s] in one update",
+                            coalescable.size(), cpu, memory, hostUuid));
+                } else {
+                    singles.addAll(coalescable);
+                }
+            } else {
+                singles.addAll(coalescable);
+            }
+
+            for (Reservation s : singles) {
+                s.result = reserveOne(hostUuid, s);
+            }
+        } catch (RuntimeException e) {
+            batch.stream().filter(it -> !it.isDone()).forEach(it -> it.error = e);
+        }
+    }
+
+    private Result reserveOne(String hostUuid, Reservation r) {
+        if (new HostCapacityOptimisticUpdater(hostUuid).reserve(r.cpu, r.memory, r.reservedMemory)) {
+            return Result.Reserved;
+        }
+
+        Tuple t = Q.New(HostCapacityVO.class)
+                .select(HostCapacityVO_.availableCpu, HostCapacityVO_.availableMemory)
+                .eq(HostCapacityVO_.uuid, hostUuid)
+                .findTuple();
+        if (t == null) {
+            // same as HostCapacityUpdater, nothing to reserve on a deleted host
+            logger.warn(String.format("[Host Capacity] unable to update capacity for the host[uuid:%s]. It may have been deleted, cannot find it in database",
+                    hostUuid));
+            forget(hostUuid);
+            return Result.Reserved;
+        }
+
+        if (r.cpu != 0 && t.get(0, Long.class) < r.cpu) {
+            return Result.NoEnoughCpu;
+        }
+
+        return Result.NoEnoughMemory;
+    }
+}
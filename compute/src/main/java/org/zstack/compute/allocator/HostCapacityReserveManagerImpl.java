@@ -33,6 +33,7 @@ public class HostCapacityReserveManagerImpl implements HostCapacityReserveManage
     private HostCapacityOverProvisioningManager ratioMgr;
 
     private Map<String, HostReservedCapacityExtensionPoint> exts = new HashMap<>();
+    private final HostCapacityReservationLedger ledger = new HostCapacityReservationLedger();
 
     private void populateExtensions() {
         for (HostReservedCapacityExtensionPoint extp : pluginRgty.getExtensionList(HostReservedCapacityExtensionPoint.class)) {
@@ -243,6 +244,20 @@ public class HostCapacityReserveManagerImpl implements HostCapacityReserveManage
             ret.setReservedMemoryCapacity(0);
         }
 
+        if (HostAllocatorGlobalConfig.HOST_CAPACITY_OPTIMISTIC_UPDATE.value(Boolean.class)) {
+            HostCapacityReservationLedger.Result result = ledger.reserve(hostUuid, requestCpu,
+                    ratioMgr.calculateMemoryByRatio(hostUuid, requestMemory), ret.getReservedMemoryCapacity());
+            if (result == HostCapacityReservationLedger.Result.NoEnoughCpu) {
+                throw new UnableToReserveHostCapacityException(
+                        String.format("no enough CPU[%s] on the host[uuid:%s]", requestCpu, hostUuid));
+            } else if (result == HostCapacityReservationLedger.Result.NoEnoughMemory) {
+                throw new UnableToReserveHostCapacityException(
+                        String.format("no enough memory[%s] on the host[uuid:%s]", requestMemory, hostUuid));
+            }
+
+            return;
+        }
+
         updater.run(cap -> {
             long availCpu = cap.getAvailableCpu() - requestCpu;
             if (requestCpu != 0 && availCpu < 0) {
@@ -265,6 +280,11 @@ public class HostCapacityReserveManagerImpl implements HostCapacityReserveManage
     }
 
     private void updateCapacityWithoutChecking(String hostUuid, long cpuNum, long memorySize) {
+        if (HostAllocatorGlobalConfig.HOST_CAPACITY_OPTIMISTIC_UPDATE.value(Boolean.class)) {
+            new HostCapacityOptimisticUpdater(hostUuid).update(cpuNum, ratioMgr.calculateMemoryByRatio(hostUuid, memorySize));
+            return;
+        }
+
         HostCapacityUpdater updater = new HostCapacityUpdater(hostUuid);
         updater.run(cap -> {
             long availCpu = cap.getAvailableCpu() - cpuNum;
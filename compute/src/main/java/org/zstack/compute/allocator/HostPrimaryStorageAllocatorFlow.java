@@ -9,6 +9,7 @@ import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.Q;
 import org.zstack.core.db.SQL;
 import org.zstack.header.allocator.AbstractHostAllocatorFlow;
+import org.zstack.header.allocator.HostAllocatorSpec;
 import org.zstack.header.exception.CloudRuntimeException;
 import org.zstack.header.host.HostVO;
 import org.zstack.header.storage.primary.*;
@@ -22,7 +23,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 @Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
-public class HostPrimaryStorageAllocatorFlow extends AbstractHostAllocatorFlow {
+public class HostPrimaryStorageAllocatorFlow extends AbstractHostAllocatorFlow implements HostCandidateIndexFilter {
     private final static CLogger logger = Utils.getLogger(HostPrimaryStorageAllocatorFlow.class);
     @Autowired
     private DatabaseFacade dbf;
@@ -214,6 +215,33 @@ public class HostPrimaryStorageAllocatorFlow extends AbstractHostAllocatorFlow {
         return cap >= requiredSize;
     }
 
+    /**
+     * hosts in clusters attached to a usable primary storage, their capacities and the
+     * connections of the primary storage to the hosts are checked by the flow
+     */
+    @Override
+    public BitSet filter(HostCandidateIndex.Snapshot index, HostAllocatorSpec spec) {
+        List<PrimaryStorageState> states = VmOperation.NewCreate.toString().equals(spec.getVmOperation()) ?
+                Collections.singletonList(PrimaryStorageState.Enabled) :
+                Arrays.asList(PrimaryStorageState.Enabled, PrimaryStorageState.Disabled);
+        Set<String> requiredPsUuids = spec.getRequiredPrimaryStorageUuids();
+
+        SQL sql = SQL.New("select distinct ref.clusterUuid" +
+                " from PrimaryStorageClusterRefVO ref, PrimaryStorageVO ps" +
+                " where ref.primaryStorageUuid = ps.uuid" +
+                " and ps.state in (:states)" +
+                " and ps.status = :status" +
+                (requiredPsUuids.isEmpty() ? "" : " and ps.uuid in (:psUuids)"), String.class)
+                .param("states", states)
+                .param("status", PrimaryStorageStatus.Connected);
+        if (!requiredPsUuids.isEmpty()) {
+            sql.param("psUuids", requiredPsUuids);
+        }
+
+        List<String> clusterUuids = sql.list();
+        return index.getHostsInClusters(clusterUuids);
+    }
+
     @Override
     public void allocate() {
         if (amITheFirstFlow()) {
@@ -8,6 +8,7 @@ import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.SimpleQuery;
 import org.zstack.core.db.SimpleQuery.Op;
 import org.zstack.header.allocator.AbstractHostAllocatorFlow;
+import org.zstack.header.allocator.HostAllocatorSpec;
 import org.zstack.header.errorcode.ErrorCode;
 import org.zstack.header.host.HostState;
 import org.zstack.header.host.HostStatus;
@@ -17,12 +18,13 @@ import org.zstack.utils.Utils;
 import org.zstack.utils.logging.CLogger;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import static org.zstack.core.Platform.operr;
 
 @Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
-public class HostStateAndHypervisorAllocatorFlow extends AbstractHostAllocatorFlow {
+public class HostStateAndHypervisorAllocatorFlow extends AbstractHostAllocatorFlow implements HostCandidateIndexFilter {
     private static final CLogger logger = Utils.getLogger(HostStateAndHypervisorAllocatorFlow.class);
 
     @Autowired
@@ -58,6 +60,11 @@ public class HostStateAndHypervisorAllocatorFlow extends AbstractHostAllocatorFl
         return lst;
     }
 
+    @Override
+    public BitSet filter(HostCandidateIndex.Snapshot index, HostAllocatorSpec spec) {
+        return index.getEnabledAndConnectedHosts(spec.getHypervisorType());
+    }
+
     private boolean isNoEnabledHost() {
         return !candidates.stream().anyMatch(vo -> HostState.Enabled == vo.getState());
     }
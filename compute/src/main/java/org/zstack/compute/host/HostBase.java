@@ -34,6 +34,7 @@ import org.zstack.header.exception.CloudRuntimeException;
 import org.zstack.header.host.*;
 import org.zstack.header.host.HostCanonicalEvents.HostDeletedData;
 import org.zstack.header.host.HostCanonicalEvents.HostStatusChangedData;
+import org.zstack.header.host.HostCanonicalEvents.HostStateChangedData;
 import org.zstack.header.host.HostErrors.Opaque;
 import org.zstack.header.host.HostMaintenancePolicyExtensionPoint.HostMaintenancePolicy;
 import org.zstack.header.message.APIDeleteMessage;
@@ -48,6 +49,7 @@ import org.zstack.utils.function.ForEachFunction;
 import org.zstack.utils.logging.CLogger;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import static org.zstack.core.Platform.err;
@@ -101,6 +103,12 @@ public abstract class HostBase extends AbstractHost {
 
     protected final String id;
 
+    // host objects are created per message, so the deletion flag is kept by uuid with the time
+    // it was set. It is dropped when no agent call sent before the deletion can still be waiting
+    // for its reply, 72 hours is the longest default API timeout
+    private static final long DELETED_HOST_FLAG_TTL = TimeUnit.HOURS.toMillis(72);
+    private static final Map<String, Long> deletedHosts = new ConcurrentHashMap<>();
+
     protected abstract void pingHook(Completion completion);
 
     protected abstract int getVmMigrateQuantity();
@@ -121,6 +129,20 @@ public abstract class HostBase extends AbstractHost {
         return id;
     }
 
+    /**
+     * true if HostDeletionMsg of this host has been handled on this management node and
+     * the HostVO is gone; the database is only consulted once the host is flagged
+     */
+    protected boolean isDeleted() {
+        return deletedHosts.containsKey(self.getUuid()) && !dbf.isExist(self.getUuid(), HostVO.class);
+    }
+
+    private static void flagDeleted(String hostUuid) {
+        long now = System.currentTimeMillis();
+        deletedHosts.values().removeIf(t -> now - t > DELETED_HOST_FLAG_TTL);
+        deletedHosts.put(hostUuid, now);
+    }
+
     protected void checkStatus() {
         if (HostStatus.Connected != self.getStatus()) {
             ErrorCode cause = err(HostErrors.HOST_IS_DISCONNECTED, "host[uuid:%s, name:%s] is in status[%s], cannot perform required operation", self.getUuid(), self.getName(), self.getStatus());
@@ -497,6 +519,13 @@ public abstract class HostBase extends AbstractHost {
         self = dbf.updateAndRefresh(self);
         extpEmitter.afterChange(self, event, currentState);
         logger.debug(String.format("Host[%s]'s state changed from %s to %s", self.getUuid(), currentState, self.getState()));
+
+        HostStateChangedData data = new HostStateChangedData();
+        data.setHostUuid(self.getUuid());
+        data.setOldState(currentState.toString());
+        data.setNewState(self.getState().toString());
+        data.setInventory(HostInventory.valueOf(self));
+        evtf.fire(HostCanonicalEvents.HOST_STATE_CHANGED_PATH, data);
         return self.getState();
     }
 
@@ -742,6 +771,7 @@ public abstract class HostBase extends AbstractHost {
             public void run(SyncTaskChain chain) {
                 HostInventory hinv = HostInventory.valueOf(self);
                 extpEmitter.beforeDelete(hinv);
+                flagDeleted(self.getUuid());
                 deleteHook();
                 extpEmitter.afterDelete(hinv);
                 bus.reply(msg, new HostDeletionReply());
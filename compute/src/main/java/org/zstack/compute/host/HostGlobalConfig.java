@@ -24,6 +24,10 @@ public class HostGlobalConfig {
     public static GlobalConfig HOST_TRACK_PARALLELISM_DEGREE = new GlobalConfig(CATEGORY, "ping.parallelismDegree");
     @GlobalConfigValidation(numberGreaterThan = 1)
     public static GlobalConfig PING_HOST_INTERVAL = new GlobalConfig(CATEGORY, "ping.interval");
+    @GlobalConfigValidation
+    public static GlobalConfig PING_HOST_BATCH_MODE = new GlobalConfig(CATEGORY, "ping.batchMode");
+    @GlobalConfigValidation(numberGreaterThan = 0)
+    public static GlobalConfig PING_HOST_BATCH_PARALLELISM_DEGREE = new GlobalConfig(CATEGORY, "ping.batch.parallelismDegree");
     @GlobalConfigValidation(numberGreaterThan = 1)
     public static GlobalConfig PING_HOST_TIMEOUT = new GlobalConfig(CATEGORY, "ping.timeout");
     @GlobalConfigValidation(numberGreaterThan = 0)
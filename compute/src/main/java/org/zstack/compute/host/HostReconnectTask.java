@@ -33,7 +33,7 @@ public abstract class HostReconnectTask extends AsyncTimer {
     protected abstract CanDoAnswer canDoReconnect();
 
     public HostReconnectTask(String uuid, NoErrorCompletion completion) {
-        super(TimeUnit.SECONDS, HostGlobalConfig.PING_HOST_INTERVAL.value(Long.class));
+        super(TimeUnit.SECONDS, HostGlobalConfig.PING_HOST_INTERVAL.intValue());
         this.uuid = uuid;
         this.completion = completion;
 
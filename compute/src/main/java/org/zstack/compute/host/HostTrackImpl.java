@@ -18,6 +18,7 @@ import org.zstack.header.managementnode.ManagementNodeChangeListener;
 import org.zstack.header.managementnode.ManagementNodeInventory;
 import org.zstack.header.managementnode.ManagementNodeReadyExtensionPoint;
 import org.zstack.header.message.MessageReply;
+import org.zstack.header.message.NeedReplyMessage;
 import org.zstack.utils.Utils;
 import org.zstack.utils.logging.CLogger;
 
@@ -25,13 +26,15 @@ import javax.persistence.Tuple;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class HostTrackImpl implements HostTracker, ManagementNodeChangeListener, Component, ManagementNodeReadyExtensionPoint {
     private final static CLogger logger = Utils.getLogger(HostTrackImpl.class);
 
-    private Map<String, Tracker> trackers = new HashMap<>();
+    private Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+    private BatchTracker batchTracker;
 
     @Autowired
     private DatabaseFacade dbf;
@@ -85,20 +88,52 @@ public class HostTrackImpl implements HostTracker, ManagementNodeChangeListener,
         private String uuid;
         private String hypervisorType;
         private HostReconnectTask reconnectTask;
+        // in batch mode the tracker is not scheduled by itself, BatchTracker pings it and
+        // this flag tells whether a ping or reconnect of the host is still in progress
+        private final boolean batched;
+        private final AtomicBoolean busy = new AtomicBoolean(false);
 
         Tracker(String uuid) {
-            super(TimeUnit.SECONDS, HostGlobalConfig.PING_HOST_INTERVAL.value(Long.class));
+            this(uuid, Q.New(HostVO.class).select(HostVO_.hypervisorType)
+                    .eq(HostVO_.uuid, uuid).findValue());
+        }
+
+        Tracker(String uuid, String hypervisorType) {
+            super(TimeUnit.SECONDS, HostGlobalConfig.PING_HOST_INTERVAL.intValue());
             this.uuid = uuid;
-            hypervisorType = Q.New(HostVO.class).select(HostVO_.hypervisorType)
-                    .eq(HostVO_.uuid, uuid).findValue();
+            this.hypervisorType = hypervisorType;
             if (hypervisorType == null) {
                 throw new CloudRuntimeException(String.format("host[uuid:%s] is deleted, why you submit a tracker for it???", uuid));
             }
 
+            batched = HostGlobalConfig.PING_HOST_BATCH_MODE.value(Boolean.class);
 
             __name__ = String.format("host-tracker-%s-hypervisor-%s", uuid, hypervisorType);
         }
 
+        @Override
+        public void start() {
+            if (batched) {
+                return;
+            }
+
+            super.start();
+        }
+
+        @Override
+        protected void continueToRunThisTimer() {
+            if (batched) {
+                busy.set(false);
+                return;
+            }
+
+            super.continueToRunThisTimer();
+        }
+
+        boolean claimForBatch() {
+            return batched && !isCanceled() && busy.compareAndSet(false, true);
+        }
+
         @Override
         protected void execute() {
             track();
@@ -109,64 +144,86 @@ public class HostTrackImpl implements HostTracker, ManagementNodeChangeListener,
                     .eq(HostVO_.uuid, uuid).findTuple();
 
             if (t == null) {
-                logger.debug(String.format("host[uuid:%s] seems to be deleted, stop tracking it", uuid));
+                hostDeleted();
                 return;
             }
 
-            HostState state = t.get(0, HostState.class);
+            if (skipPing(t.get(0, HostState.class))) {
+                return;
+            }
+
+            PingHostMsg msg = makePingMsg();
+            bus.send(msg, new CloudBusCallBack(null) {
+                @Override
+                public void run(MessageReply reply) {
+                    handlePingReply(reply);
+                }
+            });
+        }
 
+        void hostDeleted() {
+            logger.debug(String.format("host[uuid:%s] seems to be deleted, stop tracking it", uuid));
+            if (batched) {
+                cancel();
+            }
+        }
+
+        boolean skipPing(HostState state) {
             if (state == HostState.PreMaintenance || state == HostState.Maintenance) {
                 logger.debug(String.format("host[uuid:%s] is in state of %s, not tracking it this time", uuid, state));
                 continueToRunThisTimer();
-                return;
+                return true;
             }
 
+            return false;
+        }
+
+        PingHostMsg makePingMsg() {
             PingHostMsg msg = new PingHostMsg();
             msg.setHostUuid(uuid);
             bus.makeTargetServiceIdByResourceUuid(msg, HostConstant.SERVICE_ID, uuid);
-            bus.send(msg, new CloudBusCallBack(null) {
-                @Override
-                public void run(MessageReply reply) {
-                    decideWhatToDoNext(makeReconnectDecision(reply));
-                }
+            return msg;
+        }
 
-                private ReconnectDecision makeReconnectDecision(MessageReply reply) {
-                    if (!reply.isSuccess()) {
-                        logger.warn(String.format("[Host Tracker]: unable track host[uuid:%s], %s", uuid, reply.getError()));
-                        return ReconnectDecision.DoNothing;
-                    }
+        void handlePingReply(MessageReply reply) {
+            decideWhatToDoNext(makeReconnectDecision(reply));
+        }
 
-                    PingHostReply r = reply.castReply();
-                    if (r.isNoReconnect()) {
-                        return ReconnectDecision.DoNothing;
-                    }
+        private ReconnectDecision makeReconnectDecision(MessageReply reply) {
+            if (!reply.isSuccess()) {
+                logger.warn(String.format("[Host Tracker]: unable track host[uuid:%s], %s", uuid, reply.getError()));
+                return ReconnectDecision.DoNothing;
+            }
 
-                    AtomicInteger disconnectCount = hostDisconnectCount.get(uuid);
-                    int threshold = HostGlobalConfig.AUTO_RECONNECT_ON_ERROR_MAX_ATTEMPT_NUM.value(Integer.class);
-                    if (threshold > 0 && disconnectCount != null && disconnectCount.get() >= threshold) {
-                        logger.warn(String.format("stop pinging host[uuid:%s, hypervisorType:%s] because it fail to reconnect too many times", uuid, hypervisorType));
-                        return ReconnectDecision.StopPing;
-                    }
+            PingHostReply r = reply.castReply();
+            if (r.isNoReconnect()) {
+                return ReconnectDecision.DoNothing;
+            }
 
-                    boolean autoReconnect = HostGlobalConfig.AUTO_RECONNECT_ON_ERROR.value(Boolean.class);
-                    if (!r.isConnected() && autoReconnect) {
-                        return ReconnectDecision.SubmitReconnectTask;
-                    }
+            AtomicInteger disconnectCount = hostDisconnectCount.get(uuid);
+            int threshold = HostGlobalConfig.AUTO_RECONNECT_ON_ERROR_MAX_ATTEMPT_NUM.value(Integer.class);
+            if (threshold > 0 && disconnectCount != null && disconnectCount.get() >= threshold) {
+                logger.warn(String.format("stop pinging host[uuid:%s, hypervisorType:%s] because it fail to reconnect too many times", uuid, hypervisorType));
+                return ReconnectDecision.StopPing;
+            }
 
-                    // host can be successfully pinged
-                    if (r.getCurrentHostStatus().equals(HostStatus.Disconnected.toString())) {
-                        if (autoReconnect) {
-                            return ReconnectDecision.ReconnectNow;
-                        } else {
-                            logger.warn(String.format("stop pinging host[uuid:%s, hypervisorType:%s] because it's disconnected and connection.autoReconnectOnError is false", uuid, hypervisorType));
-                            return ReconnectDecision.StopPing;
-                        }
-                    }
+            boolean autoReconnect = HostGlobalConfig.AUTO_RECONNECT_ON_ERROR.value(Boolean.class);
+            if (!r.isConnected() && autoReconnect) {
+                return ReconnectDecision.SubmitReconnectTask;
+            }
 
-                    // host can be pinged and the current status is Connected
-                    return ReconnectDecision.DoNothing;
+            // host can be successfully pinged
+            if (r.getCurrentHostStatus().equals(HostStatus.Disconnected.toString())) {
+                if (autoReconnect) {
+                    return ReconnectDecision.ReconnectNow;
+                } else {
+                    logger.warn(String.format("stop pinging host[uuid:%s, hypervisorType:%s] because it's disconnected and connection.autoReconnectOnError is false", uuid, hypervisorType));
+                    return ReconnectDecision.StopPing;
                 }
-            });
+            }
+
+            // host can be pinged and the current status is Connected
+            return ReconnectDecision.DoNothing;
         }
 
         private void decideWhatToDoNext(ReconnectDecision decision) {
@@ -225,21 +282,119 @@ public class HostTrackImpl implements HostTracker, ManagementNodeChangeListener,
 
             super.cancel();
 
-            trackers.remove(uuid);
+            trackers.remove(uuid, this);
+        }
+    }
+
+    /**
+     * one timer per management node pinging all hosts tracked in batch mode: host state of
+     * all trackers is loaded by one query per page, and pings are sent per hypervisor type
+     * with bounded parallelism
+     */
+    private class BatchTracker extends AsyncTimer {
+        private static final int QUERY_PAGE_SIZE = 1000;
+
+        BatchTracker() {
+            super(TimeUnit.SECONDS, HostGlobalConfig.PING_HOST_INTERVAL.intValue());
+            __name__ = "host-batch-tracker";
+        }
+
+        @Override
+        protected void execute() {
+            try {
+                track();
+            } catch (Throwable t) {
+                logger.warn("[Host Tracker]: unhandled exception when batch pinging hosts", t);
+            }
+
+            continueToRunThisTimer();
+        }
+
+        private void track() {
+            // trackers whose last ping or reconnect has not finished are skipped this round
+            Map<String, Tracker> claimed = new HashMap<>();
+            trackers.forEach((uuid, t) -> {
+                if (t.claimForBatch()) {
+                    claimed.put(uuid, t);
+                }
+            });
+
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            Map<String, List<Tracker>> toPing = new HashMap<>();
+            List<String> uuids = new ArrayList<>(claimed.keySet());
+            try {
+                for (int i = 0; i < uuids.size(); i += QUERY_PAGE_SIZE) {
+                    List<String> page = uuids.subList(i, Math.min(i + QUERY_PAGE_SIZE, uuids.size()));
+                    List<Tuple> ts = Q.New(HostVO.class).select(HostVO_.uuid, HostVO_.hypervisorType, HostVO_.state)
+                            .in(HostVO_.uuid, page).listTuple();
+
+                    for (Tuple t : ts) {
+                        Tracker tracker = claimed.remove(t.get(0, String.class));
+                        if (tracker.skipPing(t.get(2, HostState.class))) {
+                            continue;
+                        }
+
+                        toPing.computeIfAbsent(t.get(1, String.class), k -> new ArrayList<>()).add(tracker);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // release the trackers so they are pinged next round
+                claimed.values().forEach(Tracker::continueToRunThisTimer);
+                toPing.values().forEach(ts -> ts.forEach(Tracker::continueToRunThisTimer));
+                throw e;
+            }
+
+            // hosts not returned by the queries have been deleted
+            claimed.values().forEach(Tracker::hostDeleted);
+
+            int parallelism = HostGlobalConfig.PING_HOST_BATCH_PARALLELISM_DEGREE.value(Integer.class);
+            toPing.forEach((hvType, ts) -> {
+                Map<String, Tracker> byMsgId = new HashMap<>();
+                List<PingHostMsg> msgs = ts.stream().map(t -> {
+                    PingHostMsg msg = t.makePingMsg();
+                    byMsgId.put(msg.getId(), t);
+                    return msg;
+                }).collect(Collectors.toList());
+
+                logger.debug(String.format("[Host Tracker]: batch pinging %s hosts of hypervisor type[%s]", msgs.size(), hvType));
+                bus.send(msgs, parallelism, new CloudBusSteppingCallback(null) {
+                    @Override
+                    public void run(NeedReplyMessage msg, MessageReply reply) {
+                        byMsgId.get(msg.getId()).handlePingReply(reply);
+                    }
+                });
+            });
+        }
+    }
+
+    private synchronized void restartBatchTracker() {
+        if (batchTracker != null) {
+            batchTracker.cancel();
+            batchTracker = null;
+        }
+
+        if (HostGlobalConfig.PING_HOST_BATCH_MODE.value(Boolean.class)) {
+            batchTracker = new BatchTracker();
+            batchTracker.start();
         }
     }
 
 
     public void trackHost(String hostUuid) {
-        Tracker t = trackers.get(hostUuid);
-        if (t != null) {
-            t.cancel();
+        startTracker(new Tracker(hostUuid));
+    }
+
+    private void startTracker(Tracker t) {
+        Tracker old = trackers.put(t.uuid, t);
+        if (old != null) {
+            old.cancel();
         }
 
-        t = new Tracker(hostUuid);
-        trackers.put(hostUuid, t);
         t.start();
-        logger.debug(String.format("starting tracking hosts[uuid:%s]", hostUuid));
+        logger.debug(String.format("starting tracking hosts[uuid:%s]", t.uuid));
     }
 
     @Override
@@ -269,35 +424,68 @@ public class HostTrackImpl implements HostTracker, ManagementNodeChangeListener,
     private void reScanHost(boolean skipExisting) {
         if (!skipExisting) {
             new HashSet<>(trackers.values()).forEach(Tracker::cancel);
+            restartBatchTracker();
         }
 
         new SQLBatch() {
             @Override
             protected void scripts() {
                 long count = sql("select count(h) from HostVO h", Long.class).find();
-                sql("select h.uuid from HostVO h", String.class).limit(1000).paginate(count, (List<String> hostUuids) -> {
-                    List<String> byUs = hostUuids.stream().filter(huuid -> {
-                        if (skipExisting) {
-                            return destMaker.isManagedByUs(huuid) && !trackers.containsKey(huuid);
-                        } else {
-                            return destMaker.isManagedByUs(huuid);
+                sql("select h.uuid, h.hypervisorType from HostVO h", Tuple.class).limit(1000).paginate(count, (List<Tuple> hosts) -> {
+                    hosts.forEach(t -> {
+                        String huuid = t.get(0, String.class);
+                        if (!destMaker.isManagedByUs(huuid) || (skipExisting && trackers.containsKey(huuid))) {
+                            return;
                         }
-                    }).collect(Collectors.toList());
 
-                    trackHost(byUs);
+                        startTracker(new Tracker(huuid, t.get(1, String.class)));
+                    });
                 });
             }
         }.execute();
     }
 
+    /**
+     * on management nodes joining or leaving, only hosts whose owner changed are
+     * touched: trackers of hosts taken by other nodes stop, hosts we newly own get
+     * trackers, and trackers of hosts still ours keep running
+     */
+    private synchronized void rebalanceHosts() {
+        ResourceDestinationMaker.OwnershipSnapshot ownership = destMaker.getOwnershipSnapshot();
+
+        List<String> lost = trackers.keySet().stream().filter(huuid -> !ownership.isManagedByUs(huuid))
+                .collect(Collectors.toList());
+        untrackHost(lost);
+
+        List<Tuple> claimed = new ArrayList<>();
+        new SQLBatch() {
+            @Override
+            protected void scripts() {
+                long count = sql("select count(h) from HostVO h", Long.class).find();
+                sql("select h.uuid, h.hypervisorType from HostVO h", Tuple.class).limit(1000).paginate(count, (List<Tuple> hosts) -> {
+                    hosts.forEach(t -> {
+                        String huuid = t.get(0, String.class);
+                        if (ownership.isManagedByUs(huuid) && !trackers.containsKey(huuid)) {
+                            claimed.add(t);
+                        }
+                    });
+                });
+            }
+        }.execute();
+
+        claimed.forEach(t -> startTracker(new Tracker(t.get(0, String.class), t.get(1, String.class))));
+        logger.debug(String.format("[Host Tracker]: management nodes changed, stopped tracking %s hosts and started tracking %s hosts",
+                lost.size(), claimed.size()));
+    }
+
     @Override
     public void nodeJoin(ManagementNodeInventory inv) {
-        reScanHost();
+        rebalanceHosts();
     }
 
     @Override
     public void nodeLeft(ManagementNodeInventory inv) {
-        reScanHost();
+        rebalanceHosts();
     }
 
     @Override
@@ -330,6 +518,12 @@ public class HostTrackImpl implements HostTracker, ManagementNodeChangeListener,
             reScanHost();
         });
 
+        HostGlobalConfig.PING_HOST_BATCH_MODE.installUpdateExtension((oldConfig, newConfig) -> {
+            logger.debug(String.format("%s change from %s to %s, restart host trackers",
+                    oldConfig.getCanonicalName(), oldConfig.value(), newConfig.value()));
+            reScanHost();
+        });
+
         HostGlobalConfig.AUTO_RECONNECT_ON_ERROR.installUpdateExtension((oc, nc)-> {
             if (nc.value(Boolean.class)) {
                 logger.debug(String.format("%s change from %s to %s, restart host trackers",
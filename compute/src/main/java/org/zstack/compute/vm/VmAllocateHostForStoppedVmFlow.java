@@ -19,10 +19,12 @@ import org.zstack.header.message.MessageReply;
 import org.zstack.header.network.l3.L3NetworkInventory;
 import org.zstack.header.vm.*;
 import org.zstack.header.volume.VolumeInventory;
+import org.zstack.resourceconfig.ResourceConfigFacade;
 import org.zstack.utils.CollectionUtils;
 import org.zstack.utils.function.Function;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
@@ -35,6 +37,8 @@ public class VmAllocateHostForStoppedVmFlow implements Flow {
     protected ErrorFacade errf;
     @Autowired
     protected VmInstanceExtensionPointEmitter extEmitter;
+    @Autowired
+    protected ResourceConfigFacade rcf;
 
     private static final String SUCCESS = VmAllocateHostForStoppedVmFlow.class.getName();
 
@@ -107,6 +111,10 @@ public class VmAllocateHostForStoppedVmFlow implements Flow {
                     }
                 }.execute();
 
+                if (!Objects.equals(spec.getVmInventory().getClusterUuid(), areply.getHost().getClusterUuid())) {
+                    rcf.resourceReparented(spec.getVmInventory().getUuid());
+                }
+
                 data.put(SUCCESS, true);
                 chain.next();
             }
@@ -119,20 +119,7 @@ public class VmAllocateNicFlow implements Flow {
                 vnicFactory = vmMgr.getVmInstanceNicFactory(VmNicType.valueOf("VNIC"));
             }
 
-            AllocateIpMsg msg = new AllocateIpMsg();
-            msg.setL3NetworkUuid(nw.getUuid());
-            msg.setAllocateStrategy(spec.getIpAllocatorStrategy());
-            String staticIp = vmStaticIps.get(nw.getUuid());
-            if (staticIp != null) {
-                msg.setRequiredIp(staticIp);
-            } else {
-                l3nm.updateIpAllocationMsg(msg, customMac);
-            }
-            if (allowDuplicatedAddress != null) {
-                msg.setDuplicatedIpAllowed(allowDuplicatedAddress);
-            }
-            bus.makeTargetServiceIdByResourceUuid(msg, L3NetworkConstant.SERVICE_ID, nw.getUuid());
-            bus.send(msg, new CloudBusCallBack(wcomp) {
+            CloudBusCallBack callback = new CloudBusCallBack(wcomp) {
                 @Override
                 public void run(MessageReply reply) {
                     if (reply.isSuccess()) {
@@ -180,7 +167,30 @@ public class VmAllocateNicFlow implements Flow {
                         wcomp.allDone();
                     }
                 }
-            });
+            };
+
+            if (nicSpec.getAllocatedIp() != null) {
+                // allocated with the other vms of a batch, it's returned by the rollback like an ip allocated here
+                AllocateIpReply areply = new AllocateIpReply();
+                areply.setIpInventory(nicSpec.getAllocatedIp());
+                callback.run(areply);
+                return;
+            }
+
+            AllocateIpMsg msg = new AllocateIpMsg();
+            msg.setL3NetworkUuid(nw.getUuid());
+            msg.setAllocateStrategy(spec.getIpAllocatorStrategy());
+            String staticIp = vmStaticIps.get(nw.getUuid());
+            if (staticIp != null) {
+                msg.setRequiredIp(staticIp);
+            } else {
+                l3nm.updateIpAllocationMsg(msg, customMac);
+            }
+            if (allowDuplicatedAddress != null) {
+                msg.setDuplicatedIpAllowed(allowDuplicatedAddress);
+            }
+            bus.makeTargetServiceIdByResourceUuid(msg, L3NetworkConstant.SERVICE_ID, nw.getUuid());
+            bus.send(msg, callback);
         }).run(new NoErrorCompletion() {
             @Override
             public void done() {
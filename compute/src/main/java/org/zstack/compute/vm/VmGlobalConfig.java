@@ -70,4 +70,13 @@ public class VmGlobalConfig {
 
     @GlobalConfigValidation(numberGreaterThan = 1)
     public static GlobalConfig UNKNOWN_GC_INTERVAL = new GlobalConfig(CATEGORY, "set.unknown.gc.interval");
+
+    @GlobalConfigValidation
+    public static GlobalConfig VM_TRACER_DIGEST = new GlobalConfig(CATEGORY, "vmTracer.digest");
+
+    @GlobalConfigValidation(numberGreaterThan = 0)
+    public static GlobalConfig VM_TRACER_FULL_RECONCILE_INTERVAL = new GlobalConfig(CATEGORY, "vmTracer.fullReconcileInterval");
+
+    @GlobalConfigValidation(numberGreaterThan = 0)
+    public static GlobalConfig BATCH_CREATE_PARALLELISM = new GlobalConfig(CATEGORY, "batchCreate.parallelism");
 }
@@ -79,6 +79,8 @@ public class VmInstanceApiInterceptor implements ApiMessageInterceptor {
     public APIMessage intercept(APIMessage msg) throws ApiMessageInterceptionException {
         if (msg instanceof APIDestroyVmInstanceMsg) {
             validate((APIDestroyVmInstanceMsg) msg);
+        } else if (msg instanceof APIBatchCreateVmInstanceMsg) {
+            validate((APIBatchCreateVmInstanceMsg) msg);
         } else if (msg instanceof APICreateVmInstanceMsg) {
             validate((APICreateVmInstanceMsg) msg);
         } else if (msg instanceof APICreateVmInstanceFromVolumeMsg) {
@@ -790,6 +792,24 @@ public class VmInstanceApiInterceptor implements ApiMessageInterceptor {
         }
     }
 
+    private void validate(APIBatchCreateVmInstanceMsg msg) {
+        validate((APICreateVmInstanceMsg) msg);
+
+        if (msg.getResourceUuid() != null) {
+            throw new ApiMessageInterceptionException(argerr("resourceUuid cannot be set when creating vms in batch"));
+        }
+
+        // tags that can only be taken by one vm
+        if (msg.getSystemTags() != null) {
+            Optional<String> unique = msg.getSystemTags().stream()
+                    .filter(t -> VmSystemTags.STATIC_IP.isMatch(t) || VmSystemTags.CUSTOM_MAC.isMatch(t) || VmSystemTags.HOSTNAME.isMatch(t))
+                    .findAny();
+            if (unique.isPresent()) {
+                throw new ApiMessageInterceptionException(argerr("system tag[%s] cannot be used when creating vms in batch", unique.get()));
+            }
+        }
+    }
+
     private void validate(APICreateVmInstanceFromVolumeMsg msg) {
         validate((NewVmInstanceMessage2) msg);
 
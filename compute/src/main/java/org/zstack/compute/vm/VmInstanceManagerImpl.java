@@ -23,7 +23,9 @@ import org.zstack.core.workflow.FlowChainBuilder;
 import org.zstack.header.AbstractService;
 import org.zstack.header.allocator.AllocateHostDryRunReply;
 import org.zstack.header.allocator.DesignatedAllocateHostMsg;
+import org.zstack.header.allocator.HostAllocatorError;
 import org.zstack.header.allocator.HostAllocatorConstant;
+import org.zstack.header.allocator.HostCapacityOverProvisioningManager;
 import org.zstack.header.apimediator.ApiMessageInterceptionException;
 import org.zstack.header.apimediator.GlobalApiMessageInterceptor;
 import org.zstack.header.cluster.ClusterInventory;
@@ -72,6 +74,7 @@ import org.zstack.utils.ObjectUtils;
 import org.zstack.utils.TagUtils;
 import org.zstack.utils.Utils;
 import org.zstack.utils.function.Function;
+import org.zstack.utils.gson.JSONObjectUtil;
 import org.zstack.utils.logging.CLogger;
 import org.zstack.utils.network.IPv6Constants;
 import org.zstack.utils.network.IPv6NetworkUtils;
@@ -83,10 +86,13 @@ import java.sql.Timestamp;
 import java.util.*;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
 import static org.zstack.core.Platform.*;
+import static org.zstack.core.progress.ProgressReportService.reportProgress;
+import static org.zstack.core.progress.ProgressReportService.taskProgress;
 import static org.zstack.utils.CollectionDSL.list;
 
 public class VmInstanceManagerImpl extends AbstractService implements
@@ -159,6 +165,8 @@ public class VmInstanceManagerImpl extends AbstractService implements
     @Autowired
     private HostAllocatorManager hostAllocatorMgr;
     @Autowired
+    private HostCapacityOverProvisioningManager ratioMgr;
+    @Autowired
     protected VmInstanceExtensionPointEmitter extEmitter;
     @Autowired
     protected L3NetworkManager l3nm;
@@ -205,7 +213,9 @@ public class VmInstanceManagerImpl extends AbstractService implements
     }
 
     private void handleApiMessage(APIMessage msg) {
-        if (msg instanceof APICreateVmInstanceMsg) {
+        if (msg instanceof APIBatchCreateVmInstanceMsg) {
+            handle((APIBatchCreateVmInstanceMsg) msg);
+        } else if (msg instanceof APICreateVmInstanceMsg) {
             handle((APICreateVmInstanceMsg) msg);
         } else if (msg instanceof APICreateVmInstanceFromVolumeMsg) {
             handle((APICreateVmInstanceFromVolumeMsg) msg);
@@ -1231,6 +1241,408 @@ public class VmInstanceManagerImpl extends AbstractService implements
         });
     }
 
+    private void handle(final APIBatchCreateVmInstanceMsg msg) {
+        APIBatchCreateVmInstanceEvent evt = new APIBatchCreateVmInstanceEvent(msg.getId());
+
+        // zone, instance offering and nic specs are resolved once for the whole batch
+        CreateVmInstanceMsg template = fromAPICreateVmInstanceMsg(msg);
+
+        List<BatchCreateVmInstanceStruct> results = new ArrayList<>();
+        List<CreateVmInstanceMsg> cmsgs = new ArrayList<>();
+        for (int i = 0; i < msg.getAmount(); i++) {
+            CreateVmInstanceMsg cmsg = newBatchVmMsg(template, String.format("%s-%s", msg.getName(), i + 1));
+            cmsgs.add(cmsg);
+
+            BatchCreateVmInstanceStruct r = new BatchCreateVmInstanceStruct();
+            r.setName(cmsg.getName());
+            results.add(r);
+        }
+
+        reportProgress("0");
+        planBatchHosts(msg, template, new ReturnValueCompletion<List<String>>(msg) {
+            @Override
+            public void success(List<String> hostUuids) {
+                allocateBatchIps(msg, template, cmsgs, new NoErrorCompletion(msg) {
+                    @Override
+                    public void done() {
+                        createBatchVms(msg, template, cmsgs, hostUuids, results, evt);
+                    }
+                });
+            }
+
+            @Override
+            public void fail(ErrorCode errorCode) {
+                evt.setError(errorCode);
+                bus.publish(evt);
+            }
+        });
+    }
+
+    private void createBatchVms(APIBatchCreateVmInstanceMsg msg, CreateVmInstanceMsg template, List<CreateVmInstanceMsg> cmsgs,
+                                List<String> hostUuids, List<BatchCreateVmInstanceStruct> results, APIBatchCreateVmInstanceEvent evt) {
+        // message id -> result
+        Map<String, BatchCreateVmInstanceStruct> resultOf = new HashMap<>();
+        Map<String, LinkedList<CreateVmInstanceMsg>> byHost = new LinkedHashMap<>();
+        Set<String> planned = new HashSet<>();
+        for (int i = 0; i < cmsgs.size(); i++) {
+            CreateVmInstanceMsg cmsg = cmsgs.get(i);
+            resultOf.put(cmsg.getId(), results.get(i));
+            if (i < hostUuids.size() && hostUuids.get(i) != null) {
+                cmsg.setHostUuid(hostUuids.get(i));
+                planned.add(cmsg.getId());
+            }
+            byHost.computeIfAbsent(String.valueOf(cmsg.getHostUuid()), k -> new LinkedList<>()).add(cmsg);
+        }
+
+        // take the vms of the hosts in turn, so the pipeline keeps every host busy
+        // instead of sending all vms of one host at the same time
+        List<CreateVmInstanceMsg> ordered = new ArrayList<>();
+        while (ordered.size() < cmsgs.size()) {
+            byHost.values().stream().filter(l -> !l.isEmpty()).forEach(l -> ordered.add(l.poll()));
+        }
+
+        AtomicInteger done = new AtomicInteger();
+        new While<>(ordered).step((cmsg, completion) -> {
+            BatchCreateVmInstanceStruct r = resultOf.get(cmsg.getId());
+            createBatchVm(cmsg, template, msg, planned.contains(cmsg.getId()), new ReturnValueCompletion<VmInstanceInventory>(completion) {
+                @Override
+                public void success(VmInstanceInventory inv) {
+                    r.setSuccess(true);
+                    r.setInventory(inv);
+                    report(true);
+                }
+
+                @Override
+                public void fail(ErrorCode errorCode) {
+                    r.setError(errorCode);
+                    returnUnusedBatchIps(cmsg);
+                    report(false);
+                }
+
+                private void report(boolean success) {
+                    int count = done.incrementAndGet();
+                    taskProgress("%s vm[name:%s] (%s/%s)", success ? "created" : "failed to create", r.getName(), count, cmsgs.size());
+                    reportProgress(String.valueOf(count * 100 / cmsgs.size()));
+                    completion.done();
+                }
+            });
+        }, VmGlobalConfig.BATCH_CREATE_PARALLELISM.value(Integer.class)).run(new NoErrorCompletion(msg) {
+            @Override
+            public void done() {
+                evt.setResults(results);
+                bus.publish(evt);
+            }
+        });
+    }
+
+    /**
+     * allocates the ips of the first l3 network of every nic for the whole batch with one message
+     * to each l3 network, the nics take them instead of allocating one per vm. The l3 networks where
+     * the ip of a nic depends on the vm, i.e. ipv6 addresses from the mac, and the vms beyond the
+     * ips got are left to allocate their own ips. Static ips are not allowed in a batch
+     */
+    private void allocateBatchIps(APIBatchCreateVmInstanceMsg msg, CreateVmInstanceMsg template, List<CreateVmInstanceMsg> cmsgs,
+                                  NoErrorCompletion completion) {
+        // a vm not started now allocates its ips on its first start
+        if (!VmCreationStrategy.InstantStart.toString().equals(template.getStrategy())) {
+            completion.done();
+            return;
+        }
+
+        // nic index -> message
+        Map<Integer, AllocateIpsMsg> amsgs = new LinkedHashMap<>();
+        List<VmNicSpec> nicSpecs = template.getL3NetworkSpecs();
+        for (int i = 0; i < nicSpecs.size(); i++) {
+            if (nicSpecs.get(i).getL3Invs() == null || nicSpecs.get(i).getL3Invs().isEmpty()) {
+                continue;
+            }
+
+            String l3Uuid = nicSpecs.get(i).getL3Invs().get(0).getUuid();
+            NormalIpRangeVO ipr = Q.New(NormalIpRangeVO.class).eq(NormalIpRangeVO_.l3NetworkUuid, l3Uuid).limit(1).find();
+            if (ipr == null || (ipr.getIpVersion() != IPv6Constants.IPv4 && !IPv6Constants.Stateful_DHCP.equals(ipr.getAddressMode()))) {
+                continue;
+            }
+
+            AllocateIpsMsg amsg = new AllocateIpsMsg();
+            amsg.setL3NetworkUuid(l3Uuid);
+            amsg.setNum(cmsgs.size());
+            bus.makeTargetServiceIdByResourceUuid(amsg, L3NetworkConstant.SERVICE_ID, l3Uuid);
+            amsgs.put(i, amsg);
+        }
+
+        if (amsgs.isEmpty()) {
+            completion.done();
+            return;
+        }
+
+        List<Integer> nicIndexes = new ArrayList<>(amsgs.keySet());
+        bus.send(new ArrayList<>(amsgs.values()), new CloudBusListCallBack(completion) {
+            @Override
+            public void run(List<MessageReply> replies) {
+                for (int i = 0; i < replies.size(); i++) {
+                    MessageReply reply = replies.get(i);
+                    int nicIndex = nicIndexes.get(i);
+                    if (!reply.isSuccess()) {
+                        logger.warn(String.format("failed to allocate ips of l3 network[uuid:%s] for the batch, every vm allocates its own, %s",
+                                amsgs.get(nicIndex).getL3NetworkUuid(), reply.getError()));
+                        continue;
+                    }
+
+                    List<UsedIpInventory> ips = ((AllocateIpsReply) reply).getIpInventories();
+                    for (int j = 0; j < ips.size() && j < cmsgs.size(); j++) {
+                        cmsgs.get(j).getL3NetworkSpecs().get(nicIndex).setAllocatedIp(ips.get(j));
+                    }
+                }
+
+                completion.done();
+            }
+        });
+    }
+
+    // the ips allocated for the batch but not taken by a nic, e.g. the vm failed before creating its nics
+    private List<UsedIpInventory> getUnusedBatchIps(CreateVmInstanceMsg cmsg) {
+        List<UsedIpInventory> ips = cmsg.getL3NetworkSpecs().stream().map(VmNicSpec::getAllocatedIp)
+                .filter(Objects::nonNull).collect(Collectors.toList());
+        if (ips.isEmpty()) {
+            return ips;
+        }
+
+        List<String> unused = Q.New(UsedIpVO.class).select(UsedIpVO_.uuid)
+                .in(UsedIpVO_.uuid, ips.stream().map(UsedIpInventory::getUuid).collect(Collectors.toList()))
+                .isNull(UsedIpVO_.vmNicUuid)
+                .listValues();
+        return ips.stream().filter(ip -> unused.contains(ip.getUuid())).collect(Collectors.toList());
+    }
+
+    private void returnUnusedBatchIps(CreateVmInstanceMsg cmsg) {
+        List<ReturnIpMsg> rmsgs = getUnusedBatchIps(cmsg).stream().map(ip -> {
+            ReturnIpMsg rmsg = new ReturnIpMsg();
+            rmsg.setL3NetworkUuid(ip.getL3NetworkUuid());
+            rmsg.setUsedIpUuid(ip.getUuid());
+            bus.makeTargetServiceIdByResourceUuid(rmsg, L3NetworkConstant.SERVICE_ID, ip.getL3NetworkUuid());
+            return rmsg;
+        }).collect(Collectors.toList());
+        if (rmsgs.isEmpty()) {
+            return;
+        }
+
+        bus.send(rmsgs, new CloudBusListCallBack(null) {
+            @Override
+            public void run(List<MessageReply> replies) {
+                replies.stream().filter(r -> !r.isSuccess()).forEach(r ->
+                        logger.warn(String.format("failed to return an ip allocated for vm[name:%s], %s", cmsg.getName(), r.getError())));
+            }
+        });
+    }
+
+    private CreateVmInstanceMsg newBatchVmMsg(CreateVmInstanceMsg template, String name) {
+        CreateVmInstanceMsg cmsg = JSONObjectUtil.rehashObject(template, CreateVmInstanceMsg.class);
+        cmsg.setId(Platform.getUuid());
+        // every vm gets its own headers, they are changed on the way
+        cmsg.setHeaders(new LinkedHashMap<>(template.getHeaders()));
+        cmsg.setName(name);
+        return cmsg;
+    }
+
+    private static boolean isNoAvailableHost(ErrorCode err) {
+        for (ErrorCode e = err; e != null; e = e.getCause()) {
+            if (e.isError(HostAllocatorError.NO_AVAILABLE_HOST)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * the host planned by the dry run may be taken by other vms before this one reserves it,
+     * a vm failing for capacity on its planned host is created once more on any host
+     */
+    private void createBatchVm(CreateVmInstanceMsg cmsg, CreateVmInstanceMsg template, APIBatchCreateVmInstanceMsg msg,
+                               boolean planned, ReturnValueCompletion<VmInstanceInventory> completion) {
+        ReturnValueCompletion<VmInstanceInventory> vmCompletion = new ReturnValueCompletion<VmInstanceInventory>(completion) {
+            @Override
+            public void success(VmInstanceInventory inv) {
+                completion.success(inv);
+            }
+
+            @Override
+            public void fail(ErrorCode errorCode) {
+                if (!planned || !isNoAvailableHost(errorCode)) {
+                    completion.fail(errorCode);
+                    return;
+                }
+
+                logger.debug(String.format("no capacity for vm[name:%s] on its planned host[uuid:%s], let the allocator choose another",
+                        cmsg.getName(), cmsg.getHostUuid()));
+                CreateVmInstanceMsg retry = newBatchVmMsg(template, cmsg.getName());
+                // the vm failed before creating its nics, the ips allocated for it are still free to take
+                List<UsedIpInventory> unused = getUnusedBatchIps(cmsg);
+                for (int i = 0; i < cmsg.getL3NetworkSpecs().size(); i++) {
+                    UsedIpInventory ip = cmsg.getL3NetworkSpecs().get(i).getAllocatedIp();
+                    if (ip != null && unused.contains(ip)) {
+                        retry.getL3NetworkSpecs().get(i).setAllocatedIp(ip);
+                    }
+                }
+                createBatchVm(retry, template, msg, false, completion);
+            }
+        };
+
+        try {
+            doCreateVmInstance(cmsg, msg, vmCompletion);
+        } catch (Exception e) {
+            logger.warn(String.format("failed to create vm[name:%s]", cmsg.getName()), e);
+            vmCompletion.fail(inerr(e.getMessage()));
+        }
+    }
+
+    /**
+     * allocates hosts for the whole batch with one dry run of the host allocator, spreading the
+     * vms over the candidates with the most free memory first. Every vm is still allocated on its
+     * own, which reserves the capacity, but with the host set its allocation only checks that host.
+     * A vm that doesn't fit in any candidate by the capacity seen here gets null and is left to
+     * the allocator
+     */
+    private void planBatchHosts(APIBatchCreateVmInstanceMsg msg, CreateVmInstanceMsg template, ReturnValueCompletion<List<String>> completion) {
+        // the required host of a vm not started now is kept for its first start, leave it to the allocator then
+        if (template.getHostUuid() != null || !VmCreationStrategy.InstantStart.toString().equals(template.getStrategy())) {
+            completion.success(new ArrayList<>());
+            return;
+        }
+
+        DesignatedAllocateHostMsg amsg = prepareBatchAllocateHostDryRunMsg(msg, template);
+        if (amsg == null) {
+            completion.success(new ArrayList<>());
+            return;
+        }
+
+        bus.send(amsg, new CloudBusCallBack(completion) {
+            @Override
+            public void run(MessageReply reply) {
+                if (!reply.isSuccess()) {
+                    // no host for the spec, every vm would fail the same way
+                    completion.fail(reply.getError());
+                    return;
+                }
+
+                AllocateHostDryRunReply re = reply.castReply();
+                completion.success(spreadOnHosts(re.getHosts(), template.getCpuNum(), template.getMemorySize(), msg.getAmount()));
+            }
+        });
+    }
+
+    private List<String> spreadOnHosts(List<HostInventory> hosts, int cpuNum, long memorySize, int amount) {
+        class FreeCapacity {
+            String hostUuid;
+            long cpu;
+            long memory;
+        }
+
+        PriorityQueue<FreeCapacity> queue = new PriorityQueue<>(Comparator.comparingLong((FreeCapacity c) -> c.memory).reversed());
+        for (HostInventory host : hosts) {
+            if (host.getAvailableCpuCapacity() == null || host.getAvailableMemoryCapacity() == null) {
+                continue;
+            }
+
+            FreeCapacity c = new FreeCapacity();
+            c.hostUuid = host.getUuid();
+            c.cpu = host.getAvailableCpuCapacity();
+            c.memory = ratioMgr.calculateHostAvailableMemoryByRatio(host.getUuid(), host.getAvailableMemoryCapacity());
+            queue.add(c);
+        }
+
+        List<String> ret = new ArrayList<>();
+        while (ret.size() < amount) {
+            FreeCapacity c = queue.poll();
+            if (c == null || c.memory < memorySize) {
+                break;
+            }
+
+            // hosts only get less cpu, one without enough is done
+            if (c.cpu < cpuNum) {
+                continue;
+            }
+
+            ret.add(c.hostUuid);
+            c.cpu -= cpuNum;
+            c.memory -= memorySize;
+            queue.add(c);
+        }
+
+        return ret;
+    }
+
+    private DesignatedAllocateHostMsg prepareBatchAllocateHostDryRunMsg(APIBatchCreateVmInstanceMsg msg, CreateVmInstanceMsg template) {
+        ImageVO image = dbf.findByUuid(template.getImageUuid(), ImageVO.class);
+        DesignatedAllocateHostMsg amsg = new DesignatedAllocateHostMsg();
+
+        if (image.getBackupStorageRefs().size() == 1) {
+            amsg.setRequiredBackupStorageUuid(image.getBackupStorageRefs().iterator().next().getBackupStorageUuid());
+        } else if (template.getZoneUuid() != null) {
+            ImageBackupStorageSelector selector = new ImageBackupStorageSelector();
+            selector.setZoneUuid(template.getZoneUuid());
+            selector.setImageUuid(image.getUuid());
+            amsg.setRequiredBackupStorageUuid(selector.select());
+        } else {
+            return null;
+        }
+
+        long diskSize = 0;
+        List<DiskOfferingInventory> diskOfferings = new ArrayList<>();
+        if (template.getDataDiskOfferingUuids() != null && !template.getDataDiskOfferingUuids().isEmpty()) {
+            SimpleQuery<DiskOfferingVO> q = dbf.createQuery(DiskOfferingVO.class);
+            q.add(DiskOfferingVO_.uuid, Op.IN, template.getDataDiskOfferingUuids());
+            diskOfferings.addAll(DiskOfferingInventory.valueOf(q.list()));
+        }
+
+        if (image.getMediaType() != ImageMediaType.ISO) {
+            diskSize = image.getSize();
+        } else if (template.getRootDiskOfferingUuid() != null) {
+            diskOfferings.add(DiskOfferingInventory.valueOf(dbf.findByUuid(template.getRootDiskOfferingUuid(), DiskOfferingVO.class)));
+        } else {
+            diskSize = template.getRootDiskSize();
+        }
+
+        diskSize += diskOfferings.stream().mapToLong(DiskOfferingInventory::getDiskSize).sum();
+        amsg.setDiskSize(diskSize);
+        amsg.setDiskOfferings(diskOfferings);
+        amsg.setImage(ImageInventory.valueOf(image));
+        amsg.setZoneUuid(template.getZoneUuid());
+        amsg.setClusterUuid(template.getClusterUuid());
+        amsg.setCpuCapacity(template.getCpuNum());
+        amsg.setMemoryCapacity(template.getMemorySize());
+        amsg.setL3NetworkUuids(VmNicSpec.getL3UuidsOfSpec(template.getL3NetworkSpecs()));
+        amsg.setVmOperation(VmOperation.NewCreate.toString());
+        amsg.setDryRun(true);
+        amsg.setListAllHosts(true);
+        amsg.setAllocatorStrategy(HostAllocatorConstant.DESIGNATED_HOST_ALLOCATOR_STRATEGY_TYPE);
+        if (template.getPrimaryStorageUuidForRootVolume() != null) {
+            amsg.addRequiredPrimaryStorageUuid(template.getPrimaryStorageUuidForRootVolume());
+        }
+        if (template.getPrimaryStorageUuidForDataVolume() != null) {
+            amsg.addRequiredPrimaryStorageUuid(template.getPrimaryStorageUuidForDataVolume());
+        }
+
+        VmInstanceInventory vm = new VmInstanceInventory();
+        vm.setUuid(Platform.FAKE_UUID);
+        vm.setName(String.format("for-batch-creating-%s", template.getName()));
+        vm.setImageUuid(image.getUuid());
+        vm.setInstanceOfferingUuid(template.getInstanceOfferingUuid());
+        vm.setCpuNum(template.getCpuNum());
+        vm.setMemorySize(template.getMemorySize());
+        vm.setZoneUuid(template.getZoneUuid());
+        vm.setClusterUuid(template.getClusterUuid());
+        vm.setDefaultL3NetworkUuid(template.getDefaultL3NetworkUuid() == null ?
+                VmNicSpec.getL3UuidsOfSpec(template.getL3NetworkSpecs()).get(0) : template.getDefaultL3NetworkUuid());
+        amsg.setVmInstance(vm);
+        if (msg.getSystemTags() != null && !msg.getSystemTags().isEmpty()) {
+            amsg.setSystemTags(new ArrayList<>(msg.getSystemTags()));
+        }
+
+        bus.makeLocalServiceId(amsg, HostAllocatorConstant.SERVICE_ID);
+        return amsg;
+    }
+
     private void doDeleteVmNic(VmNicInventory nic, Completion completion) {
         thdf.chainSubmit(new ChainTask(completion) {
             @Override
@@ -2210,6 +2622,7 @@ public class VmInstanceManagerImpl extends AbstractService implements
         quota.addPair(p);
 
         quota.addMessageNeedValidation(APICreateVmInstanceMsg.class);
+        quota.addMessageNeedValidation(APIBatchCreateVmInstanceMsg.class);
         quota.addMessageNeedValidation(APIRecoverVmInstanceMsg.class);
         quota.addMessageNeedValidation(APICreateDataVolumeMsg.class);
         quota.addMessageNeedValidation(APIRecoverDataVolumeMsg.class);
@@ -464,20 +464,21 @@ public class VmQuotaOperator implements Quota.QuotaOperator {
 
 
         VmQuotaUtil.VmQuota vmQuotaUsed = new VmQuotaUtil().getUsedVmCpuMemory(currentAccountUuid);
+        long vmNumAsked = msg instanceof APIBatchCreateVmInstanceMsg ? ((APIBatchCreateVmInstanceMsg) msg).getAmount() : 1;
 
-        if (vmQuotaUsed.totalVmNum + 1 > totalVmNumQuota) {
+        if (vmQuotaUsed.totalVmNum + vmNumAsked > totalVmNumQuota) {
             throw new ApiMessageInterceptionException(new QuotaUtil().buildQuataExceedError(
                     currentAccountUuid, VmQuotaConstant.VM_TOTAL_NUM, totalVmNumQuota));
         }
 
-        if (vmQuotaUsed.runningVmNum + 1 > runningVmNumQuota) {
+        if (vmQuotaUsed.runningVmNum + vmNumAsked > runningVmNumQuota) {
             throw new ApiMessageInterceptionException(new QuotaUtil().buildQuataExceedError(
                     currentAccountUuid, VmQuotaConstant.VM_RUNNING_NUM, runningVmNumQuota));
         }
 
         final Pair<Integer, Long> pair = getInstanceOfferingAsked(msg);
-        int cpuNumAsked = pair.first();
-        long memoryAsked = pair.second();
+        long cpuNumAsked = pair.first() * vmNumAsked;
+        long memoryAsked = pair.second() * vmNumAsked;
 
         if (vmQuotaUsed.runningVmCpuNum + cpuNumAsked > runningVmCpuNumQuota) {
             throw new ApiMessageInterceptionException(new QuotaUtil().buildQuataExceedError(
@@ -492,7 +493,7 @@ public class VmQuotaOperator implements Quota.QuotaOperator {
         // check data volume num
         if (msg.getDataDiskOfferingUuids() != null && !msg.getDataDiskOfferingUuids().isEmpty()) {
             long dataVolumeNumUsed = new VmQuotaUtil().getUsedDataVolumeCount(currentAccountUuid);
-            long dataVolumeNumAsked = msg.getDataDiskOfferingUuids().size();
+            long dataVolumeNumAsked = msg.getDataDiskOfferingUuids().size() * vmNumAsked;
             if (dataVolumeNumUsed + dataVolumeNumAsked > dataVolumeNumQuota) {
                 throw new ApiMessageInterceptionException(new QuotaUtil().buildQuataExceedError(
                         currentAccountUuid, VmQuotaConstant.DATA_VOLUME_NUM, dataVolumeNumQuota));
@@ -555,7 +556,7 @@ public class VmQuotaOperator implements Quota.QuotaOperator {
             quotaCompareInfo.quotaName = VmQuotaConstant.VOLUME_SIZE;
             quotaCompareInfo.quotaValue = allVolumeSizeQuota;
             quotaCompareInfo.currentUsed = allVolumeSizeUsed;
-            quotaCompareInfo.request = allVolumeSizeAsked;
+            quotaCompareInfo.request = allVolumeSizeAsked * vmNumAsked;
             new QuotaUtil().CheckQuota(quotaCompareInfo);
         }
     }
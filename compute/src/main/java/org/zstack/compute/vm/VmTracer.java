@@ -1,5 +1,6 @@
 package org.zstack.compute.vm;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 import org.zstack.core.CoreGlobalProperty;
@@ -49,6 +50,8 @@ public abstract class VmTracer {
         Set<String> vmsToSkipHostSide;
         Map<String, VmInstanceState> hostSideStates;
         Map<String, VmInstanceState> mgmtSideStates;
+        // whether the host and database agree on every vm, only then the digest can be cached
+        boolean clean = true;
 
         @Transactional(readOnly = true)
         private void buildManagementServerSideVmStates() {
@@ -91,9 +94,11 @@ public abstract class VmTracer {
                 VmInstanceState expectedState = mgmtSideStates.get(vmUuid);
                 if (expectedState == null) {
                     // an anonymous vm showing on this host
+                    clean = false;
                     handleAnonymousVm(vmUuid, actualState, expectedState);
                 } else if (actualState != expectedState) {
                     // vm state changed on host side
+                    clean = false;
                     handleStateChangeOnHostSide(vmUuid, actualState, expectedState);
                 }
             }
@@ -143,6 +148,7 @@ public abstract class VmTracer {
                 VmInstanceState expectedState = e.getValue();
                 if (expectedState != VmInstanceState.Stopped && expectedState != VmInstanceState.Created && !hostSideStates.containsKey(vmUuid)
                         && (vmsToSkipHostSide == null || !vmsToSkipHostSide.contains(vmUuid))) {
+                    clean = false;
                     handleMissingVm(vmUuid, expectedState);
                 }
             }
@@ -166,6 +172,17 @@ public abstract class VmTracer {
         }
     }
 
+    private String makeVmStatesDigest(Map<String, VmInstanceState> vmStates, Set<String> vmsToSkipHostSide) {
+        StringBuilder sb = new StringBuilder();
+        new TreeMap<>(vmStates).forEach((uuid, state) -> sb.append(uuid).append(":").append(state).append(";"));
+        sb.append("|");
+        if (vmsToSkipHostSide != null) {
+            new TreeSet<>(vmsToSkipHostSide).forEach(uuid -> sb.append(uuid).append(";"));
+        }
+
+        return DigestUtils.md5Hex(sb.toString());
+    }
+
     protected void reportVmState(final String hostUuid, final Map<String, VmInstanceState> vmStates, final Set<String> vmsToSkipHostSide) {
         if (logger.isTraceEnabled()) {
             for (Map.Entry<String, VmInstanceState> e : vmStates.entrySet()) {
@@ -202,11 +219,21 @@ public abstract class VmTracer {
 
             @Override
             public Object call() {
+                String digest = makeVmStatesDigest(vmStates, vmsToSkipHostSide);
+                if (vmTracerHelper.canSkipReconciliation(hostUuid, digest)) {
+                    if (logger.isTraceEnabled()) {
+                        logger.trace(String.format("vm states on host[uuid:%s] unchanged since last reconciliation, skip it", hostUuid));
+                    }
+                    return null;
+                }
+
+                long generation = vmTracerHelper.getVmStatesGeneration(hostUuid);
                 Tracer t = new Tracer();
                 t.hostUuid = hostUuid;
                 t.hostSideStates = vmStates;
                 t.vmsToSkipHostSide = vmsToSkipHostSide;
                 t.trace();
+                vmTracerHelper.reconciled(hostUuid, digest, generation, t.clean);
                 return null;
             }
         });
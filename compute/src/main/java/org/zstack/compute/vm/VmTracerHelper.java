@@ -4,4 +4,20 @@ import java.util.Set;
 
 public interface VmTracerHelper {
     Set<String> getVmTracerUnsupportedVmInstanceTypeSet();
+
+    /**
+     * changes whenever a vm on the host changes state in database, pass it
+     * to reconciled() to tell if the management side changed meanwhile
+     */
+    long getVmStatesGeneration(String hostUuid);
+
+    /**
+     * @return true if the host reported the same vm states as the last clean
+     * reconciliation and no vm on the host changed since then
+     */
+    boolean canSkipReconciliation(String hostUuid, String digest);
+
+    void reconciled(String hostUuid, String digest, long generation, boolean clean);
+
+    void invalidateVmStates(String hostUuid);
 }
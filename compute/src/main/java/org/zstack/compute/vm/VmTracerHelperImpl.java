@@ -1,24 +1,79 @@
 package org.zstack.compute.vm;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.core.cloudbus.EventCallback;
+import org.zstack.core.cloudbus.EventFacade;
 import org.zstack.core.componentloader.PluginRegistry;
+import org.zstack.core.jmx.JmxFacade;
 import org.zstack.header.Component;
+import org.zstack.header.host.HostCanonicalEvents;
+import org.zstack.header.vm.VmCanonicalEvents;
+import org.zstack.header.vm.VmInstanceInventory;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class VmTracerHelperImpl implements VmTracerHelper, Component {
+public class VmTracerHelperImpl implements VmTracerHelper, VmTracerMXBean, Component {
     @Autowired
     private PluginRegistry pluginRgty;
+    @Autowired
+    private EventFacade evtf;
+    @Autowired
+    private JmxFacade jmxf;
 
     private Set<String> unsupportedVmInstanceTypeStringSet = new HashSet<>();
 
+    private static class ReconciledVmStates {
+        String digest;
+        long generation;
+        long reconciledAt;
+    }
+
+    private Map<String, ReconciledVmStates> reconciledVmStates = new ConcurrentHashMap<>();
+    private Map<String, AtomicLong> vmStatesGenerations = new ConcurrentHashMap<>();
+    private AtomicLong reconciliationsPerformed = new AtomicLong();
+    private AtomicLong reconciliationsSkipped = new AtomicLong();
+
     @Override
     public boolean start() {
         for (CollectVmTracerUnsupportedVmTypeExtensionPoint ext : pluginRgty.getExtensionList(CollectVmTracerUnsupportedVmTypeExtensionPoint.class)) {
             unsupportedVmInstanceTypeStringSet.add(ext.getVmTracerUnsupportedVmTypeString());
         }
 
+        evtf.on(VmCanonicalEvents.VM_FULL_STATE_CHANGED_PATH, new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                VmInstanceInventory inv = ((VmCanonicalEvents.VmStateChangedData) data).getInventory();
+                if (inv == null) {
+                    return;
+                }
+
+                if (inv.getHostUuid() != null) {
+                    invalidateVmStates(inv.getHostUuid());
+                }
+                if (inv.getLastHostUuid() != null) {
+                    invalidateVmStates(inv.getLastHostUuid());
+                }
+            }
+        });
+
+        evtf.on(HostCanonicalEvents.HOST_DELETED_PATH, new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                // the host may be tracked by any node before it's deleted
+                String hostUuid = ((HostCanonicalEvents.HostDeletedData) data).getHostUuid();
+                vmStatesGenerations.remove(hostUuid);
+                reconciledVmStates.remove(hostUuid);
+            }
+        });
+
+        VmGlobalConfig.VM_TRACER_DIGEST.installUpdateExtension((oldConfig, newConfig) -> reconciledVmStates.clear());
+
+        jmxf.registerBean("VmTracer", this);
         return true;
     }
 
@@ -31,4 +86,75 @@ public class VmTracerHelperImpl implements VmTracerHelper, Component {
     public Set<String> getVmTracerUnsupportedVmInstanceTypeSet() {
         return unsupportedVmInstanceTypeStringSet;
     }
+
+    private AtomicLong generationOf(String hostUuid) {
+        return vmStatesGenerations.computeIfAbsent(hostUuid, k -> new AtomicLong());
+    }
+
+    @Override
+    public long getVmStatesGeneration(String hostUuid) {
+        return generationOf(hostUuid).get();
+    }
+
+    @Override
+    public boolean canSkipReconciliation(String hostUuid, String digest) {
+        if (!VmGlobalConfig.VM_TRACER_DIGEST.value(Boolean.class)) {
+            return false;
+        }
+
+        ReconciledVmStates last = reconciledVmStates.get(hostUuid);
+        long interval = TimeUnit.SECONDS.toMillis(VmGlobalConfig.VM_TRACER_FULL_RECONCILE_INTERVAL.value(Long.class));
+        boolean skip = last != null && last.digest.equals(digest)
+                && last.generation == getVmStatesGeneration(hostUuid)
+                && System.currentTimeMillis() - last.reconciledAt < interval;
+
+        if (skip) {
+            reconciliationsSkipped.incrementAndGet();
+        }
+
+        return skip;
+    }
+
+    @Override
+    public void reconciled(String hostUuid, String digest, long generation, boolean clean) {
+        reconciliationsPerformed.incrementAndGet();
+
+        AtomicLong current = vmStatesGenerations.get(hostUuid);
+        if (!clean || current == null || generation != current.get()) {
+            reconciledVmStates.remove(hostUuid);
+            return;
+        }
+
+        ReconciledVmStates s = new ReconciledVmStates();
+        s.digest = digest;
+        s.generation = generation;
+        s.reconciledAt = System.currentTimeMillis();
+        reconciledVmStates.put(hostUuid, s);
+    }
+
+    @Override
+    public void invalidateVmStates(String hostUuid) {
+        // a reconciliation in progress has taken the generation, so it's there if it matters;
+        // not creating it keeps events of vms on deleted hosts from adding it back
+        AtomicLong generation = vmStatesGenerations.get(hostUuid);
+        if (generation != null) {
+            generation.incrementAndGet();
+        }
+        reconciledVmStates.remove(hostUuid);
+    }
+
+    @Override
+    public long getReconciliationsPerformed() {
+        return reconciliationsPerformed.get();
+    }
+
+    @Override
+    public long getReconciliationsSkipped() {
+        return reconciliationsSkipped.get();
+    }
+
+    @Override
+    public int getCachedHostNumber() {
+        return reconciledVmStates.size();
+    }
 }
@@ -0,0 +1,11 @@
+package org.zstack.compute.vm;
+
+/**
+ */
+public interface VmTracerMXBean {
+    long getReconciliationsPerformed();
+
+    long getReconciliationsSkipped();
+
+    int getCachedHostNumber();
+}
@@ -47,4 +47,6 @@ CREATE TABLE IF NOT EXISTS `zstack`.`SNSEndpointThirdpartyAlertHistoryVO` (
   `endpointUuid` varchar(32) NOT NULL,
   `alertUuid` varchar(32) NOT NULL,
   `createDate` timestamp NOT NULL DEFAULT '0000-00-00 00:00:00'
-) ENGINE=InnoDB DEFAULT CHARSET=utf8;
\ No newline at end of file
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+ALTER TABLE `zstack`.`ManagementNodeVO` ADD COLUMN `cloudBusWireFormats` varchar(128) DEFAULT NULL;
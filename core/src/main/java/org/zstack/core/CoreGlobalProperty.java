@@ -42,6 +42,10 @@ public class CoreGlobalProperty {
     public static int REST_FACADE_MAX_PER_ROUTE;
     @GlobalProperty(name = "RESTFacade.maxTotal", defaultValue = "128")
     public static int REST_FACADE_MAX_TOTAL;
+    @GlobalProperty(name = "RESTFacade.agentTransport", defaultValue = "AsyncRestTemplate")
+    public static String REST_FACADE_AGENT_TRANSPORT;
+    @GlobalProperty(name = "RESTFacade.agentMaxPerRoute", defaultValue = "8")
+    public static int REST_FACADE_AGENT_MAX_PER_ROUTE;
     @GlobalProperty(name = "upgradeStartOn", defaultValue = "false")
     public static boolean IS_UPGRADE_START;
     @GlobalProperty(name = "shadowEntityOn", defaultValue = "false")
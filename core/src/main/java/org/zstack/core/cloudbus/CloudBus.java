@@ -8,7 +8,9 @@ import org.zstack.header.exception.CloudConfigureFailException;
 import org.zstack.header.message.*;
 
 import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public interface CloudBus extends Component {
@@ -88,6 +90,28 @@ public interface CloudBus extends Component {
         throw new AbstractMethodError("not supported");
     }
 
+    /**
+     *  same as handleHttpRequest but the body is encoded in CloudBusWireFormat.Binary
+     * @param e
+     * @param rsp
+     */
+    default void handleBinaryHttpRequest(HttpEntity<byte[]> e, HttpServletResponse rsp) {
+        throw new AbstractMethodError("not supported");
+    }
+
+    /**
+     *  same as handleHttpRequest but the body carries a list of messages in CloudBusWireFormat.Batch
+     * @param e
+     * @param rsp
+     */
+    default void handleBatchHttpRequest(HttpEntity<byte[]> e, HttpServletResponse rsp) {
+        throw new AbstractMethodError("not supported");
+    }
+
+    default Map<String, CloudBusBatchStatistic> getBatchStatistics() {
+        return Collections.emptyMap();
+    }
+
     String HEADER_NO_NEED_REPLY_MSG = "noReply";
     String HEADER_CORRELATION_ID = "correlationId";
     String HEADER_REPLY_TO = "replyTo";
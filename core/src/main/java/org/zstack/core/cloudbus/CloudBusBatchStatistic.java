@@ -0,0 +1,58 @@
+package org.zstack.core.cloudbus;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * sizes of the batches CloudBus posted to a management node, a batch of
+ * one message is a message sent alone
+ */
+public class CloudBusBatchStatistic {
+    private String nodeUuid;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile int maxBatchSize;
+
+    public CloudBusBatchStatistic() {
+    }
+
+    public CloudBusBatchStatistic(String nodeUuid) {
+        this.nodeUuid = nodeUuid;
+    }
+
+    void count(int size, boolean success) {
+        batches.incrementAndGet();
+        messages.addAndGet(size);
+        if (!success) {
+            failures.incrementAndGet();
+        }
+        if (size > maxBatchSize) {
+            maxBatchSize = size;
+        }
+    }
+
+    public String getNodeUuid() {
+        return nodeUuid;
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getMessages() {
+        return messages.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getAverageBatchSize() {
+        long b = batches.get();
+        return b == 0 ? 0 : messages.get() / b;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+}
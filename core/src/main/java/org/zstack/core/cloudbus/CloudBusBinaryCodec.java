@@ -0,0 +1,283 @@
+package org.zstack.core.cloudbus;
+
+import com.google.gson.*;
+import org.zstack.header.exception.CloudRuntimeException;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary encoding of the JSON tree CloudBusGson produces for a message.
+ *
+ * The layout is a 3 bytes header (magic, version, flags) followed by a stream of
+ * tagged values, optionally gzipped. Field names and short strings are written
+ * once and referenced by index afterwards, which removes most of the repetition
+ * of field and class names in messages carrying inventories.
+ */
+public class CloudBusBinaryCodec {
+    private static final int MAGIC = 0x5a;
+    private static final int VERSION = 1;
+    private static final int FLAG_GZIP = 0x01;
+
+    private static final int MAX_INTERNED_STRING_LENGTH = 64;
+
+    private static final int T_NULL = 0;
+    private static final int T_TRUE = 1;
+    private static final int T_FALSE = 2;
+    private static final int T_LONG = 3;
+    private static final int T_DOUBLE = 4;
+    private static final int T_NUMBER = 5;
+    private static final int T_STRING = 6;
+    private static final int T_STRING_REF = 7;
+    private static final int T_BEGIN_ARRAY = 8;
+    private static final int T_END_ARRAY = 9;
+    private static final int T_BEGIN_OBJECT = 10;
+    private static final int T_END_OBJECT = 11;
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 3 && (data[0] & 0xff) == MAGIC;
+    }
+
+    public static byte[] encode(JsonElement element, int compressThreshold) {
+        try {
+            Encoder encoder = new Encoder();
+            encoder.write(element);
+            encoder.out.flush();
+
+            byte[] body = encoder.bytes.toByteArray();
+            boolean gzip = compressThreshold > 0 && body.length > compressThreshold;
+
+            ByteArrayOutputStream ret = new ByteArrayOutputStream(gzip ? body.length / 4 : body.length + 3);
+            ret.write(MAGIC);
+            ret.write(VERSION);
+            ret.write(gzip ? FLAG_GZIP : 0);
+
+            if (gzip) {
+                try (GZIPOutputStream gz = new GZIPOutputStream(ret)) {
+                    gz.write(body);
+                }
+            } else {
+                ret.write(body);
+            }
+
+            return ret.toByteArray();
+        } catch (IOException e) {
+            throw new CloudRuntimeException(e);
+        }
+    }
+
+    public static JsonElement decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new CloudRuntimeException("not a CloudBus binary payload");
+        }
+
+        if (data[1] != VERSION) {
+            throw new CloudRuntimeException(String.format("unsupported CloudBus binary payload version[%s]", data[1]));
+        }
+
+        try {
+            ByteArrayInputStream in = new ByteArrayInputStream(data, 3, data.length - 3);
+            if ((data[2] & FLAG_GZIP) != 0) {
+                // inflated up front so lengths in the payload can be checked against what is left
+                in = new ByteArrayInputStream(gunzip(in));
+            }
+
+            Decoder decoder = new Decoder(in);
+            return decoder.read(decoder.in.readUnsignedByte());
+        } catch (EOFException e) {
+            throw new CloudRuntimeException("corrupted CloudBus binary payload, unexpected end of data", e);
+        } catch (IOException e) {
+            throw new CloudRuntimeException(e);
+        }
+    }
+
+    private static byte[] gunzip(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        try (GZIPInputStream gz = new GZIPInputStream(in)) {
+            byte[] buf = new byte[8192];
+            for (int n = gz.read(buf); n != -1; n = gz.read(buf)) {
+                out.write(buf, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static class Encoder {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        void write(JsonElement e) throws IOException {
+            if (e == null || e.isJsonNull()) {
+                out.write(T_NULL);
+            } else if (e.isJsonPrimitive()) {
+                writePrimitive(e.getAsJsonPrimitive());
+            } else if (e.isJsonArray()) {
+                out.write(T_BEGIN_ARRAY);
+                for (JsonElement i : e.getAsJsonArray()) {
+                    write(i);
+                }
+                out.write(T_END_ARRAY);
+            } else {
+                out.write(T_BEGIN_OBJECT);
+                for (Map.Entry<String, JsonElement> entry : e.getAsJsonObject().entrySet()) {
+                    writeString(entry.getKey());
+                    write(entry.getValue());
+                }
+                out.write(T_END_OBJECT);
+            }
+        }
+
+        private void writePrimitive(JsonPrimitive p) throws IOException {
+            if (p.isBoolean()) {
+                out.write(p.getAsBoolean() ? T_TRUE : T_FALSE);
+            } else if (p.isString()) {
+                writeString(p.getAsString());
+            } else {
+                Number n = p.getAsNumber();
+                if (n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte) {
+                    out.write(T_LONG);
+                    writeVarLong((n.longValue() << 1) ^ (n.longValue() >> 63));
+                } else if (n instanceof Double) {
+                    out.write(T_DOUBLE);
+                    out.writeDouble(n.doubleValue());
+                } else {
+                    // floats, BigDecimal and lazily parsed numbers keep their textual form,
+                    // so they decode to the same value JSON would give
+                    out.write(T_NUMBER);
+                    writeUtf8(n.toString());
+                }
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            Integer index = strings.get(s);
+            if (index != null) {
+                out.write(T_STRING_REF);
+                writeVarLong(index);
+                return;
+            }
+
+            out.write(T_STRING);
+            writeUtf8(s);
+            if (s.length() <= MAX_INTERNED_STRING_LENGTH) {
+                strings.put(s, strings.size());
+            }
+        }
+
+        private void writeUtf8(String s) throws IOException {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(b.length);
+            out.write(b);
+        }
+
+        private void writeVarLong(long v) throws IOException {
+            while ((v & ~0x7fL) != 0) {
+                out.write((int) ((v & 0x7f) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+    }
+
+    private static class Decoder {
+        private final ByteArrayInputStream bytes;
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        Decoder(ByteArrayInputStream bytes) {
+            this.bytes = bytes;
+            this.in = new DataInputStream(bytes);
+        }
+
+        JsonElement read(int tag) throws IOException {
+            switch (tag) {
+                case T_NULL:
+                    return JsonNull.INSTANCE;
+                case T_TRUE:
+                    return new JsonPrimitive(true);
+                case T_FALSE:
+                    return new JsonPrimitive(false);
+                case T_LONG:
+                    long v = readVarLong();
+                    return new JsonPrimitive((v >>> 1) ^ -(v & 1));
+                case T_DOUBLE:
+                    return new JsonPrimitive(in.readDouble());
+                case T_NUMBER:
+                    return new JsonPrimitive(new BigDecimal(readUtf8()));
+                case T_STRING:
+                case T_STRING_REF:
+                    return new JsonPrimitive(readString(tag));
+                case T_BEGIN_ARRAY:
+                    JsonArray array = new JsonArray();
+                    for (int t = in.readUnsignedByte(); t != T_END_ARRAY; t = in.readUnsignedByte()) {
+                        array.add(read(t));
+                    }
+                    return array;
+                case T_BEGIN_OBJECT:
+                    JsonObject obj = new JsonObject();
+                    for (int t = in.readUnsignedByte(); t != T_END_OBJECT; t = in.readUnsignedByte()) {
+                        String name = readString(t);
+                        obj.add(name, read(in.readUnsignedByte()));
+                    }
+                    return obj;
+                default:
+                    throw new CloudRuntimeException(String.format("corrupted CloudBus binary payload, unknown tag[%s]", tag));
+            }
+        }
+
+        private String readString(int tag) throws IOException {
+            if (tag == T_STRING_REF) {
+                long index = readVarLong();
+                if (index < 0 || index >= strings.size()) {
+                    throw new CloudRuntimeException(String.format("corrupted CloudBus binary payload, string reference[%s] out of %s strings", index, strings.size()));
+                }
+                return strings.get((int) index);
+            }
+
+            if (tag != T_STRING) {
+                throw new CloudRuntimeException(String.format("corrupted CloudBus binary payload, expected a string but got tag[%s]", tag));
+            }
+
+            String s = readUtf8();
+            if (s.length() <= MAX_INTERNED_STRING_LENGTH) {
+                strings.add(s);
+            }
+            return s;
+        }
+
+        private String readUtf8() throws IOException {
+            long len = readVarLong();
+            // ByteArrayInputStream.available() is exactly the number of bytes left
+            if (len < 0 || len > bytes.available()) {
+                throw new CloudRuntimeException(String.format("corrupted CloudBus binary payload, length[%s] exceeds the %s bytes left", len, bytes.available()));
+            }
+
+            byte[] b = new byte[(int) len];
+            in.readFully(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        private long readVarLong() throws IOException {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (shift > 63) {
+                    throw new CloudRuntimeException("corrupted CloudBus binary payload, variable length number is too long");
+                }
+
+                int b = in.readUnsignedByte();
+                v |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.zstack.header.exception.CloudRuntimeException;
 import org.zstack.utils.Utils;
@@ -21,6 +22,27 @@ public class CloudBusController {
     @Autowired
     private CloudBus bus;
 
+    private HttpHeaders toHttpHeaders(HttpServletRequest req) {
+        HttpHeaders header = new HttpHeaders();
+        for (Enumeration e = req.getHeaderNames(); e.hasMoreElements() ;) {
+            String name = e.nextElement().toString();
+            header.add(name, req.getHeader(name));
+        }
+
+        return header;
+    }
+
+    private HttpEntity<byte[]> toBinaryHttpEntity(HttpServletRequest req) {
+        try {
+            byte[] body = StreamUtils.copyToByteArray(req.getInputStream());
+            req.getInputStream().close();
+            return new HttpEntity<>(body, toHttpHeaders(req));
+        } catch (Exception e) {
+            logger.warn(e.getMessage(), e);
+            throw new CloudRuntimeException(e);
+        }
+    }
+
     private HttpEntity<String> toHttpEntity(HttpServletRequest req) {
         try {
             StringBuilder sb = new StringBuilder();
@@ -30,13 +52,7 @@ public class CloudBusController {
             }
             req.getReader().close();
 
-            HttpHeaders header = new HttpHeaders();
-            for (Enumeration e = req.getHeaderNames(); e.hasMoreElements() ;) {
-                String name = e.nextElement().toString();
-                header.add(name, req.getHeader(name));
-            }
-
-            return new HttpEntity<>(sb.toString(), header);
+            return new HttpEntity<>(sb.toString(), toHttpHeaders(req));
         } catch (Exception e) {
             logger.warn(e.getMessage(), e);
             throw new CloudRuntimeException(e);
@@ -45,6 +61,17 @@ public class CloudBusController {
 
     @RequestMapping(value = CloudBusImpl3.HTTP_BASE_URL, method = RequestMethod.POST)
     public void handle(HttpServletRequest request, HttpServletResponse response) {
+        CloudBusWireFormat format = CloudBusWireFormat.fromContentType(request.getContentType());
+        if (format == CloudBusWireFormat.Batch) {
+            bus.handleBatchHttpRequest(toBinaryHttpEntity(request), response);
+            return;
+        }
+
+        if (format == CloudBusWireFormat.Binary) {
+            bus.handleBinaryHttpRequest(toBinaryHttpEntity(request), response);
+            return;
+        }
+
         HttpEntity<String> entity = toHttpEntity(request);
         //Platform.getComponentLoader().getComponent(CloudBusImpl3.class).handleHttpRequest(entity, response);
         bus.handleHttpRequest(entity, response);
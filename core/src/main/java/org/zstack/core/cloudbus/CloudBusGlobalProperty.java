@@ -53,4 +53,16 @@ public class CloudBusGlobalProperty {
     public static boolean HTTP_ALWAYS;
     @GlobalProperty(name="CloudBus.httpContextPath", defaultValue = "/zstack")
     public static String HTTP_CONTEXT_PATH;
+    @GlobalProperty(name="CloudBus.binaryWireFormat", defaultValue = "false")
+    public static boolean BINARY_WIRE_FORMAT;
+    @GlobalProperty(name="CloudBus.binaryWireFormatCompressThreshold", defaultValue = "65536")
+    public static int BINARY_WIRE_FORMAT_COMPRESS_THRESHOLD;
+    // messages to the same management node waiting for an HTTP connection are posted
+    // together, up to this number in one request. 1 posts every message alone
+    @GlobalProperty(name="CloudBus.httpBatchMaxMessages", defaultValue = "500")
+    public static int HTTP_BATCH_MAX_MESSAGES;
+    // greater than 0 caps the resources a management node owns at this factor of the mean,
+    // must be the same on all management nodes. 0 keeps the plain consistent hash
+    @GlobalProperty(name="CloudBus.consistentHashLoadFactor", defaultValue = "0")
+    public static double CONSISTENT_HASH_LOAD_FACTOR;
 }
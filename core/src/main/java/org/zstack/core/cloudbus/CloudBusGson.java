@@ -132,6 +132,18 @@ public class CloudBusGson {
         return gson.toJson(msg, Message.class);
     }
 
+    public static JsonElement toJsonTree(Message msg) {
+        return gson.toJsonTree(msg, Message.class);
+    }
+
+    public static Message fromJsonTree(JsonElement tree) {
+        return gson.fromJson(tree, Message.class);
+    }
+
+    public static byte[] toBinary(Message msg) {
+        return CloudBusBinaryCodec.encode(toJsonTree(msg), CloudBusGlobalProperty.BINARY_WIRE_FORMAT_COMPRESS_THRESHOLD);
+    }
+
     public static String toLogSafeJson(Message msg) {
         return logSafeGson.toJson(msg, Message.class);
     }
@@ -151,4 +163,12 @@ public class CloudBusGson {
             return httpGson.toJson(obj);
         }
     }
+
+    public static void toJsonForHttpResponse(Object obj, Appendable writer) {
+        if (obj instanceof Message) {
+            httpGson.toJson(obj, Message.class, writer);
+        } else {
+            httpGson.toJson(obj, writer);
+        }
+    }
 }
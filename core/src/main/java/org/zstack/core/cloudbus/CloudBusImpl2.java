@@ -2588,6 +2588,12 @@ public class CloudBusImpl2 implements CloudBus, CloudBusIN, ManagementNodeChange
         );
     }
 
+    @Override
+    public Map<String, CloudBusBatchStatistic> getBatchStatistics() {
+        // messages go through RabbitMQ, nothing is batched
+        return Collections.emptyMap();
+    }
+
     private Map<String, Object> queueArguments() {
         Map<String, Object> ret = new HashMap<>();
         ret.put("x-dead-letter-exchange", BusExchange.NO_ROUTE.toString());
@@ -1,5 +1,8 @@
 package org.zstack.core.cloudbus;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import org.apache.logging.log4j.ThreadContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
@@ -41,11 +44,14 @@ import org.zstack.utils.logging.CLogger;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.zstack.core.Platform.*;
 import static org.zstack.utils.BeanUtils.getProperty;
@@ -97,6 +103,8 @@ public class CloudBusImpl3 implements CloudBus, CloudBusIN {
     private final Map<String, EndPoint> endPoints = new HashMap<>();
     private final Map<String, Envelope> envelopes = new ConcurrentHashMap<>();
     private final Map<String, java.util.function.Consumer> messageConsumers = new ConcurrentHashMap<>();
+    private final Map<String, BatchSender> batchSenders = new ConcurrentHashMap<>();
+    private final Map<String, CloudBusBatchStatistic> batchStatistics = new ConcurrentHashMap<>();
     private final static TimeoutRestTemplate http = RESTFacade.createRestTemplate(CoreGlobalProperty.REST_FACADE_READ_TIMEOUT, CoreGlobalProperty.REST_FACADE_CONNECT_TIMEOUT);
 
     public static final String HTTP_BASE_URL = "/cloudbus";
@@ -498,7 +506,7 @@ public class CloudBusImpl3 implements CloudBus, CloudBusIN {
             }
         }
 
-        private void httpSendInQueue(String ip) {
+        private void httpSendInQueue(ResourceDestinationMaker.NodeInfo node) {
             thdf.chainSubmit(new ChainTask(null) {
                 @Override
                 public String getSyncSignature() {
@@ -507,7 +515,7 @@ public class CloudBusImpl3 implements CloudBus, CloudBusIN {
 
                 @Override
                 public void run(SyncTaskChain chain) {
-                    httpSend(ip);
+                    httpSend(node);
                     chain.next();
                 }
 
@@ -523,16 +531,24 @@ public class CloudBusImpl3 implements CloudBus, CloudBusIN {
             });
         }
 
+        private void sendToNode(ResourceDestinationMaker.NodeInfo node) {
+            // APIs are sent alone, a failure of sending them is thrown to the caller
+            if (CloudBusGlobalProperty.HTTP_BATCH_MAX_MESSAGES > 1 && !(msg instanceof APIMessage)
+                    && node.isWireFormatSupported(CloudBusWireFormat.Batch)) {
+                batchSenders.computeIfAbsent(node.getNodeUuid(), BatchSender::new).add(this, node);
+            } else {
+                httpSendInQueue(node);
+            }
+        }
+
         private void httpSend() {
             buildSchema(msg);
             try {
-                String ip = destMaker.getNodeInfo(managementNodeId).getNodeIP();
-                httpSendInQueue(ip);
+                sendToNode(destMaker.getNodeInfo(managementNodeId));
             } catch (ManagementNodeNotFoundException e) {
                 if (msg instanceof MessageReply) {
                     if (!deadMessageManager.handleManagementNodeNotFoundError(managementNodeId, msg, () -> {
-                        String ip = destMaker.getNodeInfo(managementNodeId).getNodeIP();
-                        httpSendInQueue(ip);
+                        sendToNode(destMaker.getNodeInfo(managementNodeId));
                     })) {
                         throw e;
                     }
@@ -542,33 +558,27 @@ public class CloudBusImpl3 implements CloudBus, CloudBusIN {
             }
         }
 
-        private void httpSend(String ip) {
-            String url = CloudBusGlobalProperty.HTTP_CONTEXT_PATH.isEmpty() ? String.format("http://%s:%s%s",
-                    ip, CloudBusGlobalProperty.HTTP_PORT, HTTP_BASE_URL) : String.format("http://%s:%s/%s/%s",
-                    ip, CloudBusGlobalProperty.HTTP_PORT, CloudBusGlobalProperty.HTTP_CONTEXT_PATH, HTTP_BASE_URL);
-
+        private HttpEntity<?> buildHttpEntity(ResourceDestinationMaker.NodeInfo node) {
             HttpHeaders headers = new HttpHeaders();
-            HttpEntity<String> req = new HttpEntity<>(CloudBusGson.toJson(msg), headers);
-            try {
-                ResponseEntity<String> rsp = new Retry<ResponseEntity<String>>() {
-                    {
-                        interval = 2;
-                    }
+            if (CloudBusGlobalProperty.BINARY_WIRE_FORMAT && node.isWireFormatSupported(CloudBusWireFormat.Binary)) {
+                try {
+                    byte[] body = CloudBusGson.toBinary(msg);
+                    headers.setContentType(MediaType.parseMediaType(CloudBusWireFormat.Binary.getContentType()));
+                    return new HttpEntity<>(body, headers);
+                } catch (Throwable t) {
+                    logger.warn(String.format("unable to encode message[%s] in binary wire format, fall back to JSON",
+                            msg.getClass().getName()), t);
+                }
+            }
 
-                    @Override
-                    @RetryCondition(onExceptions = {IOException.class, RestClientException.class, HttpClientErrorException.class})
-                    protected ResponseEntity<String> call() {
-                        return http.exchange(url, HttpMethod.POST, req, String.class);
-                    }
-                }.run();
+            return new HttpEntity<>(CloudBusGson.toJson(msg), headers);
+        }
 
-                if (!rsp.getStatusCode().is2xxSuccessful()) {
-                    replyErrorIfNeeded(operr("HTTP ERROR, status code: %s, body: %s", rsp.getStatusCode(), rsp.getBody()));
-                }
-            } catch (OperationFailureException e) {
-                replyErrorIfNeeded(e.getErrorCode());
-            } catch (Throwable e) {
-                replyErrorIfNeeded(operr(e.getMessage()));
+        private void httpSend(ResourceDestinationMaker.NodeInfo node) {
+            ErrorCode err = post(node, buildHttpEntity(node));
+            countBatch(node, 1, err == null);
+            if (err != null) {
+                replyErrorIfNeeded(err);
             }
         }
 
@@ -594,7 +604,7 @@ public class CloudBusImpl3 implements CloudBus, CloudBusIN {
             localSend();
             destMaker.getAllNodeInfo().forEach(node -> {
                 if (!node.getNodeUuid().equals(Platform.getManagementServerId())) {
-                    httpSendInQueue(node.getNodeIP());
+                    sendToNode(node);
                 }
             });
         }
@@ -609,6 +619,158 @@ public class CloudBusImpl3 implements CloudBus, CloudBusIN {
         }
     }
 
+    private ErrorCode post(ResourceDestinationMaker.NodeInfo node, HttpEntity<?> req) {
+        String ip = node.getNodeIP();
+        String url = CloudBusGlobalProperty.HTTP_CONTEXT_PATH.isEmpty() ? String.format("http://%s:%s%s",
+                ip, CloudBusGlobalProperty.HTTP_PORT, HTTP_BASE_URL) : String.format("http://%s:%s/%s/%s",
+                ip, CloudBusGlobalProperty.HTTP_PORT, CloudBusGlobalProperty.HTTP_CONTEXT_PATH, HTTP_BASE_URL);
+
+        try {
+            ResponseEntity<String> rsp = new Retry<ResponseEntity<String>>() {
+                {
+                    interval = 2;
+                }
+
+                @Override
+                @RetryCondition(onExceptions = {IOException.class, RestClientException.class, HttpClientErrorException.class})
+                protected ResponseEntity<String> call() {
+                    return http.exchange(url, HttpMethod.POST, req, String.class);
+                }
+            }.run();
+
+            if (!rsp.getStatusCode().is2xxSuccessful()) {
+                return operr("HTTP ERROR, status code: %s, body: %s", rsp.getStatusCode(), rsp.getBody());
+            }
+
+            return null;
+        } catch (OperationFailureException e) {
+            return e.getErrorCode();
+        } catch (Throwable e) {
+            return operr(e.getMessage());
+        }
+    }
+
+    private void countBatch(ResourceDestinationMaker.NodeInfo node, int size, boolean success) {
+        batchStatistics.computeIfAbsent(node.getNodeUuid(), CloudBusBatchStatistic::new).count(size, success);
+    }
+
+    /**
+     * messages to one management node queue here while waiting for an HTTP connection,
+     * a connection got by the queue posts all of them, up to CloudBus.httpBatchMaxMessages,
+     * in one request. Envelopes and timeouts are still per message; replies to the messages
+     * are batched the same way on their way back
+     */
+    class BatchSender {
+        private final String nodeUuid;
+        private final Queue<MessageSender> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile ResourceDestinationMaker.NodeInfo node;
+
+        BatchSender(String nodeUuid) {
+            this.nodeUuid = nodeUuid;
+        }
+
+        void add(MessageSender sender, ResourceDestinationMaker.NodeInfo node) {
+            this.node = node;
+            queue.add(sender);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                // a task waiting for a connection will take the message
+                return;
+            }
+
+            thdf.chainSubmit(new ChainTask(null) {
+                @Override
+                public String getSyncSignature() {
+                    return "http-send-in-queue";
+                }
+
+                @Override
+                public void run(SyncTaskChain chain) {
+                    // messages added from now on need another task
+                    scheduled.set(false);
+
+                    List<MessageSender> batch = new ArrayList<>();
+                    MessageSender s;
+                    while (batch.size() < CloudBusGlobalProperty.HTTP_BATCH_MAX_MESSAGES && (s = queue.poll()) != null) {
+                        batch.add(s);
+                    }
+
+                    if (!queue.isEmpty()) {
+                        schedule();
+                    }
+
+                    try {
+                        send(batch);
+                    } finally {
+                        chain.next();
+                    }
+                }
+
+                @Override
+                protected int getSyncLevel() {
+                    return CloudBusGlobalProperty.HTTP_MAX_CONN;
+                }
+
+                @Override
+                public String getName() {
+                    return String.format("http-send-batch-to-node-%s", nodeUuid);
+                }
+            });
+        }
+
+        private HttpEntity<byte[]> buildHttpEntity(List<MessageSender> batch) {
+            JsonArray msgs = new JsonArray();
+            batch.forEach(s -> msgs.add(CloudBusGson.toJsonTree(s.msg)));
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(CloudBusWireFormat.Batch.getContentType()));
+
+            if (CloudBusGlobalProperty.BINARY_WIRE_FORMAT && node.isWireFormatSupported(CloudBusWireFormat.Binary)) {
+                try {
+                    return new HttpEntity<>(CloudBusBinaryCodec.encode(msgs, CloudBusGlobalProperty.BINARY_WIRE_FORMAT_COMPRESS_THRESHOLD), headers);
+                } catch (Throwable t) {
+                    logger.warn(String.format("unable to encode %s messages in binary wire format, fall back to JSON", batch.size()), t);
+                }
+            }
+
+            return new HttpEntity<>(msgs.toString().getBytes(StandardCharsets.UTF_8), headers);
+        }
+
+        private void send(List<MessageSender> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            if (batch.size() == 1) {
+                batch.get(0).httpSend(node);
+                return;
+            }
+
+            ErrorCode err;
+            try {
+                err = post(node, buildHttpEntity(batch));
+            } catch (Throwable t) {
+                err = operr(t.getMessage());
+            }
+
+            countBatch(node, batch.size(), err == null);
+            if (err == null) {
+                return;
+            }
+
+            for (MessageSender s : batch) {
+                try {
+                    s.replyErrorIfNeeded(err);
+                } catch (Throwable t) {
+                    logger.warn(String.format("unable to reply error to message[%s]", s.msg.getClass().getName()), t);
+                }
+            }
+        }
+    }
 
     private void doPublish(Event evt) {
         evalThreadContextToMessage(evt);
@@ -1178,13 +1340,13 @@ public class CloudBusImpl3 implements CloudBus, CloudBusIN {
         doSendAndCallExtensions(msg);
     }
 
-    private void restoreFromSchema(Message msg, Map raw) throws ClassNotFoundException {
+    private void restoreFromSchema(Message msg, Supplier<Map> rawSupplier) throws ClassNotFoundException {
         Map<String, String> schema = msg.getHeaderEntry("schema");
         if (schema == null || schema.isEmpty()) {
             return;
         }
 
-        raw = (Map) raw.values().iterator().next();
+        Map raw = (Map) rawSupplier.get().values().iterator().next();
         List<String> paths = new ArrayList<>(schema.keySet());
 
         for (String p : paths) {
@@ -1200,24 +1362,71 @@ public class CloudBusImpl3 implements CloudBus, CloudBusIN {
         }
     }
 
+    private void deliverHttpMessage(Message msg, Supplier<Map> raw) {
+        try {
+            restoreFromSchema(msg, raw);
+        } catch (ClassNotFoundException e1) {
+            throw new CloudRuntimeException(e1);
+        }
+
+        new MessageSender(msg).localSend();
+    }
+
     @AsyncThread
     public void handleHttpRequest(HttpEntity<String> e, HttpServletResponse rsp) {
         try {
             Message msg = CloudBusGson.fromJson(e.getBody());
-            Map raw = JSONObjectUtil.toObject(e.getBody(), LinkedHashMap.class);
-            try {
-                restoreFromSchema(msg, raw);
-            } catch (ClassNotFoundException e1) {
-                throw new CloudRuntimeException(e1);
-            }
-
-            new MessageSender(msg).localSend();
+            deliverHttpMessage(msg, () -> JSONObjectUtil.toObject(e.getBody(), LinkedHashMap.class));
             rsp.setStatus(HttpStatus.OK.value());
         } catch (Throwable t) {
             logger.warn(String.format("unable to deliver a message received from HTTP. HTTP body: %s", e.getBody()), t);
         }
     }
 
+    @Override
+    @AsyncThread
+    public void handleBinaryHttpRequest(HttpEntity<byte[]> e, HttpServletResponse rsp) {
+        try {
+            JsonElement tree = CloudBusBinaryCodec.decode(e.getBody());
+            Message msg = CloudBusGson.fromJsonTree(tree);
+            deliverHttpMessage(msg, () -> JSONObjectUtil.toObject(tree, LinkedHashMap.class));
+            rsp.setStatus(HttpStatus.OK.value());
+        } catch (Throwable t) {
+            logger.warn(String.format("unable to deliver a binary message received from HTTP, %s bytes", e.getBody().length), t);
+        }
+    }
+
+    @Override
+    @AsyncThread
+    public void handleBatchHttpRequest(HttpEntity<byte[]> e, HttpServletResponse rsp) {
+        JsonArray msgs;
+        try {
+            byte[] body = e.getBody();
+            msgs = CloudBusBinaryCodec.isBinary(body) ? CloudBusBinaryCodec.decode(body).getAsJsonArray()
+                    : new JsonParser().parse(new String(body, StandardCharsets.UTF_8)).getAsJsonArray();
+        } catch (Throwable t) {
+            logger.warn(String.format("unable to decode a message batch received from HTTP, %s bytes", e.getBody().length), t);
+            return;
+        }
+
+        // a bad message must not stop the others in the batch from being delivered
+        for (JsonElement tree : msgs) {
+            try {
+                Message msg = CloudBusGson.fromJsonTree(tree);
+                deliverHttpMessage(msg, () -> JSONObjectUtil.toObject(tree, LinkedHashMap.class));
+            } catch (Throwable t) {
+                logger.warn(String.format("unable to deliver a message in a batch received from HTTP: %s", tree), t);
+            }
+        }
+
+        rsp.setStatus(HttpStatus.OK.value());
+    }
+
+    @Override
+    public Map<String, CloudBusBatchStatistic> getBatchStatistics() {
+        return batchStatistics;
+    }
+
     @Override
     public int getEnvelopeSize() {
         return envelopes.size();
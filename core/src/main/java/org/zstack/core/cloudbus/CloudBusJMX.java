@@ -165,6 +165,11 @@ public class CloudBusJMX implements Component, BeforeSendMessageInterceptor,
         return ret;
     }
 
+    @Override
+    public Map<String, CloudBusBatchStatistic> getBatchStatistics() {
+        return bus.getBatchStatistics();
+    }
+
     @Override
     public WaitingMessageSummaryStatistic getWaitingReplyMessageSummaryStatistic() {
         List<WaitingReplyMessageStatistic> ret = getWaitingReplyMessageStatistic();
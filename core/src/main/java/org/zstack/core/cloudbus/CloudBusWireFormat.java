@@ -0,0 +1,71 @@
+package org.zstack.core.cloudbus;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Encodings a management node accepts on its CloudBus HTTP endpoint.
+ * Supported formats are advertised in ManagementNodeVO.cloudBusWireFormats
+ * as a comma separated list; Json is always accepted.
+ */
+public enum CloudBusWireFormat {
+    Json("application/json"),
+    Binary("application/x-zstack-cloudbus"),
+    // a list of messages in one request, encoded as a JSON array or
+    // as a Binary payload of that array
+    Batch("application/x-zstack-cloudbus-batch");
+
+    private final String contentType;
+
+    CloudBusWireFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static CloudBusWireFormat fromContentType(String contentType) {
+        // the Binary content type is a prefix of the Batch one
+        if (contentType != null && contentType.startsWith(Batch.contentType)) {
+            return Batch;
+        }
+
+        if (contentType != null && contentType.startsWith(Binary.contentType)) {
+            return Binary;
+        }
+
+        return Json;
+    }
+
+    public static Set<CloudBusWireFormat> parse(String formats) {
+        Set<CloudBusWireFormat> ret = EnumSet.of(Json);
+        if (formats == null) {
+            return ret;
+        }
+
+        for (String f : formats.split(",")) {
+            for (CloudBusWireFormat fmt : values()) {
+                if (fmt.toString().equals(f.trim())) {
+                    ret.add(fmt);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    public static String localFormats() {
+        List<String> formats = new ArrayList<>();
+        formats.add(Json.toString());
+        if (CloudBusGlobalProperty.BINARY_WIRE_FORMAT) {
+            formats.add(Binary.toString());
+        }
+        if (CloudBusGlobalProperty.HTTP_BATCH_MAX_MESSAGES > 1) {
+            formats.add(Batch.toString());
+        }
+        return String.join(",", formats);
+    }
+}
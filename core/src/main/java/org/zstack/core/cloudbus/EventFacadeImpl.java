@@ -21,6 +21,7 @@ import static org.zstack.core.Platform.argerr;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
@@ -35,8 +36,11 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
     @Autowired
     private CloudBus bus;
 
-    private final Map<String, CallbackWrapper> global = new ConcurrentHashMap<>();
-    private final Map<String, CallbackWrapper> local =  new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_WEBHOOK_PATTERNS = 1000;
+
+    private final EventPathTrie<CallbackWrapper> global = new EventPathTrie<>(w -> w.pattern);
+    private final EventPathTrie<CallbackWrapper> local = new EventPathTrie<>(w -> w.pattern);
+    private final Map<String, Pattern> webhookPatterns = new ConcurrentHashMap<>();
 
     private EventSubscriberReceipt unsubscriber;
 
@@ -72,12 +76,14 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
     private class CallbackWrapper {
         String path;
         String glob;
+        Pattern pattern;
         AbstractEventFacadeCallback callback;
         AtomicBoolean hasRun;
 
         CallbackWrapper(String path, AbstractEventFacadeCallback callback) {
             this.path = path;
             this.glob = createRegexFromGlob(path.replaceAll("\\{.*\\}", ".*"));
+            this.pattern = Pattern.compile(glob);
             this.callback = callback;
             if (callback instanceof AutoOffEventCallback) {
                 hasRun = new AtomicBoolean(false);
@@ -168,17 +174,17 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
 
     @Override
     public void on(String path, AutoOffEventCallback cb) {
-        global.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        global.put(cb.uniqueIdentity, path, new CallbackWrapper(path, cb));
     }
 
     @Override
     public void on(String path, final EventCallback cb) {
-        global.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        global.put(cb.uniqueIdentity, path, new CallbackWrapper(path, cb));
     }
 
     @Override
     public void on(String path, EventRunnable cb) {
-        global.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        global.put(cb.uniqueIdentity, path, new CallbackWrapper(path, cb));
     }
 
     @Override
@@ -189,17 +195,17 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
 
     @Override
     public void onLocal(String path, AutoOffEventCallback cb) {
-        local.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        local.put(cb.uniqueIdentity, path, new CallbackWrapper(path, cb));
     }
 
     @Override
     public void onLocal(String path, EventCallback cb) {
-        local.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        local.put(cb.uniqueIdentity, path, new CallbackWrapper(path, cb));
     }
 
     @Override
     public void onLocal(String path, EventRunnable cb) {
-        local.put(cb.uniqueIdentity, new CallbackWrapper(path, cb));
+        local.put(cb.uniqueIdentity, path, new CallbackWrapper(path, cb));
     }
 
     @Override
@@ -231,9 +237,8 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
             public void call() {
                 List<WebhookVO> vos = Q.New(WebhookVO.class).eq(WebhookVO_.type, EventFacade.WEBHOOK_TYPE).list();
                 vos = vos.stream().filter(
-                        vo -> event.getPath().matches(
-                                createRegexFromGlob(vo.getOpaque().replaceAll("\\{.*\\}", ".*"))
-                        )).collect(Collectors.toList());
+                        vo -> getWebhookPattern(vo.getOpaque()).matcher(event.getPath()).matches()
+                ).collect(Collectors.toList());
 
                 if (!vos.isEmpty()) {
                     postToWebhooks(WebhookInventory.valueOf(vos), JSONObjectUtil.toJsonString(event));
@@ -242,14 +247,23 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
         }.call();
     }
 
-    private void fireLocal(CanonicalEvent cevt) {
-        Map<String, CallbackWrapper> wrappers = new HashMap<>();
-        wrappers.putAll(local);
+    private Pattern getWebhookPattern(String opaque) {
+        Pattern p = webhookPatterns.get(opaque);
+        if (p != null) {
+            return p;
+        }
 
-        for (CallbackWrapper w : wrappers.values()) {
-            if (cevt.getPath().matches(w.getGlob())) {
-                w.call(cevt);
-            }
+        p = Pattern.compile(createRegexFromGlob(opaque.replaceAll("\\{.*\\}", ".*")));
+        if (webhookPatterns.size() >= MAX_CACHED_WEBHOOK_PATTERNS) {
+            webhookPatterns.clear();
+        }
+        webhookPatterns.put(opaque, p);
+        return p;
+    }
+
+    private void fireLocal(CanonicalEvent cevt) {
+        for (CallbackWrapper w : local.match(cevt.getPath())) {
+            w.call(cevt);
         }
     }
 
@@ -265,12 +279,8 @@ public class EventFacadeImpl implements EventFacade, CloudBusEventListener, Comp
         }
 
         CanonicalEvent cevt = (CanonicalEvent)evt;
-        Map<String, CallbackWrapper> wrappers = new HashMap<>();
-        wrappers.putAll(global);
-        for (CallbackWrapper w : wrappers.values()) {
-            if (cevt.getPath().matches(w.getGlob())) {
-                w.call(cevt);
-            }
+        for (CallbackWrapper w : global.match(cevt.getPath())) {
+            w.call(cevt);
         }
 
         return false;
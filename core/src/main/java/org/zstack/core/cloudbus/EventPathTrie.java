@@ -0,0 +1,145 @@
+package org.zstack.core.cloudbus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Index of event path templates like /vm/state/change/{uuid} by their segments.
+ *
+ * A template is stored at the node of its leading literal segments, so a path only
+ * needs to be checked against the templates on the nodes its own segments walk through,
+ * instead of against every template registered. Readers take no lock, writers replace
+ * the children and values of a node as a whole.
+ */
+public class EventPathTrie<T> {
+    private static final String NON_LITERAL_CHARS = "{}*?.\\[]()+^$|";
+
+    private final Node<T> root = new Node<>(null, null);
+    private final Map<Object, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Function<T, Pattern> patternOf;
+
+    /**
+     * @param patternOf gives the regex a path must fully match to get a value, it must not
+     *                  match any path not starting with the literal segments of the template
+     */
+    public EventPathTrie(Function<T, Pattern> patternOf) {
+        this.patternOf = patternOf;
+    }
+
+    private static class Node<T> {
+        private final Node<T> parent;
+        private final String segment;
+        private volatile Map<String, Node<T>> children = Collections.emptyMap();
+        private volatile List<Entry<T>> values = Collections.emptyList();
+
+        Node(Node<T> parent, String segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+
+        boolean isEmpty() {
+            return children.isEmpty() && values.isEmpty();
+        }
+    }
+
+    private static class Entry<T> {
+        private final Pattern pattern;
+        private final T value;
+        private Node<T> node;
+
+        Entry(Pattern pattern, T value) {
+            this.pattern = pattern;
+            this.value = value;
+        }
+    }
+
+    static List<String> split(String path) {
+        List<String> ret = new ArrayList<>();
+        StringTokenizer token = new StringTokenizer(path, "/");
+        while (token.hasMoreTokens()) {
+            ret.add(token.nextToken());
+        }
+        return ret;
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (NON_LITERAL_CHARS.indexOf(segment.charAt(i)) != -1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public synchronized void put(Object key, String template, T value) {
+        remove(key);
+
+        Node<T> node = root;
+        for (String segment : split(template)) {
+            if (!isLiteral(segment)) {
+                break;
+            }
+
+            Node<T> child = node.children.get(segment);
+            if (child == null) {
+                child = new Node<>(node, segment);
+                Map<String, Node<T>> children = new HashMap<>(node.children);
+                children.put(segment, child);
+                node.children = children;
+            }
+            node = child;
+        }
+
+        Entry<T> e = new Entry<>(patternOf.apply(value), value);
+        e.node = node;
+        List<Entry<T>> values = new ArrayList<>(node.values);
+        values.add(e);
+        node.values = values;
+        entries.put(key, e);
+    }
+
+    public synchronized T remove(Object key) {
+        Entry<T> e = entries.remove(key);
+        if (e == null) {
+            return null;
+        }
+
+        Node<T> node = e.node;
+        List<Entry<T>> values = new ArrayList<>(node.values);
+        values.remove(e);
+        node.values = values;
+
+        while (node.parent != null && node.isEmpty()) {
+            Map<String, Node<T>> children = new HashMap<>(node.parent.children);
+            children.remove(node.segment);
+            node.parent.children = children;
+            node = node.parent;
+        }
+
+        return e.value;
+    }
+
+    public List<T> match(String path) {
+        List<T> ret = new ArrayList<>();
+        Node<T> node = root;
+        Iterator<String> it = split(path).iterator();
+        while (node != null) {
+            for (Entry<T> e : node.values) {
+                if (e.pattern.matcher(path).matches()) {
+                    ret.add(e.value);
+                }
+            }
+
+            node = it.hasNext() ? node.children.get(it.next()) : null;
+        }
+
+        return ret;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
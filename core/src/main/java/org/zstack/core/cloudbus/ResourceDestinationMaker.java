@@ -1,9 +1,11 @@
 package org.zstack.core.cloudbus;
 
+import org.zstack.core.Platform;
 import org.zstack.header.managementnode.ManagementNodeInventory;
 import org.zstack.header.managementnode.ManagementNodeVO;
 
 import java.util.Collection;
+import java.util.Set;
 
 /**
  * Created with IntelliJ IDEA.
@@ -15,15 +17,22 @@ public interface ResourceDestinationMaker {
     class NodeInfo {
         private String nodeUuid;
         private String nodeIP;
+        private Set<CloudBusWireFormat> wireFormats;
 
         NodeInfo(ManagementNodeVO vo) {
             nodeUuid = vo.getUuid();
             nodeIP = vo.getHostName();
+            wireFormats = CloudBusWireFormat.parse(vo.getCloudBusWireFormats());
         }
 
         NodeInfo(ManagementNodeInventory inv) {
             nodeUuid = inv.getUuid();
             nodeIP = inv.getHostName();
+            wireFormats = CloudBusWireFormat.parse(null);
+        }
+
+        public boolean isWireFormatSupported(CloudBusWireFormat format) {
+            return wireFormats.contains(format);
         }
 
         public String getNodeUuid() {
@@ -43,6 +52,19 @@ public interface ResourceDestinationMaker {
         }
     }
 
+    /**
+     * owners of resources at the moment the snapshot is taken, management nodes
+     * joining or leaving afterwards don't change it. Compare two snapshots to
+     * find the resources whose owner changed
+     */
+    interface OwnershipSnapshot {
+        String getOwner(String resourceUuid);
+
+        default boolean isManagedByUs(String resourceUuid) {
+            return Platform.getManagementServerId().equals(getOwner(resourceUuid));
+        }
+    }
+
     String makeDestination(String resourceUuid);
 
     boolean isManagedByUs(String resourceUuid);
@@ -56,4 +78,6 @@ public interface ResourceDestinationMaker {
     int getManagementNodeCount();
 
     boolean isNodeInCircle(String nodeId);
+
+    OwnershipSnapshot getOwnershipSnapshot();
 }
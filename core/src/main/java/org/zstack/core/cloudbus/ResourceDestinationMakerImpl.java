@@ -10,8 +10,10 @@ import org.zstack.header.managementnode.ManagementNodeInventory;
 import org.zstack.header.managementnode.ManagementNodeVO;
 import org.zstack.utils.hash.ApacheHash;
 import org.zstack.utils.hash.ConsistentHash;
+import org.zstack.utils.hash.MixedHash;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created with IntelliJ IDEA.
@@ -20,8 +22,11 @@ import java.util.*;
  * To change this template use File | Settings | File Templates.
  */
 public class ResourceDestinationMakerImpl implements ManagementNodeChangeListener, ResourceDestinationMaker {
-    private final ConsistentHash<String> nodeHash = new ConsistentHash<>(new ApacheHash(), 500, new ArrayList<String>()) ;
-    private final Map<String, NodeInfo> nodes = new HashMap<>();
+    // lookups go to an immutable ring replaced on membership changes, so they take no lock
+    private final ConsistentHash<String> nodeHash = CloudBusGlobalProperty.CONSISTENT_HASH_LOAD_FACTOR > 0 ?
+            new ConsistentHash<>(new MixedHash(new ApacheHash()), 500, CloudBusGlobalProperty.CONSISTENT_HASH_LOAD_FACTOR, new ArrayList<>()) :
+            new ConsistentHash<>(new ApacheHash(), 500, new ArrayList<String>());
+    private final Map<String, NodeInfo> nodes = new ConcurrentHashMap<>();
 
     @Autowired
     private DatabaseFacade dbf;
@@ -29,7 +34,8 @@ public class ResourceDestinationMakerImpl implements ManagementNodeChangeListene
     @Override
     public void nodeJoin(ManagementNodeInventory inv) {
         nodeHash.add(inv.getUuid());
-        nodes.put(inv.getUuid(), new NodeInfo(inv));
+        ManagementNodeVO vo = dbf.findByUuid(inv.getUuid(), ManagementNodeVO.class);
+        nodes.put(inv.getUuid(), vo != null ? new NodeInfo(vo) : new NodeInfo(inv));
     }
 
     @Override
@@ -55,9 +61,8 @@ public class ResourceDestinationMakerImpl implements ManagementNodeChangeListene
         });
     }
 
-    @Override
-    public String makeDestination(String resourceUuid) {
-        String nodeUuid = nodeHash.get(resourceUuid);
+    private static String getOwner(ConsistentHash.Ring<String> ring, String resourceUuid) {
+        String nodeUuid = ring.get(resourceUuid);
         if (nodeUuid == null) {
             throw new CloudRuntimeException("Cannot find any available management node to send message");
         }
@@ -65,6 +70,17 @@ public class ResourceDestinationMakerImpl implements ManagementNodeChangeListene
         return nodeUuid;
     }
 
+    @Override
+    public String makeDestination(String resourceUuid) {
+        return getOwner(nodeHash.getRing(), resourceUuid);
+    }
+
+    @Override
+    public OwnershipSnapshot getOwnershipSnapshot() {
+        ConsistentHash.Ring<String> ring = nodeHash.getRing();
+        return resourceUuid -> getOwner(ring, resourceUuid);
+    }
+
     @Override
     public boolean isManagedByUs(String resourceUuid) {
         String nodeUuid = makeDestination(resourceUuid);
@@ -86,7 +102,8 @@ public class ResourceDestinationMakerImpl implements ManagementNodeChangeListene
             }
 
             nodeHash.add(nodeUuid);
-            info = nodes.put(nodeUuid, new NodeInfo(vo));
+            info = new NodeInfo(vo);
+            nodes.put(nodeUuid, info);
         }
 
         return info;
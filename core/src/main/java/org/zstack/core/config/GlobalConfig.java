@@ -44,6 +44,8 @@ public class GlobalConfig {
     private String validatorRegularExpression;
     private String defaultValue;
     private volatile String value;
+    private transient volatile TypedValue typedValue;
+    private transient volatile Class typeClass;
     private boolean linked;
     private transient List<GlobalConfigUpdateExtensionPoint> updateExtensions = new ArrayList<>();
     private transient List<GlobalConfigBeforeUpdateExtensionPoint> beforeUpdateExtensions = new ArrayList<>();
@@ -54,6 +56,22 @@ public class GlobalConfig {
     private GlobalConfigDef configDef;
 
     private static Map<String, String> propertiesMap = new HashMap<>();
+
+    /**
+     * the value parsed to the declared type, valid as long as the raw value it was
+     * parsed from is still the current one. Raw and parsed values are replaced together
+     * so readers never see a parsed value of another raw value
+     */
+    private static class TypedValue {
+        final String raw;
+        final Object value;
+
+        TypedValue(String raw, Object value) {
+            this.raw = raw;
+            this.value = value;
+        }
+    }
+
     static {
         boolean noTrim = System.getProperty("DoNotTrimPropertyFile") != null;
         for (final String name : System.getProperties().stringPropertyNames()) {
@@ -96,13 +114,28 @@ public class GlobalConfig {
         // for bug: http://dev.zstack.io/browse/ZSTAC-8753
         DebugUtils.Assert(value != null, String.format("value cannot be null, category: %s, name: %s", category, name));
 
-        try {
-            Class clz = Class.forName(type);
-            Object v = TypeUtils.stringToValue(value, clz);
-            value = v.toString();
-        } catch (ClassNotFoundException e) {
-            throw new CloudRuntimeException(e);
+        Object v = TypeUtils.stringToValue(value, getTypeClass());
+        value = v.toString();
+        typedValue = new TypedValue(value, v);
+    }
+
+    private Class getTypeClass() {
+        if (type == null) {
+            return String.class;
         }
+
+        Class clz = typeClass;
+        if (clz == null) {
+            try {
+                clz = Class.forName(type);
+            } catch (ClassNotFoundException e) {
+                throw new CloudRuntimeException(e);
+            }
+
+            typeClass = clz;
+        }
+
+        return clz;
     }
 
     public GlobalConfig(String category, String name) {
@@ -206,6 +239,8 @@ public class GlobalConfig {
 
     void setType(String type) {
         this.type = type;
+        typeClass = null;
+        typedValue = null;
     }
 
     public String getValidatorRegularExpression() {
@@ -232,8 +267,97 @@ public class GlobalConfig {
         this.value = value;
     }
 
+    private TypedValue typedValue() {
+        String raw = value;
+        TypedValue t = typedValue;
+        // the same string instance, not just an equal one, the raw value is
+        // replaced as a whole on every update
+        if (t != null && t.raw == raw) {
+            return t;
+        }
+
+        t = new TypedValue(raw, TypeUtils.stringToValue(raw, getTypeClass()));
+        if (raw != null) {
+            typedValue = t;
+        }
+        return t;
+    }
+
     public <T> T value(Class<T> clz) {
-        return TypeUtils.stringToValue(value(), clz);
+        if (clz == String.class) {
+            return (T) value;
+        }
+
+        TypedValue t = typedValue();
+        Class boxed = box(clz);
+        if (t.value == null || boxed.isInstance(t.value)) {
+            return t.value == null ? TypeUtils.stringToValue(t.raw, clz) : (T) t.value;
+        }
+
+        // read as another type than the declared one, only the cached value of
+        // the declared type is kept so readers of different types share it
+        if (t.value instanceof Number && TypeUtils.isTypeOf(boxed, Integer.class, Long.class, Short.class, Float.class, Double.class)) {
+            return (T) toNumber((Number) t.value, boxed);
+        }
+
+        return TypeUtils.stringToValue(t.raw, clz);
+    }
+
+    private static Class box(Class clz) {
+        if (!clz.isPrimitive()) {
+            return clz;
+        } else if (clz == int.class) {
+            return Integer.class;
+        } else if (clz == long.class) {
+            return Long.class;
+        } else if (clz == short.class) {
+            return Short.class;
+        } else if (clz == float.class) {
+            return Float.class;
+        } else if (clz == double.class) {
+            return Double.class;
+        } else if (clz == boolean.class) {
+            return Boolean.class;
+        } else {
+            return clz;
+        }
+    }
+
+    // the conversions TypeUtils.stringToValue does from the number it parses
+    private static Number toNumber(Number n, Class clz) {
+        double d = n.doubleValue();
+        if (clz == Integer.class) {
+            return (int) d;
+        } else if (clz == Long.class) {
+            return (long) d;
+        } else if (clz == Short.class) {
+            return (short) d;
+        } else if (clz == Float.class) {
+            return (float) d;
+        } else {
+            return d;
+        }
+    }
+
+    private Number numberValue() {
+        Object v = typedValue().value;
+        if (v instanceof Number) {
+            return (Number) v;
+        }
+
+        return value(Double.class);
+    }
+
+    public int intValue() {
+        return (int) numberValue().doubleValue();
+    }
+
+    public long longValue() {
+        return (long) numberValue().doubleValue();
+    }
+
+    public boolean boolValue() {
+        return value(Boolean.class);
     }
 
     public <T> T defaultValue(Class<T> clz) {
@@ -358,6 +482,7 @@ public class GlobalConfig {
         }
 
         value = newValue;
+        preParse(newValue);
 
         if (localUpdate) {
             vo.setValue(newValue);
@@ -390,6 +515,20 @@ public class GlobalConfig {
         logger.debug(String.format("updated global config[category:%s, name:%s]: %s to %s", category, name, origin.value(), value));
     }
 
+    private void preParse(String newValue) {
+        if (type == null || newValue == null) {
+            return;
+        }
+
+        // parse once here instead of in the first reader after the update
+        try {
+            typedValue = new TypedValue(newValue, TypeUtils.stringToValue(newValue, getTypeClass()));
+        } catch (Exception e) {
+            logger.warn(String.format("cannot parse global config[category:%s, name:%s] value[%s] to %s",
+                    category, name, newValue, type), e);
+        }
+    }
+
     public void resetValue() {
         updateValue(defaultValue);
     }
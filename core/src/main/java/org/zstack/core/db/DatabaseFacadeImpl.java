@@ -43,6 +43,8 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
 
     @Autowired
     private PluginRegistry pluginRgty;
+    @Autowired
+    private EntityCacheImpl entityCache;
 
     private static AtomicLong dberror = new AtomicLong(0);
     private static AtomicLong dbdeadlock = new AtomicLong(0);
@@ -313,6 +315,7 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
                 Object eo = getEntityManager().find(eoClass, idval);
                 eoSoftDeleteColumn.set(eo, new Timestamp(new Date().getTime()).toString());
                 getEntityManager().merge(eo);
+                entityCache.evict(voClass, idval);
                 fireSoftDeleteExtension(Arrays.asList(idval), voClass);
                 fireSoftDeleteExtensionByEOClass(Arrays.asList(idval), eoClass);
             } catch (CloudRuntimeException ce) {
@@ -329,12 +332,15 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
             q.setParameter("ids", ids);
             q.setParameter("date", new Timestamp(new Date().getTime()).toString());
             q.executeUpdate();
+            entityCache.evict(voClass, ids);
 
             fireSoftDeleteExtension(ids, voClass);
             fireSoftDeleteExtensionByEOClass(ids, eoClass);
         }
 
         private void fireHardDeleteExtension(Collection ids) {
+            entityCache.evict(voClass, ids);
+
             List<HardDeleteEntityExtensionPoint> exts = hardDeleteExtensions.get(voClass);
             if (exts != null) {
                 for (HardDeleteEntityExtensionPoint ext : exts) {
@@ -364,6 +370,7 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
             Query q = getEntityManager().createNativeQuery(sql);
             q.setParameter("ids", ids);
             q.executeUpdate();
+            entityCache.evict(voClass, ids);
         }
 
         @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -878,6 +885,10 @@ public class DatabaseFacadeImpl implements DatabaseFacade, Component {
         }
 
         info.fireLifeCycleEvent(evt, entity);
+
+        if (evt == EntityEvent.POST_UPDATE || evt == EntityEvent.POST_REMOVE) {
+            entityCache.evict(entity.getClass(), info.getVOPrimaryKeyValue(entity));
+        }
     }
 
     public static AtomicLong getDberror() {
@@ -9,4 +9,16 @@ public class DbGlobalProperty {
     public static String ENTITY_PACKAGES;
     @GlobalProperty(name="C3p0ConnectionTester.isValidTimeout", defaultValue = "60")
     public static int C3P0_IS_VALID_TIMEOUT;
+    /**
+     * comma separated entity names, e.g. HostVO,L3NetworkVO, whose primary key lookups
+     * through Q are served by EntityCache. Only entities updated through DatabaseFacade,
+     * SQL or UpdateQuery should be listed, native SQL updates are not tracked
+     */
+    @GlobalProperty(name="entityCache.entities", defaultValue = "")
+    public static String ENTITY_CACHE_ENTITIES;
+    @GlobalProperty(name="entityCache.maxSizePerEntity", defaultValue = "10000")
+    public static int ENTITY_CACHE_MAX_SIZE_PER_ENTITY;
+    // in seconds
+    @GlobalProperty(name="entityCache.ttl", defaultValue = "300")
+    public static int ENTITY_CACHE_TTL;
 }
@@ -0,0 +1,34 @@
+package org.zstack.core.db;
+
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A read-through cache of entity columns keyed by entity class and primary key,
+ * enabled per entity by the global property entityCache.entities.
+ *
+ * Entries are evicted when the entity is updated or removed through DatabaseFacade,
+ * SQL or UpdateQuery, on this management node or on others.
+ */
+public interface EntityCache {
+    String EVICTION_CANONICAL_EVENT_PATH = "/entity-cache/eviction";
+
+    boolean isCached(Class entityClass);
+
+    /**
+     * @return true if the lookup of the selected attributes by the condition attribute can be served by the cache
+     */
+    boolean canServe(Class entityClass, SingularAttribute conditionAttribute, List<SingularAttribute> selects);
+
+    /**
+     * @return values of the selected attributes in order, or null if the entity doesn't exist
+     */
+    Object[] getValues(Class entityClass, Object primaryKey, List<SingularAttribute> selects);
+
+    void evict(Class entityClass, Object primaryKey);
+
+    void evict(Class entityClass, Collection primaryKeys);
+
+    void evictAll(Class entityClass);
+}
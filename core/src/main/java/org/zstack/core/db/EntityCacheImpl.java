@@ -0,0 +1,467 @@
+package org.zstack.core.db;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.zstack.core.cloudbus.EventCallback;
+import org.zstack.core.cloudbus.EventFacade;
+import org.zstack.core.jmx.JmxFacade;
+import org.zstack.header.Component;
+import org.zstack.header.exception.CloudRuntimeException;
+import org.zstack.header.vo.EO;
+import org.zstack.utils.Utils;
+import org.zstack.utils.gson.JSONObjectUtil;
+import org.zstack.utils.logging.CLogger;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Column values of an entity are cached as a snapshot per primary key, in a LRU region
+ * per entity class.
+ *
+ * Lookups inside a transaction are never served, so a transaction always reads its own
+ * changes. Evictions happen both when the change is flushed and after the transaction
+ * completes; a load that started before an eviction of its region is not cached, so a
+ * value read before the commit cannot be put back afterwards.
+ */
+public class EntityCacheImpl implements EntityCache, EntityCacheMXBean, Component {
+    private static final CLogger logger = Utils.getLogger(EntityCacheImpl.class);
+
+    @Autowired
+    private DatabaseFacade dbf;
+    @Autowired
+    private EventFacade evtf;
+    @Autowired
+    private JmxFacade jmxf;
+
+    // entity class -> its region, filled on start
+    private final Map<Class, Region> regions = new ConcurrentHashMap<>();
+    // entity name used in JPQL -> entity class
+    private final Map<String, Class> entityClasses = new ConcurrentHashMap<>();
+    // changed entity class -> regions affected by the change
+    private final Map<Class, List<Region>> affectedRegions = new ConcurrentHashMap<>();
+
+    // evictions of one transaction, or of one call outside of transactions
+    public static class EvictionData {
+        // entity name -> primary keys
+        public Map<String, List<String>> primaryKeys = new HashMap<>();
+        // names of entities evicted entirely
+        public List<String> all = new ArrayList<>();
+    }
+
+    private static class Snapshot {
+        final Map<String, Object> values;
+        final long expiredAt;
+
+        Snapshot(Map<String, Object> values, long expiredAt) {
+            this.values = values;
+            this.expiredAt = expiredAt;
+        }
+    }
+
+    private class Region {
+        final Class entityClass;
+        final String primaryKeyName;
+        final Map<String, Field> columns = new HashMap<>();
+        final EntityCacheStatistic statistic;
+        // increased on every eviction, a load finishing with a different version is discarded
+        final AtomicLong version = new AtomicLong();
+        final Map<String, Snapshot> entries = new LinkedHashMap<String, Snapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > DbGlobalProperty.ENTITY_CACHE_MAX_SIZE_PER_ENTITY;
+            }
+        };
+
+        Region(Class entityClass) {
+            this.entityClass = entityClass;
+            statistic = new EntityCacheStatistic(entityClass.getSimpleName());
+
+            String pk = null;
+            for (Class c = entityClass; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers()) || columns.containsKey(f.getName())) {
+                        continue;
+                    }
+
+                    if (f.isAnnotationPresent(Id.class)) {
+                        pk = f.getName();
+                    } else if (!f.isAnnotationPresent(Column.class)) {
+                        continue;
+                    }
+
+                    f.setAccessible(true);
+                    columns.put(f.getName(), f);
+                }
+            }
+
+            if (pk == null) {
+                throw new CloudRuntimeException(String.format("entity[%s] has no primary key, it cannot be cached", entityClass.getName()));
+            }
+
+            primaryKeyName = pk;
+        }
+
+        synchronized Snapshot get(String key) {
+            Snapshot s = entries.get(key);
+            if (s != null && s.expiredAt < System.currentTimeMillis()) {
+                entries.remove(key);
+                s = null;
+            }
+            return s;
+        }
+
+        synchronized void put(String key, Snapshot s, long loadVersion) {
+            if (version.get() == loadVersion) {
+                entries.put(key, s);
+                statistic.setSize(entries.size());
+            }
+        }
+
+        synchronized void evict(Collection<String> keys) {
+            version.incrementAndGet();
+            int num = 0;
+            for (String key : keys) {
+                if (entries.remove(key) != null) {
+                    num ++;
+                }
+            }
+            statistic.evicted(num);
+            statistic.setSize(entries.size());
+        }
+
+        synchronized void evictAll() {
+            version.incrementAndGet();
+            statistic.evicted(entries.size());
+            entries.clear();
+            statistic.setSize(0);
+        }
+    }
+
+    private static class Evictions {
+        final Map<Region, Set<String>> keys = new HashMap<>();
+        final Set<Region> all = new HashSet<>();
+
+        void evict() {
+            all.forEach(Region::evictAll);
+            keys.forEach((r, ks) -> {
+                if (!all.contains(r)) {
+                    r.evict(ks);
+                }
+            });
+        }
+
+        void addAll(Evictions other) {
+            all.addAll(other.all);
+            other.keys.forEach((r, ks) -> keys.computeIfAbsent(r, k -> new HashSet<>()).addAll(ks));
+        }
+
+        EvictionData toData() {
+            EvictionData data = new EvictionData();
+            all.forEach(r -> data.all.add(r.entityClass.getSimpleName()));
+            keys.forEach((r, ks) -> {
+                if (!all.contains(r)) {
+                    data.primaryKeys.put(r.entityClass.getSimpleName(), new ArrayList<>(ks));
+                }
+            });
+            return data;
+        }
+    }
+
+    // evictions made in a transaction, repeated after it completes and published to other nodes in one event
+    private class PendingEvictions extends TransactionSynchronizationAdapter {
+        final Evictions evictions = new Evictions();
+
+        @Override
+        public void afterCompletion(int status) {
+            evictions.evict();
+
+            if (status == STATUS_COMMITTED) {
+                publish(evictions);
+            }
+        }
+    }
+
+    @Override
+    public boolean isCached(Class entityClass) {
+        return regions.containsKey(entityClass);
+    }
+
+    @Override
+    public boolean canServe(Class entityClass, SingularAttribute conditionAttribute, List<SingularAttribute> selects) {
+        Region r = regions.get(entityClass);
+        if (r == null || selects.isEmpty() || !r.primaryKeyName.equals(conditionAttribute.getName())) {
+            return false;
+        }
+
+        for (SingularAttribute attr : selects) {
+            if (!r.columns.containsKey(attr.getName())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public Object[] getValues(Class entityClass, Object primaryKey, List<SingularAttribute> selects) {
+        Region r = regions.get(entityClass);
+        String key = String.valueOf(primaryKey);
+
+        Snapshot s = r.get(key);
+        if (s != null) {
+            r.statistic.hit();
+        } else {
+            r.statistic.miss();
+            long loadVersion = r.version.get();
+            Map<String, Object> values = load(r, primaryKey);
+            if (values == null) {
+                return null;
+            }
+
+            s = new Snapshot(values, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(DbGlobalProperty.ENTITY_CACHE_TTL));
+            r.put(key, s, loadVersion);
+        }
+
+        Object[] ret = new Object[selects.size()];
+        for (int i = 0; i < ret.length; i++) {
+            Object v = s.values.get(selects.get(i).getName());
+            ret[i] = v instanceof Date ? ((Date) v).clone() : v;
+        }
+        return ret;
+    }
+
+    @Transactional(readOnly = true)
+    protected Map<String, Object> load(Region r, Object primaryKey) {
+        Object entity = dbf.getEntityManager().find(r.entityClass, primaryKey);
+        if (entity == null) {
+            return null;
+        }
+
+        Map<String, Object> values = new HashMap<>();
+        try {
+            for (Map.Entry<String, Field> e : r.columns.entrySet()) {
+                values.put(e.getKey(), e.getValue().get(entity));
+            }
+        } catch (IllegalAccessException e) {
+            throw new CloudRuntimeException(e);
+        }
+
+        return values;
+    }
+
+    private List<Region> getAffectedRegions(Class entityClass) {
+        if (regions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return affectedRegions.computeIfAbsent(entityClass, clz -> {
+            List<Region> ret = new ArrayList<>();
+            for (Class c = clz; c != null && c != Object.class; c = c.getSuperclass()) {
+                Region r = regions.get(c);
+                if (r != null) {
+                    ret.add(r);
+                }
+            }
+
+            // changes of an EO affect its VO
+            for (Region r : regions.values()) {
+                EO eo = (EO) r.entityClass.getAnnotation(EO.class);
+                if (eo != null && eo.EOClazz() == clz) {
+                    ret.add(r);
+                }
+            }
+
+            return ret;
+        });
+    }
+
+    private PendingEvictions getPendingEvictions() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            if (s instanceof PendingEvictions) {
+                return (PendingEvictions) s;
+            }
+        }
+
+        PendingEvictions p = new PendingEvictions();
+        TransactionSynchronizationManager.registerSynchronization(p);
+        return p;
+    }
+
+    @Override
+    public void evict(Class entityClass, Object primaryKey) {
+        evict(entityClass, Collections.singletonList(primaryKey));
+    }
+
+    @Override
+    public void evict(Class entityClass, Collection primaryKeys) {
+        List<Region> rs = getAffectedRegions(entityClass);
+        if (rs.isEmpty() || primaryKeys.isEmpty()) {
+            return;
+        }
+
+        Set<String> keys = new HashSet<>();
+        for (Object pk : primaryKeys) {
+            keys.add(String.valueOf(pk));
+        }
+
+        Evictions e = new Evictions();
+        rs.forEach(r -> e.keys.put(r, keys));
+        evict(e);
+    }
+
+    @Override
+    public void evictAll(Class entityClass) {
+        List<Region> rs = getAffectedRegions(entityClass);
+        if (rs.isEmpty()) {
+            return;
+        }
+
+        Evictions e = new Evictions();
+        e.all.addAll(rs);
+        evict(e);
+    }
+
+    private void evict(Evictions e) {
+        e.evict();
+
+        PendingEvictions p = getPendingEvictions();
+        if (p != null) {
+            p.evictions.addAll(e);
+        } else {
+            publish(e);
+        }
+    }
+
+    // evict all entities of the class changed by a JPQL update or delete
+    void evictByJpql(String jpql) {
+        if (regions.isEmpty()) {
+            return;
+        }
+
+        String[] words = jpql.trim().split("\\s+", 4);
+        String op = words[0].toLowerCase();
+        if (!op.equals("update") && !op.equals("delete")) {
+            return;
+        }
+
+        String name = words.length > 2 && words[1].equalsIgnoreCase("from") ? words[2] : (words.length > 1 ? words[1] : null);
+        Class clz = name == null ? null : entityClasses.get(name);
+        if (clz != null) {
+            evictAll(clz);
+        } else {
+            logger.warn(String.format("cannot find the entity changed by the JPQL[%s], evict all entity cache", jpql));
+            Evictions e = new Evictions();
+            e.all.addAll(regions.values());
+            evict(e);
+        }
+    }
+
+    private void publish(Evictions e) {
+        if (e.all.isEmpty() && e.keys.isEmpty()) {
+            return;
+        }
+
+        EvictionData data = e.toData();
+        try {
+            evtf.fire(EVICTION_CANONICAL_EVENT_PATH, JSONObjectUtil.toJsonString(data));
+        } catch (Throwable t) {
+            // entries on other nodes still expire by entityCache.ttl
+            logger.warn(String.format("unable to publish entity cache eviction of %s", data.all.isEmpty() ?
+                    data.primaryKeys.keySet() : data.all), t);
+        }
+    }
+
+    // evictions published by other management nodes
+    void onEvicted(EvictionData data) {
+        for (String name : data.all) {
+            Region r = getRegion(name);
+            if (r != null) {
+                r.evictAll();
+            }
+        }
+
+        data.primaryKeys.forEach((name, keys) -> {
+            Region r = getRegion(name);
+            if (r != null) {
+                r.evict(keys);
+            }
+        });
+    }
+
+    private Region getRegion(String entityName) {
+        Class clz = entityClasses.get(entityName);
+        return clz == null ? null : regions.get(clz);
+    }
+
+    @Override
+    public Map<String, EntityCacheStatistic> getEntityCacheStatistics() {
+        return regions.values().stream().collect(Collectors.toMap(r -> r.statistic.getEntityName(), r -> r.statistic));
+    }
+
+    @Override
+    public boolean start() {
+        for (EntityType<?> type : dbf.getEntityManager().getMetamodel().getEntities()) {
+            entityClasses.put(type.getName(), type.getJavaType());
+        }
+
+        for (String name : DbGlobalProperty.ENTITY_CACHE_ENTITIES.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            Class clz = entityClasses.get(name);
+            if (clz == null) {
+                throw new CloudRuntimeException(String.format("invalid entityCache.entities, cannot find the entity[%s]", name));
+            }
+            if (clz.isAnnotationPresent(IdClass.class)) {
+                throw new CloudRuntimeException(String.format("invalid entityCache.entities, the entity[%s] has a composite primary key", name));
+            }
+
+            regions.put(clz, new Region(clz));
+        }
+
+        if (regions.isEmpty()) {
+            return true;
+        }
+
+        evtf.on(EVICTION_CANONICAL_EVENT_PATH, new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                if (evtf.isFromThisManagementNode(tokens)) {
+                    return;
+                }
+
+                onEvicted(JSONObjectUtil.toObject((String) data, EvictionData.class));
+            }
+        });
+
+        jmxf.registerBean("EntityCache", this);
+        logger.debug(String.format("entity cache is enabled for %s", regions.values().stream()
+                .map(r -> r.statistic.getEntityName()).collect(Collectors.toList())));
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        return true;
+    }
+}
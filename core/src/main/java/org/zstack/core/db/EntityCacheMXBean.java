@@ -0,0 +1,9 @@
+package org.zstack.core.db;
+
+import java.util.Map;
+
+/**
+ */
+public interface EntityCacheMXBean {
+    Map<String, EntityCacheStatistic> getEntityCacheStatistics();
+}
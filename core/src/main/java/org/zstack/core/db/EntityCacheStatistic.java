@@ -0,0 +1,62 @@
+package org.zstack.core.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ */
+public class EntityCacheStatistic {
+    private String entityName;
+    private final AtomicLong hit = new AtomicLong();
+    private final AtomicLong miss = new AtomicLong();
+    private final AtomicLong eviction = new AtomicLong();
+    private volatile int size;
+
+    public EntityCacheStatistic() {
+    }
+
+    public EntityCacheStatistic(String entityName) {
+        this.entityName = entityName;
+    }
+
+    void hit() {
+        hit.incrementAndGet();
+    }
+
+    void miss() {
+        miss.incrementAndGet();
+    }
+
+    void evicted(int num) {
+        eviction.addAndGet(num);
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public long getHit() {
+        return hit.get();
+    }
+
+    public long getMiss() {
+        return miss.get();
+    }
+
+    public long getEviction() {
+        return eviction.get();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getHitRatio() {
+        long h = hit.get();
+        long total = h + miss.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+}
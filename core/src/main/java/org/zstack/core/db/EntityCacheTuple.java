@@ -0,0 +1,61 @@
+package org.zstack.core.db;
+
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * tuple of column values served by EntityCache, only positional access is supported
+ */
+class EntityCacheTuple implements Tuple {
+    private final Object[] values;
+
+    EntityCacheTuple(Object[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public <X> X get(TupleElement<X> tupleElement) {
+        throw new IllegalArgumentException("tuple served by the entity cache has no tuple element");
+    }
+
+    @Override
+    public <X> X get(String alias, Class<X> type) {
+        throw new IllegalArgumentException(String.format("tuple served by the entity cache has no alias[%s]", alias));
+    }
+
+    @Override
+    public Object get(String alias) {
+        throw new IllegalArgumentException(String.format("tuple served by the entity cache has no alias[%s]", alias));
+    }
+
+    @Override
+    public <X> X get(int i, Class<X> type) {
+        Object v = get(i);
+        if (v != null && !type.isInstance(v)) {
+            throw new IllegalArgumentException(String.format("the value at %s is %s, not %s", i, v.getClass(), type));
+        }
+
+        return type.cast(v);
+    }
+
+    @Override
+    public Object get(int i) {
+        if (i < 0 || i >= values.length) {
+            throw new IllegalArgumentException(String.format("index %s is out of the tuple of %s values", i, values.length));
+        }
+
+        return values[i];
+    }
+
+    @Override
+    public Object[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public List<TupleElement<?>> getElements() {
+        return new ArrayList<>();
+    }
+}
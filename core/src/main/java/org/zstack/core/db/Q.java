@@ -71,9 +71,19 @@ public class Q {
         return Collections.emptyList();
     }
 
-    @Transactional(readOnly = true)
     @SuppressWarnings("unchecked")
     public <K> K findValue() {
+        if (q.isEntityCacheable()) {
+            Object[] values = q.findInEntityCache();
+            return values == null ? null : (K) values[0];
+        }
+
+        return transactionalFindValue();
+    }
+
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    private <K> K transactionalFindValue() {
         return (K) q._findValue();
     }
 
@@ -86,8 +96,17 @@ public class Q {
         return Collections.emptyList();
     }
 
-    @Transactional(readOnly = true)
     public Tuple findTuple() {
+        if (q.isEntityCacheable()) {
+            Object[] values = q.findInEntityCache();
+            return values == null ? null : new EntityCacheTuple(values);
+        }
+
+        return transactionalFindTuple();
+    }
+
+    @Transactional(readOnly = true)
+    private Tuple transactionalFindTuple() {
         return q._findTuple();
     }
 
@@ -24,6 +24,8 @@ import java.util.function.Consumer;
 public class SQL {
     @Autowired
     private DatabaseFacade dbf;
+    @Autowired
+    private EntityCacheImpl entityCache;
 
     private Do consumer;
 
@@ -123,6 +125,7 @@ public class SQL {
         rebuildQueryInTransaction();
         int ret = query.executeUpdate();
         dbf.getEntityManager().flush();
+        entityCache.evictByJpql(sql);
         return ret;
     }
 
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Configurable;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.zstack.utils.logging.CLogger;
 import org.zstack.utils.logging.CLoggerImpl;
 
@@ -37,6 +38,8 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
 
     @Autowired
     private DatabaseFacade _dbf;
+    @Autowired
+    private EntityCache _entityCache;
     
     class Condition {
         private final SingularAttribute _attr;
@@ -76,6 +79,41 @@ public class SimpleQueryImpl<T> implements SimpleQuery<T> {
         _builder = _dbf.getCriteriaBuilder();
     }
 
+    /**
+     * a primary key lookup of columns outside of transactions can be served by EntityCache
+     */
+    boolean isEntityCacheable() {
+        if (_conditions.size() != 1 || _selects.isEmpty() || !_entityCache.isCached(_entityClass)) {
+            return false;
+        }
+
+        Condition con = _conditions.get(0);
+        if (con._op != Op.EQ || con._val.length != 1 || con._val[0] == null
+                || limit != null || start != null || groupByInfo != null || !orderInfos.isEmpty()) {
+            return false;
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+
+        List<SingularAttribute> attrs = new ArrayList<SingularAttribute>(_selects.size());
+        for (AttrInfo info : _selects) {
+            attrs.add(info._attr);
+        }
+
+        return _entityCache.canServe(_entityClass, con._attr, attrs);
+    }
+
+    Object[] findInEntityCache() {
+        List<SingularAttribute> attrs = new ArrayList<SingularAttribute>(_selects.size());
+        for (AttrInfo info : _selects) {
+            attrs.add(info._attr);
+        }
+
+        return _entityCache.getValues(_entityClass, _conditions.get(0)._val[0], attrs);
+    }
+
     @Override
     public SimpleQuery<T> select(SingularAttribute... attrs) {
         for (int i=0; i<attrs.length; i++) {
@@ -25,6 +25,8 @@ public class UpdateQueryImpl implements UpdateQuery {
 
     @Autowired
     private DatabaseFacadeImpl dbf;
+    @Autowired
+    private EntityCacheImpl entityCache;
 
     private Class entityClass;
     private Map<SingularAttribute, Object> setValues = new HashMap<>();
@@ -210,6 +212,7 @@ public class UpdateQueryImpl implements UpdateQuery {
 
         int ret = q.executeUpdate();
         dbf.getEntityManager().flush();
+        entityCache.evictAll(entityClass);
         return ret;
     }
 
@@ -292,5 +295,6 @@ public class UpdateQueryImpl implements UpdateQuery {
 
         q.executeUpdate();
         dbf.getEntityManager().flush();
+        entityCache.evictAll(entityClass);
     }
 }
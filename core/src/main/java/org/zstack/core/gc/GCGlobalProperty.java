@@ -1,5 +1,6 @@
 package org.zstack.core.gc;
 
+import org.zstack.core.GlobalProperty;
 import org.zstack.core.GlobalPropertyDefinition;
 
 /**
@@ -7,4 +8,18 @@ import org.zstack.core.GlobalPropertyDefinition;
  */
 @GlobalPropertyDefinition
 public class GCGlobalProperty {
+    @GlobalProperty(name="GC.timerTickInMillis", defaultValue = "100")
+    public static long TIMER_TICK_IN_MILLIS;
+    @GlobalProperty(name="GC.maxConcurrentJobs", defaultValue = "50")
+    public static int MAX_CONCURRENT_JOBS;
+    // a job not completed in this time gives up its slot of GC.maxConcurrentJobs
+    @GlobalProperty(name="GC.jobSlotTimeoutInSeconds", defaultValue = "1800")
+    public static long JOB_SLOT_TIMEOUT;
+    // the interval of a failed time based job doubles on each failure up to this
+    @GlobalProperty(name="GC.maxRetryIntervalInSeconds", defaultValue = "3600")
+    public static long MAX_RETRY_INTERVAL;
+    // a random delay up to this fraction of the interval is added, so jobs failed
+    // or loaded together don't run together again
+    @GlobalProperty(name="GC.retryJitter", defaultValue = "0.2")
+    public static double RETRY_JITTER;
 }
@@ -11,7 +11,6 @@ import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.Q;
 import org.zstack.core.db.SQL;
 import org.zstack.core.errorcode.ErrorFacade;
-import org.zstack.core.thread.SyncThread;
 import org.zstack.header.errorcode.ErrorCode;
 import org.zstack.header.exception.CloudRuntimeException;
 import org.zstack.utils.FieldUtils;
@@ -100,6 +99,7 @@ public abstract class GarbageCollector {
         unlock();
 
         logger.debug(String.format("[GC] a job[name:%s, id:%s] failed because %s", NAME, uuid,err));
+        gcMgr.jobFailed();
         GarbageCollectorVO vo = dbf.findByUuid(uuid, GarbageCollectorVO.class);
         if (vo == null) {
             logger.warn(String.format("[GC] cannot find a job[name:%s, id:%s], assume it's deleted", NAME, uuid));
@@ -185,33 +185,51 @@ public abstract class GarbageCollector {
         gcMgr.registerGC(this);
     }
 
-    @SyncThread(level = 50)
     void runTrigger() {
         GarbageCollector self = this;
-        EXECUTED_TIMES++;
 
-        try {
-            triggerNow(new GCCompletion(null) {
-                @Override
-                public void cancel() {
-                    self.cancel();
-                }
-
-                @Override
-                public void success() {
-                    self.success();
-                }
+        gcMgr.runJob(this, done -> {
+            EXECUTED_TIMES++;
 
-                @Override
-                public void fail(ErrorCode errorCode) {
-                    self.fail(errorCode);
+            try {
+                triggerNow(new GCCompletion(null) {
+                    @Override
+                    public void cancel() {
+                        try {
+                            self.cancel();
+                        } finally {
+                            done.run();
+                        }
+                    }
+
+                    @Override
+                    public void success() {
+                        try {
+                            self.success();
+                        } finally {
+                            done.run();
+                        }
+                    }
+
+                    @Override
+                    public void fail(ErrorCode errorCode) {
+                        try {
+                            self.fail(errorCode);
+                        } finally {
+                            done.run();
+                        }
+                    }
+                });
+            } catch (Throwable t) {
+                logger.warn(String.format("[GC] unhandled exception happened when" +
+                        " running a GC job[name:%s, id:%s]", NAME, uuid), t);
+                try {
+                    fail(inerr(t.getMessage()));
+                } finally {
+                    done.run();
                 }
-            });
-        } catch (Throwable t) {
-            logger.warn(String.format("[GC] unhandled exception happened when" +
-                    " running a GC job[name:%s, id:%s]", NAME, uuid), t);
-            fail(inerr(t.getMessage()));
-        }
+            }
+        });
     }
 
     public boolean existedAndNotCompleted() {
@@ -0,0 +1,11 @@
+package org.zstack.core.gc;
+
+public interface GarbageCollectorMXBean {
+    long getScheduledJobs();
+
+    int getRunningJobs();
+
+    long getFailedJobs();
+
+    int getManagedJobs();
+}
@@ -9,6 +9,7 @@ import org.zstack.core.config.GlobalConfigUpdateExtensionPoint;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.Q;
 import org.zstack.core.errorcode.ErrorFacade;
+import org.zstack.core.jmx.JmxFacade;
 import org.zstack.core.thread.ChainTask;
 import org.zstack.core.thread.PeriodicTask;
 import org.zstack.core.thread.SyncTaskChain;
@@ -29,6 +30,10 @@ import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static org.zstack.core.Platform.operr;
 
@@ -36,7 +41,7 @@ import static org.zstack.core.Platform.operr;
  * Created by xing5 on 2017/3/1.
  */
 public class GarbageCollectorManagerImpl extends AbstractService
-        implements GarbageCollectorManager, Component, ManagementNodeReadyExtensionPoint {
+        implements GarbageCollectorManager, Component, ManagementNodeReadyExtensionPoint, GarbageCollectorMXBean {
     static final CLogger logger = Utils.getLogger(GarbageCollectorManagerImpl.class);
 
     @Autowired
@@ -49,9 +54,16 @@ public class GarbageCollectorManagerImpl extends AbstractService
     private DatabaseFacade dbf;
     @Autowired
     private ErrorFacade errf;
+    @Autowired
+    private JmxFacade jmxf;
 
     private Future<Void> scanOrphanJobsTask;
 
+    // delays of all time based jobs, instead of a java.util.Timer thread per job
+    private final TimingWheel timer = new TimingWheel("gc-job-timer", GCGlobalProperty.TIMER_TICK_IN_MILLIS);
+    private final AtomicInteger runningJobs = new AtomicInteger();
+    private final AtomicLong failedJobs = new AtomicLong();
+
     private ConcurrentHashMap<String, GarbageCollector> managedGarbageCollectors = new ConcurrentHashMap<>();
 
     private void startScanOrphanJobs() {
@@ -102,13 +114,98 @@ public class GarbageCollectorManagerImpl extends AbstractService
         managedGarbageCollectors.remove(gc.uuid);
     }
 
+    TimingWheel.Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return timer.schedule(task, delay, unit);
+    }
+
+    void jobFailed() {
+        failedJobs.incrementAndGet();
+    }
+
+    /**
+     * runs a job holding one of GC.maxConcurrentJobs slots, the job calls the given
+     * Runnable when it completes to give the slot back
+     */
+    void runJob(GarbageCollector gc, Consumer<Runnable> job) {
+        thdf.chainSubmit(new ChainTask(null) {
+            @Override
+            public String getSyncSignature() {
+                return "gc-jobs";
+            }
+
+            @Override
+            public void run(SyncTaskChain chain) {
+                AtomicBoolean released = new AtomicBoolean(false);
+                TimingWheel.Timeout[] guard = new TimingWheel.Timeout[1];
+                Runnable done = () -> {
+                    if (released.compareAndSet(false, true)) {
+                        runningJobs.decrementAndGet();
+                        if (guard[0] != null) {
+                            guard[0].cancel();
+                        }
+                        chain.next();
+                    }
+                };
+
+                runningJobs.incrementAndGet();
+                guard[0] = timer.schedule(() -> {
+                    if (!released.get()) {
+                        logger.warn(String.format("[GC] a job[name:%s, id:%s] doesn't complete in %s seconds, give up its slot",
+                                gc.NAME, gc.uuid, GCGlobalProperty.JOB_SLOT_TIMEOUT));
+                    }
+                    done.run();
+                }, GCGlobalProperty.JOB_SLOT_TIMEOUT, TimeUnit.SECONDS);
+
+                try {
+                    job.accept(done);
+                } catch (Throwable t) {
+                    logger.warn(String.format("[GC] unhandled exception happened when running a GC job[name:%s, id:%s]", gc.NAME, gc.uuid), t);
+                    done.run();
+                }
+            }
+
+            @Override
+            protected int getSyncLevel() {
+                return GCGlobalProperty.MAX_CONCURRENT_JOBS;
+            }
+
+            @Override
+            public String getName() {
+                return String.format("gc-job-%s", gc.uuid);
+            }
+        });
+    }
+
+    @Override
+    public long getScheduledJobs() {
+        return timer.getPendingTasks();
+    }
+
+    @Override
+    public int getRunningJobs() {
+        return runningJobs.get();
+    }
+
+    @Override
+    public long getFailedJobs() {
+        return failedJobs.get();
+    }
+
+    @Override
+    public int getManagedJobs() {
+        return managedGarbageCollectors.size();
+    }
+
     @Override
     public boolean start() {
+        timer.start(thdf);
+        jmxf.registerBean("GarbageCollector", this);
         return true;
     }
 
     @Override
     public boolean stop() {
+        timer.stop();
         return true;
     }
 
@@ -2,8 +2,7 @@ package org.zstack.core.gc;
 
 import org.zstack.header.errorcode.ErrorCode;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -15,24 +14,32 @@ public abstract class TimeBasedGarbageCollector extends GarbageCollector {
     @GC
     public volatile TimeUnit NEXT_TIME_UNIT;
 
-    private TimerTask currentTimer;
+    private volatile TimingWheel.Timeout currentTimer;
+    // failures in a row, the retry interval backs off exponentially with it
+    volatile int retries;
 
     public TimeBasedGarbageCollector() {
         canceller = () -> {};
     }
 
-    protected void setupTimer() {
-        logger.debug(String.format("[GC] schedule a GC job[name:%s, id:%s] to run after %s %s",
-                NAME, uuid, NEXT_TIME, NEXT_TIME_UNIT));
+    private long nextDelayInMillis() {
+        long delay = NEXT_TIME_UNIT.toMillis(NEXT_TIME);
+        if (retries > 0) {
+            long max = Math.max(delay, TimeUnit.SECONDS.toMillis(GCGlobalProperty.MAX_RETRY_INTERVAL));
+            int shift = Math.min(retries - 1, 30);
+            // compared before shifting, an overflowed delay could be positive but wrong
+            delay = delay <= 0 || delay > (max >> shift) ? max : delay << shift;
+        }
 
-        currentTimer = new TimerTask() {
-            @Override
-            public void run() {
-                runTrigger();
-            }
-        };
+        return delay + (long) (delay * GCGlobalProperty.RETRY_JITTER * ThreadLocalRandom.current().nextDouble());
+    }
+
+    protected void setupTimer() {
+        long delay = nextDelayInMillis();
+        logger.debug(String.format("[GC] schedule a GC job[name:%s, id:%s] to run after %s ms",
+                NAME, uuid, delay));
 
-        new Timer().schedule(currentTimer, NEXT_TIME_UNIT.toMillis(NEXT_TIME));
+        currentTimer = gcMgr.schedule(this::runTrigger, delay, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -46,6 +53,7 @@ public abstract class TimeBasedGarbageCollector extends GarbageCollector {
 
     @Override
     protected void fail(ErrorCode err) {
+        retries++;
         super.fail(err);
         setupTimer();
     }
@@ -0,0 +1,213 @@
+package org.zstack.core.gc;
+
+import org.zstack.core.thread.PeriodicTask;
+import org.zstack.core.thread.ThreadFacade;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A hierarchical timing wheel driven by one periodic task of ThreadFacade, so
+ * any number of delayed jobs costs no thread of its own.
+ *
+ * Level 0 has WHEEL_SIZE slots of one tick, each next level has WHEEL_SIZE slots
+ * as long as the whole level below. A task is put at the highest level where its
+ * deadline and the current tick differ, and is moved down a level when its slot
+ * comes, until it's due in level 0.
+ */
+public class TimingWheel {
+    private static final CLogger logger = Utils.getLogger(TimingWheel.class);
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 5;
+
+    private static final int PENDING = 0;
+    private static final int FIRED = 1;
+    private static final int CANCELLED = 2;
+
+    public interface Timeout {
+        boolean cancel();
+    }
+
+    private class Entry implements Timeout {
+        final long deadline;
+        final Runnable task;
+        final AtomicInteger state = new AtomicInteger(PENDING);
+
+        Entry(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+
+            // the entry itself is dropped when its slot comes
+            pending.decrementAndGet();
+            return true;
+        }
+    }
+
+    private final String name;
+    private final long tickInMillis;
+    private final LongSupplier clock;
+    private final long startTime;
+    private final List<Entry>[][] slots = new List[LEVELS][WHEEL_SIZE];
+    private final AtomicLong pending = new AtomicLong();
+    // the next tick to process
+    private long currentTick;
+    private Future<Void> driver;
+
+    public TimingWheel(String name, long tickInMillis) {
+        this(name, tickInMillis, System::currentTimeMillis);
+    }
+
+    // unit tests drive the wheel with their own clock
+    TimingWheel(String name, long tickInMillis, LongSupplier clock) {
+        this.name = name;
+        this.tickInMillis = tickInMillis;
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+    }
+
+    public synchronized void start(ThreadFacade thdf) {
+        if (driver != null) {
+            return;
+        }
+
+        driver = thdf.submitPeriodicTask(new PeriodicTask() {
+            @Override
+            public TimeUnit getTimeUnit() {
+                return TimeUnit.MILLISECONDS;
+            }
+
+            @Override
+            public long getInterval() {
+                return tickInMillis;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    advance();
+                } catch (Throwable t) {
+                    logger.warn(String.format("unhandled exception in the timing wheel[%s]", name), t);
+                }
+            }
+        });
+    }
+
+    public synchronized void stop() {
+        if (driver != null) {
+            driver.cancel(true);
+            driver = null;
+        }
+    }
+
+    public long getPendingTasks() {
+        return pending.get();
+    }
+
+    private long nowTick() {
+        return (clock.getAsLong() - startTime) / tickInMillis;
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        // rounded up, a task never runs early
+        long at = clock.getAsLong() - startTime + unit.toMillis(Math.max(delay, 0));
+        Entry e = new Entry((at + tickInMillis - 1) / tickInMillis, task);
+        pending.incrementAndGet();
+        synchronized (this) {
+            insert(e);
+        }
+        return e;
+    }
+
+    private void insert(Entry e) {
+        long deadline = Math.max(e.deadline, currentTick);
+
+        int level = 0;
+        for (int i = LEVELS - 1; i > 0; i--) {
+            if ((deadline >>> (WHEEL_BITS * i)) != (currentTick >>> (WHEEL_BITS * i))) {
+                level = i;
+                break;
+            }
+        }
+
+        long slot;
+        if (level == LEVELS - 1 && (deadline >>> (WHEEL_BITS * level)) - (currentTick >>> (WHEEL_BITS * level)) >= WHEEL_SIZE) {
+            // beyond the range of the wheel, park it in the last slot of this round and look again then
+            slot = ((currentTick >>> (WHEEL_BITS * level)) - 1) & WHEEL_MASK;
+        } else {
+            slot = (deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+        }
+
+        List<Entry> entries = slots[level][(int) slot];
+        if (entries == null) {
+            entries = new ArrayList<>();
+            slots[level][(int) slot] = entries;
+        }
+        entries.add(e);
+    }
+
+    private List<Entry> take(int level, long slot) {
+        List<Entry> entries = slots[level][(int) (slot & WHEEL_MASK)];
+        slots[level][(int) (slot & WHEEL_MASK)] = null;
+        return entries;
+    }
+
+    void advance() {
+        List<Entry> due = new ArrayList<>();
+
+        synchronized (this) {
+            long target = nowTick();
+            for (; currentTick <= target; currentTick++) {
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                        continue;
+                    }
+
+                    List<Entry> entries = take(level, currentTick >>> (WHEEL_BITS * level));
+                    if (entries != null) {
+                        entries.stream().filter(e -> e.state.get() == PENDING).forEach(this::insert);
+                    }
+                }
+
+                List<Entry> entries = take(0, currentTick);
+                if (entries != null) {
+                    due.addAll(entries);
+                }
+            }
+        }
+
+        for (Entry e : due) {
+            if (!e.state.compareAndSet(PENDING, FIRED)) {
+                continue;
+            }
+
+            pending.decrementAndGet();
+            try {
+                e.task.run();
+            } catch (Throwable t) {
+                logger.warn(String.format("unhandled exception when running a task of the timing wheel[%s]", name), t);
+            }
+        }
+    }
+}
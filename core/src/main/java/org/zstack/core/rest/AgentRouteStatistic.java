@@ -0,0 +1,69 @@
+package org.zstack.core.rest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * latency of an agent command is counted from sending the request to
+ * receiving its callback, or failing/timing out
+ */
+public class AgentRouteStatistic {
+    private String route;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong failure = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+    private volatile long maxTime;
+
+    public AgentRouteStatistic() {
+    }
+
+    public AgentRouteStatistic(String route) {
+        this.route = route;
+    }
+
+    void begin() {
+        inFlight.incrementAndGet();
+    }
+
+    void end(long time, boolean success) {
+        inFlight.decrementAndGet();
+        count.incrementAndGet();
+        totalTime.addAndGet(time);
+        if (!success) {
+            failure.incrementAndGet();
+        }
+        if (time > maxTime) {
+            maxTime = time;
+        }
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getFailure() {
+        return failure.get();
+    }
+
+    public long getTotalTime() {
+        return totalTime.get();
+    }
+
+    public long getAverageTime() {
+        long c = count.get();
+        return c == 0 ? 0 : totalTime.get() / c;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+}
@@ -0,0 +1,15 @@
+package org.zstack.core.rest;
+
+import java.util.Map;
+
+/**
+ */
+public interface AgentTransportMXBean {
+    Map<String, AgentRouteStatistic> getRouteStatistics();
+
+    int getLeasedConnections();
+
+    int getAvailableConnections();
+
+    int getPendingConnections();
+}
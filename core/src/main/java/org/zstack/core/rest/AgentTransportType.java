@@ -0,0 +1,10 @@
+package org.zstack.core.rest;
+
+/**
+ * the transport RESTFacadeImpl uses to send async agent commands,
+ * see CoreGlobalProperty.REST_FACADE_AGENT_TRANSPORT
+ */
+public enum AgentTransportType {
+    AsyncRestTemplate,
+    Pooled
+}
@@ -0,0 +1,149 @@
+package org.zstack.core.rest;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.zstack.header.exception.CloudRuntimeException;
+import org.zstack.utils.Utils;
+import org.zstack.utils.gson.JSONObjectUtil;
+import org.zstack.utils.logging.CLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends agent commands through a non-blocking HttpAsyncClient with a
+ * per-route connection pool, bypassing AsyncRestTemplate and its message
+ * converters. Command objects are encoded by Gson straight into the request
+ * buffer, no intermediate JSON String is built.
+ *
+ * The agents speak HTTP/1.1 only, connections are kept alive and reused per route.
+ */
+class PooledAgentTransport implements AgentTransportMXBean {
+    private static final CLogger logger = Utils.getLogger(PooledAgentTransport.class);
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient client;
+    private final Map<String, AgentRouteStatistic> routeStatistics = new ConcurrentHashMap<>();
+
+    // exposes the internal buffer so the entity doesn't copy it again
+    private static class JsonBuffer extends ByteArrayOutputStream {
+        JsonBuffer() {
+            super(1024);
+        }
+
+        NByteArrayEntity toEntity() {
+            return new NByteArrayEntity(buf, 0, count, ContentType.APPLICATION_JSON);
+        }
+    }
+
+    // timeout are in milliseconds
+    PooledAgentTransport(int readTimeout, int connectTimeout, int maxPerRoute, int maxTotal) {
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                    .setSoKeepAlive(true)
+                    .setTcpNoDelay(true)
+                    .build()));
+        } catch (IOReactorException ex) {
+            throw new CloudRuntimeException(ex);
+        }
+
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setMaxTotal(maxTotal);
+
+        client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeout)
+                        .setSocketTimeout(readTimeout)
+                        .setConnectionRequestTimeout(connectTimeout * 2)
+                        .build())
+                .build();
+        client.start();
+    }
+
+    static String getRoute(String url) {
+        URI uri = URI.create(url);
+        return String.format("%s://%s:%s", uri.getScheme(), uri.getHost(), uri.getPort());
+    }
+
+    AgentRouteStatistic getRouteStatistic(String url) {
+        return routeStatistics.computeIfAbsent(getRoute(url), AgentRouteStatistic::new);
+    }
+
+    private NByteArrayEntity encode(Object body) {
+        if (body instanceof String) {
+            return new NByteArrayEntity(((String) body).getBytes(StandardCharsets.UTF_8), ContentType.APPLICATION_JSON);
+        }
+
+        JsonBuffer buffer = new JsonBuffer();
+        try (Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
+            JSONObjectUtil.toJson(body, writer);
+        } catch (IOException e) {
+            throw new CloudRuntimeException(e);
+        }
+
+        return buffer.toEntity();
+    }
+
+    /**
+     * always POST, as the AsyncRestTemplate transport does whatever the caller asked for
+     *
+     * @param body a command object, or a JSON string already encoded by the caller
+     */
+    void send(String url, Object body, Map<String, String> headers, FutureCallback<HttpResponse> callback) {
+        RequestBuilder builder = RequestBuilder.post(url).setEntity(encode(body));
+        headers.forEach(builder::setHeader);
+        HttpUriRequest request = builder.build();
+
+        if (logger.isTraceEnabled()) {
+            logger.trace(String.format("json post [%s] through pooled agent transport", url));
+        }
+
+        client.execute(request, callback);
+    }
+
+    void stop() {
+        try {
+            client.close();
+        } catch (IOException e) {
+            logger.warn(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, AgentRouteStatistic> getRouteStatistics() {
+        return routeStatistics;
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        return connectionManager.getTotalStats().getLeased();
+    }
+
+    @Override
+    public int getAvailableConnections() {
+        return connectionManager.getTotalStats().getAvailable();
+    }
+
+    @Override
+    public int getPendingConnections() {
+        return connectionManager.getTotalStats().getPending();
+    }
+}
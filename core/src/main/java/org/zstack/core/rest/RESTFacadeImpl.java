@@ -1,6 +1,8 @@
 package org.zstack.core.rest;
 
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
@@ -16,6 +18,7 @@ import org.springframework.web.util.UriComponentsBuilder;
 import org.zstack.core.CoreGlobalProperty;
 import org.zstack.core.MessageCommandRecorder;
 import org.zstack.core.Platform;
+import org.zstack.core.jmx.JmxFacade;
 import org.zstack.core.retry.Retry;
 import org.zstack.core.retry.RetryCondition;
 import org.zstack.core.thread.AsyncThread;
@@ -40,9 +43,12 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -60,6 +66,8 @@ public class RESTFacadeImpl implements RESTFacade {
     private ApiTimeoutManager timeoutMgr;
     @Autowired
     private ValidationFacade vf;
+    @Autowired
+    private JmxFacade jmxf;
 
     private String hostname;
     private int port = 8080;
@@ -67,6 +75,7 @@ public class RESTFacadeImpl implements RESTFacade {
     private String callbackUrl;
     private TimeoutRestTemplate template;
     private AsyncRestTemplate asyncRestTemplate;
+    private PooledAgentTransport agentTransport;
     private String baseUrl;
     private String sendCommandUrl;
     private String callbackHostName;
@@ -79,6 +88,11 @@ public class RESTFacadeImpl implements RESTFacade {
         void fail(ErrorCode err);
 
         void success(HttpEntity<String> responseEntity);
+
+        // the class the response can be decoded to before dispatching, or null
+        Class getReturnClass();
+
+        void success(Object decodedResponse);
     }
 
     private interface HttpCallHandlerWrapper {
@@ -124,6 +138,28 @@ public class RESTFacadeImpl implements RESTFacade {
                 CoreGlobalProperty.REST_FACADE_CONNECT_TIMEOUT,
                 CoreGlobalProperty.REST_FACADE_MAX_PER_ROUTE,
                 CoreGlobalProperty.REST_FACADE_MAX_TOTAL);
+
+        if (getAgentTransportType(CoreGlobalProperty.REST_FACADE_AGENT_TRANSPORT) == AgentTransportType.Pooled) {
+            agentTransport = new PooledAgentTransport(
+                    CoreGlobalProperty.REST_FACADE_READ_TIMEOUT,
+                    CoreGlobalProperty.REST_FACADE_CONNECT_TIMEOUT,
+                    CoreGlobalProperty.REST_FACADE_AGENT_MAX_PER_ROUTE,
+                    CoreGlobalProperty.REST_FACADE_MAX_TOTAL);
+            jmxf.registerBean("AgentTransport", agentTransport);
+            logger.debug("RESTFacade sends agent commands through the pooled agent transport");
+        }
+    }
+
+    static AgentTransportType getAgentTransportType(String value) {
+        for (AgentTransportType t : AgentTransportType.values()) {
+            if (t.toString().equalsIgnoreCase(value)) {
+                return t;
+            }
+        }
+
+        logger.warn(String.format("unknown RESTFacade.agentTransport[%s], valid values are %s, use %s",
+                value, Arrays.toString(AgentTransportType.values()), AgentTransportType.AsyncRestTemplate));
+        return AgentTransportType.AsyncRestTemplate;
     }
 
     // timeout are in milliseconds
@@ -156,6 +192,24 @@ public class RESTFacadeImpl implements RESTFacade {
     void notifyCallback(HttpServletRequest req, HttpServletResponse rsp) {
         String taskUuid = req.getHeader(RESTConstant.TASK_UUID);
         try {
+            AsyncHttpWrapper decodingWrapper = agentTransport == null || taskUuid == null || logger.isTraceEnabled() ? null : wrappers.get(taskUuid);
+            if (decodingWrapper != null && decodingWrapper.getReturnClass() != null) {
+                // decode the response from the request stream directly, skip building the body string
+                Object obj;
+                try (Reader reader = req.getReader()) {
+                    obj = JSONObjectUtil.toObject(reader, decodingWrapper.getReturnClass());
+                } catch (Exception e) {
+                    logger.warn(e.getMessage(), e);
+                    rsp.setStatus(HttpStatus.SC_OK);
+                    decodingWrapper.fail(inerr(e.getMessage()));
+                    return;
+                }
+
+                rsp.setStatus(HttpStatus.SC_OK);
+                decodingWrapper.success(obj);
+                return;
+            }
+
             HttpEntity<String> entity = this.httpServletRequestToHttpEntity(req);
             if (taskUuid == null) {
                 rsp.sendError(HttpStatus.SC_BAD_REQUEST, "No 'taskUuid' found in the header");
@@ -237,6 +291,18 @@ public class RESTFacadeImpl implements RESTFacade {
         if (CoreGlobalProperty.UNIT_TEST_ON) {
             MessageCommandRecorder.record(body.getClass());
         }
+
+        boolean noInterceptor;
+        synchronized (interceptors) {
+            noInterceptor = interceptors.isEmpty();
+        }
+
+        if (agentTransport != null && noInterceptor) {
+            // the pooled transport encodes the command straight into the request buffer
+            asyncJson(url, body, headers, HttpMethod.POST, callback, unit, timeout);
+            return;
+        }
+
         String bodyStr = JSONObjectUtil.toJsonString(body);
         asyncJsonPost(url, bodyStr, headers, callback, unit, timeout);
     }
@@ -265,10 +331,17 @@ public class RESTFacadeImpl implements RESTFacade {
         asyncJson(url, body, headers, HttpMethod.GET, callback, unit, timeout);
     }
 
-    private void asyncJson(final String url, final String body, Map<String, String> headers, HttpMethod method, final AsyncRESTCallback callback, final TimeUnit unit, final long timeout) {
+    private static String bodyToString(Object body) {
+        return body instanceof String ? (String) body : JSONObjectUtil.toJsonString(body);
+    }
+
+    /**
+     * @param body a JSON string, or a command object when sending through the pooled agent transport
+     */
+    private void asyncJson(final String url, final Object body, Map<String, String> headers, HttpMethod method, final AsyncRESTCallback callback, final TimeUnit unit, final long timeout) {
         synchronized (interceptors) {
             for (BeforeAsyncJsonPostInterceptor ic : interceptors) {
-                ic.beforeAsyncJsonPost(url, body, unit, timeout);
+                ic.beforeAsyncJsonPost(url, bodyToString(body), unit, timeout);
             }
         }
 
@@ -285,20 +358,8 @@ public class RESTFacadeImpl implements RESTFacade {
 
         final String taskUuid = Platform.getUuid();
         final long finalStime = stime;
-
-        HttpHeaders requestHeaders = new HttpHeaders();
-        requestHeaders.setContentLength(body.length());
-        requestHeaders.set(RESTConstant.TASK_UUID, taskUuid);
-        requestHeaders.set(RESTConstant.CALLBACK_URL, callbackUrl);
-        MediaType JSON = MediaType.parseMediaType("application/json; charset=utf-8");
-        requestHeaders.setContentType(JSON);
-        if (headers != null) {
-            for (Map.Entry<String, String> e : headers.entrySet()) {
-                requestHeaders.set(e.getKey(), e.getValue());
-            }
-        }
-
-        HttpEntity<String> req = new HttpEntity<String>(body, requestHeaders);
+        final long sendTime = System.currentTimeMillis();
+        final AgentRouteStatistic routeStat = agentTransport == null ? null : agentTransport.getRouteStatistic(url);
 
         AsyncHttpWrapper wrapper = new AsyncHttpWrapper() {
             final AtomicBoolean called = new AtomicBoolean(false);
@@ -309,7 +370,7 @@ public class RESTFacadeImpl implements RESTFacade {
                 public void run() {
                     self.fail(touterr(
                             "[Async Http Timeout] url: %s, timeout after %s[%s], command: %s",
-                            url, timeout, unit.toString(), body
+                            url, timeout, unit.toString(), bodyToString(body)
                     ));
                 }
             }, unit, timeout);
@@ -318,6 +379,59 @@ public class RESTFacadeImpl implements RESTFacade {
                 timeoutTaskReceipt.cancel();
             }
 
+            private void routeDone(boolean success) {
+                if (routeStat != null) {
+                    routeStat.end(System.currentTimeMillis() - sendTime, success);
+                }
+            }
+
+            private boolean complete() {
+                if (!called.compareAndSet(false, true)) {
+                    logger.warn(String.format("Success callback many times, taskId=%s, currentTimeMillis=%s", taskUuid, System.currentTimeMillis()));
+                    return false;
+                }
+
+                if (CoreGlobalProperty.PROFILER_HTTP_CALL) {
+                    HttpCallStatistic stat = statistics.get(url);
+                    stat.addStatistic(System.currentTimeMillis() - finalStime);
+                }
+
+                wrappers.remove(taskUuid);
+                cancelTimeout();
+                routeDone(true);
+                return true;
+            }
+
+            private void reply(JsonAsyncRESTCallback<Object> jcallback, Object obj) {
+                ErrorCode err = vf.validateErrorByErrorCode(obj);
+                if (err != null) {
+                    logger.warn(String.format("error response that causes validation failure: %s", JSONObjectUtil.toJsonString(obj)));
+                    jcallback.fail(err);
+                } else {
+                    jcallback.success(obj);
+                }
+            }
+
+            @Override
+            public Class getReturnClass() {
+                return callback instanceof JsonAsyncRESTCallback ? ((JsonAsyncRESTCallback) callback).getReturnClass() : null;
+            }
+
+            @Override
+            @AsyncThread
+            public void success(Object decodedResponse) {
+                if (!complete()) {
+                    return;
+                }
+
+                try {
+                    reply((JsonAsyncRESTCallback) callback, decodedResponse);
+                } catch (Throwable t) {
+                    logger.warn(t.getMessage(), t);
+                    callback.fail(inerr(t.getMessage()));
+                }
+            }
+
             public void fail(ErrorCode err) {
                 if (!called.compareAndSet(false, true)) {
                     logger.warn(String.format("Failed callback many times, taskId=%s, currentTimeMillis=%s", taskUuid, System.currentTimeMillis()));
@@ -328,6 +442,7 @@ public class RESTFacadeImpl implements RESTFacade {
                 if (!SysErrors.TIMEOUT.toString().equals(err.getCode())) {
                     cancelTimeout();
                 }
+                routeDone(false);
 
                 callback.fail(err);
             }
@@ -335,19 +450,10 @@ public class RESTFacadeImpl implements RESTFacade {
             @Override
             @AsyncThread
             public void success(HttpEntity<String> responseEntity) {
-                if (!called.compareAndSet(false, true)) {
-                    logger.warn(String.format("Success callback many times, taskId=%s, currentTimeMillis=%s", taskUuid, System.currentTimeMillis()));
+                if (!complete()) {
                     return;
                 }
 
-                if (CoreGlobalProperty.PROFILER_HTTP_CALL) {
-                    HttpCallStatistic stat = statistics.get(url);
-                    stat.addStatistic(System.currentTimeMillis() - finalStime);
-                }
-
-                wrappers.remove(taskUuid);
-                cancelTimeout();
-
                 if (logger.isTraceEnabled()) {
                     List<String> hs = responseEntity.getHeaders().get(RESTConstant.TASK_UUID);
                     String taskUuid = hs == null || hs.isEmpty() ? null : hs.get(0);
@@ -364,13 +470,7 @@ public class RESTFacadeImpl implements RESTFacade {
                     JsonAsyncRESTCallback<Object> jcallback = (JsonAsyncRESTCallback)callback;
                     try {
                         Object obj = JSONObjectUtil.toObject(responseEntity.getBody(), jcallback.getReturnClass());
-                        ErrorCode err = vf.validateErrorByErrorCode(obj);
-                        if (err != null) {
-                            logger.warn(String.format("error response that causes validation failure: %s", responseEntity.getBody()));
-                            jcallback.fail(err);
-                        } else {
-                            jcallback.success(obj);
-                        }
+                        reply(jcallback, obj);
                     } catch (Throwable t) {
                         logger.warn(t.getMessage(), t);
                         callback.fail(inerr(t.getMessage()));
@@ -381,6 +481,26 @@ public class RESTFacadeImpl implements RESTFacade {
             }
         };
 
+        if (agentTransport != null) {
+            sendThroughAgentTransport(url, body, headers, taskUuid, routeStat, wrapper);
+            return;
+        }
+
+        String bodyStr = bodyToString(body);
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setContentLength(bodyStr.length());
+        requestHeaders.set(RESTConstant.TASK_UUID, taskUuid);
+        requestHeaders.set(RESTConstant.CALLBACK_URL, callbackUrl);
+        MediaType JSON = MediaType.parseMediaType("application/json; charset=utf-8");
+        requestHeaders.setContentType(JSON);
+        if (headers != null) {
+            for (Map.Entry<String, String> e : headers.entrySet()) {
+                requestHeaders.set(e.getKey(), e.getValue());
+            }
+        }
+
+        HttpEntity<String> req = new HttpEntity<String>(bodyStr, requestHeaders);
+
         try {
             wrappers.put(taskUuid, wrapper);
 
@@ -396,6 +516,47 @@ public class RESTFacadeImpl implements RESTFacade {
         }
     }
 
+    private void sendThroughAgentTransport(String url, Object body, Map<String, String> headers,
+                                           String taskUuid, AgentRouteStatistic routeStat, AsyncHttpWrapper wrapper) {
+        Map<String, String> requestHeaders = new HashMap<>();
+        requestHeaders.put(RESTConstant.TASK_UUID, taskUuid);
+        requestHeaders.put(RESTConstant.CALLBACK_URL, callbackUrl);
+        if (headers != null) {
+            requestHeaders.putAll(headers);
+        }
+
+        try {
+            wrappers.put(taskUuid, wrapper);
+            routeStat.begin();
+
+            // the agent returns the real response through the callback url,
+            // here only the delivery of the command is checked
+            agentTransport.send(url, body, requestHeaders, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse rsp) {
+                    int code = rsp.getStatusLine().getStatusCode();
+                    if (code >= HttpStatus.SC_BAD_REQUEST) {
+                        wrapper.fail(err(SysErrors.HTTP_ERROR, "POST %s returns status code %s, %s",
+                                url, code, rsp.getStatusLine().getReasonPhrase()));
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    wrapper.fail(err(SysErrors.IO_ERROR, e.getLocalizedMessage()));
+                }
+
+                @Override
+                public void cancelled() {
+                    wrapper.fail(inerr("the request to %s is cancelled", url));
+                }
+            });
+        } catch (Exception e) {
+            logger.warn(String.format("Unable to post to %s", url), e);
+            wrapper.fail(inerr(e.getMessage()));
+        }
+    }
+
     @Override
     public void asyncJsonPost(String url, Object body, Map<String, String> headers, AsyncRESTCallback callback) {
         Long timeout = timeoutMgr.getTimeout();
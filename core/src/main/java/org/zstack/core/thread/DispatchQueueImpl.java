@@ -24,6 +24,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Configurable(preConstruction = true, autowire = Autowire.BY_TYPE, dependencyCheck = true)
 class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
@@ -34,8 +35,11 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
     @Autowired
     private org.zstack.core.timeout.Timer zTimer;
 
-    private final HashMap<String, SyncTaskQueueWrapper> syncTasks = new HashMap<String, SyncTaskQueueWrapper>();
-    private final Map<String, ChainTaskQueueWrapper> chainTasks = Collections.synchronizedMap(new HashMap<>());
+    // queues are registered/unregistered through ConcurrentHashMap.compute() so that only
+    // submitters of the same signature contend with each other, unrelated signatures never
+    // share a monitor
+    private final ConcurrentHashMap<String, SyncTaskQueueWrapper> syncTasks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ChainTaskQueueWrapper> chainTasks = new ConcurrentHashMap<>();
     private final Map<String, Set<String>> apiRunningSignature = new ConcurrentHashMap<>();
     private static final CLogger _logger = CLoggerImpl.getLogger(DispatchQueueImpl.class);
 
@@ -47,26 +51,23 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
         sb.append(String.format("\nTASK QUEUE NUMBER: %s\n", chainTasks.size()));
         List<String> asyncTasks = new ArrayList<>();
         long now = System.currentTimeMillis();
-        synchronized (chainTasks) {
-            for (Map.Entry<String, ChainTaskQueueWrapper> e : chainTasks.entrySet()) {
-                StringBuilder tb = new StringBuilder(String.format("\nQUEUE SYNC SIGNATURE: %s", e.getKey()));
-                ChainTaskQueueWrapper w = e.getValue();
-                tb.append(String.format("\nRUNNING TASK NUMBER: %s", w.runningQueue.size()));
-                tb.append(String.format("\nPENDING TASK NUMBER: %s", w.pendingQueue.size()));
-                tb.append(String.format("\nASYNC LEVEL: %s", w.maxThreadNum));
-
-                int index = 0;
-                for (Object obj : w.runningQueue) {
-                    ChainFuture cf = (ChainFuture) obj;
-                    tb.append(TaskInfoBuilder.buildRunningTaskInfo(cf, now, index++));
-                }
+        for (Map.Entry<String, ChainTaskQueueWrapper> e : chainTasks.entrySet()) {
+            StringBuilder tb = new StringBuilder(String.format("\nQUEUE SYNC SIGNATURE: %s", e.getKey()));
+            ChainTaskQueueWrapper w = e.getValue();
+            List<ChainFuture> running = w.getRunningTasks();
+            tb.append(String.format("\nRUNNING TASK NUMBER: %s", running.size()));
+            tb.append(String.format("\nPENDING TASK NUMBER: %s", w.pendingCount.get()));
+            tb.append(String.format("\nASYNC LEVEL: %s", w.maxThreadNum));
 
-                for (Object obj : w.pendingQueue) {
-                    ChainFuture cf = (ChainFuture) obj;
-                    tb.append(TaskInfoBuilder.buildPendingTaskInfo(cf, now, index++));
-                }
-                asyncTasks.add(tb.toString());
+            int index = 0;
+            for (ChainFuture cf : running) {
+                tb.append(TaskInfoBuilder.buildRunningTaskInfo(cf, now, index++));
+            }
+
+            for (ChainFuture cf : w.pendingQueue) {
+                tb.append(TaskInfoBuilder.buildPendingTaskInfo(cf, now, index++));
             }
+            asyncTasks.add(tb.toString());
         }
 
         sb.append(StringUtils.join(asyncTasks, "\n"));
@@ -78,25 +79,21 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
     @Override
     public ChainInfo getChainTaskInfo(String signature) {
         long now = System.currentTimeMillis();
-        synchronized (chainTasks) {
-            ChainInfo info = new ChainInfo();
-            ChainTaskQueueWrapper w = chainTasks.get(signature);
-            if (w == null) {
-                return info;
-            }
+        ChainInfo info = new ChainInfo();
+        ChainTaskQueueWrapper w = chainTasks.get(signature);
+        if (w == null) {
+            return info;
+        }
 
-            int index = 0;
-            for (Object obj : w.runningQueue) {
-                ChainFuture cf = (ChainFuture) obj;
-                info.addRunningTask(TaskInfoBuilder.buildRunningTaskInfo(cf, now, index++));
-            }
+        int index = 0;
+        for (ChainFuture cf : w.getRunningTasks()) {
+            info.addRunningTask(TaskInfoBuilder.buildRunningTaskInfo(cf, now, index++));
+        }
 
-            for (Object obj : w.pendingQueue) {
-                ChainFuture cf = (ChainFuture) obj;
-                info.addPendingTask(TaskInfoBuilder.buildPendingTaskInfo(cf, now, index++));
-            }
-            return info;
+        for (ChainFuture cf : w.pendingQueue) {
+            info.addPendingTask(TaskInfoBuilder.buildPendingTaskInfo(cf, now, index++));
         }
+        return info;
     }
 
     @Override
@@ -153,13 +150,16 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
     }
 
     private class SyncTaskQueueWrapper {
-        ConcurrentLinkedQueue queue = new ConcurrentLinkedQueue();
-        AtomicInteger counter = new AtomicInteger(0);
-        int maxThreadNum = -1;
-        String syncSignature;
+        final ConcurrentLinkedQueue<SyncTaskFuture> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendingCount = new AtomicInteger(0);
+        final AtomicInteger counter = new AtomicInteger(0);
+        volatile int maxThreadNum = -1;
+        volatile String syncSignature;
 
+        // called inside syncTasks.compute(), serialized with other callers of the same signature
         void addTask(SyncTaskFuture task) {
             queue.offer(task);
+            pendingCount.incrementAndGet();
             if (maxThreadNum == -1) {
                 maxThreadNum = task.getSyncLevel();
             }
@@ -183,18 +183,25 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
                 void run() {
                     SyncTaskFuture stask;
                     while (true) {
-                        while ((stask = (SyncTaskFuture) queue.poll()) != null) {
+                        while ((stask = queue.poll()) != null) {
+                            pendingCount.decrementAndGet();
                             stask.run();
                         }
 
-                        synchronized (syncTasks) {
-                            if (queue.isEmpty()) {
-                                if (counter.decrementAndGet() == 0) {
-                                    syncTasks.remove(syncSignature);
-                                }
-
-                                break;
+                        // re-check the queue with the signature's bin locked, a concurrent
+                        // submitter either sees this wrapper still registered or creates a new one
+                        AtomicBoolean exit = new AtomicBoolean(false);
+                        syncTasks.computeIfPresent(syncSignature, (k, w) -> {
+                            if (!queue.isEmpty()) {
+                                return w;
                             }
+
+                            exit.set(true);
+                            return counter.decrementAndGet() == 0 ? null : w;
+                        });
+
+                        if (exit.get()) {
+                            break;
                         }
                     }
 
@@ -212,17 +219,16 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
     private <T> Future<T> doSyncSubmit(final SyncTask<T> syncTask) {
         assert syncTask.getSyncSignature() != null : "How can you submit a sync task without sync signature ???";
 
-        SyncTaskFuture f;
-        synchronized (syncTasks) {
-            SyncTaskQueueWrapper wrapper = syncTasks.get(syncTask.getSyncSignature());
+        SyncTaskFuture f = new SyncTaskFuture(syncTask);
+        syncTasks.compute(syncTask.getSyncSignature(), (k, wrapper) -> {
             if (wrapper == null) {
                 wrapper = new SyncTaskQueueWrapper();
-                syncTasks.put(syncTask.getSyncSignature(), wrapper);
             }
-            f = new SyncTaskFuture(syncTask);
+
             wrapper.addTask(f);
             wrapper.startThreadIfNeeded();
-        }
+            return wrapper;
+        });
 
         return f;
     }
@@ -314,12 +320,19 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
     }
 
     private class ChainTaskQueueWrapper {
-        LinkedList pendingQueue = new LinkedList();
+        final ConcurrentLinkedQueue<ChainFuture> pendingQueue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendingCount = new AtomicInteger(0);
         final Map<String, AtomicInteger> subPendingMap = new ConcurrentHashMap<>();
-        final LinkedList runningQueue = new LinkedList();
-        AtomicInteger counter = new AtomicInteger(0);
-        int maxThreadNum = -1;
-        String syncSignature;
+        final LinkedList<ChainFuture> runningQueue = new LinkedList<>();
+        final AtomicInteger counter = new AtomicInteger(0);
+        volatile int maxThreadNum = -1;
+        volatile String syncSignature;
+
+        List<ChainFuture> getRunningTasks() {
+            synchronized (runningQueue) {
+                return new ArrayList<>(runningQueue);
+            }
+        }
 
         int addSubPending(String deduplicateStr) {
             subPendingMap.compute(deduplicateStr, (k, v) -> {
@@ -360,6 +373,7 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
             removeSubPending(task.getTask().getDeduplicateString(), true);
         }
 
+        // called inside chainTasks.compute(), serialized with other callers of the same signature
         boolean addTask(ChainFuture task, int length) {
             if (length != -1 && CoreGlobalProperty.CHAIN_TASK_QOS) {
                 DebugUtils.Assert(task.getTask().getDeduplicateString() != null, "deduplicate String must be set if max pending string has been set!");
@@ -375,6 +389,7 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
                 }
             }
             pendingQueue.offer(task);
+            pendingCount.incrementAndGet();
 
             if (maxThreadNum == -1) {
                 maxThreadNum = task.getSyncLevel();
@@ -405,20 +420,31 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
                 // start a new thread every time to avoid stack overflow
                 @AsyncThread
                 private void runQueue() {
-                    ChainFuture cf;
-                    synchronized (chainTasks) {
-                        // remove from pending queue and add to running queue later
-                        cf = (ChainFuture) pendingQueue.poll();
-
-                        if (cf == null) {
-                            if (counter.decrementAndGet() == 0) {
-                                chainTasks.remove(syncSignature);
+                    // remove from pending queue and add to running queue later
+                    ChainFuture polled = pendingQueue.poll();
+                    if (polled == null) {
+                        // re-check with the signature's bin locked, a task may have been
+                        // added by a concurrent submitter after the poll above
+                        AtomicReference<ChainFuture> next = new AtomicReference<>();
+                        chainTasks.computeIfPresent(syncSignature, (k, w) -> {
+                            next.set(pendingQueue.poll());
+                            if (next.get() != null) {
+                                return w;
                             }
 
+                            return counter.decrementAndGet() == 0 ? null : w;
+                        });
+
+                        polled = next.get();
+                        if (polled == null) {
                             return;
                         }
                     }
 
+                    final ChainFuture cf = polled;
+
+                    pendingCount.decrementAndGet();
+
                     synchronized (runningQueue) {
                         processTimeoutTask(cf);
                         cf.startExecutionTimeInMills = zTimer.getCurrentTimeMillis();
@@ -498,25 +524,30 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
         assert task.getSyncSignature() != null : "How can you submit a chain task without sync signature ???";
         DebugUtils.Assert(task.getSyncLevel() >= 1, "getSyncLevel() must return 1 at least ");
 
-        synchronized (chainTasks) {
-            final String signature = task.getSyncSignature();
-            ChainTaskQueueWrapper wrapper = chainTasks.get(signature);
+        final String signature = task.getSyncSignature();
+        ChainFuture cf = new ChainFuture(task);
+        AtomicBoolean succeed = new AtomicBoolean(false);
+        chainTasks.compute(signature, (k, wrapper) -> {
             if (wrapper == null) {
                 wrapper = new ChainTaskQueueWrapper();
-                chainTasks.put(signature, wrapper);
             }
 
-            ChainFuture cf = new ChainFuture(task);
-            boolean succeed = wrapper.addTask(cf, task.getMaxPendingTasks());
-            if (!succeed) {
-                cf.cancel();
-                logger.debug(String.format("Pending queue[%s] exceed max size, task name: %s, start execute callback", task.getSyncSignature(), task.getName()));
-                task.exceedMaxPendingCallback();
-            } else {
+            succeed.set(wrapper.addTask(cf, task.getMaxPendingTasks()));
+            if (succeed.get()) {
                 wrapper.startThreadIfNeeded();
             }
-            return cf;
+
+            // do not leave an idle queue registered if the task was thrown away
+            return wrapper.counter.get() == 0 && wrapper.pendingQueue.isEmpty() ? null : wrapper;
+        });
+
+        if (!succeed.get()) {
+            cf.cancel();
+            logger.debug(String.format("Pending queue[%s] exceed max size, task name: %s, start execute callback", task.getSyncSignature(), task.getName()));
+            task.exceedMaxPendingCallback();
         }
+
+        return cf;
     }
 
 
@@ -528,18 +559,16 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
     @Override
     public Map<String, SyncTaskStatistic> getSyncTaskStatistics() {
         Map<String, SyncTaskStatistic> ret = new ConcurrentHashMap<>();
-        synchronized (syncTasks) {
-            for (SyncTaskQueueWrapper wrapper : syncTasks.values()) {
-                SyncTaskStatistic statistic = new SyncTaskStatistic(
-                        wrapper.syncSignature,
-                        wrapper.maxThreadNum,
-                        wrapper.counter.intValue(),
-                        wrapper.queue.size()
-                );
-                ret.put(statistic.getSyncSignature(), statistic);
-
-                logger.warn(JSONObjectUtil.toJsonString(statistic));
-            }
+        for (SyncTaskQueueWrapper wrapper : syncTasks.values()) {
+            SyncTaskStatistic statistic = new SyncTaskStatistic(
+                    wrapper.syncSignature,
+                    wrapper.maxThreadNum,
+                    wrapper.counter.intValue(),
+                    wrapper.pendingCount.get()
+            );
+            ret.put(statistic.getSyncSignature(), statistic);
+
+            logger.warn(JSONObjectUtil.toJsonString(statistic));
         }
 
         return ret;
@@ -548,24 +577,20 @@ class DispatchQueueImpl implements DispatchQueue, DebugSignalHandler {
     @Override
     public Map<String, ChainTaskStatistic> getChainTaskStatistics() {
         Map<String, ChainTaskStatistic> ret =  new ConcurrentHashMap<>();
-        synchronized (chainTasks) {
-            for (ChainTaskQueueWrapper wrapper : chainTasks.values()) {
-                ChainTaskStatistic statistic = new ChainTaskStatistic(
-                        wrapper.syncSignature,
-                        wrapper.maxThreadNum,
-                        wrapper.counter.intValue(),
-                        wrapper.pendingQueue.size()
-                );
-                ret.put(statistic.getSyncSignature(), statistic);
-            }
+        for (ChainTaskQueueWrapper wrapper : chainTasks.values()) {
+            ChainTaskStatistic statistic = new ChainTaskStatistic(
+                    wrapper.syncSignature,
+                    wrapper.maxThreadNum,
+                    wrapper.counter.intValue(),
+                    wrapper.pendingCount.get()
+            );
+            ret.put(statistic.getSyncSignature(), statistic);
         }
         return ret;
     }
 
     @Override
     public boolean isChainTaskRunning(String signature) {
-        synchronized (chainTasks) {
-            return chainTasks.containsKey(signature);
-        }
+        return chainTasks.containsKey(signature);
     }
 }
@@ -8,8 +8,8 @@ public class PolicyMatcher {
     private AntPathMatcher matcher = new AntPathMatcher();
 
     public boolean match(String policy, String path) {
-        policy = policy.replaceAll("\\.", "/");
-        path = path.replaceAll("\\.", "/");
+        policy = policy.replace('.', '/');
+        path = path.replace('.', '/');
         return matcher.match(policy, path) || path.endsWith(policy);
     }
 
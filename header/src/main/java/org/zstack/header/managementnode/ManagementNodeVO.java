@@ -26,6 +26,9 @@ public class ManagementNodeVO {
     @Column
     private int port;
 
+    @Column
+    private String cloudBusWireFormats;
+
     public String getHostName() {
         return hostName;
     }
@@ -42,6 +45,14 @@ public class ManagementNodeVO {
         this.port = port;
     }
 
+    public String getCloudBusWireFormats() {
+        return cloudBusWireFormats;
+    }
+
+    public void setCloudBusWireFormats(String cloudBusWireFormats) {
+        this.cloudBusWireFormats = cloudBusWireFormats;
+    }
+
     public Timestamp getJoinDate() {
         return joinDate;
     }
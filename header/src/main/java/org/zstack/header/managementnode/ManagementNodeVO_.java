@@ -10,6 +10,7 @@ public class ManagementNodeVO_ {
     public static volatile SingularAttribute<ManagementNodeVO, String> uuid;
     public static volatile SingularAttribute<ManagementNodeVO, String> hostName;
     public static volatile SingularAttribute<ManagementNodeVO, Integer> port;
+    public static volatile SingularAttribute<ManagementNodeVO, String> cloudBusWireFormats;
     public static volatile SingularAttribute<ManagementNodeVO, Date> joinDate;
     public static volatile SingularAttribute<ManagementNodeVO, Date> heartBeat;
     public static volatile SingularAttribute<ManagementNodeVO, ManagementNodeState> state;
@@ -0,0 +1,59 @@
+package org.zstack.header.network.l3;
+
+import org.zstack.header.message.NeedReplyMessage;
+
+/**
+ * allocates ips for many nics of the l3 network at once, e.g. for vms created in a batch.
+ * The reply may hold fewer ips than asked for if the l3 network runs out of ips
+ */
+public class AllocateIpsMsg extends NeedReplyMessage implements L3NetworkMessage, IpAllocateMessage {
+    private String allocateStrategy;
+    private String l3NetworkUuid;
+    private int num;
+    private boolean duplicatedIpAllowed = false;
+
+    @Override
+    public String getAllocatorStrategy() {
+        return allocateStrategy;
+    }
+
+    public void setAllocateStrategy(String allocateStrategy) {
+        this.allocateStrategy = allocateStrategy;
+    }
+
+    @Override
+    public String getL3NetworkUuid() {
+        return l3NetworkUuid;
+    }
+
+    public void setL3NetworkUuid(String l3NetworkUuid) {
+        this.l3NetworkUuid = l3NetworkUuid;
+    }
+
+    @Override
+    public String getRequiredIp() {
+        return null;
+    }
+
+    @Override
+    public String getIpRangeUuid() {
+        return null;
+    }
+
+    public int getNum() {
+        return num;
+    }
+
+    public void setNum(int num) {
+        this.num = num;
+    }
+
+    @Override
+    public boolean isDuplicatedIpAllowed() {
+        return duplicatedIpAllowed;
+    }
+
+    public void setDuplicatedIpAllowed(boolean duplicatedIpAllowed) {
+        this.duplicatedIpAllowed = duplicatedIpAllowed;
+    }
+}
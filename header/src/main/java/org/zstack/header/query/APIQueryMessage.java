@@ -11,6 +11,8 @@ public abstract class APIQueryMessage extends APISyncCallMessage {
     private List<QueryCondition> conditions;
     private Integer limit = 1000;
     private Integer start;
+    // primary key of the last inventory of the previous page, the results are then ordered by the primary key
+    private String after;
     private boolean count;
     private String groupBy;
     private boolean replyWithCount;
@@ -87,6 +89,14 @@ public abstract class APIQueryMessage extends APISyncCallMessage {
         this.start = start;
     }
 
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
     public void addQueryCondition(String name, String op, String... vals) {
         QueryCondition qc = new QueryCondition();
         qc.setName(name);
@@ -77,6 +77,16 @@ start=0 limit=100 replyWithCount=true
 ```
 
 则API返回将包含头100条记录，以及`total`字段等于1000，表示总共满足条件的记录为1000。
+
+记录数很多时，使用`start`翻到靠后的页面需要数据库跳过之前的所有记录，查询会越来越慢。此时可以用`after`代替`start`：
+`after`设置为上一页最后一条记录的uuid（或其他主键），返回结果按主键排序，数据库通过索引直接定位到下一页。例如：
+
+```
+limit=100 after=25506342d1384c07b7342373a57475b9
+```
+
+使用`after`时不能同时指定`start`，`sortBy`只能是主键；`replyWithCount`返回的是`after`之后的记录总数。不需要总数时不要设置`replyWithCount`，
+可以省去一次计数查询。
 """
 
                 column {
@@ -106,6 +116,15 @@ start=0 limit=100 replyWithCount=true
                     since "0.6"
                 }
 
+                column {
+                    name "after"
+                    desc "上一页最后一条记录的主键，返回此后的记录，结果按主键排序。不能与`start`同时使用"
+                    type "String"
+                    location "query"
+                    optional true
+                    since "3.10.0"
+                }
+
                 column {
                     name "count"
                     desc "计数查询，相当于MySQL中的count()函数。当设置成`true`时，API只返回的是满足查询条件的记录数"
@@ -0,0 +1,47 @@
+package org.zstack.header.vm;
+
+import org.zstack.header.message.APIEvent;
+import org.zstack.header.rest.RestResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+/**
+ * the event succeeds when the batch has been processed, results tell which vms are created
+ */
+@RestResponse(fieldsTo = {"all"})
+public class APIBatchCreateVmInstanceEvent extends APIEvent {
+    private List<BatchCreateVmInstanceStruct> results = new ArrayList<>();
+
+    public APIBatchCreateVmInstanceEvent() {
+        super(null);
+    }
+
+    public APIBatchCreateVmInstanceEvent(String apiId) {
+        super(apiId);
+    }
+
+    public List<BatchCreateVmInstanceStruct> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchCreateVmInstanceStruct> results) {
+        this.results = results;
+    }
+
+    public static APIBatchCreateVmInstanceEvent __example__() {
+        APIBatchCreateVmInstanceEvent evt = new APIBatchCreateVmInstanceEvent();
+
+        VmInstanceInventory vm = APICreateVmInstanceEvent.__example__().getInventory();
+        vm.setName("web-1");
+        BatchCreateVmInstanceStruct r = new BatchCreateVmInstanceStruct();
+        r.setName(vm.getName());
+        r.setSuccess(true);
+        r.setInventory(vm);
+        evt.setResults(asList(r));
+
+        return evt;
+    }
+}
@@ -0,0 +1,32 @@
+package org.zstack.header.vm
+
+import org.zstack.header.vm.BatchCreateVmInstanceStruct
+import org.zstack.header.errorcode.ErrorCode
+
+doc {
+
+	title "批量创建云主机结果"
+
+	ref {
+		name "results"
+		path "org.zstack.header.vm.APIBatchCreateVmInstanceEvent.results"
+		desc "每个云主机的创建结果"
+		type "List"
+		since "3.10.0"
+		clz BatchCreateVmInstanceStruct.class
+	}
+	field {
+		name "success"
+		desc ""
+		type "boolean"
+		since "3.10.0"
+	}
+	ref {
+		name "error"
+		path "org.zstack.header.vm.APIBatchCreateVmInstanceEvent.error"
+		desc "错误码，若不为null，则表示操作失败, 操作成功时该字段为null",false
+		type "ErrorCode"
+		since "3.10.0"
+		clz ErrorCode.class
+	}
+}
@@ -0,0 +1,76 @@
+package org.zstack.header.vm;
+
+import org.springframework.http.HttpMethod;
+import org.zstack.header.identity.Action;
+import org.zstack.header.message.APIEvent;
+import org.zstack.header.message.APIMessage;
+import org.zstack.header.message.APIParam;
+import org.zstack.header.message.DefaultTimeout;
+import org.zstack.header.other.APIAuditor;
+import org.zstack.header.other.APIMultiAuditor;
+import org.zstack.header.rest.RestRequest;
+import org.zstack.header.tag.TagResourceType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * create amount vms of the same spec, they are named name-1 to name-{amount}. Hosts of the
+ * whole batch are allocated in one pass and the vms are created in a pipeline, at most
+ * vm/batchCreate.parallelism of them at the same time
+ */
+@TagResourceType(VmInstanceVO.class)
+@Action(category = VmInstanceConstant.ACTION_CATEGORY)
+@RestRequest(
+        path = "/vm-instances/batch",
+        method = HttpMethod.POST,
+        responseClass = APIBatchCreateVmInstanceEvent.class,
+        parameterName = "params"
+)
+@DefaultTimeout(timeunit = TimeUnit.HOURS, value = 12)
+public class APIBatchCreateVmInstanceMsg extends APICreateVmInstanceMsg implements APIMultiAuditor {
+    @APIParam(numberRange = {1, 1000})
+    private Integer amount;
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+    public static APIBatchCreateVmInstanceMsg __example__() {
+        APIBatchCreateVmInstanceMsg msg = new APIBatchCreateVmInstanceMsg();
+        msg.setName("web");
+        msg.setAmount(10);
+        msg.setDescription("web servers");
+        msg.setClusterUuid(uuid());
+        msg.setImageUuid(uuid());
+        msg.setInstanceOfferingUuid(uuid());
+        msg.setL3NetworkUuids(asList(uuid()));
+        return msg;
+    }
+
+    @Override
+    public Result audit(APIMessage msg, APIEvent rsp) {
+        return new Result("", VmInstanceVO.class);
+    }
+
+    @Override
+    public List<APIAuditor.Result> multiAudit(APIMessage msg, APIEvent rsp) {
+        List<APIAuditor.Result> res = new ArrayList<>();
+        if (rsp.isSuccess()) {
+            for (BatchCreateVmInstanceStruct r : ((APIBatchCreateVmInstanceEvent) rsp).getResults()) {
+                if (r.isSuccess()) {
+                    res.add(new APIAuditor.Result(r.getInventory().getUuid(), VmInstanceVO.class));
+                }
+            }
+        }
+
+        return res;
+    }
+}
@@ -0,0 +1,38 @@
+package org.zstack.header.vm
+
+import org.zstack.header.vm.VmInstanceInventory
+import org.zstack.header.errorcode.ErrorCode
+
+doc {
+
+	title "批量创建云主机结果"
+
+	field {
+		name "name"
+		desc "云主机名称"
+		type "String"
+		since "3.10.0"
+	}
+	field {
+		name "success"
+		desc "是否成功"
+		type "boolean"
+		since "3.10.0"
+	}
+	ref {
+		name "inventory"
+		path "org.zstack.header.vm.BatchCreateVmInstanceStruct.inventory"
+		desc "创建成功的云主机"
+		type "VmInstanceInventory"
+		since "3.10.0"
+		clz VmInstanceInventory.class
+	}
+	ref {
+		name "error"
+		path "org.zstack.header.vm.BatchCreateVmInstanceStruct.error"
+		desc "创建失败的原因"
+		type "ErrorCode"
+		since "3.10.0"
+		clz ErrorCode.class
+	}
+}
@@ -1,6 +1,7 @@
 package org.zstack.header.vm;
 
 import org.zstack.header.network.l3.L3NetworkInventory;
+import org.zstack.header.network.l3.UsedIpInventory;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -12,6 +13,9 @@ import static org.zstack.utils.CollectionDSL.list;
 public class VmNicSpec implements Serializable {
     public List<L3NetworkInventory> l3Invs;
     public String nicDriverType;
+    // an ip of the first l3 network allocated before the vm is created, e.g. for a batch of vms,
+    // the nic takes it instead of allocating one
+    public UsedIpInventory allocatedIp;
 
     public VmNicSpec(List<L3NetworkInventory> l3Invs) {
         this.l3Invs = l3Invs;
@@ -47,6 +51,14 @@ public class VmNicSpec implements Serializable {
         this.nicDriverType = nicDriverType;
     }
 
+    public UsedIpInventory getAllocatedIp() {
+        return allocatedIp;
+    }
+
+    public void setAllocatedIp(UsedIpInventory allocatedIp) {
+        this.allocatedIp = allocatedIp;
+    }
+
     public static List<L3NetworkInventory> getL3NetworkInventoryOfSpec(List<VmNicSpec> specs) {
         List<L3NetworkInventory> res = new ArrayList<>();
         for (VmNicSpec spec: specs) {
@@ -59,7 +71,9 @@ public class VmNicSpec implements Serializable {
         List<VmNicSpec> nicSpecs =  new ArrayList<>();
         for (VmNicSpec spec: specs) {
             if (spec.l3Invs != null && !spec.l3Invs.isEmpty()) {
-                nicSpecs.add(new VmNicSpec(spec.l3Invs.get(0), spec.getNicDriverType()));
+                VmNicSpec nicSpec = new VmNicSpec(spec.l3Invs.get(0), spec.getNicDriverType());
+                nicSpec.setAllocatedIp(spec.getAllocatedIp());
+                nicSpecs.add(nicSpec);
             }
         }
         return nicSpecs;
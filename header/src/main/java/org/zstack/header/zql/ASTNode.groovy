@@ -106,6 +106,10 @@ class ASTNode {
          int offset
     }
 
+    static class After extends ASTNode {
+         Value value
+    }
+
     static class RestrictExpr extends ASTNode {
          String entity
          String field
@@ -146,6 +150,7 @@ class ASTNode {
         FilterBy filterBy
         OrderBy orderBy
         Limit limit
+        After after
         Offset offset
         String name
         GroupByExpr groupBy
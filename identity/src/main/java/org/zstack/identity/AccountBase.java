@@ -28,6 +28,7 @@ import org.zstack.header.identity.role.RolePolicyStatementVO;
 import org.zstack.header.identity.role.RolePolicyStatementVO_;
 import org.zstack.header.identity.role.RoleVO;
 import org.zstack.header.identity.role.RoleVO_;
+import org.zstack.identity.rbac.RBACManager;
 import org.zstack.header.message.APIMessage;
 import org.zstack.header.message.Message;
 import org.zstack.utils.CollectionUtils;
@@ -63,6 +64,8 @@ public class AccountBase extends AbstractAccount {
     private PluginRegistry pluginRgty;
     @Autowired
     private EventFacade evtf;
+    @Autowired
+    private RBACManager rbacMgr;
 
     private AccountVO self;
 
@@ -179,6 +182,8 @@ public class AccountBase extends AbstractAccount {
                     public void handle(Map data) {
                         dbf.remove(self);
                         acntMgr.adminAdoptAllOrphanedResource(resourceUuids, self.getUuid());
+                        // users, groups, policies and roles of the account are gone with it
+                        rbacMgr.policiesChanged();
 
                         AccountDeletedData evtData = new AccountDeletedData();
                         evtData.setAccountUuid(self.getUuid());
@@ -352,6 +357,7 @@ public class AccountBase extends AbstractAccount {
         q.executeUpdate();
 
         APIDetachPoliciesFromUserEvent evt = new APIDetachPoliciesFromUserEvent(msg.getId());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
@@ -374,6 +380,7 @@ public class AccountBase extends AbstractAccount {
         }
 
         APIAttachPoliciesToUserEvent evt = new APIAttachPoliciesToUserEvent(msg.getId());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
@@ -598,6 +605,7 @@ public class AccountBase extends AbstractAccount {
             dbf.remove(ref);
         }
 
+        rbacMgr.policiesChanged();
         bus.publish(new APIRemoveUserFromGroupEvent(msg.getId()));
     }
 
@@ -610,6 +618,7 @@ public class AccountBase extends AbstractAccount {
             dbf.remove(ref);
         }
 
+        rbacMgr.policiesChanged();
         bus.publish(new APIDetachPolicyFromUserGroupEvent(msg.getId()));
     }
 
@@ -622,12 +631,14 @@ public class AccountBase extends AbstractAccount {
             dbf.remove(ref);
         }
 
+        rbacMgr.policiesChanged();
         bus.publish(new APIDetachPolicyFromUserEvent(msg.getId()));
     }
 
     private void handle(APIDeletePolicyMsg msg) {
         dbf.removeByPrimaryKey(msg.getUuid(), PolicyVO.class);
         APIDeletePolicyEvent evt = new APIDeletePolicyEvent(msg.getId());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
@@ -644,12 +655,14 @@ public class AccountBase extends AbstractAccount {
         }
 
         APIDeleteUserEvent evt = new APIDeleteUserEvent(msg.getId());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
     private void handle(APIDeleteUserGroupMsg msg) {
         dbf.removeByPrimaryKey(msg.getUuid(), UserGroupVO.class);
         APIDeleteUserGroupEvent evt = new APIDeleteUserGroupEvent(msg.getId());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
@@ -659,6 +672,7 @@ public class AccountBase extends AbstractAccount {
         ugvo.setUserUuid(msg.getUserUuid());
         dbf.persist(ugvo);
         APIAddUserToGroupEvent evt = new APIAddUserToGroupEvent(msg.getId());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
@@ -678,6 +692,7 @@ public class AccountBase extends AbstractAccount {
         }
 
         APIAttachPolicyToUserGroupEvent evt = new APIAttachPolicyToUserGroupEvent(msg.getId());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
@@ -723,6 +738,7 @@ public class AccountBase extends AbstractAccount {
         }
 
         APIAttachPolicyToUserEvent evt = new APIAttachPolicyToUserEvent(msg.getId());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
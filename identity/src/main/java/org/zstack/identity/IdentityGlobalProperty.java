@@ -9,4 +9,8 @@ public class IdentityGlobalProperty {
     public static int AUTHORIZATION_SESSION_CACHE_SIZE;
     @GlobalProperty(name = "identity.init.type", defaultValue = "IAM,IAM2")
     public static String IDENTITY_INIT_TYPE;
+    @GlobalProperty(name = "identity.rbac.policyCache.ttl", defaultValue = "60")
+    public static int RBAC_POLICY_CACHE_TTL;
+    @GlobalProperty(name = "identity.rbac.decisionCache.size", defaultValue = "10000")
+    public static int RBAC_DECISION_CACHE_SIZE;
 }
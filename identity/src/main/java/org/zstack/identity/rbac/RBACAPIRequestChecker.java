@@ -50,8 +50,23 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
         return policyMatcher.match(ap, msgName);
     }
 
-    protected List<PolicyInventory> getPoliciesForAPI() {
-        return RBACManager.getPoliciesByAPI(rbacEntity.getApiMessage());
+    protected RBACPolicyCache.CompiledPolicies getPoliciesForAPI() {
+        return RBACPolicyCache.get(rbacEntity.getApiMessage().getSession());
+    }
+
+    private String decisionKey() {
+        SessionInventory session = rbacEntity.getApiMessage().getSession();
+        StringBuilder sb = new StringBuilder()
+                .append(session.getAccountUuid()).append('|')
+                .append(session.getUserUuid()).append('|')
+                .append(session.isAccountSession()).append('|')
+                .append(session.isUserSession()).append('|')
+                .append(rbacEntity.getApiName());
+
+        List<String> additionalApis = new ArrayList<>(rbacEntity.getAdditionalApisToCheck());
+        Collections.sort(additionalApis);
+        additionalApis.forEach(api -> sb.append('|').append(api));
+        return sb.toString();
     }
 
     /**
@@ -59,16 +74,21 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
      * 3. if any user defined policy denies the API, deny
      * 4. if any user defined policy allows the API, allow
      * 5. then deny by default
+     *
+     * which statements apply only depends on the principal and the API, so that part
+     * is decided once and cached; API fields and API permission checkers depend on
+     * the message and are evaluated every time
      */
     protected void check() {
-        List<PolicyInventory> polices = getPoliciesForAPI();
-        Map<PolicyInventory, List<PolicyStatement>> denyStatements = RBACManager.collectDenyStatements(polices);
-        Map<PolicyInventory, List<PolicyStatement>> allowStatements = RBACManager.collectAllowedStatements(polices);
+        RBACPolicyCache.CompiledPolicies policies = getPoliciesForAPI();
+        RBACPolicyCache.Decision decision = policies.getDecision(decisionKey(), () -> new RBACPolicyCache.Decision(
+                collectDenyMatches(policies.denyStatements), evalAllowStatements(policies.allowStatements)));
 
-        evalDenyStatements(denyStatements);
+        evalDenyMatches(decision.denies);
 
-        if (evalAllowStatements(allowStatements)) {
-            // allowed
+        boolean allowed = RBAC.hasAPIPermissionChecker(rbacEntity.getApiMessage().getClass()) ?
+                evalAllowStatements(policies.allowStatements) : decision.allowed;
+        if (allowed) {
             return;
         }
 
@@ -154,7 +174,9 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
         return rbacEntity.getAdditionalApisToCheck().stream().anyMatch(api -> policyMatcher.match(apiName, api));
     }
 
-    protected void evalDenyStatements(Map<PolicyInventory, List<PolicyStatement>> denyPolices) {
+    protected List<RBACPolicyCache.DenyMatch> collectDenyMatches(Map<PolicyInventory, List<PolicyStatement>> denyPolices) {
+        List<RBACPolicyCache.DenyMatch> matches = new ArrayList<>();
+
         // action string format is:
         // api-full-name:optional-api-field-list-split-by-comma
         denyPolices.forEach((p, sts)-> sts.forEach(st-> {
@@ -176,35 +198,43 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
                 }
 
                 // the statement matching this API
+                matches.add(new RBACPolicyCache.DenyMatch(p, statement, apiFields));
+            });
+        }));
 
-                if (apiFields == null) {
-                    // no API fields specified, the API is denied by this statement
-                    if (logger.isTraceEnabled()) {
-                        logger.trace(String.format("[RBAC] policy[name:%s, uuid:%s]'s statement[%s] denies the API:\n%s", p.getName(),
-                                p.getUuid(), statement, jsonMessage()));
-                    }
+        return matches;
+    }
 
-                    throw new OperationFailureException(operr("the operation is denied by the policy[name:%s uuid:%s]", p.getName(), p.getUuid()));
+    protected void evalDenyMatches(List<RBACPolicyCache.DenyMatch> matches) {
+        for (RBACPolicyCache.DenyMatch m : matches) {
+            PolicyInventory p = m.policy;
+            if (m.apiFields == null) {
+                // no API fields specified, the API is denied by this statement
+                if (logger.isTraceEnabled()) {
+                    logger.trace(String.format("[RBAC] policy[name:%s, uuid:%s]'s statement[%s] denies the API:\n%s", p.getName(),
+                            p.getUuid(), m.statement, jsonMessage()));
                 }
 
-                Entity entity = Entity.getEntity(rbacEntity.getApiMessage().getClass());
-
-                for (String fname : apiFields.split(",")) {
-                    Field field = entity.getFields().get(fname);
-                    try {
-                        if (field != null && field.get(rbacEntity.getApiMessage()) != null) {
-                            if (logger.isTraceEnabled()) {
-                                logger.trace(String.format("[RBAC] policy[name:%s, uuid:%s]'s statement[%s] denies the API:\n%s", p.getName(),
-                                        p.getUuid(), statement, jsonMessage()));
-                            }
-                            throw new OperationFailureException(operr("the operation is denied by the policy[name:%s, uuid:%s], field[%s] is not permitted to set", p.getName(), p.getUuid(), fname));
+                throw new OperationFailureException(operr("the operation is denied by the policy[name:%s uuid:%s]", p.getName(), p.getUuid()));
+            }
+
+            Entity entity = Entity.getEntity(rbacEntity.getApiMessage().getClass());
+
+            for (String fname : m.apiFields.split(",")) {
+                Field field = entity.getFields().get(fname);
+                try {
+                    if (field != null && field.get(rbacEntity.getApiMessage()) != null) {
+                        if (logger.isTraceEnabled()) {
+                            logger.trace(String.format("[RBAC] policy[name:%s, uuid:%s]'s statement[%s] denies the API:\n%s", p.getName(),
+                                    p.getUuid(), m.statement, jsonMessage()));
                         }
-                    } catch (IllegalAccessException e) {
-                        throw new CloudRuntimeException(e);
+                        throw new OperationFailureException(operr("the operation is denied by the policy[name:%s, uuid:%s], field[%s] is not permitted to set", p.getName(), p.getUuid(), fname));
                     }
+                } catch (IllegalAccessException e) {
+                    throw new CloudRuntimeException(e);
                 }
-            });
-        }));
+            }
+        }
     }
 
     protected boolean checkUserPrincipal(String uuidRegex) {
@@ -216,9 +246,9 @@ public class RBACAPIRequestChecker implements APIRequestChecker {
     }
 
     public Map<String, Boolean> evalAPIPermission(List<Class> classes, SessionInventory session) {
-        List<PolicyInventory> policies = RBACManager.getPoliciesBySession(session);
-        Map<PolicyInventory, List<PolicyStatement>> denyStatements = RBACManager.collectDenyStatements(policies);
-        Map<PolicyInventory, List<PolicyStatement>> allowStatements = RBACManager.collectAllowedStatements(policies);
+        RBACPolicyCache.CompiledPolicies policies = RBACPolicyCache.get(session);
+        Map<PolicyInventory, List<PolicyStatement>> denyStatements = policies.denyStatements;
+        Map<PolicyInventory, List<PolicyStatement>> allowStatements = policies.allowStatements;
 
         Map<String, Boolean> ret = new HashMap<>();
         classes.forEach(clz -> {
@@ -1,7 +1,5 @@
 package org.zstack.identity.rbac;
 
-import org.zstack.header.identity.PolicyInventory;
-import org.zstack.header.identity.PolicyStatement;
 import org.zstack.header.message.APIEvent;
 import org.zstack.header.message.APIMessage;
 import org.zstack.header.message.APIReply;
@@ -18,6 +16,7 @@ import java.util.regex.Pattern;
 
 public class RBACAPIResponseFilter implements APIResponseFilter {
     private static final CLogger logger = Utils.getLogger(RBACAPIResponseFilter.class);
+    private static final Pattern LIST_PATH = Pattern.compile("(.*)\\[(\\d+)\\]$");
 
     private APIMessage request;
     private Message response;
@@ -47,18 +46,11 @@ public class RBACAPIResponseFilter implements APIResponseFilter {
             return;
         }
 
-        Map<PolicyInventory, List<PolicyStatement>> denyPolices = RBACManager.collectDenyStatements(RBACManager.getPoliciesByAPI(request));
-        denyPolices.forEach((p, sts)-> sts.forEach(s -> s.getResources().forEach(statement -> {
+        List<RBACPolicyCache.ResourceDeny> resourceDenies = RBACPolicyCache.get(request.getSession()).resourceDenies;
+        resourceDenies.forEach(deny -> {
             schema.forEach((path, type)-> {
-                String[] ss = statement.split(":", 2);
-                String resourceName = ss[0];
-                String fieldList = null;
-                if (ss.length > 1) {
-                    fieldList = ss[1];
-                }
-
-                Pattern pattern = Pattern.compile(resourceName);
-                if (!pattern.matcher(type).matches()) {
+                String fieldList = deny.fieldList;
+                if (!deny.resource.matcher(type).matches()) {
                     // the statement not matching this inventory
                     return;
                 }
@@ -76,7 +68,7 @@ public class RBACAPIResponseFilter implements APIResponseFilter {
                     denyFieldsOfTheInventory(path, fieldList);
                 }
             });
-        })));
+        });
     }
 
     private void denyFieldsOfTheInventory(String path, String fieldList) {
@@ -89,8 +81,7 @@ public class RBACAPIResponseFilter implements APIResponseFilter {
     }
 
     private void denyTheInventory(String path) {
-        Pattern p = Pattern.compile("(.*)\\[(\\d+)\\]$");
-        Matcher m = p.matcher(path);
+        Matcher m = LIST_PATH.matcher(path);
 
         if (m.matches()) {
             // this is a list
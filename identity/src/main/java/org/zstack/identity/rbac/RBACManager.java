@@ -16,6 +16,12 @@ public interface RBACManager {
 
     List<PolicyInventory> internalPolices = new ArrayList<>();
 
+    /**
+     * drop compiled policies and cached decisions on all management nodes,
+     * must be called after roles, policies or their references are changed
+     */
+    void policiesChanged();
+
     static List<PolicyInventory> getPoliciesByAPI(APIMessage message) {
         return getPoliciesBySession(message.getSession());
     }
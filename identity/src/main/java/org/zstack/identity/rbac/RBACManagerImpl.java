@@ -4,6 +4,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.zstack.core.Platform;
 import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.cloudbus.MessageSafe;
+import org.zstack.core.cloudbus.EventCallback;
+import org.zstack.core.cloudbus.EventFacade;
 import org.zstack.core.componentloader.PluginRegistry;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.db.SQLBatch;
@@ -30,6 +32,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static org.zstack.utils.CollectionDSL.e;
+import static org.zstack.utils.CollectionDSL.map;
+import static org.zstack.utils.StringDSL.s;
+
 public class RBACManagerImpl extends AbstractService implements RBACManager, Component, IdentityResourceGenerateExtensionPoint {
     private static final CLogger logger = Utils.getLogger(RBACManagerImpl.class);
 
@@ -41,12 +47,31 @@ public class RBACManagerImpl extends AbstractService implements RBACManager, Com
     private DatabaseFacade dbf;
     @Autowired
     private PluginRegistry pluginRgty;
+    @Autowired
+    private EventFacade evtf;
 
     @Override
     public boolean start() {
+        evtf.on(RBACPolicyCache.POLICIES_CHANGED_PATH, new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                if (Platform.getManagementServerId().equals(tokens.get("nodeUuid"))) {
+                    return;
+                }
+
+                RBACPolicyCache.invalidate();
+            }
+        });
+
         return true;
     }
 
+    @Override
+    public void policiesChanged() {
+        RBACPolicyCache.invalidate();
+        evtf.fire(s(RBACPolicyCache.POLICIES_CHANGED_PATH).formatByMap(map(e("nodeUuid", Platform.getManagementServerId()))), null);
+    }
+
     @Override
     public boolean stop() {
         return true;
@@ -166,6 +191,7 @@ public class RBACManagerImpl extends AbstractService implements RBACManager, Com
             }
         }.execute();
 
+        policiesChanged();
         bus.publish(evt);
     }
 
@@ -0,0 +1,137 @@
+package org.zstack.identity.rbac;
+
+import org.zstack.header.identity.AccountConstant;
+import org.zstack.header.identity.PolicyInventory;
+import org.zstack.header.identity.PolicyStatement;
+import org.zstack.header.identity.SessionInventory;
+import org.zstack.identity.IdentityGlobalProperty;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * policies of sessions compiled once, together with the decisions made on them.
+ * Everything is dropped when roles or policies change on any management node,
+ * see RBACManager.policiesChanged()
+ */
+public class RBACPolicyCache {
+    public static final String POLICIES_CHANGED_PATH = "/rbac/policies/changed/{nodeUuid}";
+
+    private static final String INTERNAL_POLICIES = "internal-policies";
+
+    private static final Map<String, CompiledPolicies> policies = new ConcurrentHashMap<>();
+    private static final AtomicLong generation = new AtomicLong();
+
+    static class DenyMatch {
+        final PolicyInventory policy;
+        final String statement;
+        // null if the whole API is denied
+        final String apiFields;
+
+        DenyMatch(PolicyInventory policy, String statement, String apiFields) {
+            this.policy = policy;
+            this.statement = statement;
+            this.apiFields = apiFields;
+        }
+    }
+
+    static class Decision {
+        // deny actions matching the API in evaluation order
+        final List<DenyMatch> denies;
+        final boolean allowed;
+
+        Decision(List<DenyMatch> denies, boolean allowed) {
+            this.denies = denies;
+            this.allowed = allowed;
+        }
+    }
+
+    static class ResourceDeny {
+        final Pattern resource;
+        // null if the whole inventory is denied
+        final String fieldList;
+
+        ResourceDeny(Pattern resource, String fieldList) {
+            this.resource = resource;
+            this.fieldList = fieldList;
+        }
+    }
+
+    static class CompiledPolicies {
+        final long generation;
+        final long expiredAt;
+        final Map<PolicyInventory, List<PolicyStatement>> denyStatements;
+        final Map<PolicyInventory, List<PolicyStatement>> allowStatements;
+        final List<ResourceDeny> resourceDenies = new ArrayList<>();
+        private final Map<String, Decision> decisions = new ConcurrentHashMap<>();
+
+        CompiledPolicies(List<PolicyInventory> ps, long generation, long expiredAt) {
+            this.generation = generation;
+            this.expiredAt = expiredAt;
+            denyStatements = RBACManager.collectDenyStatements(ps);
+            allowStatements = RBACManager.collectAllowedStatements(ps);
+
+            denyStatements.values().forEach(sts -> sts.forEach(s -> {
+                if (s.getResources() == null) {
+                    return;
+                }
+
+                s.getResources().forEach(statement -> {
+                    String[] ss = statement.split(":", 2);
+                    resourceDenies.add(new ResourceDeny(Pattern.compile(ss[0]), ss.length > 1 ? ss[1] : null));
+                });
+            }));
+        }
+
+        Decision getDecision(String key, Supplier<Decision> maker) {
+            Decision d = decisions.get(key);
+            if (d != null) {
+                return d;
+            }
+
+            d = maker.get();
+            if (decisions.size() >= IdentityGlobalProperty.RBAC_DECISION_CACHE_SIZE) {
+                decisions.clear();
+            }
+            decisions.put(key, d);
+            return d;
+        }
+    }
+
+    private static boolean useInternalPolicies(SessionInventory session) {
+        // in line with RBACManager.getPoliciesBySession()
+        return session.getAccountUuid().equals(AccountConstant.INITIAL_SYSTEM_ADMIN_UUID) || session.isAccountSession();
+    }
+
+    static CompiledPolicies get(SessionInventory session) {
+        long gen = generation.get();
+        if (IdentityGlobalProperty.RBAC_POLICY_CACHE_TTL <= 0) {
+            return new CompiledPolicies(RBACManager.getPoliciesBySession(session), gen, 0);
+        }
+
+        String key = useInternalPolicies(session) ? INTERNAL_POLICIES : session.getUserUuid();
+        long now = System.currentTimeMillis();
+        CompiledPolicies c = policies.get(key);
+        if (c != null && c.generation == gen && c.expiredAt > now) {
+            return c;
+        }
+
+        c = new CompiledPolicies(RBACManager.getPoliciesBySession(session), gen,
+                now + TimeUnit.SECONDS.toMillis(IdentityGlobalProperty.RBAC_POLICY_CACHE_TTL));
+        if (policies.size() >= IdentityGlobalProperty.RBAC_DECISION_CACHE_SIZE) {
+            policies.clear();
+        }
+        // an entry compiled before an invalidation carries the old generation and is never served
+        policies.put(key, c);
+        return c;
+    }
+
+    static void invalidate() {
+        generation.incrementAndGet();
+        policies.clear();
+    }
+}
@@ -26,6 +26,8 @@ public class RoleBase implements Role {
     private DatabaseFacade dbf;
     @Autowired
     private PluginRegistry pluginRgty;
+    @Autowired
+    private RBACManager rbacMgr;
 
     protected RoleVO self;
 
@@ -128,6 +130,7 @@ public class RoleBase implements Role {
             }
         }.execute();
         evt.setInventory(inv);
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
@@ -141,12 +144,14 @@ public class RoleBase implements Role {
         self = dbf.updateAndRefresh(self);
         APIChangeRoleStateEvent evt = new APIChangeRoleStateEvent(msg.getId());
         evt.setInventory(getSelfInventory());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
     private void handle(APIRemovePolicyStatementsFromRoleMsg msg) {
         SQL.New(RolePolicyStatementVO.class).eq(RolePolicyStatementVO_.roleUuid, self.getUuid())
                 .in(RolePolicyStatementVO_.uuid, msg.getPolicyStatementUuids()).hardDelete();
+        rbacMgr.policiesChanged();
         bus.publish(new APIRemovePolicyStatementsFromRoleEvent(msg.getId()));
     }
 
@@ -164,12 +169,14 @@ public class RoleBase implements Role {
             }
         }.execute();
 
+        rbacMgr.policiesChanged();
         bus.publish(new APIAddPolicyStatementsToRoleEvent(msg.getId()));
     }
 
     private void handle(APIDetachPolicyFromRoleMsg msg) {
         SQL.New(RolePolicyRefVO.class).eq(RolePolicyRefVO_.policyUuid, msg.getPolicyUuid())
                 .eq(RolePolicyRefVO_.roleUuid, msg.getRoleUuid()).hardDelete();
+        rbacMgr.policiesChanged();
         bus.publish(new APIDetachPolicyFromRoleEvent(msg.getId()));
     }
 
@@ -178,6 +185,7 @@ public class RoleBase implements Role {
         ref.setPolicyUuid(msg.getPolicyUuid());
         ref.setRoleUuid(msg.getRoleUuid());
         dbf.persist(ref);
+        rbacMgr.policiesChanged();
         bus.publish(new APIAttachPolicyToRoleEvent(msg.getId()));
     }
 
@@ -186,6 +194,7 @@ public class RoleBase implements Role {
                 .eq(RoleAccountRefVO_.roleUuid, msg.getRoleUuid()).hardDelete();
 
         APIDetachRoleFromAccountEvent evt = new APIDetachRoleFromAccountEvent(msg.getId());
+        rbacMgr.policiesChanged();
         bus.publish(evt);
     }
 
@@ -194,6 +203,7 @@ public class RoleBase implements Role {
         ref.setAccountUuid(msg.getAccountUuid());
         ref.setRoleUuid(msg.getRoleUuid());
         dbf.persist(ref);
+        rbacMgr.policiesChanged();
         bus.publish(new APIAttachRoleToAccountEvent(msg.getId()));
     }
 
@@ -203,6 +213,7 @@ public class RoleBase implements Role {
         }
 
         SQL.New(RoleVO.class).eq(RoleVO_.uuid, msg.getUuid()).hardDelete();
+        rbacMgr.policiesChanged();
         bus.publish(new APIDeleteRoleEvent(msg.getId()));
     }
 }
@@ -22,6 +22,11 @@ public class FirstAvailableIpAllocatorStrategy extends AbstractIpAllocatorStrate
     }
     
     private String allocateIp(IpRangeVO vo, String excludeIp) {
+        UsedIpIndex index = l3NwMgr.getUsedIpIndex(vo);
+        if (index != null) {
+            return index.findFirstAvailableIp(excludeIp);
+        }
+
         List<BigInteger> used = l3NwMgr.getUsedIpInRange(vo);
         used.add(new BigInteger(String.valueOf(NetworkUtils.ipv4StringToLong(excludeIp))));
         List<Long> usedIP = used.stream().map(BigInteger::longValue).collect(Collectors.toList());
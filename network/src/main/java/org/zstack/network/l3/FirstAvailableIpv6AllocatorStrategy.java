@@ -19,6 +19,11 @@ public class FirstAvailableIpv6AllocatorStrategy extends AbstractIpAllocatorStra
     }
 
     private String allocateIp(IpRangeVO vo, String excludeIp) {
+        UsedIpIndex index = l3NwMgr.getUsedIpIndex(vo);
+        if (index != null) {
+            return index.findFirstAvailableIp(excludeIp);
+        }
+
         List<BigInteger> used = l3NwMgr.getUsedIpInRange(vo);
         used.add(new BigInteger(String.valueOf(IPv6NetworkUtils.ipv6AddressToBigInteger(excludeIp))));
         BigInteger start = IPv6NetworkUtils.ipv6AddressToBigInteger(vo.getStartIp());
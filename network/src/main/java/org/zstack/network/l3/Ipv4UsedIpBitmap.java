@@ -0,0 +1,102 @@
+package org.zstack.network.l3;
+
+import org.zstack.header.network.l3.IpRangeVO;
+import org.zstack.utils.network.NetworkUtils;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * one bit per address in [startIp, endIp], set when the address is used
+ */
+public class Ipv4UsedIpBitmap implements UsedIpIndex {
+    private static final Random random = new Random();
+
+    private final String ipRangeUuid;
+    private final long start;
+    private final int total;
+    private final BitSet used;
+    private int usedCount;
+
+    public Ipv4UsedIpBitmap(IpRangeVO vo, Collection<Long> usedIps) {
+        ipRangeUuid = vo.getUuid();
+        start = NetworkUtils.ipv4StringToLong(vo.getStartIp());
+        total = (int) (NetworkUtils.ipv4StringToLong(vo.getEndIp()) - start + 1);
+        used = new BitSet(total);
+
+        for (Long ip : usedIps) {
+            int offset = offset(ip);
+            if (offset >= 0 && !used.get(offset)) {
+                used.set(offset);
+                usedCount++;
+            }
+        }
+    }
+
+    private int offset(long ip) {
+        long offset = ip - start;
+        return offset < 0 || offset >= total ? -1 : (int) offset;
+    }
+
+    private int offset(String ip) {
+        return ip == null ? -1 : offset(NetworkUtils.ipv4StringToLong(ip));
+    }
+
+    private int nextFree(int from, int exclude) {
+        int next = used.nextClearBit(from);
+        if (next == exclude) {
+            next = used.nextClearBit(next + 1);
+        }
+
+        return next < total ? next : -1;
+    }
+
+    private String toIp(int offset) {
+        return offset < 0 ? null : NetworkUtils.longToIpv4String(start + offset);
+    }
+
+    @Override
+    public String getIpRangeUuid() {
+        return ipRangeUuid;
+    }
+
+    @Override
+    public synchronized String findFirstAvailableIp(String excludeIp) {
+        return toIp(nextFree(0, offset(excludeIp)));
+    }
+
+    @Override
+    public synchronized String findRandomAvailableIp(String excludeIp) {
+        int exclude = offset(excludeIp);
+        int next = nextFree(random.nextInt(total), exclude);
+        if (next < 0) {
+            next = nextFree(0, exclude);
+        }
+
+        return toIp(next);
+    }
+
+    @Override
+    public synchronized boolean isFull() {
+        return usedCount >= total;
+    }
+
+    @Override
+    public synchronized void markUsed(String ip) {
+        int offset = offset(ip);
+        if (offset >= 0 && !used.get(offset)) {
+            used.set(offset);
+            usedCount++;
+        }
+    }
+
+    @Override
+    public synchronized void markFree(String ip) {
+        int offset = offset(ip);
+        if (offset >= 0 && used.get(offset)) {
+            used.clear(offset);
+            usedCount--;
+        }
+    }
+}
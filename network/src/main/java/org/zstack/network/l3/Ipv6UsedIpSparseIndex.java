@@ -0,0 +1,110 @@
+package org.zstack.network.l3;
+
+import org.zstack.header.network.l3.IpRangeVO;
+import org.zstack.utils.network.IPv6NetworkUtils;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * ipv6 ranges are far too large for a bitmap, keep the used addresses in a sorted set
+ * and search the first gap after a given address instead
+ */
+public class Ipv6UsedIpSparseIndex implements UsedIpIndex {
+    private static final Random random = new Random();
+
+    private final String ipRangeUuid;
+    private final BigInteger start;
+    private final BigInteger end;
+    private final TreeSet<BigInteger> used = new TreeSet<>();
+
+    public Ipv6UsedIpSparseIndex(IpRangeVO vo, Collection<String> usedIps) {
+        ipRangeUuid = vo.getUuid();
+        start = IPv6NetworkUtils.ipv6AddressToBigInteger(vo.getStartIp());
+        end = IPv6NetworkUtils.ipv6AddressToBigInteger(vo.getEndIp());
+
+        for (String ip : usedIps) {
+            BigInteger addr = toAddress(ip);
+            if (addr != null) {
+                used.add(addr);
+            }
+        }
+    }
+
+    private BigInteger toAddress(String ip) {
+        if (ip == null) {
+            return null;
+        }
+
+        BigInteger addr = IPv6NetworkUtils.ipv6AddressToBigInteger(ip);
+        return addr.compareTo(start) < 0 || addr.compareTo(end) > 0 ? null : addr;
+    }
+
+    private BigInteger nextFree(BigInteger from, BigInteger exclude) {
+        BigInteger candidate = from;
+        for (BigInteger u : used.tailSet(from)) {
+            if (u.compareTo(candidate) > 0) {
+                break;
+            }
+
+            candidate = u.add(BigInteger.ONE);
+        }
+
+        if (candidate.equals(exclude)) {
+            return candidate.compareTo(end) < 0 ? nextFree(candidate.add(BigInteger.ONE), null) : null;
+        }
+
+        return candidate.compareTo(end) <= 0 ? candidate : null;
+    }
+
+    private String toIp(BigInteger addr) {
+        return addr == null ? null : IPv6NetworkUtils.ipv6AddressToString(addr);
+    }
+
+    @Override
+    public String getIpRangeUuid() {
+        return ipRangeUuid;
+    }
+
+    @Override
+    public synchronized String findFirstAvailableIp(String excludeIp) {
+        return toIp(nextFree(start, toAddress(excludeIp)));
+    }
+
+    @Override
+    public synchronized String findRandomAvailableIp(String excludeIp) {
+        BigInteger exclude = toAddress(excludeIp);
+        BigInteger size = end.subtract(start).add(BigInteger.ONE);
+        BigInteger from = start.add(new BigInteger(size.bitLength(), random).mod(size));
+        BigInteger next = nextFree(from, exclude);
+        if (next == null) {
+            next = nextFree(start, exclude);
+        }
+
+        return toIp(next);
+    }
+
+    @Override
+    public synchronized boolean isFull() {
+        /* same rule as IPv6NetworkUtils.isIpv6RangeFull() */
+        return end.subtract(start).compareTo(BigInteger.valueOf(used.size())) <= 0;
+    }
+
+    @Override
+    public synchronized void markUsed(String ip) {
+        BigInteger addr = toAddress(ip);
+        if (addr != null) {
+            used.add(addr);
+        }
+    }
+
+    @Override
+    public synchronized void markFree(String ip) {
+        BigInteger addr = toAddress(ip);
+        if (addr != null) {
+            used.remove(addr);
+        }
+    }
+}
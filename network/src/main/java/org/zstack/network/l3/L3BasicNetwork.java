@@ -124,6 +124,8 @@ public class L3BasicNetwork implements L3Network {
     private void handleLocalMessage(Message msg) {
         if (msg instanceof AllocateIpMsg) {
             handle((AllocateIpMsg)msg);
+        } else if (msg instanceof AllocateIpsMsg) {
+            handle((AllocateIpsMsg) msg);
         } else if (msg instanceof ReturnIpMsg) {
             handle((ReturnIpMsg)msg);
         } else if (msg instanceof L3NetworkDeletionMsg) {
@@ -177,6 +179,7 @@ public class L3BasicNetwork implements L3Network {
 
 
                 dbf.remove(iprvo);
+                l3NwMgr.dropUsedIpIndex(iprvo.getUuid());
 
                 CollectionUtils.safeForEach(exts, new ForEachFunction<IpRangeDeletionExtensionPoint>() {
                     @Override
@@ -209,6 +212,8 @@ public class L3BasicNetwork implements L3Network {
 
     private void handle(ReturnIpMsg msg) {
         ReturnIpReply reply = new ReturnIpReply();
+        Tuple usedIp = Q.New(UsedIpVO.class).select(UsedIpVO_.ipRangeUuid, UsedIpVO_.ip)
+                .eq(UsedIpVO_.uuid, msg.getUsedIpUuid()).findTuple();
         new Retry<Void>() {
             String __name__ = String.format("return-ip-%s-for-l3-%s", msg.getUsedIpUuid(), msg.getL3NetworkUuid());
 
@@ -219,11 +224,14 @@ public class L3BasicNetwork implements L3Network {
                 return null;
             }
         }.run();
+        if (usedIp != null) {
+            l3NwMgr.releaseIpInUsedIpIndex(usedIp.get(0, String.class), usedIp.get(1, String.class));
+        }
         logger.debug(String.format("Successfully released used ip[%s]", msg.getUsedIpUuid()));
         bus.reply(msg, reply);
     }
 
-    private IpAllocatorType getIpAllocatorType(AllocateIpMsg msg) {
+    private IpAllocatorType getIpAllocatorType(IpAllocateMessage msg) {
         if (msg.getAllocatorStrategy() != null) {
             return IpAllocatorType.valueOf(msg.getAllocatorStrategy());
         }
@@ -255,6 +263,15 @@ public class L3BasicNetwork implements L3Network {
         bus.reply(msg, reply);
     }
 
+    private void handle(AllocateIpsMsg msg) {
+        IpAllocatorType strategyType = getIpAllocatorType(msg);
+        AllocateIpsReply reply = new AllocateIpsReply();
+        reply.setIpInventories(l3NwMgr.allocateIps(l3NwMgr.getIpAllocatorStrategy(strategyType), msg, msg.getNum()));
+        logger.debug(String.format("Ip allocator strategy[%s] successfully allocates %s of %s ips in l3Network[uuid:%s]",
+                strategyType, reply.getIpInventories().size(), msg.getNum(), self.getUuid()));
+        bus.reply(msg, reply);
+    }
+
     private void handleApiMessage(APIMessage msg) {
         if (msg instanceof APIDeleteL3NetworkMsg) {
             handle((APIDeleteL3NetworkMsg) msg);
@@ -11,10 +11,26 @@ public interface L3NetworkManager {
     UsedIpInventory reserveIp(IpRangeVO ipRange, String ip);
     UsedIpInventory reserveIp(IpRangeVO ipRange, String ip, boolean allowDuplicatedAddress);
 
+    /**
+     * allocates up to num ips by the strategy in one pass on the node owning the l3 network,
+     * stops at the first ip the strategy can't find
+     */
+    List<UsedIpInventory> allocateIps(IpAllocatorStrategy strategy, IpAllocateMessage msg, int num);
+
     boolean isIpRangeFull(IpRangeVO vo);
     
     List<BigInteger> getUsedIpInRange(IpRangeVO vo);
 
+    /**
+     * @return the in-memory used ip index of the range, or null if the l3 network
+     * is not managed by this node or the index is disabled
+     */
+    UsedIpIndex getUsedIpIndex(IpRangeVO vo);
+
+    void releaseIpInUsedIpIndex(String ipRangeUuid, String ip);
+
+    void dropUsedIpIndex(String ipRangeUuid);
+
 
     L3NetworkFactory getL3NetworkFactory(L3NetworkType type);
 
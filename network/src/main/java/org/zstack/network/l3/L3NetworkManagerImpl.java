@@ -7,6 +7,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.zstack.core.Platform;
 import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.cloudbus.MessageSafe;
+import org.zstack.core.cloudbus.ResourceDestinationMaker;
 import org.zstack.core.componentloader.PluginRegistry;
 import org.zstack.core.db.*;
 import org.zstack.core.db.SimpleQuery.Op;
@@ -22,6 +23,8 @@ import org.zstack.header.identity.Quota.QuotaOperator;
 import org.zstack.header.identity.Quota.QuotaPair;
 import org.zstack.header.identity.ReportQuotaExtensionPoint;
 import org.zstack.header.identity.ResourceOwnerPreChangeExtensionPoint;
+import org.zstack.header.managementnode.ManagementNodeChangeListener;
+import org.zstack.header.managementnode.ManagementNodeInventory;
 import org.zstack.header.managementnode.PrepareDbInitialValueExtensionPoint;
 import org.zstack.header.message.APIMessage;
 import org.zstack.header.message.Message;
@@ -51,13 +54,14 @@ import javax.persistence.TypedQuery;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static org.zstack.core.Platform.err;
 import static org.zstack.utils.CollectionDSL.*;
 
 public class L3NetworkManagerImpl extends AbstractService implements L3NetworkManager, ReportQuotaExtensionPoint,
-        ResourceOwnerPreChangeExtensionPoint, PrepareDbInitialValueExtensionPoint {
+        ResourceOwnerPreChangeExtensionPoint, PrepareDbInitialValueExtensionPoint, ManagementNodeChangeListener {
     private static final CLogger logger = Utils.getLogger(L3NetworkManagerImpl.class);
 
     @Autowired
@@ -74,11 +78,14 @@ public class L3NetworkManagerImpl extends AbstractService implements L3NetworkMa
     private ErrorFacade errf;
     @Autowired
     private TagManager tagMgr;
+    @Autowired
+    private ResourceDestinationMaker destMaker;
 
     private Map<String, IpRangeFactory> ipRangeFactories = Collections.synchronizedMap(new HashMap<String, IpRangeFactory>());
     private Map<String, L3NetworkFactory> l3NetworkFactories = Collections.synchronizedMap(new HashMap<String, L3NetworkFactory>());
     private Map<String, IpAllocatorStrategy> ipAllocatorStrategies = Collections.synchronizedMap(new HashMap<String, IpAllocatorStrategy>());
     private Set<String> notAccountMetaDatas = Collections.synchronizedSet(new HashSet<>());
+    private Map<String, UsedIpIndex> usedIpIndexes = new ConcurrentHashMap<>();
 
     private static final Set<Class> allowedMessageAfterSoftDeletion = new HashSet<Class>();
 
@@ -483,9 +490,11 @@ public class L3NetworkManagerImpl extends AbstractService implements L3NetworkMa
             vo.setGateway(ipRange.getGateway());
             vo.setIpVersion(IPv6Constants.IPv6);
             vo = dbf.persistAndRefresh(vo);
+            markIpInUsedIpIndex(ipRange.getUuid(), ip);
             return UsedIpInventory.valueOf(vo);
         } catch (JpaSystemException e) {
             if (e.getRootCause() instanceof MySQLIntegrityConstraintViolationException) {
+                markIpInUsedIpIndex(ipRange.getUuid(), ip);
                 logger.debug(String.format("Concurrent ip allocation. " +
                         "Ip[%s] in ip range[uuid:%s] has been allocated, try allocating another one. " +
                         "The error[Duplicate entry] printed by jdbc.spi.SqlExceptionHelper is no harm, " +
@@ -515,9 +524,11 @@ public class L3NetworkManagerImpl extends AbstractService implements L3NetworkMa
             vo.setGateway(ipRange.getGateway());
             vo.setIpVersion(IPv6Constants.IPv4);
             vo = dbf.persistAndRefresh(vo);
+            markIpInUsedIpIndex(ipRange.getUuid(), ip);
             return UsedIpInventory.valueOf(vo);
         } catch (JpaSystemException e) {
             if (e.getRootCause() instanceof MySQLIntegrityConstraintViolationException) {
+                markIpInUsedIpIndex(ipRange.getUuid(), ip);
                 logger.debug(String.format("Concurrent ip allocation. " +
                         "Ip[%s] in ip range[uuid:%s] has been allocated, try allocating another one. " +
                         "The error[Duplicate entry] printed by jdbc.spi.SqlExceptionHelper is no harm, " +
@@ -546,8 +557,36 @@ public class L3NetworkManagerImpl extends AbstractService implements L3NetworkMa
         }
     }
 
+    @Override
+    public List<UsedIpInventory> allocateIps(IpAllocatorStrategy strategy, IpAllocateMessage msg, int num) {
+        List<UsedIpInventory> ret = new ArrayList<>(num);
+        while (ret.size() < num) {
+            UsedIpInventory ip = strategy.allocateIp(msg);
+            if (ip == null) {
+                logger.debug(String.format("l3Network[uuid:%s] runs out of ips after allocating %s of %s ips",
+                        msg.getL3NetworkUuid(), ret.size(), num));
+                break;
+            }
+
+            ret.add(ip);
+        }
+
+        return ret;
+    }
+
     @Override
     public boolean isIpRangeFull(IpRangeVO vo) {
+        UsedIpIndex index = getUsedIpIndex(vo);
+        if (index != null) {
+            if (!index.isFull()) {
+                return false;
+            }
+
+            // the index may still hold addresses released while this node
+            // was not the owner of the l3 network, check against database
+            return buildUsedIpIndex(vo).isFull();
+        }
+
         SimpleQuery<UsedIpVO> query = dbf.createQuery(UsedIpVO.class);
         query.add(UsedIpVO_.ipRangeUuid, Op.EQ, vo.getUuid());
         query.select(UsedIpVO_.ip);
@@ -580,6 +619,85 @@ public class L3NetworkManagerImpl extends AbstractService implements L3NetworkMa
         }
     }
 
+    @Override
+    public UsedIpIndex getUsedIpIndex(IpRangeVO vo) {
+        if (!NetworkGlobalProperty.USED_IP_INDEX) {
+            return null;
+        }
+
+        if (!destMaker.isManagedByUs(vo.getL3NetworkUuid())) {
+            usedIpIndexes.remove(vo.getUuid());
+            return null;
+        }
+
+        UsedIpIndex index = usedIpIndexes.get(vo.getUuid());
+        return index != null ? index : buildUsedIpIndex(vo);
+    }
+
+    private UsedIpIndex buildUsedIpIndex(IpRangeVO vo) {
+        UsedIpIndex index;
+        if (vo.getIpVersion() == IPv6Constants.IPv4) {
+            List<Long> used = Q.New(UsedIpVO.class).select(UsedIpVO_.ipInLong)
+                    .eq(UsedIpVO_.ipRangeUuid, vo.getUuid()).listValues();
+            index = new Ipv4UsedIpBitmap(vo, used);
+        } else {
+            List<String> used = Q.New(UsedIpVO.class).select(UsedIpVO_.ip)
+                    .eq(UsedIpVO_.ipRangeUuid, vo.getUuid()).listValues();
+            index = new Ipv6UsedIpSparseIndex(vo, used);
+        }
+
+        usedIpIndexes.put(vo.getUuid(), index);
+        return index;
+    }
+
+    private void markIpInUsedIpIndex(String ipRangeUuid, String ip) {
+        UsedIpIndex index = usedIpIndexes.get(ipRangeUuid);
+        if (index != null) {
+            index.markUsed(ip);
+        }
+    }
+
+    @Override
+    public void releaseIpInUsedIpIndex(String ipRangeUuid, String ip) {
+        UsedIpIndex index = usedIpIndexes.get(ipRangeUuid);
+        if (index == null) {
+            return;
+        }
+
+        // the same address may still be held by another UsedIpVO if duplicated address is allowed
+        boolean stillUsed = Q.New(UsedIpVO.class).eq(UsedIpVO_.ipRangeUuid, ipRangeUuid)
+                .eq(UsedIpVO_.ip, ip).isExists();
+        if (!stillUsed) {
+            index.markFree(ip);
+        }
+    }
+
+    @Override
+    public void dropUsedIpIndex(String ipRangeUuid) {
+        usedIpIndexes.remove(ipRangeUuid);
+    }
+
+    @Override
+    public void nodeJoin(ManagementNodeInventory inv) {
+        // ownership of l3 networks moves, indexes are rebuilt on demand
+        usedIpIndexes.clear();
+    }
+
+    @Override
+    public void nodeLeft(ManagementNodeInventory inv) {
+        usedIpIndexes.clear();
+    }
+
+    @Override
+    public void iAmDead(ManagementNodeInventory inv) {
+        usedIpIndexes.clear();
+    }
+
+    @Override
+    public void iJoin(ManagementNodeInventory inv) {
+        usedIpIndexes.clear();
+    }
+
     @Override
     public void updateIpAllocationMsg(AllocateIpMsg msg, String mac) {
         if (msg.getRequiredIp() != null) {
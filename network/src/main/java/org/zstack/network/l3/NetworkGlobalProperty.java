@@ -15,4 +15,7 @@ public class NetworkGlobalProperty {
 
     @GlobalProperty(name = "bridge.disable.iptables", defaultValue = "false")
     public static boolean BRIDGE_DISABLE_IPTABLES;
+
+    @GlobalProperty(name = "ipAllocation.usedIpIndex", defaultValue = "true")
+    public static boolean USED_IP_INDEX;
 }
@@ -114,7 +114,21 @@ public class RandomIpAllocatorStrategy extends AbstractIpAllocatorStrategy {
         return null;
     }
 
-    private String allocateIp(IpRangeAO vo, String excludeIp) {
+    private String allocateIp(IpRangeVO vo, String excludeIp) {
+        if (l3NwMgr.getUsedIpIndex(vo) != null) {
+            // isIpRangeFull() rebuilds the index from database when it runs out of addresses,
+            // so fetch the index again after the check
+            if (l3NwMgr.isIpRangeFull(vo)) {
+                logger.debug(String.format("ip range[uuid:%s] has no ip available, try next one", vo.getUuid()));
+                return null;
+            }
+
+            UsedIpIndex index = l3NwMgr.getUsedIpIndex(vo);
+            if (index != null) {
+                return index.findRandomAvailableIp(excludeIp);
+            }
+        }
+
         int total = vo.size();
         Random random = new Random();
         long s = random.nextInt(total) + NetworkUtils.ipv4StringToLong(vo.getStartIp());
@@ -0,0 +1,23 @@
+package org.zstack.network.l3;
+
+/**
+ * In-memory view of used addresses of an ip range, held by the management node owning
+ * the l3 network so that allocation strategies don't load every UsedIpVO per allocation.
+ *
+ * The database remains the source of truth: a stale free address is rejected by the
+ * primary key conflict in L3NetworkManager.reserveIp() and then marked used, a stale
+ * used address is dropped when the index is rebuilt after reporting the range full.
+ */
+public interface UsedIpIndex {
+    String getIpRangeUuid();
+
+    String findFirstAvailableIp(String excludeIp);
+
+    String findRandomAvailableIp(String excludeIp);
+
+    boolean isFull();
+
+    void markUsed(String ip);
+
+    void markFree(String ip);
+}
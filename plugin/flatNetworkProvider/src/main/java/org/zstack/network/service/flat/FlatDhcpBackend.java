@@ -5,11 +5,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 import org.zstack.compute.vm.StaticIpOperator;
 import org.zstack.compute.vm.VmSystemTags;
+import org.zstack.core.Platform;
 import org.zstack.core.asyncbatch.While;
 import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.cloudbus.CloudBusCallBack;
+import org.zstack.core.cloudbus.EventCallback;
+import org.zstack.core.cloudbus.EventFacade;
 import org.zstack.core.cloudbus.MessageSafe;
 import org.zstack.core.componentloader.PluginRegistry;
+import org.zstack.core.config.GlobalConfig;
+import org.zstack.core.config.GlobalConfigUpdateExtensionPoint;
 import org.zstack.core.db.*;
 import org.zstack.core.defer.Defer;
 import org.zstack.core.defer.Deferred;
@@ -60,6 +65,7 @@ import javax.persistence.TypedQuery;
 import java.sql.Timestamp;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -68,6 +74,7 @@ import static org.zstack.core.Platform.operr;
 import static org.zstack.network.service.flat.IpStatisticConstants.ResourceType;
 import static org.zstack.network.service.flat.IpStatisticConstants.SortBy;
 import static org.zstack.utils.CollectionDSL.*;
+import static org.zstack.utils.StringDSL.s;
 
 /**
  * Created by frank on 9/15/2015.
@@ -87,6 +94,8 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
     private PluginRegistry pluginRgty;
     @Autowired
     private AccountManager acntMgr;
+    @Autowired
+    private EventFacade evtf;
 
     public static final String APPLY_DHCP_PATH = "/flatnetworkprovider/dhcp/apply";
     public static final String PREPARE_DHCP_PATH = "/flatnetworkprovider/dhcp/prepare";
@@ -95,6 +104,39 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
     public static final String RESET_DEFAULT_GATEWAY_PATH = "/flatnetworkprovider/dhcp/resetDefaultGateway";
     public static final String DHCP_DELETE_NAMESPACE_PATH = "/flatnetworkprovider/dhcp/deletenamespace";
 
+    public static final String L3_DHCP_CHANGED_PATH = "/flatnetworkprovider/dhcp/l3/changed/{nodeUuid}";
+
+    /**
+     * values shared by all DhcpInfo of a L3 network, built once instead of
+     * being queried again for every IP on the L3 network
+     */
+    private static class L3DhcpSnapshot {
+        long version;
+        long expiredAt;
+        Integer mtu;
+        List<String> dns;
+        List<HostRouteInfo> hostRoutes;
+        String firstIp;
+        String endIp;
+        Integer prefixLength;
+        String addressMode;
+    }
+
+    private static class PreparedDhcpServer {
+        final String signature;
+        final long expiredAt;
+
+        PreparedDhcpServer(String signature, long expiredAt) {
+            this.signature = signature;
+            this.expiredAt = expiredAt;
+        }
+    }
+
+    private final Map<String, L3DhcpSnapshot> l3DhcpSnapshots = new ConcurrentHashMap<>();
+    private final Map<String, Long> l3DhcpVersions = new ConcurrentHashMap<>();
+    // hostUuid -> (l3Uuid -> the last successful prepare of the DHCP server on the host)
+    private final Map<String, Map<String, PreparedDhcpServer>> preparedDhcpServers = new ConcurrentHashMap<>();
+
     public static String makeNamespaceName(String brName, String l3Uuid) {
         return String.format("%s_%s", brName, l3Uuid);
     }
@@ -174,6 +216,20 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
             l3Map.put(l3.getUuid(), l3);
         }
 
+        sql = "select t.tag, vm.uuid from SystemTagVO t, VmInstanceVO vm where t.resourceType = :ttype" +
+                " and t.tag like :tag and t.resourceUuid = vm.uuid and vm.uuid in (:vmUuids)";
+        tq = dbf.getEntityManager().createQuery(sql, Tuple.class);
+        tq.setParameter("tag", TagUtils.tagPatternToSqlPattern(VmSystemTags.MULTIPLE_GATEWAY.getTagFormat()));
+        tq.setParameter("ttype", VmInstanceVO.class.getSimpleName());
+        tq.setParameter("vmUuids", vmDefaultL3.keySet());
+        ts = tq.getResultList();
+        Set<String> multiGatewayVms = new HashSet<>();
+        for (Tuple t : ts) {
+            if (Boolean.parseBoolean(VmSystemTags.MULTIPLE_GATEWAY.getTokenByTag(t.get(0, String.class), VmSystemTags.MULTIPLE_GATEWAY_TOKEN))) {
+                multiGatewayVms.add(t.get(1, String.class));
+            }
+        }
+
         Map<String, List<VmNicVO>> defaultNicMap = new HashMap<>();
         for (VmNicVO nic : nics) {
             if (!nic.getL3NetworkUuid().equals(vmDefaultL3.get(nic.getVmInstanceUuid()))) {
@@ -190,10 +246,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
         List<DhcpInfo> dhcpInfoList = new ArrayList<DhcpInfo>();
         for (VmNicVO nic : nics) {
             for (UsedIpVO ip : nic.getUsedIps()) {
-
-                String vmMultiGateway = VmSystemTags.MULTIPLE_GATEWAY.getTokenByResourceUuid(nic.getVmInstanceUuid(),
-                        VmSystemTags.MULTIPLE_GATEWAY_TOKEN);
-                boolean multiGateway = Boolean.parseBoolean(vmMultiGateway);
+                L3DhcpSnapshot snapshot = getL3DhcpSnapshot(l3Map.get(ip.getL3NetworkUuid()));
                 DhcpInfo info = new DhcpInfo();
                 info.bridgeName = KVMSystemTags.L2_BRIDGE_NAME.getTokenByTag(bridgeNames.get(nic.getL3NetworkUuid()), KVMSystemTags.L2_BRIDGE_NAME_TOKEN);
                 info.namespaceName = makeNamespaceName(
@@ -201,7 +254,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
                         ip.getL3NetworkUuid()
                 );
                 DebugUtils.Assert(info.bridgeName != null, "bridge name cannot be null");
-                info.mtu = new MtuGetter().getMtu(ip.getL3NetworkUuid());
+                info.mtu = snapshot.mtu;
                 info.mac = nic.getMac();
                 info.netmask = ip.getNetmask();
                 info.isDefaultL3Network = ip.getL3NetworkUuid().equals(vmDefaultL3.get(nic.getVmInstanceUuid()));
@@ -216,11 +269,10 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
 
                 L3NetworkVO l3 = l3Map.get(ip.getL3NetworkUuid());
                 info.dnsDomain = l3.getDnsDomain();
-                info.dns = getL3NetworkDns(ip.getL3NetworkUuid());
-                List<IpRangeInventory> iprs = IpRangeHelper.getNormalIpRanges(l3);
-                info.firstIp = NetworkUtils.getSmallestIp(iprs.stream().map(IpRangeInventory::getStartIp).collect(Collectors.toList()));
-                info.endIp = NetworkUtils.getBiggesttIp(iprs.stream().map(IpRangeInventory::getEndIp).collect(Collectors.toList()));
-                info.prefixLength = IpRangeHelper.getNormalIpRanges(l3).stream().findAny().map(IpRangeInventory::getPrefixLen).orElse(null);
+                info.dns = new ArrayList<>(snapshot.dns);
+                info.firstIp = snapshot.firstIp;
+                info.endIp = snapshot.endIp;
+                info.prefixLength = snapshot.prefixLength;
 
                 if (info.isDefaultL3Network) {
                     info.hostname = hostnames.get(nic.getVmInstanceUuid());
@@ -238,8 +290,8 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
                 }
 
                 info.l3NetworkUuid = l3.getUuid();
-                info.hostRoutes = getL3NetworkHostRoute(ip.getL3NetworkUuid());
-                info.vmMultiGateway = multiGateway;
+                info.hostRoutes = new ArrayList<>(snapshot.hostRoutes);
+                info.vmMultiGateway = multiGatewayVms.contains(nic.getVmInstanceUuid());
 
                 dhcpInfoList.add(info);
             }
@@ -814,6 +866,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
         for (DhcpServerExtensionPoint exp : pluginRgty.getExtensionList(DhcpServerExtensionPoint.class)) {
             exp.afterAllocateDhcpServerIP(l3Uuid, dhcpServerIp);
         }
+        l3DhcpChanged(l3Uuid);
         return dhcpServerIp;
     }
 
@@ -871,6 +924,24 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
 
     @Override
     public boolean start() {
+        evtf.on(L3_DHCP_CHANGED_PATH, new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                if (Platform.getManagementServerId().equals(tokens.get("nodeUuid"))) {
+                    return;
+                }
+
+                invalidateL3DhcpSnapshot((String) data);
+            }
+        });
+
+        FlatNetwordProviderGlobalConfig.ALLOW_DEFAULT_DNS.installUpdateExtension(new GlobalConfigUpdateExtensionPoint() {
+            @Override
+            public void updateGlobalConfig(GlobalConfig oldConfig, GlobalConfig newConfig) {
+                new ArrayList<>(l3DhcpSnapshots.keySet()).forEach(FlatDhcpBackend.this::invalidateL3DhcpSnapshot);
+            }
+        });
+
         return true;
     }
 
@@ -907,6 +978,8 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
         }
 
         deleteNameSpace(inventory);
+        l3DhcpChanged(inventory.getUuid());
+        preparedDhcpServers.values().forEach(servers -> servers.remove(inventory.getUuid()));
     }
 
     private void deleteNameSpace(L3NetworkInventory inventory) {
@@ -1059,12 +1132,12 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
                 info.gateway = ip.getGateway();
 
                 L3NetworkVO l3 = l3Map.get(ip.getL3NetworkUuid());
-                List<IpRangeInventory> iprs = IpRangeHelper.getNormalIpRanges(l3);
+                L3DhcpSnapshot snapshot = getL3DhcpSnapshot(l3);
                 info.dnsDomain = l3.getDnsDomain();
-                info.dns = getL3NetworkDns(ip.getL3NetworkUuid());
-                info.firstIp = NetworkUtils.getSmallestIp(iprs.stream().map(IpRangeInventory::getStartIp).collect(Collectors.toList()));
-                info.endIp = NetworkUtils.getBiggesttIp(iprs.stream().map(IpRangeInventory::getEndIp).collect(Collectors.toList()));
-                info.prefixLength = iprs.stream().findAny().map(IpRangeInventory::getPrefixLen).orElse(null);
+                info.dns = new ArrayList<>(snapshot.dns);
+                info.firstIp = snapshot.firstIp;
+                info.endIp = snapshot.endIp;
+                info.prefixLength = snapshot.prefixLength;
 
                 if (info.isDefaultL3Network) {
                     info.hostname = hostnames.get(nic.getVmInstanceUuid());
@@ -1082,7 +1155,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
                 }
 
                 info.l3NetworkUuid = l3.getUuid();
-                info.hostRoutes = getL3NetworkHostRoute(ip.getL3NetworkUuid());
+                info.hostRoutes = new ArrayList<>(snapshot.hostRoutes);
                 info.vmMultiGateway = multiGateway;
 
                 dhcpInfoList.add(info);
@@ -1317,6 +1390,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
         for (DhcpServerExtensionPoint exp : pluginRgty.getExtensionList(DhcpServerExtensionPoint.class)) {
             exp.afterRemoveDhcpServerIP(l3Uuid, dhcpServerIp);
         }
+        l3DhcpChanged(l3Uuid);
     }
 
     private String getDHCPServerIP(String l3Uuid) {
@@ -1336,6 +1410,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
 
     @Override
     public void afterDeleteIpRange(IpRangeInventory ipRange) {
+        l3DhcpChanged(ipRange.getL3NetworkUuid());
         String dhcpServerIp = getDHCPServerIP(ipRange.getL3NetworkUuid());
 
         boolean ipRangeExisted = Q.New(NormalIpRangeVO.class).eq(NormalIpRangeVO_.l3NetworkUuid, ipRange.getL3NetworkUuid()).isExists();
@@ -1358,6 +1433,8 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
 
             @Override
             public void run(final FlowTrigger trigger, Map data) {
+                // namespaces on a reconnected host are not trusted until prepared again
+                preparedDhcpServers.remove(context.getInventory().getUuid());
                 final List<DhcpInfo> dhcpInfoList = getDhcpInfoForConnectedKvmHost(context);
                 if (dhcpInfoList == null) {
                     trigger.next();
@@ -1540,6 +1617,79 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
         return res;
     }
 
+    private L3DhcpSnapshot getL3DhcpSnapshot(String l3Uuid) {
+        L3DhcpSnapshot s = getValidL3DhcpSnapshot(l3Uuid);
+        return s != null ? s : getL3DhcpSnapshot(dbf.findByUuid(l3Uuid, L3NetworkVO.class));
+    }
+
+    private L3DhcpSnapshot getL3DhcpSnapshot(L3NetworkVO l3) {
+        L3DhcpSnapshot s = getValidL3DhcpSnapshot(l3.getUuid());
+        if (s != null) {
+            return s;
+        }
+
+        s = new L3DhcpSnapshot();
+        // read the version before loading, a change made meanwhile makes the snapshot outdated
+        s.version = l3DhcpVersions.getOrDefault(l3.getUuid(), 0L);
+        s.expiredAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(FlatNetworkGlobalProperty.L3_DHCP_SNAPSHOT_TTL);
+        s.mtu = new MtuGetter().getMtu(l3.getUuid());
+        s.dns = getL3NetworkDns(l3.getUuid());
+        s.hostRoutes = getL3NetworkHostRoute(l3.getUuid());
+
+        List<IpRangeInventory> iprs = IpRangeHelper.getNormalIpRanges(l3);
+        s.firstIp = NetworkUtils.getSmallestIp(iprs.stream().map(IpRangeInventory::getStartIp).collect(Collectors.toList()));
+        s.endIp = NetworkUtils.getBiggesttIp(iprs.stream().map(IpRangeInventory::getEndIp).collect(Collectors.toList()));
+        s.prefixLength = iprs.stream().findAny().map(IpRangeInventory::getPrefixLen).orElse(null);
+        s.addressMode = iprs.stream().findFirst().map(IpRangeInventory::getAddressMode).orElse(null);
+
+        if (FlatNetworkGlobalProperty.L3_DHCP_SNAPSHOT_TTL > 0) {
+            l3DhcpSnapshots.put(l3.getUuid(), s);
+        }
+
+        return s;
+    }
+
+    private L3DhcpSnapshot getValidL3DhcpSnapshot(String l3Uuid) {
+        L3DhcpSnapshot s = l3DhcpSnapshots.get(l3Uuid);
+        if (s == null || s.expiredAt <= System.currentTimeMillis() || s.version != l3DhcpVersions.getOrDefault(l3Uuid, 0L)) {
+            return null;
+        }
+
+        return s;
+    }
+
+    private void invalidateL3DhcpSnapshot(String l3Uuid) {
+        l3DhcpVersions.merge(l3Uuid, 1L, Long::sum);
+        l3DhcpSnapshots.remove(l3Uuid);
+    }
+
+    private void l3DhcpChanged(String l3Uuid) {
+        invalidateL3DhcpSnapshot(l3Uuid);
+        evtf.fire(s(L3_DHCP_CHANGED_PATH).formatByMap(map(e("nodeUuid", Platform.getManagementServerId()))), l3Uuid);
+    }
+
+    private boolean isDhcpServerPrepared(String hostUuid, String l3Uuid, String signature) {
+        Map<String, PreparedDhcpServer> servers = preparedDhcpServers.get(hostUuid);
+        PreparedDhcpServer p = servers == null ? null : servers.get(l3Uuid);
+        return p != null && p.signature.equals(signature) && p.expiredAt > System.currentTimeMillis();
+    }
+
+    private void dhcpServerPrepared(String hostUuid, String l3Uuid, String signature) {
+        if (FlatNetworkGlobalProperty.L3_DHCP_SNAPSHOT_TTL <= 0) {
+            return;
+        }
+
+        preparedDhcpServers.computeIfAbsent(hostUuid, k -> new ConcurrentHashMap<>()).put(l3Uuid, new PreparedDhcpServer(signature,
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(FlatNetworkGlobalProperty.L3_DHCP_SNAPSHOT_TTL)));
+    }
+
+    private void forgetPreparedDhcpServer(String hostUuid, String l3Uuid) {
+        Map<String, PreparedDhcpServer> servers = preparedDhcpServers.get(hostUuid);
+        if (servers != null) {
+            servers.remove(l3Uuid);
+        }
+    }
+
     private List<DhcpInfo> toDhcpInfo(List<DhcpStruct> structs) {
         final Map<String, String> l3Bridges = new HashMap<String, String>();
         for (DhcpStruct s : structs) {
@@ -1592,12 +1742,13 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
                 info.endIp = arg.getEndIP();
                 info.prefixLength = arg.getPrefixLength();
                 info.mac = arg.getMac();
-                info.dns = getL3NetworkDns(arg.getL3Network().getUuid());
+                L3DhcpSnapshot snapshot = getL3DhcpSnapshot(arg.getL3Network().getUuid());
+                info.dns = new ArrayList<>(snapshot.dns);
                 info.l3NetworkUuid = arg.getL3Network().getUuid();
                 info.bridgeName = l3Bridges.get(arg.getL3Network().getUuid());
                 info.namespaceName = makeNamespaceName(info.bridgeName, arg.getL3Network().getUuid());
                 info.mtu = arg.getMtu();
-                info.hostRoutes = getL3NetworkHostRoute(arg.getL3Network().getUuid());
+                info.hostRoutes = new ArrayList<>(snapshot.hostRoutes);
                 info.vmMultiGateway = multiGateway;
                 return info;
             }
@@ -1605,6 +1756,13 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
     }
 
     private void applyDhcpToHosts(List<DhcpInfo> dhcpInfo, final String hostUuid, final boolean rebuild, final Completion completion) {
+        applyDhcpToHosts(dhcpInfo, hostUuid, rebuild, !rebuild, completion);
+    }
+
+    // reusePreparedServer: skip the prepare if the namespace was prepared recently with the same parameters,
+    // vm start/reboot always prepares so that a dead dnsmasq on the host gets repaired
+    private void applyDhcpToHosts(List<DhcpInfo> dhcpInfo, final String hostUuid, final boolean rebuild,
+                                  final boolean reusePreparedServer, final Completion completion) {
         final Map<String, List<DhcpInfo>> l3DhcpMap = new HashMap<String, List<DhcpInfo>>();
         for (DhcpInfo d : dhcpInfo) {
             List<DhcpInfo> lst = l3DhcpMap.get(d.l3NetworkUuid);
@@ -1670,6 +1828,11 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
                             @Override
                             public void run(final FlowTrigger trigger, Map data) {
                                 DhcpInfo i = info.get(0);
+                                L3DhcpSnapshot snapshot = getL3DhcpSnapshot(l3Uuid);
+                                if (snapshot.addressMode == null) {
+                                    trigger.fail(operr("no IP range found on the l3 network[uuid:%s]", l3Uuid));
+                                    return;
+                                }
 
                                 PrepareDhcpCmd cmd = new PrepareDhcpCmd();
                                 cmd.bridgeName = i.bridgeName;
@@ -1678,9 +1841,16 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
                                 cmd.dhcpNetmask = dhcpNetmask;
                                 cmd.prefixLen = prefixLen;
                                 cmd.ipVersion = i.ipVersion;
+                                cmd.addressMode = snapshot.addressMode;
 
-                                List<NormalIpRangeVO> rangeVOS = Q.New(NormalIpRangeVO.class).eq(NormalIpRangeVO_.l3NetworkUuid, l3Uuid).list();
-                                cmd.addressMode = rangeVOS.get(0).getAddressMode();
+                                // the namespace of the L3 network is set up on the host already,
+                                // only the DHCP entries need to be applied
+                                String signature = String.join("|", cmd.bridgeName, cmd.namespaceName, cmd.dhcpServerIp,
+                                        cmd.dhcpNetmask, String.valueOf(cmd.prefixLen), String.valueOf(cmd.ipVersion), cmd.addressMode);
+                                if (reusePreparedServer && isDhcpServerPrepared(hostUuid, l3Uuid, signature)) {
+                                    trigger.next();
+                                    return;
+                                }
 
                                 KVMHostAsyncHttpCallMsg msg = new KVMHostAsyncHttpCallMsg();
                                 msg.setHostUuid(hostUuid);
@@ -1703,6 +1873,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
                                             return;
                                         }
 
+                                        dhcpServerPrepared(hostUuid, l3Uuid, signature);
                                         trigger.next();
                                     }
                                 });
@@ -1756,6 +1927,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
                         error(new FlowErrorHandler(completion) {
                             @Override
                             public void handle(ErrorCode errCode, Map data) {
+                                forgetPreparedDhcpServer(hostUuid, l3Uuid);
                                 completion.fail(errCode);
                             }
                         });
@@ -1774,7 +1946,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
             return;
         }
 
-        applyDhcpToHosts(toDhcpInfo(dhcpStructList), spec.getDestHost().getUuid(), false, completion);
+        applyDhcpToHosts(toDhcpInfo(dhcpStructList), spec.getDestHost().getUuid(), false, false, completion);
     }
 
     private void releaseDhcpService(List<DhcpInfo> info, final String vmUuid, final String hostUuid, final NoErrorCompletion completion) {
@@ -1901,6 +2073,8 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
 
     private void handle(L3NetworkUpdateDhcpMsg msg) {
         L3NetworkUpdateDhcpReply reply = new L3NetworkUpdateDhcpReply();
+        // DNS or host routes of the L3 network are changed
+        l3DhcpChanged(msg.getL3NetworkUuid());
 
         Map<String, List<DhcpInfo>> l3DhcpMap = new HashMap<String, List<DhcpInfo>>();
 
@@ -2040,6 +2214,7 @@ public class FlatDhcpBackend extends AbstractService implements NetworkServiceDh
             return;
         }
 
+        l3DhcpChanged(ipr.getL3NetworkUuid());
         String dhcpTag = null;
         String dhcpServerIp = null;
         if (systemTags != null) {
@@ -10,4 +10,6 @@ import org.zstack.core.GlobalPropertyDefinition;
 public class FlatNetworkGlobalProperty {
     @GlobalProperty(name="deleteDeprecatedFlatDHCPNameSpace", defaultValue = "false")
     public static boolean DELETE_DEPRECATED_DHCP_NAME_SPACE;
+    @GlobalProperty(name="FlatDhcp.l3SnapshotTTL", defaultValue = "30")
+    public static int L3_DHCP_SNAPSHOT_TTL;
 }
@@ -0,0 +1,49 @@
+package org.zstack.kvm;
+
+import org.zstack.utils.gson.JSONObjectUtil;
+
+/**
+ * encodes an agent command and its kvmHostAddons in one pass, the addons are
+ * written straight after the command fields instead of being spliced into the
+ * encoded string afterwards
+ */
+public class KVMAgentCommandEncoder {
+    public static String encode(KVMAgentCommands.AgentCommand cmd, KVMHostAddons addons) {
+        StringBuilder sb = new StringBuilder(512);
+        JSONObjectUtil.toJson(cmd, sb);
+        return appendAddons(sb, addons);
+    }
+
+    public static String encode(String commandStr, KVMHostAddons addons) {
+        StringBuilder sb = new StringBuilder(commandStr.length() + 64);
+        sb.append(commandStr);
+        return appendAddons(sb, addons);
+    }
+
+    private static int lastNonWhitespace(StringBuilder sb, int from) {
+        int i = from;
+        while (i >= 0 && Character.isWhitespace(sb.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static String appendAddons(StringBuilder sb, KVMHostAddons addons) {
+        int end = lastNonWhitespace(sb, sb.length() - 1);
+        if (end < 0 || sb.charAt(end) != '}') {
+            // not a JSON object, nothing to attach the addons to
+            return sb.toString();
+        }
+
+        int last = lastNonWhitespace(sb, end - 1);
+        sb.setLength(end);
+        if (last >= 0 && sb.charAt(last) != '{') {
+            sb.append(',');
+        }
+
+        sb.append('"').append(KVMConstant.KVM_HOST_ADDONS).append("\":");
+        JSONObjectUtil.toJson(addons.asMap(), sb);
+        sb.append('}');
+        return sb.toString();
+    }
+}
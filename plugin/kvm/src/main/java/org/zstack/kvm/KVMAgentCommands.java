@@ -2374,6 +2374,30 @@ public class KVMAgentCommands {
     public static class ApplySecurityGroupRuleResponse extends AgentResponse {
     }
 
+    public static class ApplySecurityGroupRuleDeltasCmd extends AgentCommand {
+        private List<SecurityGroupRuleTO> ruleTOs;
+        private List<SecurityGroupRuleTO> ipv6RuleTOs;
+
+        public List<SecurityGroupRuleTO> getRuleTOs() {
+            return ruleTOs;
+        }
+
+        public void setRuleTOs(List<SecurityGroupRuleTO> ruleTOs) {
+            this.ruleTOs = ruleTOs;
+        }
+
+        public List<SecurityGroupRuleTO> getIpv6RuleTOs() {
+            return ipv6RuleTOs;
+        }
+
+        public void setIpv6RuleTOs(List<SecurityGroupRuleTO> ipv6RuleTOs) {
+            this.ipv6RuleTOs = ipv6RuleTOs;
+        }
+    }
+
+    public static class ApplySecurityGroupRuleDeltasResponse extends AgentResponse {
+    }
+
     public static class MigrateVmCmd extends AgentCommand implements HasThreadContext {
         private String vmUuid;
         private String destHostIp;
@@ -2,10 +2,31 @@ package org.zstack.kvm;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Create by weiwang at 2018/6/4
  */
 public interface KVMBeforeAsyncJsonPostExtensionPoint {
-    LinkedHashMap kvmBeforeAsyncJsonPostExtensionPoint(String path, LinkedHashMap commandMap, Map header);
+    /**
+     * @deprecated decoding the command into a map costs an extra JSON round trip for every
+     * agent call, implement {@link #kvmBeforeAsyncJsonPost} instead
+     */
+    @Deprecated
+    default LinkedHashMap kvmBeforeAsyncJsonPostExtensionPoint(String path, LinkedHashMap commandMap, Map header) {
+        return null;
+    }
+
+    /**
+     * @param cmd the command being sent, null if the command is sent as a raw JSON string
+     * @param commandMap the command decoded into a map, only decoded when called
+     * @param addons addons put here are sent to the agent in the kvmHostAddons field of the command
+     */
+    default void kvmBeforeAsyncJsonPost(String path, KVMAgentCommands.AgentCommand cmd, Supplier<LinkedHashMap> commandMap,
+                                        Map header, KVMHostAddons addons) {
+        LinkedHashMap ret = kvmBeforeAsyncJsonPostExtensionPoint(path, commandMap.get(), header);
+        if (ret != null) {
+            addons.putAll(ret);
+        }
+    }
 }
@@ -81,6 +81,7 @@ import javax.persistence.TypedQuery;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.zstack.core.Platform.*;
@@ -367,7 +368,7 @@ public class KVMHost extends HostBase implements Host {
 
                     @Override
                     public void success(T ret) {
-                        if (dbf.isExist(self.getUuid(), HostVO.class)) {
+                        if (!isDeleted()) {
                             completion.success(ret);
                         } else {
                             completion.fail(operr("host[uuid:%s] has been deleted", self.getUuid()));
@@ -388,7 +389,7 @@ public class KVMHost extends HostBase implements Host {
 
                     @Override
                     public void success(T ret) {
-                        if (dbf.isExist(self.getUuid(), HostVO.class)) {
+                        if (!isDeleted()) {
                             completion.success(ret);
                         } else {
                             completion.fail(operr("host[uuid:%s] has been deleted", self.getUuid()));
@@ -404,34 +405,26 @@ public class KVMHost extends HostBase implements Host {
         }
 
         void runBeforeAsyncJsonPostExts(Map<String, String> header) {
-            if (commandStr == null) {
-                commandStr = JSONObjectUtil.toJsonString(cmd);
-            }
-
-            if (commandStr == null || commandStr.isEmpty()) {
+            if (cmd == null && (commandStr == null || commandStr.isEmpty())) {
                 logger.warn(String.format("commandStr is empty, path: %s, header: %s", path, header));
                 return;
             }
 
-            LinkedHashMap commandMap = JSONObjectUtil.toObject(commandStr, LinkedHashMap.class);
-            LinkedHashMap kvmHostAddon = new LinkedHashMap();
-            for (KVMBeforeAsyncJsonPostExtensionPoint extp : pluginRegistry.getExtensionList(KVMBeforeAsyncJsonPostExtensionPoint.class)) {
-                LinkedHashMap tmpHashMap = extp.kvmBeforeAsyncJsonPostExtensionPoint(path, commandMap, header);
-
-                if (tmpHashMap != null && !tmpHashMap.isEmpty()) {
-                    tmpHashMap.keySet().stream().forEachOrdered((key -> {
-                        kvmHostAddon.put(key, tmpHashMap.get(key));
-                    }));
+            // only extensions still implementing the map based method pay for decoding the command
+            LinkedHashMap[] commandMap = new LinkedHashMap[1];
+            Supplier<LinkedHashMap> commandMapSupplier = () -> {
+                if (commandMap[0] == null) {
+                    commandMap[0] = JSONObjectUtil.toObject(commandStr != null ? commandStr : JSONObjectUtil.toJsonString(cmd), LinkedHashMap.class);
                 }
-            }
+                return commandMap[0];
+            };
 
-            if (commandStr.equals("{}")) {
-                commandStr = commandStr.replaceAll("\\}$",
-                        String.format("\"%s\":%s}", KVMConstant.KVM_HOST_ADDONS, JSONObjectUtil.toJsonString(kvmHostAddon)));
-            } else {
-                commandStr = commandStr.replaceAll("\\}$",
-                        String.format(",\"%s\":%s}", KVMConstant.KVM_HOST_ADDONS, JSONObjectUtil.toJsonString(kvmHostAddon)));
+            KVMHostAddons addons = new KVMHostAddons();
+            for (KVMBeforeAsyncJsonPostExtensionPoint extp : pluginRegistry.getExtensionList(KVMBeforeAsyncJsonPostExtensionPoint.class)) {
+                extp.kvmBeforeAsyncJsonPost(path, cmd, commandMapSupplier, header, addons);
             }
+
+            commandStr = commandStr != null ? KVMAgentCommandEncoder.encode(commandStr, addons) : KVMAgentCommandEncoder.encode(cmd, addons);
         }
     }
 
@@ -0,0 +1,33 @@
+package org.zstack.kvm;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * addons contributed by KVMBeforeAsyncJsonPostExtensionPoint, written to the agent
+ * as the kvmHostAddons field of the command
+ */
+public class KVMHostAddons {
+    private final Map<String, Object> addons = new LinkedHashMap<>();
+
+    public void put(String key, Object value) {
+        addons.put(key, value);
+    }
+
+    public void putAll(Map<?, ?> m) {
+        m.forEach((k, v) -> addons.put(k.toString(), v));
+    }
+
+    public <T> T get(String key, Class<T> clazz) {
+        return clazz.cast(addons.get(key));
+    }
+
+    public boolean isEmpty() {
+        return addons.isEmpty();
+    }
+
+    public Map<String, Object> asMap() {
+        return Collections.unmodifiableMap(addons);
+    }
+}
@@ -10,6 +10,8 @@ import org.zstack.utils.logging.CLogger;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class KVMHostAllocatorFilterExtensionPoint implements HostAllocatorFilterExtensionPoint {
     private CLogger logger = Utils.getLogger(KVMHostAllocatorFilterExtensionPoint.class);
@@ -36,10 +38,16 @@ public class KVMHostAllocatorFilterExtensionPoint implements HostAllocatorFilter
             return candidates;
         }
 
+        // tokens of all candidates in one query for each tag instead of three queries for each host
+        List<String> hostUuids = candidates.stream().map(HostVO::getUuid).collect(Collectors.toList());
+        Map<String, String> qemuVers = KVMSystemTags.QEMU_IMG_VERSION.getTokenByResourceUuids(hostUuids, KVMSystemTags.QEMU_IMG_VERSION_TOKEN);
+        Map<String, String> libvirtVers = KVMSystemTags.LIBVIRT_VERSION.getTokenByResourceUuids(hostUuids, KVMSystemTags.LIBVIRT_VERSION_TOKEN);
+        Map<String, String> cpuModelNames = KVMSystemTags.CPU_MODEL_NAME.getTokenByResourceUuids(hostUuids, KVMSystemTags.CPU_MODEL_NAME_TOKEN);
+
         for (HostVO host : candidates) {
-            String dstQemuVer = KVMSystemTags.QEMU_IMG_VERSION.getTokenByResourceUuid(host.getUuid(), KVMSystemTags.QEMU_IMG_VERSION_TOKEN);
-            String dstLibvirtVer = KVMSystemTags.LIBVIRT_VERSION.getTokenByResourceUuid(host.getUuid(), KVMSystemTags.LIBVIRT_VERSION_TOKEN);
-            String dstCpuModelName = KVMSystemTags.CPU_MODEL_NAME.getTokenByResourceUuid(host.getUuid(), KVMSystemTags.CPU_MODEL_NAME_TOKEN);
+            String dstQemuVer = qemuVers.get(host.getUuid());
+            String dstLibvirtVer = libvirtVers.get(host.getUuid());
+            String dstCpuModelName = cpuModelNames.get(host.getUuid());
             if ((srcQemuVer == null || srcQemuVer.equals(dstQemuVer))
                     && (srcLibvirtVer == null || srcLibvirtVer.equals(dstLibvirtVer))) {
                 result.add(host);
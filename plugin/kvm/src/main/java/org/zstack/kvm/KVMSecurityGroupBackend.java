@@ -14,6 +14,8 @@ import org.zstack.header.host.HostConstant;
 import org.zstack.header.host.HypervisorType;
 import org.zstack.header.message.MessageReply;
 import org.zstack.kvm.KVMAgentCommands.ApplySecurityGroupRuleCmd;
+import org.zstack.kvm.KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd;
+import org.zstack.kvm.KVMAgentCommands.ApplySecurityGroupRuleDeltasResponse;
 import org.zstack.kvm.KVMAgentCommands.CheckDefaultSecurityGroupCmd;
 import org.zstack.kvm.KVMAgentCommands.CheckDefaultSecurityGroupResponse;
 import org.zstack.kvm.KVMAgentCommands.ApplySecurityGroupRuleResponse;
@@ -33,6 +35,7 @@ public class KVMSecurityGroupBackend implements SecurityGroupHypervisorBackend,
     private static CLogger logger = Utils.getLogger(KVMSecurityGroupBackend.class);
     
     public static final String SECURITY_GROUP_APPLY_RULE_PATH = "/securitygroup/applyrules";
+    public static final String SECURITY_GROUP_APPLY_RULE_DELTAS_PATH = "/securitygroup/applyruledeltas";
     public static final String SECURITY_GROUP_REFRESH_RULE_ON_HOST_PATH = "/securitygroup/refreshrulesonhost";
     public static final String SECURITY_GROUP_CHECK_DEFAULT_RULES_ON_HOST_PATH = "/securitygroup/checkdefaultrulesonhost";
     public static final String SECURITY_GROUP_CLEANUP_UNUSED_RULE_ON_HOST_PATH = "/securitygroup/cleanupunusedrules";
@@ -129,6 +132,43 @@ public class KVMSecurityGroupBackend implements SecurityGroupHypervisorBackend,
         }
     }
 
+    @Override
+    public void applyRuleDeltas(final HostRuleTO hto, final Completion complete) {
+        ApplySecurityGroupRuleDeltasCmd cmd = new ApplySecurityGroupRuleDeltasCmd();
+        if (!hto.getRules().isEmpty()) {
+            cmd.setRuleTOs(hto.getRules());
+        }
+        if (!hto.getIpv6Rules().isEmpty()) {
+            cmd.setIpv6RuleTOs(hto.getIpv6Rules());
+        }
+
+        KVMHostAsyncHttpCallMsg msg = new KVMHostAsyncHttpCallMsg();
+        msg.setHostUuid(hto.getHostUuid());
+        msg.setPath(SECURITY_GROUP_APPLY_RULE_DELTAS_PATH);
+        msg.setCommand(cmd);
+        bus.makeTargetServiceIdByResourceUuid(msg, HostConstant.SERVICE_ID, hto.getHostUuid());
+        bus.send(msg, new CloudBusCallBack(complete) {
+            @Override
+            public void run(MessageReply reply) {
+                if (!reply.isSuccess()) {
+                    complete.fail(reply.getError());
+                    return;
+                }
+
+                KVMHostAsyncHttpCallReply hreply = reply.castReply();
+                ApplySecurityGroupRuleDeltasResponse rsp = hreply.toResponse(ApplySecurityGroupRuleDeltasResponse.class);
+                if (!rsp.isSuccess()) {
+                    ErrorCode err = operr("failed to apply deltas of security group rules to kvm host[uuid:%s], because %s", hto.getHostUuid(), rsp.getError());
+                    complete.fail(err);
+                    return;
+                }
+
+                logger.debug(String.format("successfully applied deltas of security group rules to kvm host[uuid:%s]", hto.getHostUuid()));
+                complete.success();
+            }
+        });
+    }
+
     @Override
     public void checkDefaultRules(String hostUuid, Completion completion) {
         CheckDefaultSecurityGroupCmd cmd = new CheckDefaultSecurityGroupCmd();
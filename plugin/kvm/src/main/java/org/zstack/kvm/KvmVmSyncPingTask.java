@@ -3,6 +3,7 @@ package org.zstack.kvm;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.zstack.compute.vm.DeleteVmGC;
 import org.zstack.compute.vm.VmTracer;
+import org.zstack.compute.vm.VmTracerHelper;
 import org.zstack.core.cloudbus.*;
 import org.zstack.core.componentloader.PluginRegistry;
 import org.zstack.core.db.DatabaseFacade;
@@ -55,6 +56,8 @@ public class KvmVmSyncPingTask extends VmTracer implements KVMPingAgentNoFailure
     private EventFacade evtf;
     @Autowired
     private PluginRegistry pluginRgty;
+    @Autowired
+    private VmTracerHelper vmTracerHelper;
 
     // A map from apiId to VM instance uuid
     private ConcurrentHashMap<String, String> vmApis = new ConcurrentHashMap<>();
@@ -257,6 +260,7 @@ public class KvmVmSyncPingTask extends VmTracer implements KVMPingAgentNoFailure
 
     @Override
     public void connectionReestablished(HostInventory inv) {
+        vmTracerHelper.invalidateVmStates(inv.getUuid());
         syncVm(inv, new NopeCompletion());
     }
 
@@ -339,6 +343,7 @@ public class KvmVmSyncPingTask extends VmTracer implements KVMPingAgentNoFailure
         return new NoRollbackFlow() {
             @Override
             public void run(final FlowTrigger trigger, Map data) {
+                vmTracerHelper.invalidateVmStates(context.getInventory().getUuid());
                 syncVm(context.getInventory(), new Completion(trigger) {
                     String __name__ = "sync-vm-state";
 
@@ -358,7 +363,7 @@ public class KvmVmSyncPingTask extends VmTracer implements KVMPingAgentNoFailure
 
     @Override
     public void kvmPingAgentNoFailure(KVMHostInventory host, NoErrorCompletion completion) {
-        if (!KVMGlobalConfig.VM_SYNC_ON_HOST_PING.value(Boolean.class)) {
+        if (!KVMGlobalConfig.VM_SYNC_ON_HOST_PING.boolValue()) {
             completion.done();
             return;
         }
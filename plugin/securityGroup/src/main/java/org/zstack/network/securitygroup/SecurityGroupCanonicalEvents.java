@@ -0,0 +1,32 @@
+package org.zstack.network.securitygroup;
+
+import org.zstack.header.message.NeedJsonSchema;
+
+import java.util.Date;
+import java.util.List;
+
+public class SecurityGroupCanonicalEvents {
+    public static final String SECURITY_GROUP_MEMBERS_CHANGED_PATH = "/securityGroup/members/change";
+
+    @NeedJsonSchema
+    public static class SecurityGroupMembersChangedData {
+        private List<String> securityGroupUuids;
+        private Date date = new Date();
+
+        public List<String> getSecurityGroupUuids() {
+            return securityGroupUuids;
+        }
+
+        public void setSecurityGroupUuids(List<String> securityGroupUuids) {
+            this.securityGroupUuids = securityGroupUuids;
+        }
+
+        public Date getDate() {
+            return date;
+        }
+
+        public void setDate(Date date) {
+            this.date = date;
+        }
+    }
+}
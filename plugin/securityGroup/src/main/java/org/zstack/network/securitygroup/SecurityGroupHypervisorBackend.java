@@ -6,6 +6,8 @@ import org.zstack.header.host.HypervisorType;
 public interface SecurityGroupHypervisorBackend {
     void applyRules(HostRuleTO hto, Completion complete);
 
+    void applyRuleDeltas(HostRuleTO hto, Completion complete);
+
     void checkDefaultRules(String hostUuid, Completion completion);
 
     void updateGroupMembers(SecurityGroupMembersTO gto, String hostUuid, Completion completion);
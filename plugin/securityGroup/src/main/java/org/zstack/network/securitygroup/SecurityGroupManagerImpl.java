@@ -93,12 +93,17 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
     private TagManager tagMgr;
     @Autowired
     private ErrorFacade errf;
+    @Autowired
+    private SecurityGroupMembershipIndex membershipIndex;
 
     protected Map<String, SecurityGroupHypervisorBackend> hypervisorBackends;
     private int failureHostWorkerInterval;
     private int failureHostEachTimeTake;
     private Future<Void> failureHostCopingThread;
 
+    // max number of vm nics in one IN clause when calculating rules
+    private static final int NIC_BATCH_SIZE = 1000;
+
     @Override
     public List<Quota> reportQuota() {
         QuotaOperator checker = new QuotaOperator() {
@@ -173,6 +178,9 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
         private List<VmInstanceState> vmStates;
         private List<SecurityGroupState> sgStates;
 
+        private Map<String, List<RuleTO>> rulesBySecurityGroup = new HashMap<>();
+        private Map<String, List<RuleTO>> baseRulesBySecurityGroup = new HashMap<>();
+
         List<HostRuleTO> calculate() {
             if (sgStates == null) {
                 sgStates = new ArrayList<SecurityGroupState>();
@@ -202,24 +210,13 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
             gto.setSecurityGroupUuid(sgUuid);
             gto.setIpVersion(sg.getIpVersion());
             hto.setGroupMembersTO(gto);
-            Set<String> hostUuids = new HashSet<>();
-
-            List<Tuple> ts = SQL.New("select vm.hostUuid, vm.hypervisorType" +
-                    " from VmNicVO nic, VmInstanceVO vm, VmNicSecurityGroupRefVO ref" +
-                    " where vm.uuid = nic.vmInstanceUuid" +
-                    " and nic.uuid = ref.vmNicUuid" +
-                    " and ref.securityGroupUuid in" +
-                    " (" +
-                    " select rule.securityGroupUuid from SecurityGroupRuleVO rule" +
-                    " where rule.remoteSecurityGroupUuid =:sgUuid" +
-                    " )", Tuple.class).param("sgUuid", sgUuid).list();
-            for(Tuple t : ts){
-                if(t.get(0, String.class) != null){
-                    hostUuids.add(t.get(0, String.class));
-                }
-                hto.setHypervisorType(t.get(1, String.class));
-            }
-            hto.setHostUuids(new ArrayList<>(hostUuids));
+
+            // hosts of the groups referring to this group as the remote group
+            List<String> sgUuids = Q.New(SecurityGroupRuleVO.class).select(SecurityGroupRuleVO_.securityGroupUuid)
+                    .eq(SecurityGroupRuleVO_.remoteSecurityGroupUuid, sgUuid).listValues();
+            Map<String, String> hosts = membershipIndex.getHypervisorTypesOfHosts(new HashSet<>(sgUuids), null);
+            hosts.values().forEach(hto::setHypervisorType);
+            hto.setHostUuids(new ArrayList<>(hosts.keySet()));
             return hto;
         }
 
@@ -307,39 +304,83 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
             return calculateByVmNic();
         }
 
-        private List<RuleTO> calculateRuleTOBySecurityGroup(List<String> sgUuids, List<String> l3Uuids) {
-            List<RuleTO> ret = new ArrayList<>();
+        private RuleTO toRuleTO(SecurityGroupRuleVO r) {
+            RuleTO rto = new RuleTO();
+            rto.setIpVersion(r.getIpVersion());
+            rto.setAllowedCidr(r.getAllowedCidr());
+            rto.setEndPort(r.getEndPort());
+            rto.setProtocol(r.getProtocol().toString());
+            rto.setStartPort(r.getStartPort());
+            rto.setType(r.getType().toString());
+            rto.setSecurityGroupUuid(r.getSecurityGroupUuid());
+            return rto;
+        }
 
-            for (String sgUuid : sgUuids) {
-                List<SecurityGroupRuleVO> rules = new ArrayList<>();
-                SecurityGroupVO sg = Q.New(SecurityGroupVO.class).eq(SecurityGroupVO_.uuid, sgUuid).in(SecurityGroupVO_.state, sgStates).find();
-                if (sg == null) {
-                    continue;
-                }
-                rules = Q.New(SecurityGroupRuleVO.class).eq(SecurityGroupRuleVO_.securityGroupUuid,sgUuid )
+        /* rules of all security groups involved are loaded by set-based queries once,
+         * and shared by all nics of the calculation, instead of querying them per nic and per group */
+        private void loadRulesOfSecurityGroups(Collection<String> sgUuids) {
+            rulesBySecurityGroup = new HashMap<>();
+            baseRulesBySecurityGroup = new HashMap<>();
+            if (sgUuids.isEmpty()) {
+                return;
+            }
+
+            List<String> enabledSgUuids = Q.New(SecurityGroupVO.class).select(SecurityGroupVO_.uuid)
+                    .in(SecurityGroupVO_.uuid, sgUuids).in(SecurityGroupVO_.state, sgStates).listValues();
+            if (!enabledSgUuids.isEmpty()) {
+                List<SecurityGroupRuleVO> rules = Q.New(SecurityGroupRuleVO.class).in(SecurityGroupRuleVO_.securityGroupUuid, enabledSgUuids)
                         .isNull(SecurityGroupRuleVO_.remoteSecurityGroupUuid).list();
-                if (rules.isEmpty()) {
-                    continue;
+                for (SecurityGroupRuleVO r : rules) {
+                    rulesBySecurityGroup.computeIfAbsent(r.getSecurityGroupUuid(), k -> new ArrayList<>()).add(toRuleTO(r));
                 }
+            }
 
-                for (SecurityGroupRuleVO r : rules) {
-                    if ( r.getRemoteSecurityGroupUuid() != null) {
-                        SecurityGroupVO remoteSg = Q.New(SecurityGroupVO.class).eq(SecurityGroupVO_.uuid, r.getRemoteSecurityGroupUuid()).in(SecurityGroupVO_.state, sgStates).find();
-                        if (remoteSg == null) {
-                            continue;
-                        }
-                    }
-                    RuleTO rto = new RuleTO();
-                    rto.setIpVersion(r.getIpVersion());
-                    rto.setAllowedCidr(r.getAllowedCidr());
-                    rto.setEndPort(r.getEndPort());
-                    rto.setProtocol(r.getProtocol().toString());
-                    rto.setStartPort(r.getStartPort());
-                    rto.setType(r.getType().toString());
-                    rto.setSecurityGroupUuid(r.getSecurityGroupUuid());
-                    ret.add(rto);
+            String sql = "select r from SecurityGroupRuleVO r, SecurityGroupVO sg where r.securityGroupUuid in (:sgUuids)" +
+                    " and r.remoteSecurityGroupUuid is not null and r.remoteSecurityGroupUuid = sg.uuid and sg.state in (:sgStates)";
+            TypedQuery<SecurityGroupRuleVO> q = dbf.getEntityManager().createQuery(sql, SecurityGroupRuleVO.class);
+            q.setParameter("sgUuids", sgUuids);
+            q.setParameter("sgStates", sgStates);
+            List<SecurityGroupRuleVO> remoteRules = q.getResultList();
+
+            // members of a remote group are loaded once no matter how many rules refer to it
+            Map<String, List<String>> remoteGroupVmIps = getVmIpsBySecurityGroups(remoteRules.stream()
+                    .map(SecurityGroupRuleVO::getRemoteSecurityGroupUuid).collect(Collectors.toSet()));
+            for (SecurityGroupRuleVO r : remoteRules) {
+                RuleTO rule = toRuleTO(r);
+                rule.setRemoteGroupUuid(r.getRemoteSecurityGroupUuid());
+                rule.setRemoteGroupVmIps(remoteGroupVmIps.get(r.getRemoteSecurityGroupUuid()));
+                baseRulesBySecurityGroup.computeIfAbsent(r.getSecurityGroupUuid(), k -> new ArrayList<>()).add(rule);
+            }
+        }
+
+        /* the changed rules only, a rule to a remote group carries the vm ips of the group like
+         * in loadRulesOfSecurityGroups. A rule to a disabled remote group is not on the hosts */
+        @Transactional(readOnly = true)
+        void calculateRuleDeltas(List<SecurityGroupRuleVO> rules, List<RuleTO> rtos, List<RuleTO> baseRtos) {
+            Set<String> remoteSgUuids = rules.stream().map(SecurityGroupRuleVO::getRemoteSecurityGroupUuid)
+                    .filter(Objects::nonNull).collect(Collectors.toSet());
+            List<String> enabledRemoteSgUuids = remoteSgUuids.isEmpty() ? new ArrayList<>() : Q.New(SecurityGroupVO.class)
+                    .select(SecurityGroupVO_.uuid).in(SecurityGroupVO_.uuid, remoteSgUuids)
+                    .in(SecurityGroupVO_.state, sgStates).listValues();
+            Map<String, List<String>> remoteGroupVmIps = getVmIpsBySecurityGroups(enabledRemoteSgUuids);
+
+            for (SecurityGroupRuleVO r : rules) {
+                if (r.getRemoteSecurityGroupUuid() == null) {
+                    rtos.add(toRuleTO(r));
+                } else if (enabledRemoteSgUuids.contains(r.getRemoteSecurityGroupUuid())) {
+                    RuleTO rule = toRuleTO(r);
+                    rule.setRemoteGroupUuid(r.getRemoteSecurityGroupUuid());
+                    rule.setRemoteGroupVmIps(remoteGroupVmIps.get(r.getRemoteSecurityGroupUuid()));
+                    baseRtos.add(rule);
                 }
             }
+        }
+
+        private List<RuleTO> calculateRuleTOBySecurityGroup(List<String> sgUuids, List<String> l3Uuids) {
+            List<RuleTO> ret = new ArrayList<>();
+            for (String sgUuid : sgUuids) {
+                ret.addAll(rulesBySecurityGroup.getOrDefault(sgUuid, Collections.emptyList()));
+            }
 
             if (logger.isTraceEnabled()) {
                 StringBuilder sb = new StringBuilder();
@@ -355,57 +396,51 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
 
         private List<RuleTO> calculateSecurityGroupBaseRule(List<String> sgUuids, List<String> l3Uuids){
             List<RuleTO> rules = new ArrayList<>();
-            for(String sgUuid : sgUuids){
-                String sql = "select r from SecurityGroupRuleVO r,SecurityGroupVO sg  where r.securityGroupUuid = :sgUuid" +
-                        " and r.remoteSecurityGroupUuid is not null and r.remoteSecurityGroupUuid = sg.uuid and sg.state in (:sgStates)";
-                TypedQuery<SecurityGroupRuleVO> q = dbf.getEntityManager().createQuery(sql, SecurityGroupRuleVO.class);
-                q.setParameter("sgUuid", sgUuid);
-                q.setParameter("sgStates", sgStates);
-                List<SecurityGroupRuleVO> remoteRules = q.getResultList();
-
-                for(SecurityGroupRuleVO r : remoteRules){
-                    RuleTO rule = new RuleTO();
-                    rule.setIpVersion(r.getIpVersion());
-                    rule.setStartPort(r.getStartPort());
-                    rule.setEndPort(r.getEndPort());
-                    rule.setProtocol(r.getProtocol().toString());
-                    rule.setType(r.getType().toString());
-                    rule.setAllowedCidr(r.getAllowedCidr());
-                    rule.setSecurityGroupUuid(sgUuid);
-                    rule.setRemoteGroupUuid(r.getRemoteSecurityGroupUuid());
-                    // TODO: the same group only transport once
-                    rule.setRemoteGroupVmIps(getVmIpsBySecurityGroup(r.getRemoteSecurityGroupUuid()));
-                    rules.add(rule);
-                }
+            for (String sgUuid : sgUuids) {
+                rules.addAll(baseRulesBySecurityGroup.getOrDefault(sgUuid, Collections.emptyList()));
             }
             return rules;
-
         }
 
         private List<String> getVmIpsBySecurityGroup(String sgUuid){
-            List<String> ret = new ArrayList<>();
+            return getVmIpsBySecurityGroups(asList(sgUuid)).get(sgUuid);
+        }
+
+        private Map<String, List<String>> getVmIpsBySecurityGroups(Collection<String> sgUuids) {
+            Map<String, List<String>> ret = new HashMap<>();
+            if (sgUuids.isEmpty()) {
+                return ret;
+            }
+
+            sgUuids.forEach(uuid -> ret.put(uuid, new ArrayList<>()));
+
             // TODO: if two L3 network which have same ip segment attached same sg, it might has a problem
-            String sql = "select ip.ip" +
+            String sql = "select ref.securityGroupUuid, ip.ip" +
                     " from VmNicVO nic, VmNicSecurityGroupRefVO ref, SecurityGroupVO sg, UsedIpVO ip" +
                     " where sg.uuid = ref.securityGroupUuid and ref.vmNicUuid = nic.uuid" +
-                    " and ref.securityGroupUuid = :sgUuid" +
+                    " and ref.securityGroupUuid in (:sgUuids)" +
                     " and nic.uuid = ip.vmNicUuid and ip.ipVersion = sg.ipVersion";
-            TypedQuery<String> internalIpQuery = dbf.getEntityManager().createQuery(sql, String.class);
-            internalIpQuery.setParameter("sgUuid", sgUuid);
-
-            List<String> ips = internalIpQuery.getResultList();
-            if (ips != null) {
-                ret.addAll(ips);
+            TypedQuery<Tuple> internalIpQuery = dbf.getEntityManager().createQuery(sql, Tuple.class);
+            internalIpQuery.setParameter("sgUuids", sgUuids);
+            for (Tuple t : internalIpQuery.getResultList()) {
+                ret.get(t.get(0, String.class)).add(t.get(1, String.class));
             }
 
             /* add gateway address to group list */
-            List<String> l3Uuids = Q.New(SecurityGroupL3NetworkRefVO.class).select(SecurityGroupL3NetworkRefVO_.l3NetworkUuid)
-                    .eq(SecurityGroupL3NetworkRefVO_.securityGroupUuid, sgUuid).listValues();
-            for (String uuid: l3Uuids) {
-                L3NetworkInventory inv = L3NetworkInventory.valueOf(dbf.findByUuid(uuid, L3NetworkVO.class));
-                List<IpRangeInventory> iprs = IpRangeHelper.getNormalIpRanges(inv);
-                if (!iprs.isEmpty()) {
-                    ret.add(iprs.get(0).getGateway());
+            List<Tuple> l3Refs = SQL.New("select ref.securityGroupUuid, ref.l3NetworkUuid from SecurityGroupL3NetworkRefVO ref" +
+                    " where ref.securityGroupUuid in (:sgUuids)", Tuple.class).param("sgUuids", sgUuids).list();
+            Map<String, String> gateways = new HashMap<>();
+            for (Tuple t : l3Refs) {
+                String l3Uuid = t.get(1, String.class);
+                if (!gateways.containsKey(l3Uuid)) {
+                    L3NetworkInventory inv = L3NetworkInventory.valueOf(dbf.findByUuid(l3Uuid, L3NetworkVO.class));
+                    List<IpRangeInventory> iprs = IpRangeHelper.getNormalIpRanges(inv);
+                    gateways.put(l3Uuid, iprs.isEmpty() ? null : iprs.get(0).getGateway());
+                }
+
+                String gateway = gateways.get(l3Uuid);
+                if (gateway != null) {
+                    ret.get(t.get(0, String.class)).add(gateway);
                 }
             }
 
@@ -451,6 +486,8 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
                 tuples.addAll(q.getResultList());
             }
 
+            String egressDefaultPolicy = SecurityGroupGlobalConfig.EGRESS_RULE_DEFAULT_POLICY.value(String.class);
+            String ingressDefaultPolicy = SecurityGroupGlobalConfig.INGRESS_RULE_DEFAULT_POLICY.value(String.class);
             Map<String, HostRuleTO> hostRuleTOMap = new HashMap<String, HostRuleTO>();
             for (Tuple t : tuples) {
                 String nicUuid = t.get(0, String.class);
@@ -480,8 +517,8 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
                     sgRule.get().getVmNicIp().add(ip);
                 } else {
                     SecurityGroupRuleTO sgto = new SecurityGroupRuleTO();
-                    sgto.setEgressDefaultPolicy(SecurityGroupGlobalConfig.EGRESS_RULE_DEFAULT_POLICY.value(String.class));
-                    sgto.setIngressDefaultPolicy(SecurityGroupGlobalConfig.INGRESS_RULE_DEFAULT_POLICY.value(String.class));
+                    sgto.setEgressDefaultPolicy(egressDefaultPolicy);
+                    sgto.setIngressDefaultPolicy(ingressDefaultPolicy);
                     sgto.setRules(new ArrayList<RuleTO>());
                     sgto.setSecurityGroupBaseRules(new ArrayList<RuleTO>());
                     sgto.setVmNicUuid(nicUuid);
@@ -500,35 +537,56 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
             return hostRuleTOMap.values();
         }
 
+        private List<Tuple> findSecurityGroupsOfVmNics(List<String> nicUuids) {
+            if (vmStates != null && !vmStates.isEmpty()) {
+                String sql = "select ref.securityGroupUuid, vm.hostUuid, vm.hypervisorType, nic.internalName, ip.l3NetworkUuid, nic.mac, ip.ip, ip.ipVersion, nic.uuid" +
+                                 " from VmNicSecurityGroupRefVO ref, VmInstanceVO vm, VmNicVO nic, SecurityGroupVO sg, UsedIpVO ip" +
+                                 " where ref.vmNicUuid = nic.uuid and nic.vmInstanceUuid = vm.uuid and ref.vmNicUuid in (:nicUuids) " +
+                                 " and vm.state in (:vmStates) and ref.securityGroupUuid = sg.uuid and sg.state in (:sgStates) " +
+                                 " and nic.uuid = ip.vmNicUuid and sg.ipVersion = ip.ipVersion";
+                TypedQuery<Tuple> q = dbf.getEntityManager().createQuery(sql, Tuple.class);
+                q.setParameter("nicUuids", nicUuids);
+                q.setParameter("vmStates", vmStates);
+                q.setParameter("sgStates", sgStates);
+                return q.getResultList();
+            } else {
+                String sql = "select ref.securityGroupUuid, vm.hostUuid, vm.hypervisorType, nic.internalName, ip.l3NetworkUuid, nic.mac, ip.ip, ip.ipVersion, nic.uuid" +
+                        " from VmNicSecurityGroupRefVO ref, VmInstanceVO vm, VmNicVO nic, SecurityGroupVO sg, UsedIpVO ip" +
+                        " where ref.vmNicUuid = nic.uuid and nic.vmInstanceUuid = vm.uuid and ref.vmNicUuid in (:nicUuids) " +
+                        " and ref.securityGroupUuid = sg.uuid and sg.state in (:sgStates) and nic.uuid = ip.vmNicUuid and sg.ipVersion = ip.ipVersion";
+                TypedQuery<Tuple> q = dbf.getEntityManager().createQuery(sql, Tuple.class);
+                q.setParameter("nicUuids", nicUuids);
+                q.setParameter("sgStates", sgStates);
+                return q.getResultList();
+            }
+        }
+
         @Transactional(readOnly = true)
         private List<HostRuleTO> calculateByVmNic() {
             Map<String, HostRuleTO> hostRuleMap = new HashMap<String, HostRuleTO>();
             List<HostRuleTO> htos = new ArrayList<HostRuleTO>();
 
-            for (String nicUuid : vmNicUuids) {
-                List<Tuple> tuples;
-                if (vmStates != null && !vmStates.isEmpty()) {
-                    String sql = "select ref.securityGroupUuid, vm.hostUuid, vm.hypervisorType, nic.internalName, ip.l3NetworkUuid, nic.mac, ip.ip, ip.ipVersion" +
-                                     " from VmNicSecurityGroupRefVO ref, VmInstanceVO vm, VmNicVO nic, SecurityGroupVO sg, UsedIpVO ip" +
-                                     " where ref.vmNicUuid = nic.uuid and nic.vmInstanceUuid = vm.uuid and ref.vmNicUuid = :nicUuid " +
-                                     " and vm.state in (:vmStates) and ref.securityGroupUuid = sg.uuid and sg.state in (:sgStates) " +
-                                     " and nic.uuid = ip.vmNicUuid and sg.ipVersion = ip.ipVersion";
-                    TypedQuery<Tuple> q = dbf.getEntityManager().createQuery(sql, Tuple.class);
-                    q.setParameter("nicUuid", nicUuid);
-                    q.setParameter("vmStates", vmStates);
-                    q.setParameter("sgStates", sgStates);
-                    tuples = q.getResultList();
-                } else {
-                    String sql = "select ref.securityGroupUuid, vm.hostUuid, vm.hypervisorType, nic.internalName, ip.l3NetworkUuid, nic.mac, ip.ip, ip.ipVersion" +
-                            " from VmNicSecurityGroupRefVO ref, VmInstanceVO vm, VmNicVO nic, SecurityGroupVO sg, UsedIpVO ip" +
-                            " where ref.vmNicUuid = nic.uuid and nic.vmInstanceUuid = vm.uuid and ref.vmNicUuid = :nicUuid " +
-                            " and ref.securityGroupUuid = sg.uuid and sg.state in (:sgStates) and nic.uuid = ip.vmNicUuid and sg.ipVersion = ip.ipVersion";
-                    TypedQuery<Tuple> q = dbf.getEntityManager().createQuery(sql, Tuple.class);
-                    q.setParameter("nicUuid", nicUuid);
-                    q.setParameter("sgStates", sgStates);
-                    tuples = q.getResultList();
+            // nics are loaded in batches instead of one query per nic
+            List<String> nicUuids = vmNicUuids.stream().distinct().collect(Collectors.toList());
+            Map<String, List<Tuple>> tuplesByNic = new LinkedHashMap<>();
+            nicUuids.forEach(uuid -> tuplesByNic.put(uuid, new ArrayList<>()));
+            for (int i = 0; i < nicUuids.size(); i += NIC_BATCH_SIZE) {
+                List<String> batch = nicUuids.subList(i, Math.min(i + NIC_BATCH_SIZE, nicUuids.size()));
+                for (Tuple t : findSecurityGroupsOfVmNics(batch)) {
+                    tuplesByNic.get(t.get(8, String.class)).add(t);
                 }
+            }
+
+            Set<String> sgUuids = new HashSet<>();
+            tuplesByNic.values().forEach(ts -> ts.forEach(t -> sgUuids.add(t.get(0, String.class))));
+            loadRulesOfSecurityGroups(sgUuids);
 
+            // read once for all nics
+            String egressDefaultPolicy = SecurityGroupGlobalConfig.EGRESS_RULE_DEFAULT_POLICY.value(String.class);
+            String ingressDefaultPolicy = SecurityGroupGlobalConfig.INGRESS_RULE_DEFAULT_POLICY.value(String.class);
+            for (Map.Entry<String, List<Tuple>> e : tuplesByNic.entrySet()) {
+                String nicUuid = e.getKey();
+                List<Tuple> tuples = e.getValue();
                 if (tuples.isEmpty()) {
                     // vm is not in vmStates or not in security group
                     continue;
@@ -567,8 +625,8 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
                     List<RuleTO> rtos = calculateRuleTOBySecurityGroup(sg4Uuids, l3Uuids);
                     List<RuleTO> securityGroupBaseRules = calculateSecurityGroupBaseRule(sg4Uuids, l3Uuids);
                     SecurityGroupRuleTO sgto = new SecurityGroupRuleTO();
-                    sgto.setEgressDefaultPolicy(SecurityGroupGlobalConfig.EGRESS_RULE_DEFAULT_POLICY.value(String.class));
-                    sgto.setIngressDefaultPolicy(SecurityGroupGlobalConfig.INGRESS_RULE_DEFAULT_POLICY.value(String.class));
+                    sgto.setEgressDefaultPolicy(egressDefaultPolicy);
+                    sgto.setIngressDefaultPolicy(ingressDefaultPolicy);
                     sgto.setRules(rtos);
                     sgto.setVmNicUuid(nicUuid);
                     sgto.setVmNicInternalName(nicName);
@@ -592,8 +650,8 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
                     List<RuleTO> rtos = calculateRuleTOBySecurityGroup(sg6Uuids, l3Uuids);
                     List<RuleTO> securityGroupBaseRules = calculateSecurityGroupBaseRule(sg6Uuids, l3Uuids);
                     SecurityGroupRuleTO sgto = new SecurityGroupRuleTO();
-                    sgto.setEgressDefaultPolicy(SecurityGroupGlobalConfig.EGRESS_RULE_DEFAULT_POLICY.value(String.class));
-                    sgto.setIngressDefaultPolicy(SecurityGroupGlobalConfig.INGRESS_RULE_DEFAULT_POLICY.value(String.class));
+                    sgto.setEgressDefaultPolicy(egressDefaultPolicy);
+                    sgto.setIngressDefaultPolicy(ingressDefaultPolicy);
                     sgto.setRules(rtos);
                     sgto.setVmNicUuid(nicUuid);
                     sgto.setVmNicInternalName(nicName);
@@ -658,6 +716,7 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
     private void handle(SecurityGroupDeletionMsg msg) {
         SecurityGroupDeletionReply reply = new SecurityGroupDeletionReply();
         dbf.removeByPrimaryKey(msg.getUuid(), SecurityGroupVO.class);
+        membershipIndex.membersChanged(asList(msg.getUuid()));
         bus.reply(msg, reply);
     }
 
@@ -881,6 +940,7 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
         }
 
         detachSecurityGroupFromL3Network(msg.getSecurityGroupUuid(), msg.getL3NetworkUuid());
+        membershipIndex.membersChanged(asList(msg.getSecurityGroupUuid()));
 
         APIDetachSecurityGroupFromL3NetworkEvent evt = new APIDetachSecurityGroupFromL3NetworkEvent(msg.getId());
         SecurityGroupVO vo = dbf.findByUuid(msg.getSecurityGroupUuid(), SecurityGroupVO.class);
@@ -956,6 +1016,7 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
         List<VmNicSecurityGroupRefVO> refVOs = q.list();
 
         dbf.removeCollection(refVOs, VmNicSecurityGroupRefVO.class);
+        membershipIndex.membersChanged(asList(sgUuid));
 
         SecurityGroupVO sgvo = dbf.findByUuid(sgUuid, SecurityGroupVO.class);
         if (SecurityGroupState.Disabled == sgvo.getState()) {
@@ -969,8 +1030,9 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
 
         // create deleting chain action for nics no longer in any security group
         List<String> nicUuidsIn = SQL.New("select ref.vmNicUuid from VmNicSecurityGroupRefVO ref, SecurityGroupVO sg" +
-                " where ref.securityGroupUuid = sg.uuid and sg.state = :sgState and sg.ipVersion = :version", String.class)
-                .param("sgState", SecurityGroupState.Enabled).param("version", sgvo.getIpVersion()).list();
+                " where ref.vmNicUuid in (:vmNicUuids) and ref.securityGroupUuid = sg.uuid and sg.state = :sgState and sg.ipVersion = :version", String.class)
+                .param("vmNicUuids", vmNicUuids).param("sgState", SecurityGroupState.Enabled)
+                .param("version", sgvo.getIpVersion()).list();
         List<String> nicsUuidsCopy = new ArrayList<String>();
         nicsUuidsCopy.addAll(vmNicUuids);
         nicsUuidsCopy.removeAll(nicUuidsIn);
@@ -1060,6 +1122,7 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
         HostSecurityGroupMembersTO groupMemberTO = cal.returnHostSecurityGroupMember(msg.getUuid());
 
         dbf.removeByPrimaryKey(msg.getUuid(), SecurityGroupVO.class);
+        membershipIndex.membersChanged(asList(msg.getUuid()));
 
         if (!vmNicUuids.isEmpty()) {
             cal.vmNicUuids = vmNicUuids;
@@ -1100,16 +1163,12 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
         q.add(SecurityGroupRuleVO_.uuid, Op.EQ, msg.getRuleUuids().get(0));
         String sgUuid = q.findValue();
 
+        List<SecurityGroupRuleVO> rules = Q.New(SecurityGroupRuleVO.class).in(SecurityGroupRuleVO_.uuid, msg.getRuleUuids()).list();
         dbf.removeByPrimaryKeys(msg.getRuleUuids(), SecurityGroupRuleVO.class);
         SecurityGroupVO sgvo = dbf.findByUuid(sgUuid, SecurityGroupVO.class);
 
         if (SecurityGroupState.Enabled == sgvo.getState()) {
-            RuleCalculator cal = new RuleCalculator();
-            cal.securityGroupUuids = asList(sgUuid);
-            cal.vmStates = asList(VmInstanceState.Running);
-
-            List<HostRuleTO> htos = cal.calculate();
-            applyRules(htos);
+            applyRuleDeltas(sgvo, rules, SecurityGroupRuleTO.ACTION_CODE_DELETE_RULES);
         }
 
         APIDeleteSecurityGroupRuleEvent evt = new APIDeleteSecurityGroupRuleEvent(msg.getId());
@@ -1173,6 +1232,7 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
             vmUuids.add(nic.getVmInstanceUuid());
         }
         dbf.persistCollection(refs);
+        membershipIndex.membersChanged(asList(msg.getSecurityGroupUuid()));
 
         boolean triggerApplyRules = Q.New(VmInstanceVO.class)
                 .in(VmInstanceVO_.uuid, vmUuids)
@@ -1239,6 +1299,75 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
         }
     }
 
+    /* rules added to or deleted from a group only change the chains of the nics in the group, so
+     * the changed rules are sent to the hosts of its running members instead of recalculating
+     * all rules of every member. A host failing the delta is fully refreshed by FailureHostWorker */
+    private void applyRuleDeltas(SecurityGroupVO sgvo, List<SecurityGroupRuleVO> rules, String actionCode) {
+        if (rules.isEmpty()) {
+            return;
+        }
+
+        RuleCalculator cal = new RuleCalculator();
+        cal.sgStates = asList(SecurityGroupState.Enabled);
+        List<RuleTO> rtos = new ArrayList<>();
+        List<RuleTO> baseRtos = new ArrayList<>();
+        cal.calculateRuleDeltas(rules, rtos, baseRtos);
+        if (rtos.isEmpty() && baseRtos.isEmpty()) {
+            return;
+        }
+
+        String egressDefaultPolicy = SecurityGroupGlobalConfig.EGRESS_RULE_DEFAULT_POLICY.value(String.class);
+        String ingressDefaultPolicy = SecurityGroupGlobalConfig.INGRESS_RULE_DEFAULT_POLICY.value(String.class);
+        Map<String, HostRuleTO> hostRuleMap = new HashMap<>();
+        for (SecurityGroupMembershipIndex.Member m : membershipIndex.getMembers(sgvo.getUuid())) {
+            if (m.getVmState() != VmInstanceState.Running || m.getHostUuid() == null) {
+                continue;
+            }
+
+            SecurityGroupRuleTO sgto = new SecurityGroupRuleTO();
+            sgto.setActionCode(actionCode);
+            sgto.setEgressDefaultPolicy(egressDefaultPolicy);
+            sgto.setIngressDefaultPolicy(ingressDefaultPolicy);
+            sgto.setRules(rtos);
+            sgto.setSecurityGroupBaseRules(baseRtos);
+            sgto.setVmNicUuid(m.getVmNicUuid());
+            sgto.setVmNicInternalName(m.getVmNicInternalName());
+            sgto.setVmNicMac(m.getVmNicMac());
+            sgto.setIpVersion(sgvo.getIpVersion());
+
+            HostRuleTO hto = hostRuleMap.get(m.getHostUuid());
+            if (hto == null) {
+                hto = new HostRuleTO();
+                hto.setHostUuid(m.getHostUuid());
+                hto.setHypervisorType(m.getHypervisorType());
+                hostRuleMap.put(hto.getHostUuid(), hto);
+            }
+
+            if (sgvo.getIpVersion() == IPv6Constants.IPv4) {
+                hto.getRules().add(sgto);
+            } else {
+                hto.getIpv6Rules().add(sgto);
+            }
+        }
+
+        for (final HostRuleTO h : hostRuleMap.values()) {
+            getHypervisorBackend(h.getHypervisorType()).applyRuleDeltas(h, new Completion(null) {
+                @Override
+                public void success() {
+                    logger.debug(String.format("successfully applied deltas of security group[uuid:%s] rules on host[uuid:%s]",
+                            sgvo.getUuid(), h.getHostUuid()));
+                }
+
+                @Override
+                public void fail(ErrorCode errorCode) {
+                    logger.debug(String.format("failed to apply deltas of security group[uuid:%s] rules on host[uuid:%s], because %s," +
+                            " will refresh all rules on the host later", sgvo.getUuid(), h.getHostUuid(), errorCode));
+                    createFailureHostTask(h.getHostUuid());
+                }
+            });
+        }
+    }
+
     private void checkDefaultRulesOnHost(String hostUuid) {
         String hypervisorType = Q.New(HostVO.class).select(HostVO_.hypervisorType).eq(HostVO_.uuid, hostUuid).findValue();
         SecurityGroupHypervisorBackend bkend = hypervisorBackends.get(hypervisorType);
@@ -1321,11 +1450,7 @@ public class SecurityGroupManagerImpl extends AbstractService implements Securit
         dbf.persistCollection(vos);
 
         if (SecurityGroupState.Enabled == sgvo.getState()) {
-            RuleCalculator cal = new RuleCalculator();
-            cal.securityGroupUuids = asList(msg.getSecurityGroupUuid());
-            cal.vmStates = asList(VmInstanceState.Running);
-            List<HostRuleTO> htos = cal.calculate();
-            applyRules(htos);
+            applyRuleDeltas(sgvo, vos, SecurityGroupRuleTO.ACTION_CODE_ADD_RULES);
         }
       
         sgvo =  dbf.reload(sgvo);
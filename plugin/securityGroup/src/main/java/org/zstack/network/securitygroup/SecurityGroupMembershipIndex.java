@@ -0,0 +1,207 @@
+package org.zstack.network.securitygroup;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.core.cloudbus.EventCallback;
+import org.zstack.core.cloudbus.EventFacade;
+import org.zstack.core.db.SQL;
+import org.zstack.header.Component;
+import org.zstack.header.vm.VmCanonicalEvents;
+import org.zstack.header.vm.VmInstanceInventory;
+import org.zstack.header.vm.VmInstanceState;
+import org.zstack.header.vm.VmStateChangedExtensionPoint;
+import org.zstack.utils.Utils;
+import org.zstack.utils.logging.CLogger;
+
+import javax.persistence.Tuple;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Members of security groups, by group: the nics, the vms and the hosts they run on, so a rule
+ * change can be sent as a delta to the hosts of the group without querying the memberships.
+ *
+ * A group is loaded on its first lookup. It's dropped when a vm of it changes state, which covers
+ * starting, stopping, migrating and destroying, or when the members are changed, which
+ * SecurityGroupManagerImpl reports by membersChanged() on all management nodes. The node of the
+ * vm drops the groups before the state change returns, other nodes on the state changed event. A group is also
+ * loaded again after EXPIRE_INTERVAL, for changes no event is fired for, e.g. a nic detached from
+ * its vm. A delta sent to a stale member fails on the host and the host is fully refreshed.
+ */
+public class SecurityGroupMembershipIndex implements Component, VmStateChangedExtensionPoint {
+    private static final CLogger logger = Utils.getLogger(SecurityGroupMembershipIndex.class);
+
+    private static final long EXPIRE_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+
+    @Autowired
+    private EventFacade evtf;
+
+    private final Map<String, Members> members = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> securityGroupsOfVm = new ConcurrentHashMap<>();
+    // bumped by every drop of a group, a load started before a drop is not kept
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    public static class Member {
+        private final String vmNicUuid;
+        private final String vmNicInternalName;
+        private final String vmNicMac;
+        private final String vmInstanceUuid;
+        private final VmInstanceState vmState;
+        private final String hostUuid;
+        private final String hypervisorType;
+
+        private Member(Tuple t) {
+            vmNicUuid = t.get(1, String.class);
+            vmNicInternalName = t.get(2, String.class);
+            vmNicMac = t.get(3, String.class);
+            vmInstanceUuid = t.get(4, String.class);
+            vmState = t.get(5, VmInstanceState.class);
+            hostUuid = t.get(6, String.class);
+            hypervisorType = t.get(7, String.class);
+        }
+
+        public String getVmNicUuid() {
+            return vmNicUuid;
+        }
+
+        public String getVmNicInternalName() {
+            return vmNicInternalName;
+        }
+
+        public String getVmNicMac() {
+            return vmNicMac;
+        }
+
+        public String getVmInstanceUuid() {
+            return vmInstanceUuid;
+        }
+
+        public VmInstanceState getVmState() {
+            return vmState;
+        }
+
+        public String getHostUuid() {
+            return hostUuid;
+        }
+
+        public String getHypervisorType() {
+            return hypervisorType;
+        }
+    }
+
+    private static class Members {
+        private final long loadedTime = System.currentTimeMillis();
+        private final List<Member> list;
+
+        private Members(List<Member> list) {
+            this.list = Collections.unmodifiableList(list);
+        }
+    }
+
+    @Override
+    public boolean start() {
+        evtf.on(VmCanonicalEvents.VM_FULL_STATE_CHANGED_PATH, new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                VmCanonicalEvents.VmStateChangedData d = (VmCanonicalEvents.VmStateChangedData) data;
+                vmChanged(d.getVmUuid(), VmInstanceState.valueOf(d.getNewState()));
+            }
+        });
+
+        evtf.on(SecurityGroupCanonicalEvents.SECURITY_GROUP_MEMBERS_CHANGED_PATH, new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                drop(((SecurityGroupCanonicalEvents.SecurityGroupMembersChangedData) data).getSecurityGroupUuids());
+            }
+        });
+
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        return true;
+    }
+
+    @Override
+    public void vmStateChanged(VmInstanceInventory vm, VmInstanceState oldState, VmInstanceState newState) {
+        vmChanged(vm.getUuid(), newState);
+    }
+
+    private void vmChanged(String vmUuid, VmInstanceState newState) {
+        Set<String> sgUuids = newState == VmInstanceState.Destroyed ?
+                securityGroupsOfVm.remove(vmUuid) : securityGroupsOfVm.get(vmUuid);
+        if (sgUuids != null) {
+            drop(sgUuids);
+        }
+    }
+
+    private synchronized void drop(Collection<String> sgUuids) {
+        for (String sgUuid : sgUuids) {
+            generations.merge(sgUuid, 1L, Long::sum);
+            members.remove(sgUuid);
+        }
+    }
+
+    /**
+     * called after nics are added to or removed from the groups, or the groups are deleted
+     */
+    public void membersChanged(Collection<String> sgUuids) {
+        if (sgUuids.isEmpty()) {
+            return;
+        }
+
+        // the event reaches this node asynchronously, drop the groups before returning
+        drop(sgUuids);
+
+        SecurityGroupCanonicalEvents.SecurityGroupMembersChangedData data = new SecurityGroupCanonicalEvents.SecurityGroupMembersChangedData();
+        data.setSecurityGroupUuids(new ArrayList<>(sgUuids));
+        evtf.fire(SecurityGroupCanonicalEvents.SECURITY_GROUP_MEMBERS_CHANGED_PATH, data);
+    }
+
+    /**
+     * nics in the group having an ip of the ip version of the group, like RuleCalculator finds them
+     */
+    public List<Member> getMembers(String sgUuid) {
+        Members m = members.get(sgUuid);
+        if (m != null && System.currentTimeMillis() - m.loadedTime < EXPIRE_INTERVAL) {
+            return m.list;
+        }
+
+        Long generation = generations.get(sgUuid);
+        List<Member> list = new ArrayList<>();
+        List<Tuple> ts = SQL.New("select distinct ref.securityGroupUuid, nic.uuid, nic.internalName, nic.mac," +
+                " vm.uuid, vm.state, vm.hostUuid, vm.hypervisorType" +
+                " from VmNicSecurityGroupRefVO ref, VmNicVO nic, VmInstanceVO vm, SecurityGroupVO sg, UsedIpVO ip" +
+                " where ref.securityGroupUuid = :sgUuid and ref.vmNicUuid = nic.uuid and nic.vmInstanceUuid = vm.uuid" +
+                " and ref.securityGroupUuid = sg.uuid and ip.vmNicUuid = nic.uuid and ip.ipVersion = sg.ipVersion", Tuple.class)
+                .param("sgUuid", sgUuid)
+                .list();
+        ts.forEach(t -> list.add(new Member(t)));
+
+        synchronized (this) {
+            if (Objects.equals(generation, generations.get(sgUuid))) {
+                members.put(sgUuid, new Members(list));
+                list.forEach(mb -> securityGroupsOfVm.computeIfAbsent(mb.vmInstanceUuid, k -> ConcurrentHashMap.newKeySet()).add(sgUuid));
+            }
+        }
+
+        logger.trace(String.format("loaded %s members of security group[uuid:%s]", list.size(), sgUuid));
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * hosts running vms with nics in any of the groups
+     */
+    public Map<String, String> getHypervisorTypesOfHosts(Collection<String> sgUuids, Collection<VmInstanceState> vmStates) {
+        Map<String, String> ret = new HashMap<>();
+        for (String sgUuid : sgUuids) {
+            for (Member m : getMembers(sgUuid)) {
+                if (m.hostUuid != null && (vmStates == null || vmStates.contains(m.vmState))) {
+                    ret.put(m.hostUuid, m.hypervisorType);
+                }
+            }
+        }
+        return ret;
+    }
+}
@@ -7,6 +7,9 @@ import java.util.List;
 public class SecurityGroupRuleTO {
     public static final String ACTION_CODE_APPLY_RULE = "applyRule";
     public static final String ACTION_CODE_DELETE_CHAIN = "deleteChain";
+    // rules and securityGroupBaseRules are added to or deleted from the existing chain of the nic
+    public static final String ACTION_CODE_ADD_RULES = "addRules";
+    public static final String ACTION_CODE_DELETE_RULES = "deleteRules";
 
     private String vmNicInternalName;
     private List<RuleTO> rules;
@@ -463,6 +463,7 @@ public class ManagementNodeManagerImpl extends AbstractService implements Manage
                             ManagementNodeVO vo = new ManagementNodeVO();
                             vo.setHostName(ip);
                             vo.setUuid(uuid);
+                            vo.setCloudBusWireFormats(CloudBusWireFormat.localFormats());
                             persist(vo);
                             reload(vo);
                             node = vo;
@@ -17,7 +17,10 @@ import org.zstack.utils.TypeUtils;
 import org.zstack.utils.Utils;
 import org.zstack.utils.logging.CLogger;
 
+import javax.persistence.Tuple;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.zstack.core.Platform.operr;
 import static org.zstack.utils.CollectionDSL.e;
@@ -48,6 +51,27 @@ public class ResourceConfig {
     private List<ResourceConfigDeleteExtensionPoint> deleteExtensions = new ArrayList<>();
     private List<ResourceConfigValidatorExtensionPoint> validatorExtensions = new ArrayList<>();
 
+    private static class ResolvedValue {
+        // null if neither the resource nor its parents have the config, the global value applies
+        final String value;
+        final long expiredAt;
+
+        ResolvedValue(String value, long expiredAt) {
+            this.value = value;
+            this.expiredAt = expiredAt;
+        }
+    }
+
+    // resolved values by resource uuid, a config change on any resource may change the value its
+    // descendants inherit, so updates and deletions clear the whole cache of the config
+    private final Map<String, ResolvedValue> resolvedValues = new LinkedHashMap<String, ResolvedValue>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ResolvedValue> eldest) {
+            return size() > ResourceConfigGlobalProperty.RESOLVED_VALUE_CACHE_SIZE;
+        }
+    };
+    private final AtomicLong cacheGeneration = new AtomicLong();
+
     public static ResourceConfig valueOf(GlobalConfig globalConfig, BindResourceConfig bindInfo) {
         ResourceConfig result = new ResourceConfig();
         result.globalConfig = globalConfig;
@@ -94,6 +118,12 @@ public class ResourceConfig {
         return TypeUtils.stringToValue(value, clz);
     }
 
+    public <T> Map<String, T> getResourceConfigValues(Collection<String> resourceUuids, Class<T> clz) {
+        Map<String, T> ret = new HashMap<>();
+        getResourceConfigValues(resourceUuids).forEach((uuid, value) -> ret.put(uuid, TypeUtils.stringToValue(value, clz)));
+        return ret;
+    }
+
     void init() {
         installEventTrigger();
         initResourceConfigNodes();
@@ -163,7 +193,10 @@ public class ResourceConfig {
                     it.validateGlobalConfig(globalConfig.getCategory(), globalConfig.getName(), oldValue, newValue));
             validatorExtensions.forEach(it -> it.validateResourceConfig(resourceUuid, oldValue, newValue));
             updateValueInDb(resourceUuid, resourceType, newValue);
+            evictResolvedValues();
             localUpdateExtensions.forEach(it -> it.updateResourceConfig(this, resourceUuid, resourceType, oldValue, newValue));
+        } else {
+            evictResolvedValues();
         }
 
         updateExtensions.forEach(it -> it.updateResourceConfig(this, resourceUuid, resourceType, oldValue, newValue));
@@ -171,6 +204,7 @@ public class ResourceConfig {
         if (localUpdate) {
             UpdateEvent evt = new UpdateEvent();
             evt.setResourceUuid(resourceUuid);
+            evt.setResourceType(resourceType);
             evt.setOldValue(oldValue);
             evtf.fire(makeUpdateEventPath(), evt);
         }
@@ -185,7 +219,10 @@ public class ResourceConfig {
 
         if (localDelete) {
             deleteInDb(resourceUuid);
+            evictResolvedValues();
             localDeleteExtensions.forEach(it -> it.deleteResourceConfig(this, resourceUuid, resourceType, originValue));
+        } else {
+            evictResolvedValues();
         }
 
         deleteExtensions.forEach(it -> it.deleteResourceConfig(this, resourceUuid, resourceType, originValue));
@@ -203,23 +240,103 @@ public class ResourceConfig {
     }
 
 
-    @Transactional(readOnly = true)
     protected String getResourceConfigValue(String resourceUuid) {
-        String resourceType = Q.New(ResourceVO.class).select(ResourceVO_.resourceType).eq(ResourceVO_.uuid, resourceUuid).findValue();
-        if (resourceType == null) {
-            logger.warn(String.format("no resource[uuid:%s] found, cannot get it's resource config," +
-                    " use global config instead", resourceUuid));
-            return globalConfig.value();
+        return getResourceConfigValues(Collections.singletonList(resourceUuid)).get(resourceUuid);
+    }
+
+    Map<String, String> getResourceConfigValues(Collection<String> resourceUuids) {
+        Map<String, String> ret = new HashMap<>();
+        List<String> missed = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (resolvedValues) {
+            for (String uuid : resourceUuids) {
+                ResolvedValue cached = resolvedValues.get(uuid);
+                if (cached != null && cached.expiredAt > now) {
+                    ret.put(uuid, cached.value == null ? globalConfig.value() : cached.value);
+                } else {
+                    missed.add(uuid);
+                }
+            }
         }
 
-        ResourceConfigGetter getter = configGetter.get(resourceType);
-        if (getter == null) {
-            logger.warn(String.format("resource[uuid:%s, type:%s] is not bound to global config[category:%s, name:%s]," +
-                    " use global config instead", resourceUuid, resourceType, globalConfig.getCategory(), globalConfig.getName()));
-            return globalConfig.value();
+        if (missed.isEmpty()) {
+            return ret;
         }
 
-        return getter.getResourceConfigValue(resourceUuid);
+        long generation = cacheGeneration.get();
+        Set<String> orphans = new HashSet<>();
+        Map<String, String> resolved = resolveValues(missed, orphans);
+        long expiredAt = now + TimeUnit.SECONDS.toMillis(ResourceConfigGlobalProperty.RESOLVED_VALUE_CACHE_TTL);
+        synchronized (resolvedValues) {
+            // an update or deletion happened while resolving, the values may be stale
+            boolean cacheable = generation == cacheGeneration.get() && ResourceConfigGlobalProperty.RESOLVED_VALUE_CACHE_SIZE > 0;
+            for (String uuid : missed) {
+                String value = resolved.get(uuid);
+                ret.put(uuid, value == null ? globalConfig.value() : value);
+                // a resource without a parent yet, e.g. a volume not instantiated, gets
+                // one without telling us, don't cache it
+                if (cacheable && resolved.containsKey(uuid) && !orphans.contains(uuid)) {
+                    resolvedValues.put(uuid, new ResolvedValue(value, expiredAt));
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    void evictResolvedValue(String resourceUuid) {
+        synchronized (resolvedValues) {
+            cacheGeneration.incrementAndGet();
+            resolvedValues.remove(resourceUuid);
+        }
+    }
+
+    /**
+     * @return true if resources of the type are parents of others in this config
+     */
+    boolean isParentType(String resourceType) {
+        return resourceClasses.stream().skip(1).anyMatch(it -> it.getSimpleName().equals(resourceType));
+    }
+
+    void evictResolvedValues() {
+        synchronized (resolvedValues) {
+            cacheGeneration.incrementAndGet();
+            resolvedValues.clear();
+        }
+    }
+
+    /**
+     * @return resolved values of resources found and bound to this config, the value is null
+     * if the global config applies. Resources missing any of their parents are added to orphans
+     */
+    @Transactional(readOnly = true)
+    protected Map<String, String> resolveValues(Collection<String> resourceUuids, Set<String> orphans) {
+        Map<String, List<String>> uuidsByType = new HashMap<>();
+        List<Tuple> ts = Q.New(ResourceVO.class).select(ResourceVO_.uuid, ResourceVO_.resourceType)
+                .in(ResourceVO_.uuid, resourceUuids).listTuple();
+        ts.forEach(t -> uuidsByType.computeIfAbsent(t.get(1, String.class), k -> new ArrayList<>()).add(t.get(0, String.class)));
+
+        if (ts.size() < resourceUuids.size()) {
+            Set<String> found = new HashSet<>();
+            ts.forEach(t -> found.add(t.get(0, String.class)));
+            resourceUuids.stream().filter(it -> !found.contains(it)).forEach(it ->
+                    logger.warn(String.format("no resource[uuid:%s] found, cannot get it's resource config," +
+                            " use global config instead", it)));
+        }
+
+        Map<String, String> ret = new HashMap<>();
+        uuidsByType.forEach((resourceType, uuids) -> {
+            ResourceConfigGetter getter = configGetter.get(resourceType);
+            if (getter == null) {
+                logger.warn(String.format("resource[uuid:%s, type:%s] is not bound to global config[category:%s, name:%s]," +
+                        " use global config instead", uuids, resourceType, globalConfig.getCategory(), globalConfig.getName()));
+                return;
+            }
+
+            ret.putAll(getter.getResourceConfigValues(uuids, orphans));
+        });
+
+        return ret;
     }
 
     List<ResourceConfigInventory> getEffectiveResourceConfigs(String resourceUuid) {
@@ -242,27 +359,39 @@ public class ResourceConfig {
 
     private class ResourceConfigGetter {
         String resourceType;
+        // select (resource uuid, parent uuid) pairs for the :uuids parameter, in the order of precedence
         List<String> parentTypeSql = new ArrayList<>();
 
-        private String getResourceConfigValue(String resourceUuid) {
-            String v = loadConfigValue(resourceUuid);
-            if (v != null) {
-                return v;
-            }
+        private Map<String, String> findParents(String sql, Collection<String> resourceUuids) {
+            Map<String, String> parents = new HashMap<>();
+            List<Tuple> ts = SQL.New(sql, Tuple.class).param("uuids", resourceUuids).list();
+            ts.forEach(t -> parents.put(t.get(0, String.class), t.get(1, String.class)));
+            return parents;
+        }
 
+        private Map<String, String> getResourceConfigValues(List<String> resourceUuids, Set<String> orphans) {
+            Set<String> uuids = new HashSet<>(resourceUuids);
+            List<Map<String, String>> parents = new ArrayList<>();
             for (String sql : parentTypeSql) {
-                String resUuid = SQL.New(String.format(sql, resourceUuid), String.class).find();
-                if (resUuid == null) {
-                    continue;
-                }
+                Map<String, String> p = findParents(sql, resourceUuids);
+                uuids.addAll(p.values());
+                parents.add(p);
+                resourceUuids.stream().filter(it -> p.get(it) == null).forEach(orphans::add);
+            }
 
-                v = loadConfigValue(resUuid);
-                if (v != null) {
-                    return v;
+            Map<String, String> values = loadConfigValues(uuids);
+            Map<String, String> ret = new HashMap<>();
+            for (String uuid : resourceUuids) {
+                String v = values.get(uuid);
+                for (Iterator<Map<String, String>> it = parents.iterator(); v == null && it.hasNext(); ) {
+                    String parentUuid = it.next().get(uuid);
+                    v = parentUuid == null ? null : values.get(parentUuid);
                 }
+
+                ret.put(uuid, v);
             }
 
-            return globalConfig.value();
+            return ret;
         }
 
         private List<ResourceConfigInventory> getConnectedResourceConfigs(String resourceUuid) {
@@ -270,7 +399,7 @@ public class ResourceConfig {
             Optional.ofNullable(loadConfig(resourceUuid)).ifPresent(it ->
                     results.add(ResourceConfigInventory.valueOf(it)));
             for (String sql : parentTypeSql) {
-                String resUuid = SQL.New(String.format(sql, resourceUuid), String.class).find();
+                String resUuid = findParents(sql, Collections.singletonList(resourceUuid)).get(resourceUuid);
                 if (resUuid == null) {
                     continue;
                 }
@@ -285,8 +414,10 @@ public class ResourceConfig {
             ResourceConfigGetter getter = new ResourceConfigGetter();
             Class resourceClass = connectedClasses.get(0);
             for (Class parentClass : connectedClasses.subList(1, connectedClasses.size())) {
-                Optional.ofNullable(DBGraph.findVerticesWithSmallestWeight(resourceClass, parentClass)).ifPresent(vertex ->
-                        parentTypeSql.add(vertex.toSQL("uuid", SimpleQuery.Op.EQ, "'%s'")));
+                Optional.ofNullable(DBGraph.findVerticesWithSmallestWeight(resourceClass, parentClass)).ifPresent(vertex -> {
+                    String sql = vertex.toSQL("uuid", SimpleQuery.Op.IN, "(:uuids)");
+                    parentTypeSql.add(sql.replaceFirst("^select ", String.format("select %s_.uuid, ", vertex.entityClass.getSimpleName())));
+                });
             }
 
             getter.resourceType = resourceClass.getSimpleName();
@@ -342,7 +473,7 @@ public class ResourceConfig {
     }
 
     private String makeDeleteEventPath() {
-        return s(ResourceConfigCanonicalEvents.UPDATE_EVENT_PATH).formatByMap(map(
+        return s(ResourceConfigCanonicalEvents.DELETE_EVENT_PATH).formatByMap(map(
                 e("nodeUuid", Platform.getManagementServerId()),
                 e("category", globalConfig.getCategory()),
                 e("name", globalConfig.getName())
@@ -357,6 +488,17 @@ public class ResourceConfig {
                 .find();
     }
 
+    private Map<String, String> loadConfigValues(Collection<String> resourceUuids) {
+        Map<String, String> values = new HashMap<>();
+        List<Tuple> ts = Q.New(ResourceConfigVO.class).select(ResourceConfigVO_.resourceUuid, ResourceConfigVO_.value)
+                .eq(ResourceConfigVO_.name, globalConfig.getName())
+                .eq(ResourceConfigVO_.category, globalConfig.getCategory())
+                .in(ResourceConfigVO_.resourceUuid, resourceUuids)
+                .listTuple();
+        ts.forEach(t -> values.put(t.get(0, String.class), t.get(1, String.class)));
+        return values;
+    }
+
     private String loadConfigValue(String resourceUuid) {
         return Q.New(ResourceConfigVO.class).select(ResourceConfigVO_.value)
                 .eq(ResourceConfigVO_.name, globalConfig.getName())
@@ -8,6 +8,29 @@ import org.zstack.header.message.NeedJsonSchema;
 public class ResourceConfigCanonicalEvents {
     public static final String UPDATE_EVENT_PATH = "/resourceConfig/update/{category}/{name}/{nodeUuid}";
     public static final String DELETE_EVENT_PATH = "/resourceConfig/delete/{category}/{name}/{nodeUuid}";
+    public static final String RESOURCE_REPARENTED_EVENT_PATH = "/resourceConfig/resource/reparented/{nodeUuid}";
+
+    @NeedJsonSchema
+    public static class ResourceReparentedEvent {
+        private String resourceUuid;
+        private String resourceType;
+
+        public String getResourceUuid() {
+            return resourceUuid;
+        }
+
+        public void setResourceUuid(String resourceUuid) {
+            this.resourceUuid = resourceUuid;
+        }
+
+        public String getResourceType() {
+            return resourceType;
+        }
+
+        public void setResourceType(String resourceType) {
+            this.resourceType = resourceType;
+        }
+    }
 
     @NeedJsonSchema
     public static class UpdateEvent {
@@ -2,10 +2,21 @@ package org.zstack.resourceconfig;
 
 import org.zstack.core.config.GlobalConfig;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface ResourceConfigFacade {
     String SERVICE_ID = ResourceConfigConstant.SERVICE_ID;
 
     ResourceConfig getResourceConfig(String identity);
 
     <T> T getResourceConfigValue(GlobalConfig gc, String resourceUuid, Class<T> clz);
+
+    <T> Map<String, T> getResourceConfigValues(GlobalConfig gc, Collection<String> resourceUuids, Class<T> clz);
+
+    /**
+     * call when a resource is moved to another parent, e.g. a host to another cluster,
+     * so the values it inherited are resolved again on all management nodes
+     */
+    void resourceReparented(String resourceUuid);
 }
@@ -1,7 +1,10 @@
 package org.zstack.resourceconfig;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.zstack.core.Platform;
 import org.zstack.core.cloudbus.CloudBus;
+import org.zstack.core.cloudbus.EventCallback;
+import org.zstack.core.cloudbus.EventFacade;
 import org.zstack.core.cloudbus.MessageSafe;
 import org.zstack.core.componentloader.PluginRegistry;
 import org.zstack.core.config.GlobalConfig;
@@ -11,6 +14,9 @@ import org.zstack.header.AbstractService;
 import org.zstack.header.exception.CloudRuntimeException;
 import org.zstack.header.message.APIMessage;
 import org.zstack.header.message.Message;
+import org.zstack.header.vm.VmCanonicalEvents;
+import org.zstack.header.vo.ResourceVO;
+import org.zstack.header.vo.ResourceVO_;
 import org.zstack.utils.BeanUtils;
 import org.zstack.utils.Utils;
 import org.zstack.utils.logging.CLogger;
@@ -19,6 +25,10 @@ import java.lang.reflect.Field;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static org.zstack.utils.CollectionDSL.e;
+import static org.zstack.utils.CollectionDSL.map;
+import static org.zstack.utils.StringDSL.s;
+
 public class ResourceConfigFacadeImpl extends AbstractService implements ResourceConfigFacade {
     private static final CLogger logger = Utils.getLogger(ResourceConfigFacadeImpl.class);
 
@@ -28,6 +38,8 @@ public class ResourceConfigFacadeImpl extends AbstractService implements Resourc
     private DatabaseFacade dbf;
     @Autowired
     private GlobalConfigFacade gcf;
+    @Autowired
+    private EventFacade evtf;
 
     protected Map<String, ResourceConfig> resourceConfigs = new HashMap<>();
 
@@ -113,9 +125,34 @@ public class ResourceConfigFacadeImpl extends AbstractService implements Resourc
         });
 
         initResourceConfig();
+        installEventTriggers();
         return true;
     }
 
+    private void installEventTriggers() {
+        // a VM inherits configs through the cluster it runs in, which may change on start and migration
+        evtf.on(VmCanonicalEvents.VM_FULL_STATE_CHANGED_PATH, new EventCallback() {
+            @Override
+            public void run(Map tokens, Object data) {
+                VmCanonicalEvents.VmStateChangedData d = (VmCanonicalEvents.VmStateChangedData) data;
+                resourceConfigs.values().forEach(rc -> rc.evictResolvedValue(d.getVmUuid()));
+            }
+        });
+
+        evtf.on(ResourceConfigCanonicalEvents.RESOURCE_REPARENTED_EVENT_PATH, new EventCallback() {
+            @Override
+            public void run(Map tokens, Object data) {
+                String nodeUuid = (String) tokens.get("nodeUuid");
+                if (Platform.getManagementServerId().equals(nodeUuid)) {
+                    return;
+                }
+
+                ResourceConfigCanonicalEvents.ResourceReparentedEvent evt = (ResourceConfigCanonicalEvents.ResourceReparentedEvent) data;
+                evictReparented(evt.getResourceUuid(), evt.getResourceType());
+            }
+        });
+    }
+
     @Override
     public boolean stop() {
         return true;
@@ -137,6 +174,44 @@ public class ResourceConfigFacadeImpl extends AbstractService implements Resourc
         return rc.getResourceConfigValue(resourceUuid, clz);
     }
 
+    @Override
+    public <T> Map<String, T> getResourceConfigValues(GlobalConfig gc, Collection<String> resourceUuids, Class<T> clz) {
+        ResourceConfig rc = resourceConfigs.get(gc.getIdentity());
+        if (rc == null) {
+            logger.debug(String.format("resources%s are not bound to global config[category:%s, name:%s], use global config instead", resourceUuids, gc.getCategory(), gc.getName()));
+            T value = gc.value(clz);
+            Map<String, T> ret = new HashMap<>();
+            resourceUuids.forEach(uuid -> ret.put(uuid, value));
+            return ret;
+        }
+
+        return rc.getResourceConfigValues(resourceUuids, clz);
+    }
+
+    private void evictReparented(String resourceUuid, String resourceType) {
+        resourceConfigs.values().forEach(rc -> {
+            // the resource may be the parent of others, e.g. a cluster, drop everything resolved
+            if (resourceType == null || rc.isParentType(resourceType)) {
+                rc.evictResolvedValues();
+            } else {
+                rc.evictResolvedValue(resourceUuid);
+            }
+        });
+    }
+
+    @Override
+    public void resourceReparented(String resourceUuid) {
+        String resourceType = Q.New(ResourceVO.class).select(ResourceVO_.resourceType).eq(ResourceVO_.uuid, resourceUuid).findValue();
+        evictReparented(resourceUuid, resourceType);
+
+        ResourceConfigCanonicalEvents.ResourceReparentedEvent evt = new ResourceConfigCanonicalEvents.ResourceReparentedEvent();
+        evt.setResourceUuid(resourceUuid);
+        evt.setResourceType(resourceType);
+        evtf.fire(s(ResourceConfigCanonicalEvents.RESOURCE_REPARENTED_EVENT_PATH).formatByMap(map(
+                e("nodeUuid", Platform.getManagementServerId())
+        )), evt);
+    }
+
     protected void buildResourceConfig(Field field) throws Exception {
         BindResourceConfig at = field.getAnnotation(BindResourceConfig.class);
         GlobalConfig gc = (GlobalConfig) field.get(null);
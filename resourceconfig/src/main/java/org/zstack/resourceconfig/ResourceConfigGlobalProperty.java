@@ -0,0 +1,12 @@
+package org.zstack.resourceconfig;
+
+import org.zstack.core.GlobalProperty;
+import org.zstack.core.GlobalPropertyDefinition;
+
+@GlobalPropertyDefinition
+public class ResourceConfigGlobalProperty {
+    @GlobalProperty(name="ResourceConfig.resolvedValueCacheSize", defaultValue = "10000")
+    public static int RESOLVED_VALUE_CACHE_SIZE;
+    @GlobalProperty(name="ResourceConfig.resolvedValueCacheTTL", defaultValue = "300")
+    public static int RESOLVED_VALUE_CACHE_TTL;
+}
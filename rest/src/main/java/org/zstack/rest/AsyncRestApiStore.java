@@ -3,13 +3,19 @@ package org.zstack.rest;
 import org.zstack.header.message.APIEvent;
 import org.zstack.header.message.APIMessage;
 
+import java.util.function.Consumer;
+
 /**
  * Created by xing5 on 2016/12/8.
  */
 public interface AsyncRestApiStore {
     void save(RequestData data);
 
-    RequestData complete(APIEvent evt);
+    /**
+     * @param completed called with the request of the API when its record is completed
+     *                  by this management node, may be called later in another thread
+     */
+    void complete(APIEvent evt, Consumer<RequestData> completed);
 
     AsyncRestQueryResult query(String uuid);
 }
@@ -9,9 +9,13 @@ import org.zstack.core.config.GlobalConfig;
 import org.zstack.core.config.GlobalConfigUpdateExtensionPoint;
 import org.zstack.core.db.DatabaseFacade;
 import org.zstack.core.thread.PeriodicTask;
+import org.zstack.core.thread.SyncTask;
+import org.zstack.core.thread.Task;
 import org.zstack.core.thread.ThreadFacade;
 import org.zstack.header.Component;
 import org.zstack.header.core.ExceptionSafe;
+import org.zstack.header.core.FutureCompletion;
+import org.zstack.header.errorcode.OperationFailureException;
 import org.zstack.header.exception.CloudRuntimeException;
 import org.zstack.header.message.APIEvent;
 import org.zstack.utils.Utils;
@@ -19,11 +23,17 @@ import org.zstack.utils.gson.JSONObjectUtil;
 import org.zstack.utils.logging.CLogger;
 
 import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
 import java.sql.Timestamp;
-import java.util.Collections;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.zstack.core.Platform.operr;
 
 /**
  * Created by xing5 on 2016/12/8.
@@ -38,51 +48,251 @@ public class MysqlAsyncRestStore implements AsyncRestApiStore, Component {
     @Autowired
     private ThreadFacade thdf;
 
+    private static final int MAX_RECORDS_PER_STATEMENT = 500;
+
     // cache 2000 API results
     private Map<String, APIEvent> results = Collections.synchronizedMap(new LRUMap(RestGlobalProperty.MAX_CACHED_API_RESULTS));
     private Future cleanupThread;
+    private Future flushThread;
+
+    private static class PendingRecord {
+        final String uuid;
+        final String requestData;
+        final FutureCompletion completion = new FutureCompletion(null);
+
+        PendingRecord(String uuid, String requestData) {
+            this.uuid = uuid;
+            this.requestData = requestData;
+        }
+    }
+
+    private static class PendingCompletion {
+        final APIEvent evt;
+        final Consumer<RequestData> completed;
+
+        PendingCompletion(APIEvent evt, Consumer<RequestData> completed) {
+            this.evt = evt;
+            this.completed = completed;
+        }
+    }
+
+    // records waiting to be inserted by the next group commit
+    private final List<PendingRecord> pendingRecords = new ArrayList<>();
+    // completed APIs managed by us, written to database by the flush thread
+    private final Map<String, PendingCompletion> pendingCompletions = new ConcurrentHashMap<>();
+
+    // unit test checks records in the database right after an API returns
+    private volatile boolean writeBehind = !CoreGlobalProperty.UNIT_TEST_ON && RestGlobalProperty.ASYNC_API_RECORD_FLUSH_INTERVAL > 0;
+
+    private boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    // for tests of the write-behind itself
+    void setWriteBehind(boolean on) {
+        if (on) {
+            writeBehind = true;
+            startFlushThread();
+        } else {
+            writeBehind = false;
+            stopFlushThread();
+        }
+    }
 
     @Override
     @ExceptionSafe
     public void save(RequestData d) {
-        AsyncRestVO vo = new AsyncRestVO();
-        vo.setUuid(d.apiMessage.getId());
-        vo.setRequestData(d.toJson());
-        vo.setState(AsyncRestState.processing);
-        dbf.persist(vo);
+        if (!isWriteBehind()) {
+            AsyncRestVO vo = new AsyncRestVO();
+            vo.setUuid(d.apiMessage.getId());
+            vo.setRequestData(d.toJson());
+            vo.setState(AsyncRestState.processing);
+            dbf.persist(vo);
+            return;
+        }
+
+        // the record must be in the database before the API is sent, the management node
+        // completing it or answering the polling may be another one. Concurrent requests
+        // are committed together by one multi-row insert
+        PendingRecord r = new PendingRecord(d.apiMessage.getId(), d.toJson());
+        synchronized (pendingRecords) {
+            pendingRecords.add(r);
+        }
+
+        thdf.syncSubmit(new SyncTask<Void>() {
+            @Override
+            public Void call() {
+                insertPendingRecords();
+                return null;
+            }
+
+            @Override
+            public String getName() {
+                return getSyncSignature();
+            }
+
+            @Override
+            public String getSyncSignature() {
+                return "insert-async-api-records";
+            }
+
+            @Override
+            public int getSyncLevel() {
+                return 1;
+            }
+        });
+
+        r.completion.await(TimeUnit.SECONDS.toMillis(30));
+        if (!r.completion.isSuccess()) {
+            throw new OperationFailureException(r.completion.getErrorCode());
+        }
+    }
+
+    private void insertPendingRecords() {
+        List<PendingRecord> records;
+        synchronized (pendingRecords) {
+            if (pendingRecords.isEmpty()) {
+                // already inserted by the previous task
+                return;
+            }
+
+            records = new ArrayList<>(pendingRecords);
+            pendingRecords.clear();
+        }
+
+        try {
+            insertRecords(records);
+            records.forEach(r -> r.completion.success());
+        } catch (Throwable t) {
+            logger.warn(String.format("failed to insert %s async API records", records.size()), t);
+            records.forEach(r -> r.completion.fail(operr("failed to save the async API record, %s", t.getMessage())));
+        }
+    }
+
+    @Transactional
+    private void insertRecords(List<PendingRecord> records) {
+        for (int i = 0; i < records.size(); i += MAX_RECORDS_PER_STATEMENT) {
+            List<PendingRecord> sub = records.subList(i, Math.min(records.size(), i + MAX_RECORDS_PER_STATEMENT));
+            String sql = "INSERT INTO AsyncRestVO (uuid, requestData, state, createDate, lastOpDate) VALUES " +
+                    sub.stream().map(r -> "(?, ?, ?, current_timestamp(), current_timestamp())").collect(Collectors.joining(", "));
+            Query q = dbf.getEntityManager().createNativeQuery(sql);
+            int pos = 1;
+            for (PendingRecord r : sub) {
+                q.setParameter(pos++, r.uuid);
+                q.setParameter(pos++, r.requestData);
+                q.setParameter(pos++, AsyncRestState.processing.toString());
+            }
+            q.executeUpdate();
+        }
     }
 
     @Override
-    public RequestData complete(APIEvent evt) {
-        RequestData d = null;
+    public void complete(APIEvent evt, Consumer<RequestData> completed) {
+        if (!CoreGlobalProperty.UNIT_TEST_ON) {
+            // don't use the cache for unit test
+            // we want to test the database
+            results.put(evt.getApiId(), evt);
+        }
+
+        if (!destinationMaker.isManagedByUs(evt.getApiId())) {
+            return;
+        }
+
+        if (isWriteBehind()) {
+            pendingCompletions.put(evt.getApiId(), new PendingCompletion(evt, completed));
+            return;
+        }
 
-        if (destinationMaker.isManagedByUs(evt.getApiId())) {
-            AsyncRestVO vo = dbf.findByUuid(evt.getApiId(), AsyncRestVO.class);
+        AsyncRestVO vo = dbf.findByUuid(evt.getApiId(), AsyncRestVO.class);
 
-            if (vo == null) {
+        if (vo == null) {
+            // for cases that directly send API message which we don't
+            // have records
+            if (logger.isTraceEnabled()) {
+                logger.warn(String.format("cannot find record for the API event %s", JSONObjectUtil.toJsonString(evt)));
+            }
+
+            return;
+        }
+
+        vo.setState(AsyncRestState.done);
+        vo.setResult(ApiEventResult.toJson(evt));
+        dbf.update(vo);
+
+        completed.accept(RequestData.fromJson(vo.getRequestData()));
+    }
+
+    // synchronized with the final flush in stop(), or both may complete the same records
+    private synchronized void flushPendingCompletions() {
+        if (pendingCompletions.isEmpty()) {
+            return;
+        }
+
+        List<PendingCompletion> completions = new ArrayList<>();
+        for (String uuid : new ArrayList<>(pendingCompletions.keySet())) {
+            Optional.ofNullable(pendingCompletions.get(uuid)).ifPresent(completions::add);
+        }
+
+        Map<String, String> requests = completeRecords(completions);
+
+        // keep them pending until written, so polling is answered from memory
+        completions.forEach(c -> pendingCompletions.remove(c.evt.getApiId(), c));
+
+        for (PendingCompletion c : completions) {
+            String requestData = requests.get(c.evt.getApiId());
+            if (requestData == null) {
                 // for cases that directly send API message which we don't
                 // have records
                 if (logger.isTraceEnabled()) {
-                    logger.warn(String.format("cannot find record for the API event %s", JSONObjectUtil.toJsonString(evt)));
+                    logger.warn(String.format("cannot find record for the API event %s", JSONObjectUtil.toJsonString(c.evt)));
                 }
 
-                return null;
+                continue;
             }
 
-            vo.setState(AsyncRestState.done);
-            vo.setResult(ApiEventResult.toJson(evt));
-            dbf.update(vo);
+            // web hooks are called with retries, don't hold the flush thread
+            thdf.submit(new Task<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        c.completed.accept(RequestData.fromJson(requestData));
+                    } catch (Throwable t) {
+                        logger.warn(String.format("unhandled error after completing the API[uuid:%s]", c.evt.getApiId()), t);
+                    }
+                    return null;
+                }
 
-            d = RequestData.fromJson(vo.getRequestData());
+                @Override
+                public String getName() {
+                    return String.format("complete-async-api-%s", c.evt.getApiId());
+                }
+            });
         }
+    }
 
-        if (!CoreGlobalProperty.UNIT_TEST_ON) {
-            // don't use the cache for unit test
-            // we want to test the database
-            results.put(evt.getApiId(), evt);
+    @Transactional
+    private Map<String, String> completeRecords(List<PendingCompletion> completions) {
+        Map<String, String> requests = new HashMap<>();
+        for (int i = 0; i < completions.size(); i += MAX_RECORDS_PER_STATEMENT) {
+            List<PendingCompletion> sub = completions.subList(i, Math.min(completions.size(), i + MAX_RECORDS_PER_STATEMENT));
+            TypedQuery<Tuple> q = dbf.getEntityManager().createQuery("select vo.uuid, vo.requestData from AsyncRestVO vo where vo.uuid in (:uuids)", Tuple.class);
+            q.setParameter("uuids", sub.stream().map(c -> c.evt.getApiId()).collect(Collectors.toList()));
+            q.getResultList().forEach(t -> requests.put(t.get(0, String.class), t.get(1, String.class)));
         }
 
-        return d;
+        Query q = dbf.getEntityManager().createQuery("UPDATE AsyncRestVO vo SET vo.state = :state, vo.result = :result WHERE vo.uuid = :uuid");
+        for (PendingCompletion c : completions) {
+            if (!requests.containsKey(c.evt.getApiId())) {
+                continue;
+            }
+
+            q.setParameter("state", AsyncRestState.done);
+            q.setParameter("result", ApiEventResult.toJson(c.evt));
+            q.setParameter("uuid", c.evt.getApiId());
+            q.executeUpdate();
+        }
+
+        return requests;
     }
 
     @Override
@@ -91,6 +301,11 @@ public class MysqlAsyncRestStore implements AsyncRestApiStore, Component {
         result.setUuid(uuid);
 
         APIEvent evt = results.get(uuid);
+        if (evt == null) {
+            PendingCompletion c = pendingCompletions.get(uuid);
+            evt = c == null ? null : c.evt;
+        }
+
         if (evt != null) {
             result.setState(AsyncRestState.done);
             result.setResult(evt);
@@ -122,6 +337,7 @@ public class MysqlAsyncRestStore implements AsyncRestApiStore, Component {
 
     @Override
     public boolean start() {
+        startFlushThread();
         startExpiredApiCleanupThread();
         RestGlobalConfig.SCAN_EXPIRED_API_INTERVAL.installUpdateExtension(new GlobalConfigUpdateExtensionPoint() {
             @Override
@@ -133,6 +349,38 @@ public class MysqlAsyncRestStore implements AsyncRestApiStore, Component {
         return true;
     }
 
+    private synchronized void startFlushThread() {
+        if (!isWriteBehind() || flushThread != null) {
+            return;
+        }
+
+        flushThread = thdf.submitPeriodicTask(new PeriodicTask() {
+            @Override
+            public TimeUnit getTimeUnit() {
+                return TimeUnit.MILLISECONDS;
+            }
+
+            @Override
+            public long getInterval() {
+                return RestGlobalProperty.ASYNC_API_RECORD_FLUSH_INTERVAL;
+            }
+
+            @Override
+            public String getName() {
+                return "flush-completed-api-records";
+            }
+
+            @Override
+            public void run() {
+                try {
+                    flushPendingCompletions();
+                } catch (Throwable t) {
+                    logger.warn("unhandled error", t);
+                }
+            }
+        });
+    }
+
     private void startExpiredApiCleanupThread() {
         if (cleanupThread != null) {
             cleanupThread.cancel(true);
@@ -180,8 +428,23 @@ public class MysqlAsyncRestStore implements AsyncRestApiStore, Component {
         });
     }
 
+    private void stopFlushThread() {
+        Future t;
+        synchronized (this) {
+            t = flushThread;
+            flushThread = null;
+        }
+
+        if (t != null) {
+            // a running flush is not interrupted, the final flush waits for it
+            t.cancel(false);
+            flushPendingCompletions();
+        }
+    }
+
     @Override
     public boolean stop() {
+        stopFlushThread();
         return true;
     }
 }
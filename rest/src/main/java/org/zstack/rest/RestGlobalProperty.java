@@ -10,4 +10,8 @@ import org.zstack.core.GlobalPropertyDefinition;
 public class RestGlobalProperty {
     @GlobalProperty(name="RestServer.maxCachedApiResults", defaultValue = "2000")
     public static int MAX_CACHED_API_RESULTS;
+    // in milliseconds, async API records are written to the database in batches at this interval,
+    // 0 writes every record immediately
+    @GlobalProperty(name="RestServer.asyncApiRecordFlushInterval", defaultValue = "200")
+    public static int ASYNC_API_RECORD_FLUSH_INTERVAL;
 }
@@ -202,15 +202,15 @@ public class RestServer implements Component, CloudBusEventListener {
     @Override
     public boolean handleEvent(Event e) {
         if (e instanceof APIEvent) {
-            RequestData d = asyncStore.complete((APIEvent) e);
-
-            if (d != null && d.webHook != null) {
-                try {
-                    callWebHook(d);
-                } catch (Throwable t) {
-                    throw new CloudRuntimeException(t);
+            asyncStore.complete((APIEvent) e, d -> {
+                if (d.webHook != null) {
+                    try {
+                        callWebHook(d);
+                    } catch (Throwable t) {
+                        throw new CloudRuntimeException(t);
+                    }
                 }
-            }
+            });
         }
 
         return false;
@@ -646,9 +646,10 @@ public class RestServer implements Component, CloudBusEventListener {
             requestLogger.trace(sb.toString());
         }
 
-        String body = CloudBusGson.toJsonForHttpResponse(response);
         rsp.setStatus(statusCode);
-        rsp.getWriter().write(body == null ? "" : body);
+        // serialize into the response directly, a reply carrying lots of inventories
+        // is streamed out instead of being built as a whole string first
+        CloudBusGson.toJsonForHttpResponse(response, rsp.getWriter());
     }
 
     private void handleNonUniqueApi(Collection<Api> apis, HttpEntity<String> entity, HttpServletRequest req, HttpServletResponse rsp) throws RestException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException, IOException {
@@ -995,6 +996,8 @@ public class RestServer implements Component, CloudBusEventListener {
                 } catch (NumberFormatException ex) {
                     throw new RestException(HttpStatus.BAD_REQUEST.value(), "Invalid query parameter. 'start' must be an integer");
                 }
+            } else if ("after".equals(varname)) {
+                msg.setAfter(varvalue);
             } else if ("count".equals(varname)) {
                 msg.setCount(Boolean.parseBoolean(varvalue));
             } else if ("groupBy".equals(varname)) {
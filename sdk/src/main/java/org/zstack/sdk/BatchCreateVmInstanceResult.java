@@ -0,0 +1,14 @@
+package org.zstack.sdk;
+
+
+
+public class BatchCreateVmInstanceResult {
+    public java.util.List results;
+    public void setResults(java.util.List results) {
+        this.results = results;
+    }
+    public java.util.List getResults() {
+        return this.results;
+    }
+
+}
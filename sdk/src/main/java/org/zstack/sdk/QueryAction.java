@@ -15,6 +15,9 @@ public abstract class QueryAction extends AbstractAction {
     @Param(required = false)
     public java.lang.Integer start;
 
+    @Param(required = false)
+    public java.lang.String after;
+
     @Param(required = false)
     public Boolean count;
 
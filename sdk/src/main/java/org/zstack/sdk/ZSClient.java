@@ -327,6 +327,9 @@ public class ZSClient {
             if (qaction.start != null) {
                 urlBuilder.addQueryParameter("start", String.format("%s", qaction.start));
             }
+            if (qaction.after != null) {
+                urlBuilder.addQueryParameter("after", qaction.after);
+            }
             if (qaction.count != null) {
                 urlBuilder.addQueryParameter("count", String.format("%s", qaction.count));
             }
@@ -103,6 +103,10 @@ offset
     : OFFSET INT
     ;
 
+after
+    : AFTER value
+    ;
+
 
 restrictByExpr
     : entity '.' ID operator value?
@@ -164,7 +168,7 @@ namedAs
     ;
 
 query
-    : QUERY queryTargetWithFunction (WHERE condition+)? restrictBy? returnWith? groupBy? orderBy? limit? offset? filterBy? namedAs?
+    : QUERY queryTargetWithFunction (WHERE condition+)? restrictBy? returnWith? groupBy? orderBy? limit? after? offset? filterBy? namedAs?
     ;
 
 count
@@ -188,6 +192,8 @@ FILTER_BY: 'filter by';
 
 OFFSET: 'offset';
 
+AFTER: 'after';
+
 LIMIT: 'limit';
 
 QUERY: 'query';
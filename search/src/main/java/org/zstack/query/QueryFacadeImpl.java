@@ -8,6 +8,7 @@ import org.zstack.core.cloudbus.CloudBus;
 import org.zstack.core.cloudbus.MessageSafe;
 import org.zstack.core.cloudbus.ReplyMessagePreSendingExtensionPoint;
 import org.zstack.core.componentloader.PluginRegistry;
+import org.zstack.core.db.EntityMetadata;
 import org.zstack.core.errorcode.ErrorFacade;
 import org.zstack.core.thread.SyncTask;
 import org.zstack.core.thread.ThreadFacade;
@@ -584,6 +585,11 @@ public class QueryFacadeImpl extends AbstractService implements QueryFacade, Glo
             sb.add(String.format("limit %s", msg.getLimit()));
         }
 
+        if (msg.getAfter() != null) {
+            // a ZQL string can't escape its quote, validateAfter() rejects values having both
+            sb.add(msg.getAfter().contains("'") ? String.format("after \"%s\"", msg.getAfter()) : String.format("after '%s'", msg.getAfter()));
+        }
+
         if (msg.getStart() != null) {
             sb.add(String.format("offset %s", msg.getStart()));
         }
@@ -638,9 +644,43 @@ public class QueryFacadeImpl extends AbstractService implements QueryFacade, Glo
             }
         }
 
+        if (qmsg.getAfter() != null) {
+            validateAfter(qmsg);
+        }
+
         return msg;
     }
 
+    private void validateAfter(APIQueryMessage msg) {
+        if (msg.getStart() != null) {
+            throw new ApiMessageInterceptionException(argerr("'after' and 'start' cannot be used together"));
+        }
+
+        if (msg.getAfter().contains("'") && msg.getAfter().contains("\"")) {
+            throw new ApiMessageInterceptionException(argerr("'after' cannot contain both ' and \", but got %s", msg.getAfter()));
+        }
+
+        AutoQuery at = msg.getClass().getAnnotation(AutoQuery.class);
+        if (at == null) {
+            return;
+        }
+
+        Inventory inventory = (Inventory) at.inventoryClass().getAnnotation(Inventory.class);
+        if (inventory == null) {
+            return;
+        }
+
+        String key = EntityMetadata.getPrimaryKeyField(inventory.mappingVOClass()).getName();
+        if (msg.getSortBy() != null && !msg.getSortBy().equals(key)) {
+            throw new ApiMessageInterceptionException(argerr("'after' requires the results to be sorted by %s, but got sortBy[%s]",
+                    key, msg.getSortBy()));
+        }
+
+        if (msg.isFieldQuery() && !msg.getFields().contains(key)) {
+            throw new ApiMessageInterceptionException(argerr("'fields' must contain %s when 'after' is used", key));
+        }
+    }
+
     @Override
     public List<Class> getReplyMessageClassForPreSendingExtensionPoint() {
         return zqlFilterClasses;
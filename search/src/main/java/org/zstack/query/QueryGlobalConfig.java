@@ -13,4 +13,10 @@ public class QueryGlobalConfig {
 
     @GlobalConfigValidation
     public static GlobalConfig ZQL_RETURN_WITH_CONCURRENCY = new GlobalConfig(CATEGORY, "zql.returnWith.concurrency");
+
+    @GlobalConfigValidation(numberGreaterThan = -1)
+    public static GlobalConfig ZQL_PARALLELISM = new GlobalConfig(CATEGORY, "zql.parallelism");
+
+    @GlobalConfigValidation(numberGreaterThan = -1)
+    public static GlobalConfig ZQL_COMPILED_QUERY_CACHE_SIZE = new GlobalConfig(CATEGORY, "zql.compiledQueryCache.size");
 }
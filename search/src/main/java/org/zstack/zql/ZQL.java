@@ -3,6 +3,7 @@ package org.zstack.zql;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.apache.commons.lang.StringUtils;
+import org.apache.logging.log4j.ThreadContext;
 import org.springframework.beans.factory.annotation.Autowire;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Configurable;
@@ -21,6 +22,7 @@ import org.zstack.header.identity.SessionInventory;
 import org.zstack.header.vo.ToInventory;
 import org.zstack.header.zql.*;
 import org.zstack.query.MysqlQueryBuilderImpl3;
+import org.zstack.query.QueryGlobalConfig;
 import org.zstack.utils.BeanUtils;
 import org.zstack.utils.Utils;
 import org.zstack.utils.logging.CLogger;
@@ -31,6 +33,7 @@ import org.zstack.zql.ast.parser.visitors.CountVisitor;
 import org.zstack.zql.ast.parser.visitors.SumVisitor;
 import org.zstack.zql.ast.visitors.QueryVisitor;
 import org.zstack.zql.ast.visitors.ReturnWithVisitor;
+import org.zstack.zql.ast.visitors.ZQLError;
 import org.zstack.zql.ast.visitors.result.QueryResult;
 import org.zstack.zql.ast.visitors.result.ReturnWithResult;
 
@@ -38,8 +41,13 @@ import javax.persistence.Query;
 import java.lang.reflect.Field;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import static org.zstack.core.Platform.inerr;
+
 @Configurable(preConstruction = true, autowire = Autowire.BY_TYPE)
 public class ZQL {
     private static final CLogger logger = Utils.getLogger(ZQL.class);
@@ -50,6 +58,24 @@ public class ZQL {
     @Autowired
     private PluginRegistry pluginRgty;
 
+    // parse trees are only read by the parser visitors, so they can be shared by queries of the same text
+    private static final Map<String, ZQLParser.ZqlsContext> compiledQueries = new LinkedHashMap<String, ZQLParser.ZqlsContext>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ZQLParser.ZqlsContext> eldest) {
+            return size() > QueryGlobalConfig.ZQL_COMPILED_QUERY_CACHE_SIZE.value(Integer.class);
+        }
+    };
+
+    // number of ZQL tasks running in extra threads, bounded by query.zql.parallelism
+    private static final AtomicInteger parallelTasks = new AtomicInteger();
+
+    // not the shared thread pool, a caller waiting for its tasks there could starve them
+    private static final ExecutorService parallelExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "zql-parallel-task");
+        t.setDaemon(true);
+        return t;
+    });
+
     static class ThrowingErrorListener extends BaseErrorListener {
         String text;
 
@@ -196,6 +222,75 @@ public class ZQL {
         }
     }
 
+    private static boolean acquireParallelSlot() {
+        int max = QueryGlobalConfig.ZQL_PARALLELISM.value(Integer.class);
+        while (true) {
+            int current = parallelTasks.get();
+            if (current >= max) {
+                return false;
+            }
+
+            if (parallelTasks.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * runs the task in another thread if query.zql.parallelism allows, otherwise in the current thread
+     */
+    private static void runParallel(Runnable task) {
+        if (!acquireParallelSlot()) {
+            task.run();
+            return;
+        }
+
+        Map context = ZQLContext.get();
+        Map<String, String> threadContext = ThreadContext.getImmutableContext();
+
+        try {
+            parallelExecutor.execute(() -> {
+                ZQLContext.set(context == null ? null : new HashMap(context));
+                ThreadContext.putAll(threadContext);
+                try {
+                    task.run();
+                } finally {
+                    ZQLContext.set(null);
+                    ThreadContext.clearAll();
+                    parallelTasks.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            parallelTasks.decrementAndGet();
+            task.run();
+        }
+    }
+
+    private ZQLParser.ZqlsContext parse() {
+        int cacheSize = QueryGlobalConfig.ZQL_COMPILED_QUERY_CACHE_SIZE.value(Integer.class);
+        if (cacheSize > 0) {
+            synchronized (compiledQueries) {
+                ZQLParser.ZqlsContext ctx = compiledQueries.get(text);
+                if (ctx != null) {
+                    return ctx;
+                }
+            }
+        }
+
+        ZQLLexer l = new ZQLLexer(CharStreams.fromString(text));
+        ZQLParser p = new ZQLParser(new CommonTokenStream(l));
+        p.addErrorListener(new ThrowingErrorListener(text));
+        ZQLParser.ZqlsContext ctx = p.zqls();
+
+        if (cacheSize > 0) {
+            synchronized (compiledQueries) {
+                compiledQueries.put(text, ctx);
+            }
+        }
+
+        return ctx;
+    }
+
     public ZQLQueryReturn getSingleResult() {
         List<ZQLQueryReturn> rs = getResultList();
         return rs.get(0);
@@ -204,12 +299,8 @@ public class ZQL {
     public List<ZQLQueryReturn> getResultList() {
         List<ZQLQueryReturn> rs = new ArrayList<>();
 
-        ZQLLexer l = new ZQLLexer(CharStreams.fromString(text));
-        ZQLParser p = new ZQLParser(new CommonTokenStream(l));
-        p.addErrorListener(new ThrowingErrorListener(text));
-
         Map currentContext = ZQLContext.get();
-        p.zqls().zql().forEach(ctx -> {
+        parse().zql().forEach(ctx -> {
             ZQLContext.set(currentContext);
 
             ZQLQueryReturn qr = new ZQLQueryReturn();
@@ -269,6 +360,7 @@ public class ZQL {
                 clean.run();
             } else if (ctx instanceof ZQLParser.QueryGrammarContext) {
                 ASTNode.Query query = ((ZQLParser.QueryGrammarContext) ctx).query().accept(new org.zstack.zql.ast.parser.visitors.QueryVisitor());
+                applyAfter(query);
                 ReturnWithQueryNodeWrapper wrapper = new ReturnWithQueryNodeWrapper(query);
 
                 wrapper.addPrimaryKeyFieldToTargetFieldNamesWhenReturnWithEnabledAndIsFieldQuery();
@@ -284,15 +376,16 @@ public class ZQL {
 
                 beforeExecuteQuery(astResult, ZQLContext.getAPISession());
 
+                // the count is read in the same transaction as the data so they agree
+                QueryResult result = astResult;
                 new SQLBatch() {
                     @Override
                     protected void scripts() {
-                        Query q = astResult.createJPAQuery.apply(databaseFacade.getEntityManager());
+                        Query q = result.createJPAQuery.apply(databaseFacade.getEntityManager());
                         ret.vos = q.getResultList();
 
-                        if (astResult.createSimpleCountQuery != null) {
-                            q = astResult.createSimpleCountQuery.apply(databaseFacade.getEntityManager());
-                            ret.count = (Long) q.getSingleResult();
+                        if (result.createSimpleCountQuery != null) {
+                            ret.count = (Long) result.createSimpleCountQuery.apply(databaseFacade.getEntityManager()).getSingleResult();
                         }
                     }
                 }.execute();
@@ -344,6 +437,80 @@ public class ZQL {
         return rs;
     }
 
+    /**
+     * turns 'limit n after value' into a condition on the primary key, so the next page
+     * is located through the index instead of skipping all rows before it like 'offset' does
+     */
+    private void applyAfter(ASTNode.Query query) {
+        if (query.getAfter() == null) {
+            return;
+        }
+
+        if (query.getOffset() != null) {
+            throw new ZQLError(Platform.i18n("'after' cannot be used together with 'offset'"));
+        }
+
+        if (!(query.getAfter().getValue() instanceof ASTNode.PlainValue)) {
+            throw new ZQLError(Platform.i18n("'after' accepts only a single value"));
+        }
+
+        ZQLMetadata.InventoryMetadata inventory = ZQLMetadata.findInventoryMetadata(query.getTarget().getEntity());
+        String key = EntityMetadata.getPrimaryKeyField(inventory.inventoryAnnotation.mappingVOClass()).getName();
+        if (!inventory.hasInventoryField(key)) {
+            throw new ZQLError(Platform.i18n("'after' is not supported by inventory[%s] which has no field[%s]",
+                    inventory.simpleInventoryName(), key));
+        }
+
+        String direction = "asc";
+        if (query.getOrderBy() == null) {
+            ASTNode.OrderByExpr expr = new ASTNode.OrderByExpr();
+            expr.setField(key);
+            expr.setDirection(direction);
+            ASTNode.OrderBy orderBy = new ASTNode.OrderBy();
+            orderBy.setExprs(new ArrayList<>(Collections.singletonList(expr)));
+            query.setOrderBy(orderBy);
+        } else if (query.getOrderBy().getExprs().size() == 1 && key.equals(query.getOrderBy().getExprs().get(0).getField())) {
+            direction = query.getOrderBy().getExprs().get(0).getDirection();
+        } else {
+            throw new ZQLError(Platform.i18n("'after' requires the query to be ordered by field[%s] only", key));
+        }
+
+        ASTNode.Expr expr = new ASTNode.Expr();
+        expr.setLeft(new ArrayList<>(Collections.singletonList(key)));
+        expr.setOperator("desc".equalsIgnoreCase(direction) ? "<" : ">");
+        expr.setRight(toJPQLLiteral((ASTNode.PlainValue) query.getAfter().getValue()));
+
+        ASTNode.Condition condition = expr;
+        if (query.getConditions() != null) {
+            for (ASTNode.Condition c : query.getConditions()) {
+                ASTNode.LogicalOperator and = new ASTNode.LogicalOperator();
+                and.setLeft(c);
+                and.setOperator("and");
+                and.setRight(condition);
+                condition = and;
+            }
+        }
+
+        query.setConditions(new ArrayList<>(Collections.singletonList(condition)));
+    }
+
+    /**
+     * ZQL strings are quoted by ' or " and can't escape the quote, but their text goes into
+     * JPQL as is, so a cursor like "it's" is requoted in the JPQL way
+     */
+    private static ASTNode.PlainValue toJPQLLiteral(ASTNode.PlainValue v) {
+        if (!String.class.getName().equals(v.getCtype())) {
+            return v;
+        }
+
+        String text = v.getText().substring(1, v.getText().length() - 1);
+        ASTNode.PlainValue ret = new ASTNode.PlainValue();
+        ret.setText(String.format("'%s'", text.replace("'", "''")));
+        ret.setType(String.class);
+        ret.setCtype(String.class.getName());
+        return ret;
+    }
+
     private void beforeExecuteQuery(QueryResult astResult, SessionInventory session) {
         List<Class> targetInventories = new ArrayList<>();
 
@@ -361,8 +528,8 @@ public class ZQL {
 
         FutureCompletion future = new FutureCompletion(null);
         Map ret = new ConcurrentHashMap();
-        List<ErrorCode> errs = new ArrayList<>();
-        new While<>(astResult.returnWith).all((r, coml) -> {
+        List<ErrorCode> errs = Collections.synchronizedList(new ArrayList<>());
+        new While<>(astResult.returnWith).step((r, coml) -> {
             Optional<ReturnWithExtensionPoint> opt = pluginRgty.getExtensionList(ReturnWithExtensionPoint.class)
                     .stream().filter(ext->r.name.equals(ext.getReturnWithName())).findAny();
             if (!opt.isPresent()) {
@@ -380,7 +547,7 @@ public class ZQL {
             param.vos = vos;
             param.voClass = astResult.inventoryMetadata.inventoryAnnotation.mappingVOClass();
 
-            ext.returnWith(param, new ReturnValueCompletion<Map>(coml) {
+            ReturnValueCompletion<Map> completion = new ReturnValueCompletion<Map>(coml) {
                 @Override
                 public void success(Map result) {
                     Optional.ofNullable(result).ifPresent(ret::putAll);
@@ -392,8 +559,17 @@ public class ZQL {
                     errs.add(errorCode);
                     coml.allDone();
                 }
+            };
+
+            runParallel(() -> {
+                try {
+                    ext.returnWith(param, completion);
+                } catch (Throwable t) {
+                    logger.warn(String.format("unhandled exception in return with %s", r.name), t);
+                    completion.fail(inerr(t.getMessage()));
+                }
             });
-        }).run(new NoErrorCompletion(future) {
+        }, Math.max(1, QueryGlobalConfig.ZQL_RETURN_WITH_CONCURRENCY.value(Integer.class))).run(new NoErrorCompletion(future) {
             @Override
             public void done() {
                 if (errs.isEmpty()) {
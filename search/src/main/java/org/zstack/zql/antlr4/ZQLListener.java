@@ -295,6 +295,16 @@ public interface ZQLListener extends ParseTreeListener {
 	 * @param ctx the parse tree
 	 */
 	void exitOffset(ZQLParser.OffsetContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link ZQLParser#after}.
+	 * @param ctx the parse tree
+	 */
+	void enterAfter(ZQLParser.AfterContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link ZQLParser#after}.
+	 * @param ctx the parse tree
+	 */
+	void exitAfter(ZQLParser.AfterContext ctx);
 	/**
 	 * Enter a parse tree produced by {@link ZQLParser#restrictByExpr}.
 	 * @param ctx the parse tree
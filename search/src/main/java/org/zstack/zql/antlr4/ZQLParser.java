@@ -22,45 +22,46 @@ public class ZQLParser extends Parser {
 		T__0=1, T__1=2, T__2=3, T__3=4, T__4=5, T__5=6, T__6=7, T__7=8, T__8=9, 
 		T__9=10, T__10=11, T__11=12, T__12=13, T__13=14, T__14=15, T__15=16, T__16=17, 
 		T__17=18, T__18=19, T__19=20, T__20=21, T__21=22, FILTER_BY=23, OFFSET=24, 
-		LIMIT=25, QUERY=26, COUNT=27, SUM=28, DISTINCT=29, ORDER_BY=30, GROUP_BY=31, 
-		NAMED_AS=32, ORDER_BY_VALUE=33, RESTRICT_BY=34, RETURN_WITH=35, WHERE=36, 
-		AND=37, OR=38, ASC=39, DESC=40, BOOLEAN=41, INT=42, FLOAT=43, ID=44, WS=45, 
-		STRING=46;
+		AFTER=25, LIMIT=26, QUERY=27, COUNT=28, SUM=29, DISTINCT=30, ORDER_BY=31, 
+		GROUP_BY=32, NAMED_AS=33, ORDER_BY_VALUE=34, RESTRICT_BY=35, RETURN_WITH=36, 
+		WHERE=37, AND=38, OR=39, ASC=40, DESC=41, BOOLEAN=42, INT=43, FLOAT=44, 
+		ID=45, WS=46, STRING=47;
 	public static final int
 		RULE_zqls = 0, RULE_zql = 1, RULE_entity = 2, RULE_field = 3, RULE_multiFields = 4, 
 		RULE_operator = 5, RULE_value = 6, RULE_logicalOperator = 7, RULE_complexValue = 8, 
 		RULE_expr = 9, RULE_condition = 10, RULE_queryTarget = 11, RULE_function = 12, 
 		RULE_queryTargetWithFunction = 13, RULE_orderByExpr = 14, RULE_orderBy = 15, 
-		RULE_limit = 16, RULE_offset = 17, RULE_restrictByExpr = 18, RULE_restrictBy = 19, 
-		RULE_returnWithExprBlock = 20, RULE_returnWithExpr = 21, RULE_returnWith = 22, 
-		RULE_groupByExpr = 23, RULE_groupBy = 24, RULE_subQueryTarget = 25, RULE_subQuery = 26, 
-		RULE_filterByExprBlock = 27, RULE_filterByExpr = 28, RULE_filterBy = 29, 
-		RULE_namedAsValue = 30, RULE_namedAs = 31, RULE_query = 32, RULE_count = 33, 
-		RULE_sumByValue = 34, RULE_sumBy = 35, RULE_sum = 36;
+		RULE_limit = 16, RULE_offset = 17, RULE_after = 18, RULE_restrictByExpr = 19, 
+		RULE_restrictBy = 20, RULE_returnWithExprBlock = 21, RULE_returnWithExpr = 22, 
+		RULE_returnWith = 23, RULE_groupByExpr = 24, RULE_groupBy = 25, RULE_subQueryTarget = 26, 
+		RULE_subQuery = 27, RULE_filterByExprBlock = 28, RULE_filterByExpr = 29, 
+		RULE_filterBy = 30, RULE_namedAsValue = 31, RULE_namedAs = 32, RULE_query = 33, 
+		RULE_count = 34, RULE_sumByValue = 35, RULE_sumBy = 36, RULE_sum = 37;
 	public static final String[] ruleNames = {
 		"zqls", "zql", "entity", "field", "multiFields", "operator", "value", 
 		"logicalOperator", "complexValue", "expr", "condition", "queryTarget", 
 		"function", "queryTargetWithFunction", "orderByExpr", "orderBy", "limit", 
-		"offset", "restrictByExpr", "restrictBy", "returnWithExprBlock", "returnWithExpr", 
-		"returnWith", "groupByExpr", "groupBy", "subQueryTarget", "subQuery", 
-		"filterByExprBlock", "filterByExpr", "filterBy", "namedAsValue", "namedAs", 
-		"query", "count", "sumByValue", "sumBy", "sum"
+		"offset", "after", "restrictByExpr", "restrictBy", "returnWithExprBlock", 
+		"returnWithExpr", "returnWith", "groupByExpr", "groupBy", "subQueryTarget", 
+		"subQuery", "filterByExprBlock", "filterByExpr", "filterBy", "namedAsValue", 
+		"namedAs", "query", "count", "sumByValue", "sumBy", "sum"
 	};
 
 	private static final String[] _LITERAL_NAMES = {
 		null, "';'", "'.'", "','", "'='", "'!='", "'>'", "'>='", "'<'", "'<='", 
 		"'is null'", "'is not null'", "'in'", "'not in'", "'like'", "'not like'", 
 		"'has'", "'not has'", "'('", "')'", "'{'", "'}'", "'by'", "'filter by'", 
-		"'offset'", "'limit'", "'query'", "'count'", "'sum'", "'distinct'", "'order by'", 
-		"'group by'", "'named as'", null, "'restrict by'", "'return with'", "'where'", 
-		"'and'", "'or'", "'asc'", "'desc'"
+		"'offset'", "'after'", "'limit'", "'query'", "'count'", "'sum'", "'distinct'", 
+		"'order by'", "'group by'", "'named as'", null, "'restrict by'", "'return with'", 
+		"'where'", "'and'", "'or'", "'asc'", "'desc'"
 	};
 	private static final String[] _SYMBOLIC_NAMES = {
 		null, null, null, null, null, null, null, null, null, null, null, null, 
 		null, null, null, null, null, null, null, null, null, null, null, "FILTER_BY", 
-		"OFFSET", "LIMIT", "QUERY", "COUNT", "SUM", "DISTINCT", "ORDER_BY", "GROUP_BY", 
-		"NAMED_AS", "ORDER_BY_VALUE", "RESTRICT_BY", "RETURN_WITH", "WHERE", "AND", 
-		"OR", "ASC", "DESC", "BOOLEAN", "INT", "FLOAT", "ID", "WS", "STRING"
+		"OFFSET", "AFTER", "LIMIT", "QUERY", "COUNT", "SUM", "DISTINCT", "ORDER_BY", 
+		"GROUP_BY", "NAMED_AS", "ORDER_BY_VALUE", "RESTRICT_BY", "RETURN_WITH", 
+		"WHERE", "AND", "OR", "ASC", "DESC", "BOOLEAN", "INT", "FLOAT", "ID", 
+		"WS", "STRING"
 	};
 	public static final Vocabulary VOCABULARY = new VocabularyImpl(_LITERAL_NAMES, _SYMBOLIC_NAMES);
 
@@ -145,25 +146,25 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(74);
+			setState(76);
 			zql();
-			setState(79);
+			setState(81);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==T__0) {
 				{
 				{
-				setState(75);
+				setState(77);
 				match(T__0);
-				setState(76);
+				setState(78);
 				zql();
 				}
 				}
-				setState(81);
+				setState(83);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
-			setState(82);
+			setState(84);
 			match(EOF);
 			}
 		}
@@ -251,14 +252,14 @@ public class ZQLParser extends Parser {
 		ZqlContext _localctx = new ZqlContext(_ctx, getState());
 		enterRule(_localctx, 2, RULE_zql);
 		try {
-			setState(87);
+			setState(89);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case QUERY:
 				_localctx = new QueryGrammarContext(_localctx);
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(84);
+				setState(86);
 				query();
 				}
 				break;
@@ -266,7 +267,7 @@ public class ZQLParser extends Parser {
 				_localctx = new CountGrammarContext(_localctx);
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(85);
+				setState(87);
 				count();
 				}
 				break;
@@ -274,7 +275,7 @@ public class ZQLParser extends Parser {
 				_localctx = new SumGrammarContext(_localctx);
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(86);
+				setState(88);
 				sum();
 				}
 				break;
@@ -320,7 +321,7 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(89);
+			setState(91);
 			match(ID);
 			}
 		}
@@ -364,34 +365,34 @@ public class ZQLParser extends Parser {
 		enterRule(_localctx, 6, RULE_field);
 		int _la;
 		try {
-			setState(99);
+			setState(101);
 			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,3,_ctx) ) {
 			case 1:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(91);
+				setState(93);
 				match(ID);
 				}
 				break;
 			case 2:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(92);
+				setState(94);
 				match(ID);
-				setState(95); 
+				setState(97); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				do {
 					{
 					{
-					setState(93);
+					setState(95);
 					match(T__1);
-					setState(94);
+					setState(96);
 					match(ID);
 					}
 					}
-					setState(97); 
+					setState(99); 
 					_errHandler.sync(this);
 					_la = _input.LA(1);
 				} while ( _la==T__1 );
@@ -441,21 +442,21 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(101);
+			setState(103);
 			match(ID);
-			setState(104); 
+			setState(106); 
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			do {
 				{
 				{
-				setState(102);
+				setState(104);
 				match(T__2);
-				setState(103);
+				setState(105);
 				match(ID);
 				}
 				}
-				setState(106); 
+				setState(108); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			} while ( _la==T__2 );
@@ -499,7 +500,7 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(108);
+			setState(110);
 			_la = _input.LA(1);
 			if ( !((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << T__3) | (1L << T__4) | (1L << T__5) | (1L << T__6) | (1L << T__7) | (1L << T__8) | (1L << T__9) | (1L << T__10) | (1L << T__11) | (1L << T__12) | (1L << T__13) | (1L << T__14) | (1L << T__15) | (1L << T__16))) != 0)) ) {
 			_errHandler.recoverInline(this);
@@ -557,61 +558,61 @@ public class ZQLParser extends Parser {
 		enterRule(_localctx, 12, RULE_value);
 		int _la;
 		try {
-			setState(125);
+			setState(127);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case STRING:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(110);
+				setState(112);
 				match(STRING);
 				}
 				break;
 			case INT:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(111);
+				setState(113);
 				match(INT);
 				}
 				break;
 			case FLOAT:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(112);
+				setState(114);
 				match(FLOAT);
 				}
 				break;
 			case BOOLEAN:
 				enterOuterAlt(_localctx, 4);
 				{
-				setState(113);
+				setState(115);
 				match(BOOLEAN);
 				}
 				break;
 			case T__17:
 				enterOuterAlt(_localctx, 5);
 				{
-				setState(114);
+				setState(116);
 				match(T__17);
-				setState(115);
+				setState(117);
 				value();
-				setState(120);
+				setState(122);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				while (_la==T__2) {
 					{
 					{
-					setState(116);
+					setState(118);
 					match(T__2);
-					setState(117);
+					setState(119);
 					value();
 					}
 					}
-					setState(122);
+					setState(124);
 					_errHandler.sync(this);
 					_la = _input.LA(1);
 				}
-				setState(123);
+				setState(125);
 				match(T__18);
 				}
 				break;
@@ -659,7 +660,7 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(127);
+			setState(129);
 			_la = _input.LA(1);
 			if ( !(_la==AND || _la==OR) ) {
 			_errHandler.recoverInline(this);
@@ -736,14 +737,14 @@ public class ZQLParser extends Parser {
 		ComplexValueContext _localctx = new ComplexValueContext(_ctx, getState());
 		enterRule(_localctx, 16, RULE_complexValue);
 		try {
-			setState(134);
+			setState(136);
 			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,7,_ctx) ) {
 			case 1:
 				_localctx = new SimpleValueContext(_localctx);
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(129);
+				setState(131);
 				value();
 				}
 				break;
@@ -751,11 +752,11 @@ public class ZQLParser extends Parser {
 				_localctx = new SubQueryValueContext(_localctx);
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(130);
+				setState(132);
 				match(T__17);
-				setState(131);
+				setState(133);
 				subQuery();
-				setState(132);
+				setState(134);
 				match(T__18);
 				}
 				break;
@@ -807,16 +808,16 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(136);
+			setState(138);
 			field();
-			setState(137);
-			operator();
 			setState(139);
+			operator();
+			setState(141);
 			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,8,_ctx) ) {
 			case 1:
 				{
-				setState(138);
+				setState(140);
 				complexValue();
 				}
 				break;
@@ -930,7 +931,7 @@ public class ZQLParser extends Parser {
 			int _alt;
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(147);
+			setState(149);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case T__17:
@@ -939,11 +940,11 @@ public class ZQLParser extends Parser {
 				_ctx = _localctx;
 				_prevctx = _localctx;
 
-				setState(142);
+				setState(144);
 				match(T__17);
-				setState(143);
+				setState(145);
 				condition(0);
-				setState(144);
+				setState(146);
 				match(T__18);
 				}
 				break;
@@ -952,7 +953,7 @@ public class ZQLParser extends Parser {
 				_localctx = new SimpleConditionContext(_localctx);
 				_ctx = _localctx;
 				_prevctx = _localctx;
-				setState(146);
+				setState(148);
 				expr();
 				}
 				break;
@@ -960,7 +961,7 @@ public class ZQLParser extends Parser {
 				throw new NoViableAltException(this);
 			}
 			_ctx.stop = _input.LT(-1);
-			setState(159);
+			setState(161);
 			_errHandler.sync(this);
 			_alt = getInterpreter().adaptivePredict(_input,11,_ctx);
 			while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
@@ -972,9 +973,9 @@ public class ZQLParser extends Parser {
 					_localctx = new NestConditionContext(new ConditionContext(_parentctx, _parentState));
 					((NestConditionContext)_localctx).left = _prevctx;
 					pushNewRecursionContext(_localctx, _startState, RULE_condition);
-					setState(149);
+					setState(151);
 					if (!(precpred(_ctx, 2))) throw new FailedPredicateException(this, "precpred(_ctx, 2)");
-					setState(153); 
+					setState(155); 
 					_errHandler.sync(this);
 					_alt = 1;
 					do {
@@ -982,9 +983,9 @@ public class ZQLParser extends Parser {
 						case 1:
 							{
 							{
-							setState(150);
+							setState(152);
 							((NestConditionContext)_localctx).op = logicalOperator();
-							setState(151);
+							setState(153);
 							((NestConditionContext)_localctx).right = condition(0);
 							}
 							}
@@ -992,14 +993,14 @@ public class ZQLParser extends Parser {
 						default:
 							throw new NoViableAltException(this);
 						}
-						setState(155); 
+						setState(157); 
 						_errHandler.sync(this);
 						_alt = getInterpreter().adaptivePredict(_input,10,_ctx);
 					} while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER );
 					}
 					} 
 				}
-				setState(161);
+				setState(163);
 				_errHandler.sync(this);
 				_alt = getInterpreter().adaptivePredict(_input,11,_ctx);
 			}
@@ -1095,14 +1096,14 @@ public class ZQLParser extends Parser {
 		QueryTargetContext _localctx = new QueryTargetContext(_ctx, getState());
 		enterRule(_localctx, 22, RULE_queryTarget);
 		try {
-			setState(171);
+			setState(173);
 			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,12,_ctx) ) {
 			case 1:
 				_localctx = new OnlyEntityContext(_localctx);
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(162);
+				setState(164);
 				entity();
 				}
 				break;
@@ -1110,11 +1111,11 @@ public class ZQLParser extends Parser {
 				_localctx = new WithSingleFieldContext(_localctx);
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(163);
+				setState(165);
 				entity();
-				setState(164);
+				setState(166);
 				match(T__1);
-				setState(165);
+				setState(167);
 				field();
 				}
 				break;
@@ -1122,11 +1123,11 @@ public class ZQLParser extends Parser {
 				_localctx = new WithMultiFieldsContext(_localctx);
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(167);
+				setState(169);
 				entity();
-				setState(168);
+				setState(170);
 				match(T__1);
-				setState(169);
+				setState(171);
 				multiFields();
 				}
 				break;
@@ -1170,7 +1171,7 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(173);
+			setState(175);
 			match(DISTINCT);
 			}
 		}
@@ -1242,14 +1243,14 @@ public class ZQLParser extends Parser {
 		QueryTargetWithFunctionContext _localctx = new QueryTargetWithFunctionContext(_ctx, getState());
 		enterRule(_localctx, 26, RULE_queryTargetWithFunction);
 		try {
-			setState(181);
+			setState(183);
 			_errHandler.sync(this);
 			switch (_input.LA(1)) {
 			case ID:
 				_localctx = new WithoutFunctionContext(_localctx);
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(175);
+				setState(177);
 				queryTarget();
 				}
 				break;
@@ -1257,13 +1258,13 @@ public class ZQLParser extends Parser {
 				_localctx = new WithFunctionContext(_localctx);
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(176);
+				setState(178);
 				function();
-				setState(177);
+				setState(179);
 				match(T__17);
-				setState(178);
+				setState(180);
 				queryTargetWithFunction();
-				setState(179);
+				setState(181);
 				match(T__18);
 				}
 				break;
@@ -1310,9 +1311,9 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(183);
+			setState(185);
 			match(ID);
-			setState(184);
+			setState(186);
 			match(ORDER_BY_VALUE);
 			}
 		}
@@ -1361,23 +1362,23 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(186);
+			setState(188);
 			match(ORDER_BY);
-			setState(187);
+			setState(189);
 			orderByExpr();
-			setState(192);
+			setState(194);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==T__2) {
 				{
 				{
-				setState(188);
+				setState(190);
 				match(T__2);
-				setState(189);
+				setState(191);
 				orderByExpr();
 				}
 				}
-				setState(194);
+				setState(196);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -1422,9 +1423,9 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(195);
+			setState(197);
 			match(LIMIT);
-			setState(196);
+			setState(198);
 			match(INT);
 			}
 		}
@@ -1467,9 +1468,9 @@ public class ZQLParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(198);
+			setState(200);
 			match(OFFSET);
-			setState(199);
+			setState(201);
 			match(INT);
 			}
 		}
@@ -1484,6 +1485,53 @@ public class ZQLParser extends Parser {
 		return _localctx;
 	}
 
+	public static class AfterContext extends ParserRuleContext {
+		public TerminalNode AFTER() { return getToken(ZQLParser.AFTER, 0); }
+		public ValueContext value() {
+			return getRuleContext(ValueContext.class,0);
+		}
+		public AfterContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_after; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof ZQLListener ) ((ZQLListener)listener).enterAfter(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof ZQLListener ) ((ZQLListener)listener).exitAfter(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof ZQLVisitor ) return ((ZQLVisitor<? extends T>)visitor).visitAfter(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final AfterContext after() throws RecognitionException {
+		AfterContext _localctx = new AfterContext(_ctx, getState());
+		enterRule(_localctx, 36, RULE_after);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(203);
+			match(AFTER);
+			setState(204);
+			value();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
 	public static class RestrictByExprContext extends ParserRuleContext {
 		public EntityContext entity() {
 			return getRuleContext(EntityContext.class,0);
@@ -1516,29 +1564,29 @@ public class ZQLParser extends Parser {
 
 	public final RestrictByExprContext restrictByExpr() throws RecognitionException {
 		RestrictByExprContext _localctx = new RestrictByExprContext(_ctx, getState());
-		enterRule(_localctx, 36, RULE_restrictByExpr);
+		enterRule(_localctx, 38, RULE_restrictByExpr);
 		int _la;
 		try {
-			setState(213);
+			setState(218);
 			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,17,_ctx) ) {
 			case 1:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(201);
+				setState(206);
 				entity();
-				setState(202);
+				setState(207);
 				match(T__1);
-				setState(203);
+				setState(208);
 				match(ID);
-				setState(204);
+				setState(209);
 				operator();
-				setState(206);
+				setState(211);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				if ((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << T__17) | (1L << BOOLEAN) | (1L << INT) | (1L << FLOAT) | (1L << STRING))) != 0)) {
 					{
-					setState(205);
+					setState(210);
 					value();
 					}
 				}
@@ -1548,16 +1596,16 @@ public class ZQLParser extends Parser {
 			case 2:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(208);
+				setState(213);
 				match(ID);
-				setState(209);
+				setState(214);
 				operator();
-				setState(211);
+				setState(216);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				if ((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << T__17) | (1L << BOOLEAN) | (1L << INT) | (1L << FLOAT) | (1L << STRING))) != 0)) {
 					{
-					setState(210);
+					setState(215);
 					value();
 					}
 				}
@@ -1606,34 +1654,34 @@ public class ZQLParser extends Parser {
 
 	public final RestrictByContext restrictBy() throws RecognitionException {
 		RestrictByContext _localctx = new RestrictByContext(_ctx, getState());
-		enterRule(_localctx, 38, RULE_restrictBy);
+		enterRule(_localctx, 40, RULE_restrictBy);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(215);
+			setState(220);
 			match(RESTRICT_BY);
-			setState(216);
+			setState(221);
 			match(T__17);
-			setState(217);
-			restrictByExpr();
 			setState(222);
+			restrictByExpr();
+			setState(227);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==T__2) {
 				{
 				{
-				setState(218);
+				setState(223);
 				match(T__2);
-				setState(219);
+				setState(224);
 				restrictByExpr();
 				}
 				}
-				setState(224);
+				setState(229);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
-			setState(225);
+			setState(230);
 			match(T__18);
 			}
 		}
@@ -1676,24 +1724,24 @@ public class ZQLParser extends Parser {
 
 	public final ReturnWithExprBlockContext returnWithExprBlock() throws RecognitionException {
 		ReturnWithExprBlockContext _localctx = new ReturnWithExprBlockContext(_ctx, getState());
-		enterRule(_localctx, 40, RULE_returnWithExprBlock);
+		enterRule(_localctx, 42, RULE_returnWithExprBlock);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(227);
-			match(T__19);
 			setState(232);
+			match(T__19);
+			setState(237);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
-			while ((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << T__0) | (1L << T__1) | (1L << T__2) | (1L << T__3) | (1L << T__4) | (1L << T__5) | (1L << T__6) | (1L << T__7) | (1L << T__8) | (1L << T__9) | (1L << T__10) | (1L << T__11) | (1L << T__12) | (1L << T__13) | (1L << T__14) | (1L << T__15) | (1L << T__16) | (1L << T__17) | (1L << T__18) | (1L << T__19) | (1L << T__21) | (1L << FILTER_BY) | (1L << OFFSET) | (1L << LIMIT) | (1L << QUERY) | (1L << COUNT) | (1L << SUM) | (1L << DISTINCT) | (1L << ORDER_BY) | (1L << GROUP_BY) | (1L << NAMED_AS) | (1L << ORDER_BY_VALUE) | (1L << RESTRICT_BY) | (1L << RETURN_WITH) | (1L << WHERE) | (1L << AND) | (1L << OR) | (1L << ASC) | (1L << DESC) | (1L << BOOLEAN) | (1L << INT) | (1L << FLOAT) | (1L << ID) | (1L << WS) | (1L << STRING))) != 0)) {
+			while ((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << T__0) | (1L << T__1) | (1L << T__2) | (1L << T__3) | (1L << T__4) | (1L << T__5) | (1L << T__6) | (1L << T__7) | (1L << T__8) | (1L << T__9) | (1L << T__10) | (1L << T__11) | (1L << T__12) | (1L << T__13) | (1L << T__14) | (1L << T__15) | (1L << T__16) | (1L << T__17) | (1L << T__18) | (1L << T__19) | (1L << T__21) | (1L << FILTER_BY) | (1L << OFFSET) | (1L << AFTER) | (1L << LIMIT) | (1L << QUERY) | (1L << COUNT) | (1L << SUM) | (1L << DISTINCT) | (1L << ORDER_BY) | (1L << GROUP_BY) | (1L << NAMED_AS) | (1L << ORDER_BY_VALUE) | (1L << RESTRICT_BY) | (1L << RETURN_WITH) | (1L << WHERE) | (1L << AND) | (1L << OR) | (1L << ASC) | (1L << DESC) | (1L << BOOLEAN) | (1L << INT) | (1L << FLOAT) | (1L << ID) | (1L << WS) | (1L << STRING))) != 0)) {
 				{
-				setState(230);
+				setState(235);
 				_errHandler.sync(this);
 				switch ( getInterpreter().adaptivePredict(_input,19,_ctx) ) {
 				case 1:
 					{
-					setState(228);
+					setState(233);
 					_la = _input.LA(1);
 					if ( _la <= 0 || (_la==T__20) ) {
 					_errHandler.recoverInline(this);
@@ -1707,17 +1755,17 @@ public class ZQLParser extends Parser {
 					break;
 				case 2:
 					{
-					setState(229);
+					setState(234);
 					returnWithExprBlock();
 					}
 					break;
 				}
 				}
-				setState(234);
+				setState(239);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
-			setState(235);
+			setState(240);
 			match(T__20);
 			}
 		}
@@ -1786,31 +1834,31 @@ public class ZQLParser extends Parser {
 
 	public final ReturnWithExprContext returnWithExpr() throws RecognitionException {
 		ReturnWithExprContext _localctx = new ReturnWithExprContext(_ctx, getState());
-		enterRule(_localctx, 42, RULE_returnWithExpr);
+		enterRule(_localctx, 44, RULE_returnWithExpr);
 		int _la;
 		try {
-			setState(247);
+			setState(252);
 			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,22,_ctx) ) {
 			case 1:
 				_localctx = new ReturnWithExprIdContext(_localctx);
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(237);
-				match(ID);
 				setState(242);
+				match(ID);
+				setState(247);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				while (_la==T__1) {
 					{
 					{
-					setState(238);
+					setState(243);
 					match(T__1);
-					setState(239);
+					setState(244);
 					match(ID);
 					}
 					}
-					setState(244);
+					setState(249);
 					_errHandler.sync(this);
 					_la = _input.LA(1);
 				}
@@ -1820,9 +1868,9 @@ public class ZQLParser extends Parser {
 				_localctx = new ReturnWithExprFunctionContext(_localctx);
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(245);
+				setState(250);
 				match(ID);
-				setState(246);
+				setState(251);
 				returnWithExprBlock();
 				}
 				break;
@@ -1868,34 +1916,34 @@ public class ZQLParser extends Parser {
 
 	public final ReturnWithContext returnWith() throws RecognitionException {
 		ReturnWithContext _localctx = new ReturnWithContext(_ctx, getState());
-		enterRule(_localctx, 44, RULE_returnWith);
+		enterRule(_localctx, 46, RULE_returnWith);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(249);
+			setState(254);
 			match(RETURN_WITH);
-			setState(250);
+			setState(255);
 			match(T__17);
-			setState(251);
-			returnWithExpr();
 			setState(256);
+			returnWithExpr();
+			setState(261);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==T__2) {
 				{
 				{
-				setState(252);
+				setState(257);
 				match(T__2);
-				setState(253);
+				setState(258);
 				returnWithExpr();
 				}
 				}
-				setState(258);
+				setState(263);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
-			setState(259);
+			setState(264);
 			match(T__18);
 			}
 		}
@@ -1936,26 +1984,26 @@ public class ZQLParser extends Parser {
 
 	public final GroupByExprContext groupByExpr() throws RecognitionException {
 		GroupByExprContext _localctx = new GroupByExprContext(_ctx, getState());
-		enterRule(_localctx, 46, RULE_groupByExpr);
+		enterRule(_localctx, 48, RULE_groupByExpr);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(261);
-			match(ID);
 			setState(266);
+			match(ID);
+			setState(271);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==T__2) {
 				{
 				{
-				setState(262);
+				setState(267);
 				match(T__2);
-				setState(263);
+				setState(268);
 				match(ID);
 				}
 				}
-				setState(268);
+				setState(273);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -1998,13 +2046,13 @@ public class ZQLParser extends Parser {
 
 	public final GroupByContext groupBy() throws RecognitionException {
 		GroupByContext _localctx = new GroupByContext(_ctx, getState());
-		enterRule(_localctx, 48, RULE_groupBy);
+		enterRule(_localctx, 50, RULE_groupBy);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(269);
+			setState(274);
 			match(GROUP_BY);
-			setState(270);
+			setState(275);
 			groupByExpr();
 			}
 		}
@@ -2048,26 +2096,26 @@ public class ZQLParser extends Parser {
 
 	public final SubQueryTargetContext subQueryTarget() throws RecognitionException {
 		SubQueryTargetContext _localctx = new SubQueryTargetContext(_ctx, getState());
-		enterRule(_localctx, 50, RULE_subQueryTarget);
+		enterRule(_localctx, 52, RULE_subQueryTarget);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(272);
+			setState(277);
 			entity();
-			setState(275); 
+			setState(280); 
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			do {
 				{
 				{
-				setState(273);
+				setState(278);
 				match(T__1);
-				setState(274);
+				setState(279);
 				match(ID);
 				}
 				}
-				setState(277); 
+				setState(282); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			} while ( _la==T__1 );
@@ -2117,33 +2165,33 @@ public class ZQLParser extends Parser {
 
 	public final SubQueryContext subQuery() throws RecognitionException {
 		SubQueryContext _localctx = new SubQueryContext(_ctx, getState());
-		enterRule(_localctx, 52, RULE_subQuery);
+		enterRule(_localctx, 54, RULE_subQuery);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(279);
+			setState(284);
 			match(QUERY);
-			setState(280);
+			setState(285);
 			subQueryTarget();
-			setState(287);
+			setState(292);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==WHERE) {
 				{
-				setState(281);
+				setState(286);
 				match(WHERE);
-				setState(283); 
+				setState(288); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				do {
 					{
 					{
-					setState(282);
+					setState(287);
 					condition(0);
 					}
 					}
-					setState(285); 
+					setState(290); 
 					_errHandler.sync(this);
 					_la = _input.LA(1);
 				} while ( _la==T__17 || _la==ID );
@@ -2191,24 +2239,24 @@ public class ZQLParser extends Parser {
 
 	public final FilterByExprBlockContext filterByExprBlock() throws RecognitionException {
 		FilterByExprBlockContext _localctx = new FilterByExprBlockContext(_ctx, getState());
-		enterRule(_localctx, 54, RULE_filterByExprBlock);
+		enterRule(_localctx, 56, RULE_filterByExprBlock);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(289);
-			match(T__19);
 			setState(294);
+			match(T__19);
+			setState(299);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
-			while ((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << T__0) | (1L << T__1) | (1L << T__2) | (1L << T__3) | (1L << T__4) | (1L << T__5) | (1L << T__6) | (1L << T__7) | (1L << T__8) | (1L << T__9) | (1L << T__10) | (1L << T__11) | (1L << T__12) | (1L << T__13) | (1L << T__14) | (1L << T__15) | (1L << T__16) | (1L << T__17) | (1L << T__18) | (1L << T__19) | (1L << T__21) | (1L << FILTER_BY) | (1L << OFFSET) | (1L << LIMIT) | (1L << QUERY) | (1L << COUNT) | (1L << SUM) | (1L << DISTINCT) | (1L << ORDER_BY) | (1L << GROUP_BY) | (1L << NAMED_AS) | (1L << ORDER_BY_VALUE) | (1L << RESTRICT_BY) | (1L << RETURN_WITH) | (1L << WHERE) | (1L << AND) | (1L << OR) | (1L << ASC) | (1L << DESC) | (1L << BOOLEAN) | (1L << INT) | (1L << FLOAT) | (1L << ID) | (1L << WS) | (1L << STRING))) != 0)) {
+			while ((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << T__0) | (1L << T__1) | (1L << T__2) | (1L << T__3) | (1L << T__4) | (1L << T__5) | (1L << T__6) | (1L << T__7) | (1L << T__8) | (1L << T__9) | (1L << T__10) | (1L << T__11) | (1L << T__12) | (1L << T__13) | (1L << T__14) | (1L << T__15) | (1L << T__16) | (1L << T__17) | (1L << T__18) | (1L << T__19) | (1L << T__21) | (1L << FILTER_BY) | (1L << OFFSET) | (1L << AFTER) | (1L << LIMIT) | (1L << QUERY) | (1L << COUNT) | (1L << SUM) | (1L << DISTINCT) | (1L << ORDER_BY) | (1L << GROUP_BY) | (1L << NAMED_AS) | (1L << ORDER_BY_VALUE) | (1L << RESTRICT_BY) | (1L << RETURN_WITH) | (1L << WHERE) | (1L << AND) | (1L << OR) | (1L << ASC) | (1L << DESC) | (1L << BOOLEAN) | (1L << INT) | (1L << FLOAT) | (1L << ID) | (1L << WS) | (1L << STRING))) != 0)) {
 				{
-				setState(292);
+				setState(297);
 				_errHandler.sync(this);
 				switch ( getInterpreter().adaptivePredict(_input,28,_ctx) ) {
 				case 1:
 					{
-					setState(290);
+					setState(295);
 					_la = _input.LA(1);
 					if ( _la <= 0 || (_la==T__20) ) {
 					_errHandler.recoverInline(this);
@@ -2222,17 +2270,17 @@ public class ZQLParser extends Parser {
 					break;
 				case 2:
 					{
-					setState(291);
+					setState(296);
 					filterByExprBlock();
 					}
 					break;
 				}
 				}
-				setState(296);
+				setState(301);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
-			setState(297);
+			setState(302);
 			match(T__20);
 			}
 		}
@@ -2273,13 +2321,13 @@ public class ZQLParser extends Parser {
 
 	public final FilterByExprContext filterByExpr() throws RecognitionException {
 		FilterByExprContext _localctx = new FilterByExprContext(_ctx, getState());
-		enterRule(_localctx, 56, RULE_filterByExpr);
+		enterRule(_localctx, 58, RULE_filterByExpr);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(299);
+			setState(304);
 			match(ID);
-			setState(300);
+			setState(305);
 			filterByExprBlock();
 			}
 		}
@@ -2323,28 +2371,28 @@ public class ZQLParser extends Parser {
 
 	public final FilterByContext filterBy() throws RecognitionException {
 		FilterByContext _localctx = new FilterByContext(_ctx, getState());
-		enterRule(_localctx, 58, RULE_filterBy);
+		enterRule(_localctx, 60, RULE_filterBy);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(302);
+			setState(307);
 			match(FILTER_BY);
-			setState(303);
-			filterByExpr();
 			setState(308);
+			filterByExpr();
+			setState(313);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==T__2) {
 				{
 				{
-				setState(304);
+				setState(309);
 				match(T__2);
-				setState(305);
+				setState(310);
 				filterByExpr();
 				}
 				}
-				setState(310);
+				setState(315);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -2384,11 +2432,11 @@ public class ZQLParser extends Parser {
 
 	public final NamedAsValueContext namedAsValue() throws RecognitionException {
 		NamedAsValueContext _localctx = new NamedAsValueContext(_ctx, getState());
-		enterRule(_localctx, 60, RULE_namedAsValue);
+		enterRule(_localctx, 62, RULE_namedAsValue);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(311);
+			setState(316);
 			match(STRING);
 			}
 		}
@@ -2429,13 +2477,13 @@ public class ZQLParser extends Parser {
 
 	public final NamedAsContext namedAs() throws RecognitionException {
 		NamedAsContext _localctx = new NamedAsContext(_ctx, getState());
-		enterRule(_localctx, 62, RULE_namedAs);
+		enterRule(_localctx, 64, RULE_namedAs);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(313);
+			setState(318);
 			match(NAMED_AS);
-			setState(314);
+			setState(319);
 			namedAsValue();
 			}
 		}
@@ -2471,6 +2519,9 @@ public class ZQLParser extends Parser {
 		public LimitContext limit() {
 			return getRuleContext(LimitContext.class,0);
 		}
+		public AfterContext after() {
+			return getRuleContext(AfterContext.class,0);
+		}
 		public OffsetContext offset() {
 			return getRuleContext(OffsetContext.class,0);
 		}
@@ -2507,115 +2558,125 @@ public class ZQLParser extends Parser {
 
 	public final QueryContext query() throws RecognitionException {
 		QueryContext _localctx = new QueryContext(_ctx, getState());
-		enterRule(_localctx, 64, RULE_query);
+		enterRule(_localctx, 66, RULE_query);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(316);
+			setState(321);
 			match(QUERY);
-			setState(317);
+			setState(322);
 			queryTargetWithFunction();
-			setState(324);
+			setState(329);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==WHERE) {
 				{
-				setState(318);
+				setState(323);
 				match(WHERE);
-				setState(320); 
+				setState(325); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				do {
 					{
 					{
-					setState(319);
+					setState(324);
 					condition(0);
 					}
 					}
-					setState(322); 
+					setState(327); 
 					_errHandler.sync(this);
 					_la = _input.LA(1);
 				} while ( _la==T__17 || _la==ID );
 				}
 			}
 
-			setState(327);
+			setState(332);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==RESTRICT_BY) {
 				{
-				setState(326);
+				setState(331);
 				restrictBy();
 				}
 			}
 
-			setState(330);
+			setState(335);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==RETURN_WITH) {
 				{
-				setState(329);
+				setState(334);
 				returnWith();
 				}
 			}
 
-			setState(333);
+			setState(338);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==GROUP_BY) {
 				{
-				setState(332);
+				setState(337);
 				groupBy();
 				}
 			}
 
-			setState(336);
+			setState(341);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==ORDER_BY) {
 				{
-				setState(335);
+				setState(340);
 				orderBy();
 				}
 			}
 
-			setState(339);
+			setState(344);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==LIMIT) {
 				{
-				setState(338);
+				setState(343);
 				limit();
 				}
 			}
 
-			setState(342);
+			setState(347);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==AFTER) {
+				{
+				setState(346);
+				after();
+				}
+			}
+
+			setState(350);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==OFFSET) {
 				{
-				setState(341);
+				setState(349);
 				offset();
 				}
 			}
 
-			setState(345);
+			setState(353);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==FILTER_BY) {
 				{
-				setState(344);
+				setState(352);
 				filterBy();
 				}
 			}
 
-			setState(348);
+			setState(356);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==NAMED_AS) {
 				{
-				setState(347);
+				setState(355);
 				namedAs();
 				}
 			}
@@ -2684,95 +2745,95 @@ public class ZQLParser extends Parser {
 
 	public final CountContext count() throws RecognitionException {
 		CountContext _localctx = new CountContext(_ctx, getState());
-		enterRule(_localctx, 66, RULE_count);
+		enterRule(_localctx, 68, RULE_count);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(350);
+			setState(358);
 			match(COUNT);
-			setState(351);
+			setState(359);
 			queryTargetWithFunction();
-			setState(358);
+			setState(366);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==WHERE) {
 				{
-				setState(352);
+				setState(360);
 				match(WHERE);
-				setState(354); 
+				setState(362); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				do {
 					{
 					{
-					setState(353);
+					setState(361);
 					condition(0);
 					}
 					}
-					setState(356); 
+					setState(364); 
 					_errHandler.sync(this);
 					_la = _input.LA(1);
 				} while ( _la==T__17 || _la==ID );
 				}
 			}
 
-			setState(361);
+			setState(369);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==RESTRICT_BY) {
 				{
-				setState(360);
+				setState(368);
 				restrictBy();
 				}
 			}
 
-			setState(364);
+			setState(372);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==GROUP_BY) {
 				{
-				setState(363);
+				setState(371);
 				groupBy();
 				}
 			}
 
-			setState(367);
+			setState(375);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==ORDER_BY) {
 				{
-				setState(366);
+				setState(374);
 				orderBy();
 				}
 			}
 
-			setState(370);
+			setState(378);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==LIMIT) {
 				{
-				setState(369);
+				setState(377);
 				limit();
 				}
 			}
 
-			setState(373);
+			setState(381);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==OFFSET) {
 				{
-				setState(372);
+				setState(380);
 				offset();
 				}
 			}
 
-			setState(376);
+			setState(384);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==NAMED_AS) {
 				{
-				setState(375);
+				setState(383);
 				namedAs();
 				}
 			}
@@ -2813,11 +2874,11 @@ public class ZQLParser extends Parser {
 
 	public final SumByValueContext sumByValue() throws RecognitionException {
 		SumByValueContext _localctx = new SumByValueContext(_ctx, getState());
-		enterRule(_localctx, 68, RULE_sumByValue);
+		enterRule(_localctx, 70, RULE_sumByValue);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(378);
+			setState(386);
 			match(ID);
 			}
 		}
@@ -2857,13 +2918,13 @@ public class ZQLParser extends Parser {
 
 	public final SumByContext sumBy() throws RecognitionException {
 		SumByContext _localctx = new SumByContext(_ctx, getState());
-		enterRule(_localctx, 70, RULE_sumBy);
+		enterRule(_localctx, 72, RULE_sumBy);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(380);
+			setState(388);
 			match(T__21);
-			setState(381);
+			setState(389);
 			sumByValue();
 			}
 		}
@@ -2926,77 +2987,77 @@ public class ZQLParser extends Parser {
 
 	public final SumContext sum() throws RecognitionException {
 		SumContext _localctx = new SumContext(_ctx, getState());
-		enterRule(_localctx, 72, RULE_sum);
+		enterRule(_localctx, 74, RULE_sum);
 		int _la;
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(383);
+			setState(391);
 			match(SUM);
-			setState(384);
+			setState(392);
 			queryTarget();
-			setState(385);
+			setState(393);
 			sumBy();
-			setState(392);
+			setState(400);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==WHERE) {
 				{
-				setState(386);
+				setState(394);
 				match(WHERE);
-				setState(388); 
+				setState(396); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				do {
 					{
 					{
-					setState(387);
+					setState(395);
 					condition(0);
 					}
 					}
-					setState(390); 
+					setState(398); 
 					_errHandler.sync(this);
 					_la = _input.LA(1);
 				} while ( _la==T__17 || _la==ID );
 				}
 			}
 
-			setState(395);
+			setState(403);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==ORDER_BY) {
 				{
-				setState(394);
+				setState(402);
 				orderBy();
 				}
 			}
 
-			setState(398);
+			setState(406);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==LIMIT) {
 				{
-				setState(397);
+				setState(405);
 				limit();
 				}
 			}
 
-			setState(401);
+			setState(409);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==OFFSET) {
 				{
-				setState(400);
+				setState(408);
 				offset();
 				}
 			}
 
-			setState(404);
+			setState(412);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			if (_la==NAMED_AS) {
 				{
-				setState(403);
+				setState(411);
 				namedAs();
 				}
 			}
@@ -3030,153 +3091,156 @@ public class ZQLParser extends Parser {
 	}
 
 	public static final String _serializedATN =
-		"\3\u608b\ua72a\u8133\ub9ed\u417c\u3be7\u7786\u5964\3\60\u0199\4\2\t\2"+
+		"\3\u608b\ua72a\u8133\ub9ed\u417c\u3be7\u7786\u5964\3\61\u01a1\4\2\t\2"+
 		"\4\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\4\t\t\t\4\n\t\n\4\13"+
 		"\t\13\4\f\t\f\4\r\t\r\4\16\t\16\4\17\t\17\4\20\t\20\4\21\t\21\4\22\t\22"+
 		"\4\23\t\23\4\24\t\24\4\25\t\25\4\26\t\26\4\27\t\27\4\30\t\30\4\31\t\31"+
 		"\4\32\t\32\4\33\t\33\4\34\t\34\4\35\t\35\4\36\t\36\4\37\t\37\4 \t \4!"+
-		"\t!\4\"\t\"\4#\t#\4$\t$\4%\t%\4&\t&\3\2\3\2\3\2\7\2P\n\2\f\2\16\2S\13"+
-		"\2\3\2\3\2\3\3\3\3\3\3\5\3Z\n\3\3\4\3\4\3\5\3\5\3\5\3\5\6\5b\n\5\r\5\16"+
-		"\5c\5\5f\n\5\3\6\3\6\3\6\6\6k\n\6\r\6\16\6l\3\7\3\7\3\b\3\b\3\b\3\b\3"+
-		"\b\3\b\3\b\3\b\7\by\n\b\f\b\16\b|\13\b\3\b\3\b\5\b\u0080\n\b\3\t\3\t\3"+
-		"\n\3\n\3\n\3\n\3\n\5\n\u0089\n\n\3\13\3\13\3\13\5\13\u008e\n\13\3\f\3"+
-		"\f\3\f\3\f\3\f\3\f\5\f\u0096\n\f\3\f\3\f\3\f\3\f\6\f\u009c\n\f\r\f\16"+
-		"\f\u009d\7\f\u00a0\n\f\f\f\16\f\u00a3\13\f\3\r\3\r\3\r\3\r\3\r\3\r\3\r"+
-		"\3\r\3\r\5\r\u00ae\n\r\3\16\3\16\3\17\3\17\3\17\3\17\3\17\3\17\5\17\u00b8"+
-		"\n\17\3\20\3\20\3\20\3\21\3\21\3\21\3\21\7\21\u00c1\n\21\f\21\16\21\u00c4"+
-		"\13\21\3\22\3\22\3\22\3\23\3\23\3\23\3\24\3\24\3\24\3\24\3\24\5\24\u00d1"+
-		"\n\24\3\24\3\24\3\24\5\24\u00d6\n\24\5\24\u00d8\n\24\3\25\3\25\3\25\3"+
-		"\25\3\25\7\25\u00df\n\25\f\25\16\25\u00e2\13\25\3\25\3\25\3\26\3\26\3"+
-		"\26\7\26\u00e9\n\26\f\26\16\26\u00ec\13\26\3\26\3\26\3\27\3\27\3\27\7"+
-		"\27\u00f3\n\27\f\27\16\27\u00f6\13\27\3\27\3\27\5\27\u00fa\n\27\3\30\3"+
-		"\30\3\30\3\30\3\30\7\30\u0101\n\30\f\30\16\30\u0104\13\30\3\30\3\30\3"+
-		"\31\3\31\3\31\7\31\u010b\n\31\f\31\16\31\u010e\13\31\3\32\3\32\3\32\3"+
-		"\33\3\33\3\33\6\33\u0116\n\33\r\33\16\33\u0117\3\34\3\34\3\34\3\34\6\34"+
-		"\u011e\n\34\r\34\16\34\u011f\5\34\u0122\n\34\3\35\3\35\3\35\7\35\u0127"+
-		"\n\35\f\35\16\35\u012a\13\35\3\35\3\35\3\36\3\36\3\36\3\37\3\37\3\37\3"+
-		"\37\7\37\u0135\n\37\f\37\16\37\u0138\13\37\3 \3 \3!\3!\3!\3\"\3\"\3\""+
-		"\3\"\6\"\u0143\n\"\r\"\16\"\u0144\5\"\u0147\n\"\3\"\5\"\u014a\n\"\3\""+
-		"\5\"\u014d\n\"\3\"\5\"\u0150\n\"\3\"\5\"\u0153\n\"\3\"\5\"\u0156\n\"\3"+
-		"\"\5\"\u0159\n\"\3\"\5\"\u015c\n\"\3\"\5\"\u015f\n\"\3#\3#\3#\3#\6#\u0165"+
-		"\n#\r#\16#\u0166\5#\u0169\n#\3#\5#\u016c\n#\3#\5#\u016f\n#\3#\5#\u0172"+
-		"\n#\3#\5#\u0175\n#\3#\5#\u0178\n#\3#\5#\u017b\n#\3$\3$\3%\3%\3%\3&\3&"+
-		"\3&\3&\3&\6&\u0187\n&\r&\16&\u0188\5&\u018b\n&\3&\5&\u018e\n&\3&\5&\u0191"+
-		"\n&\3&\5&\u0194\n&\3&\5&\u0197\n&\3&\2\3\26\'\2\4\6\b\n\f\16\20\22\24"+
-		"\26\30\32\34\36 \"$&(*,.\60\62\64\668:<>@BDFHJ\2\5\3\2\6\23\3\2\'(\3\2"+
-		"\27\27\2\u01af\2L\3\2\2\2\4Y\3\2\2\2\6[\3\2\2\2\be\3\2\2\2\ng\3\2\2\2"+
-		"\fn\3\2\2\2\16\177\3\2\2\2\20\u0081\3\2\2\2\22\u0088\3\2\2\2\24\u008a"+
-		"\3\2\2\2\26\u0095\3\2\2\2\30\u00ad\3\2\2\2\32\u00af\3\2\2\2\34\u00b7\3"+
-		"\2\2\2\36\u00b9\3\2\2\2 \u00bc\3\2\2\2\"\u00c5\3\2\2\2$\u00c8\3\2\2\2"+
-		"&\u00d7\3\2\2\2(\u00d9\3\2\2\2*\u00e5\3\2\2\2,\u00f9\3\2\2\2.\u00fb\3"+
-		"\2\2\2\60\u0107\3\2\2\2\62\u010f\3\2\2\2\64\u0112\3\2\2\2\66\u0119\3\2"+
-		"\2\28\u0123\3\2\2\2:\u012d\3\2\2\2<\u0130\3\2\2\2>\u0139\3\2\2\2@\u013b"+
-		"\3\2\2\2B\u013e\3\2\2\2D\u0160\3\2\2\2F\u017c\3\2\2\2H\u017e\3\2\2\2J"+
-		"\u0181\3\2\2\2LQ\5\4\3\2MN\7\3\2\2NP\5\4\3\2OM\3\2\2\2PS\3\2\2\2QO\3\2"+
-		"\2\2QR\3\2\2\2RT\3\2\2\2SQ\3\2\2\2TU\7\2\2\3U\3\3\2\2\2VZ\5B\"\2WZ\5D"+
-		"#\2XZ\5J&\2YV\3\2\2\2YW\3\2\2\2YX\3\2\2\2Z\5\3\2\2\2[\\\7.\2\2\\\7\3\2"+
-		"\2\2]f\7.\2\2^a\7.\2\2_`\7\4\2\2`b\7.\2\2a_\3\2\2\2bc\3\2\2\2ca\3\2\2"+
-		"\2cd\3\2\2\2df\3\2\2\2e]\3\2\2\2e^\3\2\2\2f\t\3\2\2\2gj\7.\2\2hi\7\5\2"+
-		"\2ik\7.\2\2jh\3\2\2\2kl\3\2\2\2lj\3\2\2\2lm\3\2\2\2m\13\3\2\2\2no\t\2"+
-		"\2\2o\r\3\2\2\2p\u0080\7\60\2\2q\u0080\7,\2\2r\u0080\7-\2\2s\u0080\7+"+
-		"\2\2tu\7\24\2\2uz\5\16\b\2vw\7\5\2\2wy\5\16\b\2xv\3\2\2\2y|\3\2\2\2zx"+
-		"\3\2\2\2z{\3\2\2\2{}\3\2\2\2|z\3\2\2\2}~\7\25\2\2~\u0080\3\2\2\2\177p"+
-		"\3\2\2\2\177q\3\2\2\2\177r\3\2\2\2\177s\3\2\2\2\177t\3\2\2\2\u0080\17"+
-		"\3\2\2\2\u0081\u0082\t\3\2\2\u0082\21\3\2\2\2\u0083\u0089\5\16\b\2\u0084"+
-		"\u0085\7\24\2\2\u0085\u0086\5\66\34\2\u0086\u0087\7\25\2\2\u0087\u0089"+
-		"\3\2\2\2\u0088\u0083\3\2\2\2\u0088\u0084\3\2\2\2\u0089\23\3\2\2\2\u008a"+
-		"\u008b\5\b\5\2\u008b\u008d\5\f\7\2\u008c\u008e\5\22\n\2\u008d\u008c\3"+
-		"\2\2\2\u008d\u008e\3\2\2\2\u008e\25\3\2\2\2\u008f\u0090\b\f\1\2\u0090"+
-		"\u0091\7\24\2\2\u0091\u0092\5\26\f\2\u0092\u0093\7\25\2\2\u0093\u0096"+
-		"\3\2\2\2\u0094\u0096\5\24\13\2\u0095\u008f\3\2\2\2\u0095\u0094\3\2\2\2"+
-		"\u0096\u00a1\3\2\2\2\u0097\u009b\f\4\2\2\u0098\u0099\5\20\t\2\u0099\u009a"+
-		"\5\26\f\2\u009a\u009c\3\2\2\2\u009b\u0098\3\2\2\2\u009c\u009d\3\2\2\2"+
-		"\u009d\u009b\3\2\2\2\u009d\u009e\3\2\2\2\u009e\u00a0\3\2\2\2\u009f\u0097"+
-		"\3\2\2\2\u00a0\u00a3\3\2\2\2\u00a1\u009f\3\2\2\2\u00a1\u00a2\3\2\2\2\u00a2"+
-		"\27\3\2\2\2\u00a3\u00a1\3\2\2\2\u00a4\u00ae\5\6\4\2\u00a5\u00a6\5\6\4"+
-		"\2\u00a6\u00a7\7\4\2\2\u00a7\u00a8\5\b\5\2\u00a8\u00ae\3\2\2\2\u00a9\u00aa"+
-		"\5\6\4\2\u00aa\u00ab\7\4\2\2\u00ab\u00ac\5\n\6\2\u00ac\u00ae\3\2\2\2\u00ad"+
-		"\u00a4\3\2\2\2\u00ad\u00a5\3\2\2\2\u00ad\u00a9\3\2\2\2\u00ae\31\3\2\2"+
-		"\2\u00af\u00b0\7\37\2\2\u00b0\33\3\2\2\2\u00b1\u00b8\5\30\r\2\u00b2\u00b3"+
-		"\5\32\16\2\u00b3\u00b4\7\24\2\2\u00b4\u00b5\5\34\17\2\u00b5\u00b6\7\25"+
-		"\2\2\u00b6\u00b8\3\2\2\2\u00b7\u00b1\3\2\2\2\u00b7\u00b2\3\2\2\2\u00b8"+
-		"\35\3\2\2\2\u00b9\u00ba\7.\2\2\u00ba\u00bb\7#\2\2\u00bb\37\3\2\2\2\u00bc"+
-		"\u00bd\7 \2\2\u00bd\u00c2\5\36\20\2\u00be\u00bf\7\5\2\2\u00bf\u00c1\5"+
-		"\36\20\2\u00c0\u00be\3\2\2\2\u00c1\u00c4\3\2\2\2\u00c2\u00c0\3\2\2\2\u00c2"+
-		"\u00c3\3\2\2\2\u00c3!\3\2\2\2\u00c4\u00c2\3\2\2\2\u00c5\u00c6\7\33\2\2"+
-		"\u00c6\u00c7\7,\2\2\u00c7#\3\2\2\2\u00c8\u00c9\7\32\2\2\u00c9\u00ca\7"+
-		",\2\2\u00ca%\3\2\2\2\u00cb\u00cc\5\6\4\2\u00cc\u00cd\7\4\2\2\u00cd\u00ce"+
-		"\7.\2\2\u00ce\u00d0\5\f\7\2\u00cf\u00d1\5\16\b\2\u00d0\u00cf\3\2\2\2\u00d0"+
-		"\u00d1\3\2\2\2\u00d1\u00d8\3\2\2\2\u00d2\u00d3\7.\2\2\u00d3\u00d5\5\f"+
-		"\7\2\u00d4\u00d6\5\16\b\2\u00d5\u00d4\3\2\2\2\u00d5\u00d6\3\2\2\2\u00d6"+
-		"\u00d8\3\2\2\2\u00d7\u00cb\3\2\2\2\u00d7\u00d2\3\2\2\2\u00d8\'\3\2\2\2"+
-		"\u00d9\u00da\7$\2\2\u00da\u00db\7\24\2\2\u00db\u00e0\5&\24\2\u00dc\u00dd"+
-		"\7\5\2\2\u00dd\u00df\5&\24\2\u00de\u00dc\3\2\2\2\u00df\u00e2\3\2\2\2\u00e0"+
-		"\u00de\3\2\2\2\u00e0\u00e1\3\2\2\2\u00e1\u00e3\3\2\2\2\u00e2\u00e0\3\2"+
-		"\2\2\u00e3\u00e4\7\25\2\2\u00e4)\3\2\2\2\u00e5\u00ea\7\26\2\2\u00e6\u00e9"+
-		"\n\4\2\2\u00e7\u00e9\5*\26\2\u00e8\u00e6\3\2\2\2\u00e8\u00e7\3\2\2\2\u00e9"+
-		"\u00ec\3\2\2\2\u00ea\u00e8\3\2\2\2\u00ea\u00eb\3\2\2\2\u00eb\u00ed\3\2"+
-		"\2\2\u00ec\u00ea\3\2\2\2\u00ed\u00ee\7\27\2\2\u00ee+\3\2\2\2\u00ef\u00f4"+
-		"\7.\2\2\u00f0\u00f1\7\4\2\2\u00f1\u00f3\7.\2\2\u00f2\u00f0\3\2\2\2\u00f3"+
-		"\u00f6\3\2\2\2\u00f4\u00f2\3\2\2\2\u00f4\u00f5\3\2\2\2\u00f5\u00fa\3\2"+
-		"\2\2\u00f6\u00f4\3\2\2\2\u00f7\u00f8\7.\2\2\u00f8\u00fa\5*\26\2\u00f9"+
-		"\u00ef\3\2\2\2\u00f9\u00f7\3\2\2\2\u00fa-\3\2\2\2\u00fb\u00fc\7%\2\2\u00fc"+
-		"\u00fd\7\24\2\2\u00fd\u0102\5,\27\2\u00fe\u00ff\7\5\2\2\u00ff\u0101\5"+
-		",\27\2\u0100\u00fe\3\2\2\2\u0101\u0104\3\2\2\2\u0102\u0100\3\2\2\2\u0102"+
-		"\u0103\3\2\2\2\u0103\u0105\3\2\2\2\u0104\u0102\3\2\2\2\u0105\u0106\7\25"+
-		"\2\2\u0106/\3\2\2\2\u0107\u010c\7.\2\2\u0108\u0109\7\5\2\2\u0109\u010b"+
-		"\7.\2\2\u010a\u0108\3\2\2\2\u010b\u010e\3\2\2\2\u010c\u010a\3\2\2\2\u010c"+
-		"\u010d\3\2\2\2\u010d\61\3\2\2\2\u010e\u010c\3\2\2\2\u010f\u0110\7!\2\2"+
-		"\u0110\u0111\5\60\31\2\u0111\63\3\2\2\2\u0112\u0115\5\6\4\2\u0113\u0114"+
-		"\7\4\2\2\u0114\u0116\7.\2\2\u0115\u0113\3\2\2\2\u0116\u0117\3\2\2\2\u0117"+
-		"\u0115\3\2\2\2\u0117\u0118\3\2\2\2\u0118\65\3\2\2\2\u0119\u011a\7\34\2"+
-		"\2\u011a\u0121\5\64\33\2\u011b\u011d\7&\2\2\u011c\u011e\5\26\f\2\u011d"+
-		"\u011c\3\2\2\2\u011e\u011f\3\2\2\2\u011f\u011d\3\2\2\2\u011f\u0120\3\2"+
-		"\2\2\u0120\u0122\3\2\2\2\u0121\u011b\3\2\2\2\u0121\u0122\3\2\2\2\u0122"+
-		"\67\3\2\2\2\u0123\u0128\7\26\2\2\u0124\u0127\n\4\2\2\u0125\u0127\58\35"+
-		"\2\u0126\u0124\3\2\2\2\u0126\u0125\3\2\2\2\u0127\u012a\3\2\2\2\u0128\u0126"+
-		"\3\2\2\2\u0128\u0129\3\2\2\2\u0129\u012b\3\2\2\2\u012a\u0128\3\2\2\2\u012b"+
-		"\u012c\7\27\2\2\u012c9\3\2\2\2\u012d\u012e\7.\2\2\u012e\u012f\58\35\2"+
-		"\u012f;\3\2\2\2\u0130\u0131\7\31\2\2\u0131\u0136\5:\36\2\u0132\u0133\7"+
-		"\5\2\2\u0133\u0135\5:\36\2\u0134\u0132\3\2\2\2\u0135\u0138\3\2\2\2\u0136"+
-		"\u0134\3\2\2\2\u0136\u0137\3\2\2\2\u0137=\3\2\2\2\u0138\u0136\3\2\2\2"+
-		"\u0139\u013a\7\60\2\2\u013a?\3\2\2\2\u013b\u013c\7\"\2\2\u013c\u013d\5"+
-		"> \2\u013dA\3\2\2\2\u013e\u013f\7\34\2\2\u013f\u0146\5\34\17\2\u0140\u0142"+
-		"\7&\2\2\u0141\u0143\5\26\f\2\u0142\u0141\3\2\2\2\u0143\u0144\3\2\2\2\u0144"+
-		"\u0142\3\2\2\2\u0144\u0145\3\2\2\2\u0145\u0147\3\2\2\2\u0146\u0140\3\2"+
-		"\2\2\u0146\u0147\3\2\2\2\u0147\u0149\3\2\2\2\u0148\u014a\5(\25\2\u0149"+
-		"\u0148\3\2\2\2\u0149\u014a\3\2\2\2\u014a\u014c\3\2\2\2\u014b\u014d\5."+
-		"\30\2\u014c\u014b\3\2\2\2\u014c\u014d\3\2\2\2\u014d\u014f\3\2\2\2\u014e"+
-		"\u0150\5\62\32\2\u014f\u014e\3\2\2\2\u014f\u0150\3\2\2\2\u0150\u0152\3"+
-		"\2\2\2\u0151\u0153\5 \21\2\u0152\u0151\3\2\2\2\u0152\u0153\3\2\2\2\u0153"+
-		"\u0155\3\2\2\2\u0154\u0156\5\"\22\2\u0155\u0154\3\2\2\2\u0155\u0156\3"+
-		"\2\2\2\u0156\u0158\3\2\2\2\u0157\u0159\5$\23\2\u0158\u0157\3\2\2\2\u0158"+
-		"\u0159\3\2\2\2\u0159\u015b\3\2\2\2\u015a\u015c\5<\37\2\u015b\u015a\3\2"+
-		"\2\2\u015b\u015c\3\2\2\2\u015c\u015e\3\2\2\2\u015d\u015f\5@!\2\u015e\u015d"+
-		"\3\2\2\2\u015e\u015f\3\2\2\2\u015fC\3\2\2\2\u0160\u0161\7\35\2\2\u0161"+
-		"\u0168\5\34\17\2\u0162\u0164\7&\2\2\u0163\u0165\5\26\f\2\u0164\u0163\3"+
-		"\2\2\2\u0165\u0166\3\2\2\2\u0166\u0164\3\2\2\2\u0166\u0167\3\2\2\2\u0167"+
-		"\u0169\3\2\2\2\u0168\u0162\3\2\2\2\u0168\u0169\3\2\2\2\u0169\u016b\3\2"+
-		"\2\2\u016a\u016c\5(\25\2\u016b\u016a\3\2\2\2\u016b\u016c\3\2\2\2\u016c"+
-		"\u016e\3\2\2\2\u016d\u016f\5\62\32\2\u016e\u016d\3\2\2\2\u016e\u016f\3"+
-		"\2\2\2\u016f\u0171\3\2\2\2\u0170\u0172\5 \21\2\u0171\u0170\3\2\2\2\u0171"+
-		"\u0172\3\2\2\2\u0172\u0174\3\2\2\2\u0173\u0175\5\"\22\2\u0174\u0173\3"+
-		"\2\2\2\u0174\u0175\3\2\2\2\u0175\u0177\3\2\2\2\u0176\u0178\5$\23\2\u0177"+
-		"\u0176\3\2\2\2\u0177\u0178\3\2\2\2\u0178\u017a\3\2\2\2\u0179\u017b\5@"+
-		"!\2\u017a\u0179\3\2\2\2\u017a\u017b\3\2\2\2\u017bE\3\2\2\2\u017c\u017d"+
-		"\7.\2\2\u017dG\3\2\2\2\u017e\u017f\7\30\2\2\u017f\u0180\5F$\2\u0180I\3"+
-		"\2\2\2\u0181\u0182\7\36\2\2\u0182\u0183\5\30\r\2\u0183\u018a\5H%\2\u0184"+
-		"\u0186\7&\2\2\u0185\u0187\5\26\f\2\u0186\u0185\3\2\2\2\u0187\u0188\3\2"+
-		"\2\2\u0188\u0186\3\2\2\2\u0188\u0189\3\2\2\2\u0189\u018b\3\2\2\2\u018a"+
-		"\u0184\3\2\2\2\u018a\u018b\3\2\2\2\u018b\u018d\3\2\2\2\u018c\u018e\5 "+
-		"\21\2\u018d\u018c\3\2\2\2\u018d\u018e\3\2\2\2\u018e\u0190\3\2\2\2\u018f"+
-		"\u0191\5\"\22\2\u0190\u018f\3\2\2\2\u0190\u0191\3\2\2\2\u0191\u0193\3"+
-		"\2\2\2\u0192\u0194\5$\23\2\u0193\u0192\3\2\2\2\u0193\u0194\3\2\2\2\u0194"+
-		"\u0196\3\2\2\2\u0195\u0197\5@!\2\u0196\u0195\3\2\2\2\u0196\u0197\3\2\2"+
-		"\2\u0197K\3\2\2\29QYcelz\177\u0088\u008d\u0095\u009d\u00a1\u00ad\u00b7"+
-		"\u00c2\u00d0\u00d5\u00d7\u00e0\u00e8\u00ea\u00f4\u00f9\u0102\u010c\u0117"+
-		"\u011f\u0121\u0126\u0128\u0136\u0144\u0146\u0149\u014c\u014f\u0152\u0155"+
-		"\u0158\u015b\u015e\u0166\u0168\u016b\u016e\u0171\u0174\u0177\u017a\u0188"+
-		"\u018a\u018d\u0190\u0193\u0196";
+		"\t!\4\"\t\"\4#\t#\4$\t$\4%\t%\4&\t&\4\'\t\'\3\2\3\2\3\2\7\2R\n\2\f\2\16"+
+		"\2U\13\2\3\2\3\2\3\3\3\3\3\3\5\3\\\n\3\3\4\3\4\3\5\3\5\3\5\3\5\6\5d\n"+
+		"\5\r\5\16\5e\5\5h\n\5\3\6\3\6\3\6\6\6m\n\6\r\6\16\6n\3\7\3\7\3\b\3\b\3"+
+		"\b\3\b\3\b\3\b\3\b\3\b\7\b{\n\b\f\b\16\b~\13\b\3\b\3\b\5\b\u0082\n\b\3"+
+		"\t\3\t\3\n\3\n\3\n\3\n\3\n\5\n\u008b\n\n\3\13\3\13\3\13\5\13\u0090\n\13"+
+		"\3\f\3\f\3\f\3\f\3\f\3\f\5\f\u0098\n\f\3\f\3\f\3\f\3\f\6\f\u009e\n\f\r"+
+		"\f\16\f\u009f\7\f\u00a2\n\f\f\f\16\f\u00a5\13\f\3\r\3\r\3\r\3\r\3\r\3"+
+		"\r\3\r\3\r\3\r\5\r\u00b0\n\r\3\16\3\16\3\17\3\17\3\17\3\17\3\17\3\17\5"+
+		"\17\u00ba\n\17\3\20\3\20\3\20\3\21\3\21\3\21\3\21\7\21\u00c3\n\21\f\21"+
+		"\16\21\u00c6\13\21\3\22\3\22\3\22\3\23\3\23\3\23\3\24\3\24\3\24\3\25\3"+
+		"\25\3\25\3\25\3\25\5\25\u00d6\n\25\3\25\3\25\3\25\5\25\u00db\n\25\5\25"+
+		"\u00dd\n\25\3\26\3\26\3\26\3\26\3\26\7\26\u00e4\n\26\f\26\16\26\u00e7"+
+		"\13\26\3\26\3\26\3\27\3\27\3\27\7\27\u00ee\n\27\f\27\16\27\u00f1\13\27"+
+		"\3\27\3\27\3\30\3\30\3\30\7\30\u00f8\n\30\f\30\16\30\u00fb\13\30\3\30"+
+		"\3\30\5\30\u00ff\n\30\3\31\3\31\3\31\3\31\3\31\7\31\u0106\n\31\f\31\16"+
+		"\31\u0109\13\31\3\31\3\31\3\32\3\32\3\32\7\32\u0110\n\32\f\32\16\32\u0113"+
+		"\13\32\3\33\3\33\3\33\3\34\3\34\3\34\6\34\u011b\n\34\r\34\16\34\u011c"+
+		"\3\35\3\35\3\35\3\35\6\35\u0123\n\35\r\35\16\35\u0124\5\35\u0127\n\35"+
+		"\3\36\3\36\3\36\7\36\u012c\n\36\f\36\16\36\u012f\13\36\3\36\3\36\3\37"+
+		"\3\37\3\37\3 \3 \3 \3 \7 \u013a\n \f \16 \u013d\13 \3!\3!\3\"\3\"\3\""+
+		"\3#\3#\3#\3#\6#\u0148\n#\r#\16#\u0149\5#\u014c\n#\3#\5#\u014f\n#\3#\5"+
+		"#\u0152\n#\3#\5#\u0155\n#\3#\5#\u0158\n#\3#\5#\u015b\n#\3#\5#\u015e\n"+
+		"#\3#\5#\u0161\n#\3#\5#\u0164\n#\3#\5#\u0167\n#\3$\3$\3$\3$\6$\u016d\n"+
+		"$\r$\16$\u016e\5$\u0171\n$\3$\5$\u0174\n$\3$\5$\u0177\n$\3$\5$\u017a\n"+
+		"$\3$\5$\u017d\n$\3$\5$\u0180\n$\3$\5$\u0183\n$\3%\3%\3&\3&\3&\3\'\3\'"+
+		"\3\'\3\'\3\'\6\'\u018f\n\'\r\'\16\'\u0190\5\'\u0193\n\'\3\'\5\'\u0196"+
+		"\n\'\3\'\5\'\u0199\n\'\3\'\5\'\u019c\n\'\3\'\5\'\u019f\n\'\3\'\2\3\26"+
+		"(\2\4\6\b\n\f\16\20\22\24\26\30\32\34\36 \"$&(*,.\60\62\64\668:<>@BDF"+
+		"HJL\2\5\3\2\6\23\3\2()\3\2\27\27\2\u01b7\2N\3\2\2\2\4[\3\2\2\2\6]\3\2"+
+		"\2\2\bg\3\2\2\2\ni\3\2\2\2\fp\3\2\2\2\16\u0081\3\2\2\2\20\u0083\3\2\2"+
+		"\2\22\u008a\3\2\2\2\24\u008c\3\2\2\2\26\u0097\3\2\2\2\30\u00af\3\2\2\2"+
+		"\32\u00b1\3\2\2\2\34\u00b9\3\2\2\2\36\u00bb\3\2\2\2 \u00be\3\2\2\2\"\u00c7"+
+		"\3\2\2\2$\u00ca\3\2\2\2&\u00cd\3\2\2\2(\u00dc\3\2\2\2*\u00de\3\2\2\2,"+
+		"\u00ea\3\2\2\2.\u00fe\3\2\2\2\60\u0100\3\2\2\2\62\u010c\3\2\2\2\64\u0114"+
+		"\3\2\2\2\66\u0117\3\2\2\28\u011e\3\2\2\2:\u0128\3\2\2\2<\u0132\3\2\2\2"+
+		">\u0135\3\2\2\2@\u013e\3\2\2\2B\u0140\3\2\2\2D\u0143\3\2\2\2F\u0168\3"+
+		"\2\2\2H\u0184\3\2\2\2J\u0186\3\2\2\2L\u0189\3\2\2\2NS\5\4\3\2OP\7\3\2"+
+		"\2PR\5\4\3\2QO\3\2\2\2RU\3\2\2\2SQ\3\2\2\2ST\3\2\2\2TV\3\2\2\2US\3\2\2"+
+		"\2VW\7\2\2\3W\3\3\2\2\2X\\\5D#\2Y\\\5F$\2Z\\\5L\'\2[X\3\2\2\2[Y\3\2\2"+
+		"\2[Z\3\2\2\2\\\5\3\2\2\2]^\7/\2\2^\7\3\2\2\2_h\7/\2\2`c\7/\2\2ab\7\4\2"+
+		"\2bd\7/\2\2ca\3\2\2\2de\3\2\2\2ec\3\2\2\2ef\3\2\2\2fh\3\2\2\2g_\3\2\2"+
+		"\2g`\3\2\2\2h\t\3\2\2\2il\7/\2\2jk\7\5\2\2km\7/\2\2lj\3\2\2\2mn\3\2\2"+
+		"\2nl\3\2\2\2no\3\2\2\2o\13\3\2\2\2pq\t\2\2\2q\r\3\2\2\2r\u0082\7\61\2"+
+		"\2s\u0082\7-\2\2t\u0082\7.\2\2u\u0082\7,\2\2vw\7\24\2\2w|\5\16\b\2xy\7"+
+		"\5\2\2y{\5\16\b\2zx\3\2\2\2{~\3\2\2\2|z\3\2\2\2|}\3\2\2\2}\177\3\2\2\2"+
+		"~|\3\2\2\2\177\u0080\7\25\2\2\u0080\u0082\3\2\2\2\u0081r\3\2\2\2\u0081"+
+		"s\3\2\2\2\u0081t\3\2\2\2\u0081u\3\2\2\2\u0081v\3\2\2\2\u0082\17\3\2\2"+
+		"\2\u0083\u0084\t\3\2\2\u0084\21\3\2\2\2\u0085\u008b\5\16\b\2\u0086\u0087"+
+		"\7\24\2\2\u0087\u0088\58\35\2\u0088\u0089\7\25\2\2\u0089\u008b\3\2\2\2"+
+		"\u008a\u0085\3\2\2\2\u008a\u0086\3\2\2\2\u008b\23\3\2\2\2\u008c\u008d"+
+		"\5\b\5\2\u008d\u008f\5\f\7\2\u008e\u0090\5\22\n\2\u008f\u008e\3\2\2\2"+
+		"\u008f\u0090\3\2\2\2\u0090\25\3\2\2\2\u0091\u0092\b\f\1\2\u0092\u0093"+
+		"\7\24\2\2\u0093\u0094\5\26\f\2\u0094\u0095\7\25\2\2\u0095\u0098\3\2\2"+
+		"\2\u0096\u0098\5\24\13\2\u0097\u0091\3\2\2\2\u0097\u0096\3\2\2\2\u0098"+
+		"\u00a3\3\2\2\2\u0099\u009d\f\4\2\2\u009a\u009b\5\20\t\2\u009b\u009c\5"+
+		"\26\f\2\u009c\u009e\3\2\2\2\u009d\u009a\3\2\2\2\u009e\u009f\3\2\2\2\u009f"+
+		"\u009d\3\2\2\2\u009f\u00a0\3\2\2\2\u00a0\u00a2\3\2\2\2\u00a1\u0099\3\2"+
+		"\2\2\u00a2\u00a5\3\2\2\2\u00a3\u00a1\3\2\2\2\u00a3\u00a4\3\2\2\2\u00a4"+
+		"\27\3\2\2\2\u00a5\u00a3\3\2\2\2\u00a6\u00b0\5\6\4\2\u00a7\u00a8\5\6\4"+
+		"\2\u00a8\u00a9\7\4\2\2\u00a9\u00aa\5\b\5\2\u00aa\u00b0\3\2\2\2\u00ab\u00ac"+
+		"\5\6\4\2\u00ac\u00ad\7\4\2\2\u00ad\u00ae\5\n\6\2\u00ae\u00b0\3\2\2\2\u00af"+
+		"\u00a6\3\2\2\2\u00af\u00a7\3\2\2\2\u00af\u00ab\3\2\2\2\u00b0\31\3\2\2"+
+		"\2\u00b1\u00b2\7 \2\2\u00b2\33\3\2\2\2\u00b3\u00ba\5\30\r\2\u00b4\u00b5"+
+		"\5\32\16\2\u00b5\u00b6\7\24\2\2\u00b6\u00b7\5\34\17\2\u00b7\u00b8\7\25"+
+		"\2\2\u00b8\u00ba\3\2\2\2\u00b9\u00b3\3\2\2\2\u00b9\u00b4\3\2\2\2\u00ba"+
+		"\35\3\2\2\2\u00bb\u00bc\7/\2\2\u00bc\u00bd\7$\2\2\u00bd\37\3\2\2\2\u00be"+
+		"\u00bf\7!\2\2\u00bf\u00c4\5\36\20\2\u00c0\u00c1\7\5\2\2\u00c1\u00c3\5"+
+		"\36\20\2\u00c2\u00c0\3\2\2\2\u00c3\u00c6\3\2\2\2\u00c4\u00c2\3\2\2\2\u00c4"+
+		"\u00c5\3\2\2\2\u00c5!\3\2\2\2\u00c6\u00c4\3\2\2\2\u00c7\u00c8\7\34\2\2"+
+		"\u00c8\u00c9\7-\2\2\u00c9#\3\2\2\2\u00ca\u00cb\7\32\2\2\u00cb\u00cc\7"+
+		"-\2\2\u00cc%\3\2\2\2\u00cd\u00ce\7\33\2\2\u00ce\u00cf\5\16\b\2\u00cf\'"+
+		"\3\2\2\2\u00d0\u00d1\5\6\4\2\u00d1\u00d2\7\4\2\2\u00d2\u00d3\7/\2\2\u00d3"+
+		"\u00d5\5\f\7\2\u00d4\u00d6\5\16\b\2\u00d5\u00d4\3\2\2\2\u00d5\u00d6\3"+
+		"\2\2\2\u00d6\u00dd\3\2\2\2\u00d7\u00d8\7/\2\2\u00d8\u00da\5\f\7\2\u00d9"+
+		"\u00db\5\16\b\2\u00da\u00d9\3\2\2\2\u00da\u00db\3\2\2\2\u00db\u00dd\3"+
+		"\2\2\2\u00dc\u00d0\3\2\2\2\u00dc\u00d7\3\2\2\2\u00dd)\3\2\2\2\u00de\u00df"+
+		"\7%\2\2\u00df\u00e0\7\24\2\2\u00e0\u00e5\5(\25\2\u00e1\u00e2\7\5\2\2\u00e2"+
+		"\u00e4\5(\25\2\u00e3\u00e1\3\2\2\2\u00e4\u00e7\3\2\2\2\u00e5\u00e3\3\2"+
+		"\2\2\u00e5\u00e6\3\2\2\2\u00e6\u00e8\3\2\2\2\u00e7\u00e5\3\2\2\2\u00e8"+
+		"\u00e9\7\25\2\2\u00e9+\3\2\2\2\u00ea\u00ef\7\26\2\2\u00eb\u00ee\n\4\2"+
+		"\2\u00ec\u00ee\5,\27\2\u00ed\u00eb\3\2\2\2\u00ed\u00ec\3\2\2\2\u00ee\u00f1"+
+		"\3\2\2\2\u00ef\u00ed\3\2\2\2\u00ef\u00f0\3\2\2\2\u00f0\u00f2\3\2\2\2\u00f1"+
+		"\u00ef\3\2\2\2\u00f2\u00f3\7\27\2\2\u00f3-\3\2\2\2\u00f4\u00f9\7/\2\2"+
+		"\u00f5\u00f6\7\4\2\2\u00f6\u00f8\7/\2\2\u00f7\u00f5\3\2\2\2\u00f8\u00fb"+
+		"\3\2\2\2\u00f9\u00f7\3\2\2\2\u00f9\u00fa\3\2\2\2\u00fa\u00ff\3\2\2\2\u00fb"+
+		"\u00f9\3\2\2\2\u00fc\u00fd\7/\2\2\u00fd\u00ff\5,\27\2\u00fe\u00f4\3\2"+
+		"\2\2\u00fe\u00fc\3\2\2\2\u00ff/\3\2\2\2\u0100\u0101\7&\2\2\u0101\u0102"+
+		"\7\24\2\2\u0102\u0107\5.\30\2\u0103\u0104\7\5\2\2\u0104\u0106\5.\30\2"+
+		"\u0105\u0103\3\2\2\2\u0106\u0109\3\2\2\2\u0107\u0105\3\2\2\2\u0107\u0108"+
+		"\3\2\2\2\u0108\u010a\3\2\2\2\u0109\u0107\3\2\2\2\u010a\u010b\7\25\2\2"+
+		"\u010b\61\3\2\2\2\u010c\u0111\7/\2\2\u010d\u010e\7\5\2\2\u010e\u0110\7"+
+		"/\2\2\u010f\u010d\3\2\2\2\u0110\u0113\3\2\2\2\u0111\u010f\3\2\2\2\u0111"+
+		"\u0112\3\2\2\2\u0112\63\3\2\2\2\u0113\u0111\3\2\2\2\u0114\u0115\7\"\2"+
+		"\2\u0115\u0116\5\62\32\2\u0116\65\3\2\2\2\u0117\u011a\5\6\4\2\u0118\u0119"+
+		"\7\4\2\2\u0119\u011b\7/\2\2\u011a\u0118\3\2\2\2\u011b\u011c\3\2\2\2\u011c"+
+		"\u011a\3\2\2\2\u011c\u011d\3\2\2\2\u011d\67\3\2\2\2\u011e\u011f\7\35\2"+
+		"\2\u011f\u0126\5\66\34\2\u0120\u0122\7\'\2\2\u0121\u0123\5\26\f\2\u0122"+
+		"\u0121\3\2\2\2\u0123\u0124\3\2\2\2\u0124\u0122\3\2\2\2\u0124\u0125\3\2"+
+		"\2\2\u0125\u0127\3\2\2\2\u0126\u0120\3\2\2\2\u0126\u0127\3\2\2\2\u0127"+
+		"9\3\2\2\2\u0128\u012d\7\26\2\2\u0129\u012c\n\4\2\2\u012a\u012c\5:\36\2"+
+		"\u012b\u0129\3\2\2\2\u012b\u012a\3\2\2\2\u012c\u012f\3\2\2\2\u012d\u012b"+
+		"\3\2\2\2\u012d\u012e\3\2\2\2\u012e\u0130\3\2\2\2\u012f\u012d\3\2\2\2\u0130"+
+		"\u0131\7\27\2\2\u0131;\3\2\2\2\u0132\u0133\7/\2\2\u0133\u0134\5:\36\2"+
+		"\u0134=\3\2\2\2\u0135\u0136\7\31\2\2\u0136\u013b\5<\37\2\u0137\u0138\7"+
+		"\5\2\2\u0138\u013a\5<\37\2\u0139\u0137\3\2\2\2\u013a\u013d\3\2\2\2\u013b"+
+		"\u0139\3\2\2\2\u013b\u013c\3\2\2\2\u013c?\3\2\2\2\u013d\u013b\3\2\2\2"+
+		"\u013e\u013f\7\61\2\2\u013fA\3\2\2\2\u0140\u0141\7#\2\2\u0141\u0142\5"+
+		"@!\2\u0142C\3\2\2\2\u0143\u0144\7\35\2\2\u0144\u014b\5\34\17\2\u0145\u0147"+
+		"\7\'\2\2\u0146\u0148\5\26\f\2\u0147\u0146\3\2\2\2\u0148\u0149\3\2\2\2"+
+		"\u0149\u0147\3\2\2\2\u0149\u014a\3\2\2\2\u014a\u014c\3\2\2\2\u014b\u0145"+
+		"\3\2\2\2\u014b\u014c\3\2\2\2\u014c\u014e\3\2\2\2\u014d\u014f\5*\26\2\u014e"+
+		"\u014d\3\2\2\2\u014e\u014f\3\2\2\2\u014f\u0151\3\2\2\2\u0150\u0152\5\60"+
+		"\31\2\u0151\u0150\3\2\2\2\u0151\u0152\3\2\2\2\u0152\u0154\3\2\2\2\u0153"+
+		"\u0155\5\64\33\2\u0154\u0153\3\2\2\2\u0154\u0155\3\2\2\2\u0155\u0157\3"+
+		"\2\2\2\u0156\u0158\5 \21\2\u0157\u0156\3\2\2\2\u0157\u0158\3\2\2\2\u0158"+
+		"\u015a\3\2\2\2\u0159\u015b\5\"\22\2\u015a\u0159\3\2\2\2\u015a\u015b\3"+
+		"\2\2\2\u015b\u015d\3\2\2\2\u015c\u015e\5&\24\2\u015d\u015c\3\2\2\2\u015d"+
+		"\u015e\3\2\2\2\u015e\u0160\3\2\2\2\u015f\u0161\5$\23\2\u0160\u015f\3\2"+
+		"\2\2\u0160\u0161\3\2\2\2\u0161\u0163\3\2\2\2\u0162\u0164\5> \2\u0163\u0162"+
+		"\3\2\2\2\u0163\u0164\3\2\2\2\u0164\u0166\3\2\2\2\u0165\u0167\5B\"\2\u0166"+
+		"\u0165\3\2\2\2\u0166\u0167\3\2\2\2\u0167E\3\2\2\2\u0168\u0169\7\36\2\2"+
+		"\u0169\u0170\5\34\17\2\u016a\u016c\7\'\2\2\u016b\u016d\5\26\f\2\u016c"+
+		"\u016b\3\2\2\2\u016d\u016e\3\2\2\2\u016e\u016c\3\2\2\2\u016e\u016f\3\2"+
+		"\2\2\u016f\u0171\3\2\2\2\u0170\u016a\3\2\2\2\u0170\u0171\3\2\2\2\u0171"+
+		"\u0173\3\2\2\2\u0172\u0174\5*\26\2\u0173\u0172\3\2\2\2\u0173\u0174\3\2"+
+		"\2\2\u0174\u0176\3\2\2\2\u0175\u0177\5\64\33\2\u0176\u0175\3\2\2\2\u0176"+
+		"\u0177\3\2\2\2\u0177\u0179\3\2\2\2\u0178\u017a\5 \21\2\u0179\u0178\3\2"+
+		"\2\2\u0179\u017a\3\2\2\2\u017a\u017c\3\2\2\2\u017b\u017d\5\"\22\2\u017c"+
+		"\u017b\3\2\2\2\u017c\u017d\3\2\2\2\u017d\u017f\3\2\2\2\u017e\u0180\5$"+
+		"\23\2\u017f\u017e\3\2\2\2\u017f\u0180\3\2\2\2\u0180\u0182\3\2\2\2\u0181"+
+		"\u0183\5B\"\2\u0182\u0181\3\2\2\2\u0182\u0183\3\2\2\2\u0183G\3\2\2\2\u0184"+
+		"\u0185\7/\2\2\u0185I\3\2\2\2\u0186\u0187\7\30\2\2\u0187\u0188\5H%\2\u0188"+
+		"K\3\2\2\2\u0189\u018a\7\37\2\2\u018a\u018b\5\30\r\2\u018b\u0192\5J&\2"+
+		"\u018c\u018e\7\'\2\2\u018d\u018f\5\26\f\2\u018e\u018d\3\2\2\2\u018f\u0190"+
+		"\3\2\2\2\u0190\u018e\3\2\2\2\u0190\u0191\3\2\2\2\u0191\u0193\3\2\2\2\u0192"+
+		"\u018c\3\2\2\2\u0192\u0193\3\2\2\2\u0193\u0195\3\2\2\2\u0194\u0196\5 "+
+		"\21\2\u0195\u0194\3\2\2\2\u0195\u0196\3\2\2\2\u0196\u0198\3\2\2\2\u0197"+
+		"\u0199\5\"\22\2\u0198\u0197\3\2\2\2\u0198\u0199\3\2\2\2\u0199\u019b\3"+
+		"\2\2\2\u019a\u019c\5$\23\2\u019b\u019a\3\2\2\2\u019b\u019c\3\2\2\2\u019c"+
+		"\u019e\3\2\2\2\u019d\u019f\5B\"\2\u019e\u019d\3\2\2\2\u019e\u019f\3\2"+
+		"\2\2\u019fM\3\2\2\2:S[egn|\u0081\u008a\u008f\u0097\u009f\u00a3\u00af\u00b9"+
+		"\u00c4\u00d5\u00da\u00dc\u00e5\u00ed\u00ef\u00f9\u00fe\u0107\u0111\u011c"+
+		"\u0124\u0126\u012b\u012d\u013b\u0149\u014b\u014e\u0151\u0154\u0157\u015a"+
+		"\u015d\u0160\u0163\u0166\u016e\u0170\u0173\u0176\u0179\u017c\u017f\u0182"+
+		"\u0190\u0192\u0195\u0198\u019b\u019e";
 	public static final ATN _ATN =
 		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
 	static {
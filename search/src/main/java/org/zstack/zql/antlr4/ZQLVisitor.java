@@ -181,6 +181,12 @@ public interface ZQLVisitor<T> extends ParseTreeVisitor<T> {
 	 * @return the visitor result
 	 */
 	T visitOffset(ZQLParser.OffsetContext ctx);
+	/**
+	 * Visit a parse tree produced by {@link ZQLParser#after}.
+	 * @param ctx the parse tree
+	 * @return the visitor result
+	 */
+	T visitAfter(ZQLParser.AfterContext ctx);
 	/**
 	 * Visit a parse tree produced by {@link ZQLParser#restrictByExpr}.
 	 * @param ctx the parse tree
@@ -0,0 +1,14 @@
+package org.zstack.zql.ast.parser.visitors;
+
+import org.zstack.header.zql.ASTNode;
+import org.zstack.zql.antlr4.ZQLBaseVisitor;
+import org.zstack.zql.antlr4.ZQLParser;
+
+public class AfterVisitor extends ZQLBaseVisitor<ASTNode.After> {
+    @Override
+    public ASTNode.After visitAfter(ZQLParser.AfterContext ctx) {
+        ASTNode.After a = new ASTNode.After();
+        a.setValue(ctx.value().accept(new ValueVisitor()));
+        return a;
+    }
+}
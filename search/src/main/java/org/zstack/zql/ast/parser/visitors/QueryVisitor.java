@@ -17,6 +17,7 @@ public class QueryVisitor extends ZQLBaseVisitor<ASTNode.Query> {
         q.setRestrictBy(ctx.restrictBy() == null ? null : ctx.restrictBy().accept(new RestrictByVisitor()));
         q.setOrderBy(ctx.orderBy() == null ? null : ctx.orderBy().accept(new OrderByVisitor()));
         q.setLimit(ctx.limit() == null ? null : ctx.limit().accept(new LimitVisitor()));
+        q.setAfter(ctx.after() == null ? null : ctx.after().accept(new AfterVisitor()));
         q.setOffset(ctx.offset() == null ? null : ctx.offset().accept(new OffsetVisitor()));
         q.setGroupBy(ctx.groupBy() == null ? null : ctx.groupBy().accept(new GroupByVisitor()));
         q.setName(ctx.namedAs() == null ? null : ctx.namedAs().accept(new NamedAsVisitor()));
@@ -154,10 +154,9 @@ public class QueryVisitor implements ASTVisitor<QueryResult, ASTNode.Query> {
         }
 
         if (countQuery || ret.returnWith != null && ret.returnWith.stream().anyMatch(it->it.name.equals("total"))) {
-            ret.createSimpleCountQuery = (EntityManager emgr) -> {
-                SQLText cst = makeSQL(node, QueryVisitorPlugin.ClauseType.SIMPLE_COUNT);
-                return emgr.createQuery(cst.jpql);
-            };
+            // build the text here, the count query may be executed in another thread without ZQLContext
+            SQLText cst = makeSQL(node, QueryVisitorPlugin.ClauseType.SIMPLE_COUNT);
+            ret.createSimpleCountQuery = (EntityManager emgr) -> emgr.createQuery(cst.jpql);
         }
 
         if (countQuery) {
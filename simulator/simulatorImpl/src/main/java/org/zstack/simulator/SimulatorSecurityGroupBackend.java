@@ -63,6 +63,35 @@ public class SimulatorSecurityGroupBackend implements
 		complete.success();
 	}
 
+	@Override
+	public void applyRuleDeltas(HostRuleTO hto, Completion complete) {
+		logger.debug(String.format("apply deltas of security rules to simulator host[uuid:%s]:\n%s", hto.getHostUuid(), JSONObjectUtil.toJsonString(hto.getRules())));
+		if (!securityGroupSuccess) {
+		    ErrorCode errorCode = operr("on purpose");
+		    complete.fail(errorCode);
+		    return;
+		}
+
+		for (SecurityGroupRuleTO delta : hto.getRules()) {
+		    SecurityGroupRuleTO to = getRulesOnHost(hto.getHostUuid(), delta.getVmNicInternalName());
+		    if (to == null) {
+		        // the nic has no rules on the host, let the host be refreshed
+		        complete.fail(operr("no rules of vm nic[%s] on simulator host[uuid:%s]", delta.getVmNicInternalName(), hto.getHostUuid()));
+		        return;
+		    }
+
+		    List<String> deltaRules = new ArrayList<String>();
+		    for (RuleTO r : delta.getRules()) {
+		        deltaRules.add(r.toString());
+		    }
+		    to.getRules().removeIf(r -> deltaRules.contains(r.toString()));
+		    if (SecurityGroupRuleTO.ACTION_CODE_ADD_RULES.equals(delta.getActionCode())) {
+		        to.getRules().addAll(delta.getRules());
+		    }
+		}
+		complete.success();
+	}
+
     @Override
     public void checkDefaultRules(String hostUuid, Completion completion) {
         completion.success();
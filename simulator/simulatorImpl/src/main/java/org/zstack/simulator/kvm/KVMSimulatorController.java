@@ -13,6 +13,7 @@ import org.zstack.kvm.KVMAgentCommands.*;
 import org.zstack.kvm.KVMConstant;
 import org.zstack.kvm.KVMConstant.KvmVmState;
 import org.zstack.kvm.KVMSecurityGroupBackend;
+import org.zstack.network.securitygroup.RuleTO;
 import org.zstack.network.securitygroup.SecurityGroupRuleTO;
 import org.zstack.simulator.AsyncRESTReplyer;
 import org.zstack.utils.Utils;
@@ -22,7 +23,9 @@ import org.zstack.utils.logging.CLogger;
 import javax.servlet.http.HttpServletRequest;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class KVMSimulatorController {
     private static final CLogger logger = Utils.getLogger(KVMSimulatorController.class);
@@ -318,6 +321,75 @@ public class KVMSimulatorController {
         reply(entity, rsp);
     }
 
+    @RequestMapping(value=KVMSecurityGroupBackend.SECURITY_GROUP_APPLY_RULE_DELTAS_PATH, method=RequestMethod.POST)
+    private @ResponseBody String applySecurityGroupRuleDeltas(HttpServletRequest req) throws InterruptedException {
+        HttpEntity<String> entity = restf.httpServletRequestToHttpEntity(req);
+        doApplySecurityGroupRuleDeltas(entity);
+        return null;
+    }
+
+    private static boolean isSameRule(RuleTO r1, RuleTO r2) {
+        return Objects.equals(r1.getType(), r2.getType()) && Objects.equals(r1.getProtocol(), r2.getProtocol())
+                && r1.getStartPort() == r2.getStartPort() && r1.getEndPort() == r2.getEndPort()
+                && Objects.equals(r1.getAllowedCidr(), r2.getAllowedCidr())
+                && Objects.equals(r1.getSecurityGroupUuid(), r2.getSecurityGroupUuid())
+                && Objects.equals(r1.getRemoteGroupUuid(), r2.getRemoteGroupUuid());
+    }
+
+    private static void applyRuleDeltas(List<RuleTO> rules, List<RuleTO> deltas, String actionCode) {
+        if (deltas == null) {
+            return;
+        }
+
+        for (RuleTO delta : deltas) {
+            rules.removeIf(r -> isSameRule(r, delta));
+            if (SecurityGroupRuleTO.ACTION_CODE_ADD_RULES.equals(actionCode)) {
+                rules.add(delta);
+            }
+        }
+    }
+
+    @AsyncThread
+    private void doApplySecurityGroupRuleDeltas(HttpEntity<String> entity) {
+        ApplySecurityGroupRuleDeltasCmd cmd = JSONObjectUtil.toObject(entity.getBody(), ApplySecurityGroupRuleDeltasCmd.class);
+        ApplySecurityGroupRuleDeltasResponse rsp = new ApplySecurityGroupRuleDeltasResponse();
+        if (!config.securityGroupSuccess) {
+            rsp.setError("fail to apply deltas of security group rules on purpose");
+            rsp.setSuccess(false);
+        } else {
+            List<SecurityGroupRuleTO> deltas = new ArrayList<>();
+            if (cmd.getRuleTOs() != null) {
+                deltas.addAll(cmd.getRuleTOs());
+            }
+            if (cmd.getIpv6RuleTOs() != null) {
+                deltas.addAll(cmd.getIpv6RuleTOs());
+            }
+
+            for (SecurityGroupRuleTO delta : deltas) {
+                SecurityGroupRuleTO rto = config.securityGroups.get(delta.getVmNicInternalName());
+                if (rto == null) {
+                    rto = new SecurityGroupRuleTO();
+                    rto.setVmNicUuid(delta.getVmNicUuid());
+                    rto.setVmNicInternalName(delta.getVmNicInternalName());
+                    rto.setVmNicMac(delta.getVmNicMac());
+                    rto.setIpVersion(delta.getIpVersion());
+                    config.securityGroups.put(rto.getVmNicInternalName(), rto);
+                }
+                if (rto.getRules() == null) {
+                    rto.setRules(new ArrayList<>());
+                }
+                if (rto.getSecurityGroupBaseRules() == null) {
+                    rto.setSecurityGroupBaseRules(new ArrayList<>());
+                }
+
+                applyRuleDeltas(rto.getRules(), delta.getRules(), delta.getActionCode());
+                applyRuleDeltas(rto.getSecurityGroupBaseRules(), delta.getSecurityGroupBaseRules(), delta.getActionCode());
+                logger.debug(String.format("successfully applied deltas of security group rules for vm nic[%s], %s", delta.getVmNicInternalName(), delta));
+            }
+        }
+        reply(entity, rsp);
+    }
+
     @AsyncThread
     private void doDetachDataVolume(HttpEntity<String> entity) {
         DetachDataVolumeCmd cmd = JSONObjectUtil.toObject(entity.getBody(), DetachDataVolumeCmd.class);
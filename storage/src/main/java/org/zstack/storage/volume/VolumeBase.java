@@ -46,6 +46,7 @@ import org.zstack.header.volume.*;
 import org.zstack.header.volume.VolumeConstant.Capability;
 import org.zstack.header.volume.VolumeDeletionPolicyManager.VolumeDeletionPolicy;
 import org.zstack.identity.AccountManager;
+import org.zstack.resourceconfig.ResourceConfigFacade;
 import org.zstack.storage.snapshot.group.VolumeSnapshotGroupCreationValidator;
 import org.zstack.tag.SystemTagCreator;
 import org.zstack.tag.TagManager;
@@ -92,6 +93,8 @@ public class VolumeBase implements Volume {
     private PluginRegistry pluginRgty;
     @Autowired
     private VolumeDeletionPolicyManager deletionPolicyMgr;
+    @Autowired
+    private ResourceConfigFacade rcf;
 
     public VolumeBase(VolumeVO vo) {
         self = vo;
@@ -1155,6 +1158,11 @@ public class VolumeBase implements Volume {
                         flush();
                     }
                 }.execute();
+
+                if (!Objects.equals(volume.getPrimaryStorageUuid(), transientVolume.getPrimaryStorageUuid())) {
+                    rcf.resourceReparented(volume.getUuid());
+                    rcf.resourceReparented(transientVolume.getUuid());
+                }
                 trigger.next();
             }
         }).then(new NoRollbackFlow() {
@@ -9,9 +9,7 @@ import org.zstack.header.tag.SystemTagVO;
 import org.zstack.header.tag.SystemTagVO_;
 import org.zstack.utils.TagUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import static org.zstack.utils.StringDSL.s;
 
@@ -78,6 +76,12 @@ public class PatternedSystemTag extends SystemTag {
     }
 
     public Map<String, String> getTokensByResourceUuid(String resourceUuid, Class resourceClass) {
+        SystemTagIndex index = getIndex();
+        if (index != null) {
+            List<SystemTagIndex.Row> rows = filterRows(index.getRows(resourceUuid), resourceClass);
+            return rows.isEmpty() ? null : rows.get(0).getTokens(tagFormat);
+        }
+
         String tag = getTag(resourceUuid, resourceClass);
         if (tag == null) {
             return null;
@@ -93,6 +97,12 @@ public class PatternedSystemTag extends SystemTag {
     public List<Map<String, String>> getTokensOfTagsByResourceUuid(String resourceUuid, Class resourceClass) {
         List<Map<String, String>> res = new ArrayList<>();
 
+        SystemTagIndex index = getIndex();
+        if (index != null) {
+            filterRows(index.getRows(resourceUuid), resourceClass).forEach(row -> res.add(row.getTokens(tagFormat)));
+            return res;
+        }
+
         List<String> tags = getTags(resourceUuid, resourceClass);
         for (String tag : tags) {
             res.add(TagUtils.parseIfMatch(tagFormat, tag));
@@ -117,6 +127,41 @@ public class PatternedSystemTag extends SystemTag {
         return getTokenByResourceUuid(resourceUuid, resourceClass, tokenName);
     }
 
+    /**
+     * getTokensByResourceUuid() of many resources in one query, resources without
+     * the tag are not in the returned map
+     */
+    public Map<String, Map<String, String>> getTokensByResourceUuids(Collection<String> resourceUuids) {
+        Map<String, Map<String, String>> ret = new HashMap<>();
+        if (resourceUuids.isEmpty()) {
+            return ret;
+        }
+
+        SystemTagIndex index = getIndex();
+        if (index != null) {
+            index.getRows(resourceUuids).forEach((uuid, rows) -> {
+                List<SystemTagIndex.Row> matched = filterRows(rows, resourceClass);
+                if (!matched.isEmpty()) {
+                    ret.put(uuid, matched.get(0).getTokens(tagFormat));
+                }
+            });
+            return ret;
+        }
+
+        getTags(resourceUuids, resourceClass).forEach((uuid, tags) -> ret.put(uuid, TagUtils.parseIfMatch(tagFormat, tags.get(0))));
+        return ret;
+    }
+
+    public Map<String, String> getTokenByResourceUuids(Collection<String> resourceUuids, String tokenName) {
+        Map<String, String> ret = new HashMap<>();
+        getTokensByResourceUuids(resourceUuids).forEach((uuid, tokens) -> {
+            if (tokens != null && tokens.get(tokenName) != null) {
+                ret.put(uuid, tokens.get(tokenName));
+            }
+        });
+        return ret;
+    }
+
     public String instantiateTag(Map tokens) {
         return s(tagFormat).formatByMap(tokens);
     }
@@ -158,6 +203,7 @@ public class PatternedSystemTag extends SystemTag {
         svo.setResourceType(dstResourceClass.getSimpleName());
         svo.setTag(getTag(srcUuid, srcResourceClass));
         dbf.persistAndRefresh(svo);
+        tagMgr.tagIndex.invalidate(Collections.singletonList(dstUuid));
     }
 
     public boolean updateTagByToken(String resourceUuid, String tokenName, String newTag) {
@@ -174,6 +220,7 @@ public class PatternedSystemTag extends SystemTag {
 
         vo.setTag(vo.getTag().replace(oldTag, newTag));
         dbf.updateAndRefresh(vo);
+        tagMgr.tagIndex.invalidate(Collections.singletonList(resourceUuid));
 
         return true;
     }
@@ -108,11 +108,37 @@ public class SystemTag {
         return Op.EQ;
     }
 
+    SystemTagIndex getIndex() {
+        return tagMgr != null && tagMgr.tagIndex.canServe() ? tagMgr.tagIndex : null;
+    }
+
+    /**
+     * tags of the resource class matching the condition the queries here put on
+     * SystemTagVO.tag, in their order
+     */
+    List<SystemTagIndex.Row> filterRows(List<SystemTagIndex.Row> rows, Class resourceClass) {
+        String fmt = useTagFormat();
+        boolean like = useOp() == Op.LIKE;
+        List<SystemTagIndex.Row> ret = new ArrayList<>();
+        for (SystemTagIndex.Row row : rows) {
+            if (resourceClass.getSimpleName().equals(row.resourceType) &&
+                    (like ? SystemTagIndex.like(fmt, row.tag) : fmt.equalsIgnoreCase(row.tag))) {
+                ret.add(row);
+            }
+        }
+        return ret;
+    }
+
     public boolean hasTag(String resourceUuid) {
         return hasTag(resourceUuid, resourceClass);
     }
 
     public boolean hasTag(String resourceUuid, Class resourceClass) {
+        SystemTagIndex index = getIndex();
+        if (index != null) {
+            return !filterRows(index.getRows(resourceUuid), resourceClass).isEmpty();
+        }
+
         SimpleQuery<SystemTagVO> q = dbf.createQuery(SystemTagVO.class);
         q.add(SystemTagVO_.resourceType, Op.EQ, resourceClass.getSimpleName());
         q.add(SystemTagVO_.resourceUuid, Op.EQ, resourceUuid);
@@ -125,6 +151,17 @@ public class SystemTag {
             return new ArrayList<>();
         }
 
+        SystemTagIndex index = getIndex();
+        if (index != null) {
+            List<String> ret = new ArrayList<>();
+            index.getRows(resourceUuids).forEach((uuid, rows) -> {
+                if (!filterRows(rows, resourceClass).isEmpty()) {
+                    ret.add(uuid);
+                }
+            });
+            return ret;
+        }
+
         SimpleQuery<SystemTagVO> q = dbf.createQuery(SystemTagVO.class);
         q.add(SystemTagVO_.resourceType, Op.EQ, resourceClass.getSimpleName());
         q.add(SystemTagVO_.resourceUuid, Op.IN, resourceUuids);
@@ -151,6 +188,13 @@ public class SystemTag {
     }
 
     public List<String> getTags(String resourceUuid, Class resourceClass) {
+        SystemTagIndex index = getIndex();
+        if (index != null) {
+            List<String> ret = new ArrayList<>();
+            filterRows(index.getRows(resourceUuid), resourceClass).forEach(row -> ret.add(row.tag));
+            return ret;
+        }
+
         SimpleQuery<SystemTagVO> q = dbf.createQuery(SystemTagVO.class);
         q.select(SystemTagVO_.tag);
         q.add(SystemTagVO_.resourceType, Op.EQ, resourceClass.getSimpleName());
@@ -176,6 +220,19 @@ public class SystemTag {
     }
 
     public Map<String, List<String>> getTags(Collection<String> resourceUuids, Class resourceClass) {
+        SystemTagIndex index = getIndex();
+        if (index != null) {
+            Map<String, List<String>> ret = new HashMap<>();
+            index.getRows(resourceUuids).forEach((uuid, rows) -> {
+                List<String> tags = new ArrayList<>();
+                filterRows(rows, resourceClass).forEach(row -> tags.add(row.tag));
+                if (!tags.isEmpty()) {
+                    ret.put(uuid, tags);
+                }
+            });
+            return ret;
+        }
+
         SimpleQuery<SystemTagVO> q = dbf.createQuery(SystemTagVO.class);
         q.select(SystemTagVO_.tag, SystemTagVO_.resourceUuid);
         q.add(SystemTagVO_.resourceType, Op.EQ, resourceClass.getSimpleName());
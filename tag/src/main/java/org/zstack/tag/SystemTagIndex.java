@@ -0,0 +1,286 @@
+package org.zstack.tag;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.zstack.core.cloudbus.EventCallback;
+import org.zstack.core.cloudbus.EventFacade;
+import org.zstack.core.db.SQL;
+import org.zstack.utils.TagUtils;
+import org.zstack.utils.Utils;
+import org.zstack.utils.gson.JSONObjectUtil;
+import org.zstack.utils.logging.CLogger;
+
+import javax.persistence.Tuple;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * System tags of resources, loaded with one query for a batch of resources and kept
+ * per resource uuid, with the tokens of a tag parsed once per tag format. SystemTag
+ * serves lookups by resource uuid from it when SystemTag.indexTTL is greater than 0.
+ *
+ * The tags of a resource are dropped when they are created, updated or deleted through
+ * TagManager, on this management node or on others. Changes made by plain SQL, like the
+ * cascade of a resource deletion, are seen after SystemTag.indexTTL
+ */
+class SystemTagIndex {
+    private static final CLogger logger = Utils.getLogger(SystemTagIndex.class);
+
+    static final String INVALIDATION_CANONICAL_EVENT_PATH = "/systemtag/index/invalidation";
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final Map<String, String> NOT_MATCHED = Collections.emptyMap();
+
+    static class Row {
+        final String resourceType;
+        final String tag;
+        // tag format -> tokens
+        private final Map<String, Map<String, String>> tokens = new ConcurrentHashMap<>();
+
+        Row(String resourceType, String tag) {
+            this.resourceType = resourceType;
+            this.tag = tag;
+        }
+
+        Map<String, String> getTokens(String tagFormat) {
+            Map<String, String> ret = tokens.computeIfAbsent(tagFormat, fmt -> {
+                Map<String, String> t = TagUtils.parseIfMatch(fmt, tag);
+                return t == null ? NOT_MATCHED : Collections.unmodifiableMap(t);
+            });
+
+            // callers of TagUtils.parseIfMatch() may change the map they get
+            return ret == NOT_MATCHED ? null : new HashMap<>(ret);
+        }
+    }
+
+    private static class Entry {
+        final List<Row> rows;
+        final long expiredAt;
+
+        Entry(List<Row> rows, long expiredAt) {
+            this.rows = rows;
+            this.expiredAt = expiredAt;
+        }
+    }
+
+    public static class InvalidationData {
+        // null for all resources
+        public List<String> resourceUuids;
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private EventFacade evtf;
+
+    // invalidations made in a transaction, repeated after it completes and published to other nodes
+    private class PendingInvalidations extends TransactionSynchronizationAdapter {
+        final Set<String> resourceUuids = new HashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            drop(resourceUuids);
+            if (status == STATUS_COMMITTED) {
+                publish(new ArrayList<>(resourceUuids));
+            }
+        }
+    }
+
+    /**
+     * the index only holds committed tags, lookups in a transaction go to the database
+     */
+    boolean canServe() {
+        return TagGlobalProperty.SYSTEM_TAG_INDEX_TTL > 0 && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    List<Row> getRows(String resourceUuid) {
+        return getRows(Collections.singletonList(resourceUuid)).get(resourceUuid);
+    }
+
+    /**
+     * @return tags of every resource in resourceUuids, an empty list for resources without tags
+     */
+    Map<String, List<Row>> getRows(Collection<String> resourceUuids) {
+        Map<String, List<Row>> ret = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String uuid : resourceUuids) {
+            Entry e = entries.get(uuid);
+            if (e != null && e.expiredAt > now) {
+                ret.put(uuid, e.rows);
+            } else if (!ret.containsKey(uuid)) {
+                ret.put(uuid, null);
+                misses.add(uuid);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return ret;
+        }
+
+        long gen = generation.get();
+        Map<String, List<Row>> loaded = load(misses);
+        long expiredAt = now + TimeUnit.SECONDS.toMillis(TagGlobalProperty.SYSTEM_TAG_INDEX_TTL);
+        synchronized (this) {
+            // tags loaded before an invalidation may be stale and are not kept
+            boolean cacheable = gen == generation.get();
+            for (String uuid : misses) {
+                List<Row> rows = loaded.getOrDefault(uuid, Collections.emptyList());
+                ret.put(uuid, rows);
+
+                if (cacheable) {
+                    if (entries.size() >= TagGlobalProperty.SYSTEM_TAG_INDEX_SIZE) {
+                        entries.clear();
+                    }
+                    entries.put(uuid, new Entry(rows, expiredAt));
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private Map<String, List<Row>> load(List<String> resourceUuids) {
+        Map<String, List<Row>> ret = new HashMap<>();
+        for (int i = 0; i < resourceUuids.size(); i += LOAD_BATCH_SIZE) {
+            List<String> batch = resourceUuids.subList(i, Math.min(i + LOAD_BATCH_SIZE, resourceUuids.size()));
+            List<Tuple> ts = SQL.New("select t.resourceUuid, t.resourceType, t.tag from SystemTagVO t" +
+                    " where t.resourceUuid in (:uuids)", Tuple.class)
+                    .param("uuids", batch)
+                    .list();
+
+            for (Tuple t : ts) {
+                ret.computeIfAbsent(t.get(0, String.class), k -> new ArrayList<>())
+                        .add(new Row(t.get(1, String.class), t.get(2, String.class)));
+            }
+        }
+
+        return ret;
+    }
+
+    private synchronized void drop(Collection<String> resourceUuids) {
+        generation.incrementAndGet();
+        if (resourceUuids == null) {
+            entries.clear();
+        } else {
+            resourceUuids.forEach(entries::remove);
+        }
+    }
+
+    void invalidate(Collection<String> resourceUuids) {
+        if (resourceUuids.isEmpty()) {
+            return;
+        }
+
+        drop(resourceUuids);
+
+        PendingInvalidations p = getPendingInvalidations();
+        if (p != null) {
+            p.resourceUuids.addAll(resourceUuids);
+        } else {
+            publish(new ArrayList<>(resourceUuids));
+        }
+    }
+
+    private PendingInvalidations getPendingInvalidations() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            if (s instanceof PendingInvalidations) {
+                return (PendingInvalidations) s;
+            }
+        }
+
+        PendingInvalidations p = new PendingInvalidations();
+        TransactionSynchronizationManager.registerSynchronization(p);
+        return p;
+    }
+
+    private void publish(List<String> resourceUuids) {
+        if (evtf == null || TagGlobalProperty.SYSTEM_TAG_INDEX_TTL <= 0 || resourceUuids.isEmpty()) {
+            return;
+        }
+
+        InvalidationData data = new InvalidationData();
+        data.resourceUuids = resourceUuids;
+        try {
+            evtf.fire(INVALIDATION_CANONICAL_EVENT_PATH, JSONObjectUtil.toJsonString(data));
+        } catch (Throwable t) {
+            // entries on other nodes still expire by SystemTag.indexTTL
+            logger.warn("unable to publish system tag index invalidation", t);
+        }
+    }
+
+    void start(EventFacade evtf) {
+        if (TagGlobalProperty.SYSTEM_TAG_INDEX_TTL <= 0) {
+            return;
+        }
+
+        this.evtf = evtf;
+        evtf.on(INVALIDATION_CANONICAL_EVENT_PATH, new EventCallback() {
+            @Override
+            protected void run(Map tokens, Object data) {
+                if (evtf.isFromThisManagementNode(tokens)) {
+                    return;
+                }
+
+                drop(JSONObjectUtil.toObject((String) data, InvalidationData.class).resourceUuids);
+            }
+        });
+    }
+
+    /**
+     * in memory version of the SQL LIKE the tag queries use, case insensitive
+     * like the collation of SystemTagVO.tag
+     */
+    static boolean like(String pattern, String s) {
+        return like(pattern, 0, s, 0);
+    }
+
+    private static boolean like(String p, int pi, String s, int si) {
+        while (pi < p.length()) {
+            char c = p.charAt(pi);
+            if (c == '%') {
+                while (pi < p.length() && p.charAt(pi) == '%') {
+                    pi++;
+                }
+
+                if (pi == p.length()) {
+                    return true;
+                }
+
+                for (int i = si; i <= s.length(); i++) {
+                    if (like(p, pi, s, i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            if (si == s.length()) {
+                return false;
+            }
+
+            if (c == '\\' && pi + 1 < p.length()) {
+                c = p.charAt(++pi);
+            } else if (c == '_') {
+                pi++;
+                si++;
+                continue;
+            }
+
+            if (Character.toLowerCase(c) != Character.toLowerCase(s.charAt(si))) {
+                return false;
+            }
+
+            pi++;
+            si++;
+        }
+
+        return si == s.length();
+    }
+}
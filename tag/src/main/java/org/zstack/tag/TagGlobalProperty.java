@@ -0,0 +1,13 @@
+package org.zstack.tag;
+
+import org.zstack.core.GlobalProperty;
+import org.zstack.core.GlobalPropertyDefinition;
+
+@GlobalPropertyDefinition
+public class TagGlobalProperty {
+    // 0 disables the index, system tags are then always read from the database
+    @GlobalProperty(name="SystemTag.indexTTL", defaultValue = "0")
+    public static int SYSTEM_TAG_INDEX_TTL;
+    @GlobalProperty(name="SystemTag.indexSize", defaultValue = "100000")
+    public static int SYSTEM_TAG_INDEX_SIZE;
+}
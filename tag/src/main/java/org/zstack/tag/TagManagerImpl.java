@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 import org.zstack.core.Platform;
 import org.zstack.core.cloudbus.CloudBus;
+import org.zstack.core.cloudbus.EventFacade;
 import org.zstack.core.cloudbus.MessageSafe;
 import org.zstack.core.componentloader.PluginRegistry;
 import org.zstack.core.db.*;
@@ -55,6 +56,10 @@ public class TagManagerImpl extends AbstractService implements TagManager,
     protected ErrorFacade errf;
     @Autowired
     private PluginRegistry pluginRgty;
+    @Autowired
+    private EventFacade evtf;
+
+    final SystemTagIndex tagIndex = new SystemTagIndex();
 
     private List<SystemTag> systemTags = new ArrayList<>();
     private List<SystemTag> adminOnlySystemTags = new ArrayList<>();
@@ -369,6 +374,8 @@ public class TagManagerImpl extends AbstractService implements TagManager,
             ntag.setResourceUuid(dstResourceUuid);
             dbf.getEntityManager().persist(ntag);
         }
+
+        tagIndex.invalidate(list(dstResourceUuid));
     }
 
     @Override
@@ -490,7 +497,14 @@ public class TagManagerImpl extends AbstractService implements TagManager,
         deleteSystemTag(tag, resourceUuid, resourceType, inherit, true);
     }
 
+    private void invalidateTagIndex(List<SystemTagInventory> tags) {
+        Set<String> resourceUuids = new HashSet<>();
+        tags.forEach(t -> resourceUuids.add(t.getResourceUuid()));
+        tagIndex.invalidate(resourceUuids);
+    }
+
     void fireTagDeleted(List<SystemTagInventory> tags) {
+        invalidateTagIndex(tags);
         for (SystemTagInventory tag : tags) {
             List<SystemTagLifeCycleExtension> exts = lifeCycleExtensions.get(tag.getResourceType());
             if (exts != null) {
@@ -506,6 +520,7 @@ public class TagManagerImpl extends AbstractService implements TagManager,
     }
 
     void fireTagCreated(List<SystemTagInventory> tags) {
+        invalidateTagIndex(tags);
         for (SystemTagInventory tag : tags) {
             List<SystemTagLifeCycleExtension> exts = lifeCycleExtensions.get(tag.getResourceType());
             if (exts != null) {
@@ -521,6 +536,7 @@ public class TagManagerImpl extends AbstractService implements TagManager,
     }
 
     private void fireTagUpdated(SystemTagInventory old, SystemTagInventory newTag) {
+        invalidateTagIndex(list(old, newTag));
         List<SystemTagLifeCycleExtension> exts = lifeCycleExtensions.get(old.getResourceType());
         if (exts != null) {
             for (SystemTagLifeCycleExtension ext : exts) {
@@ -709,6 +725,7 @@ public class TagManagerImpl extends AbstractService implements TagManager,
     @Override
     public boolean start() {
         populateExtensions();
+        tagIndex.start(evtf);
         return true;
     }
 
@@ -733,6 +750,10 @@ public class TagManagerImpl extends AbstractService implements TagManager,
 
     @Transactional
     private void postDelete(Collection entityIds, Class entityClass) {
+        Set<String> resourceUuids = new HashSet<>();
+        entityIds.forEach(id -> resourceUuids.add(String.valueOf(id)));
+        tagIndex.invalidate(resourceUuids);
+
         List<String> rtypes = getResourceTypes(entityClass);
         String sql = "delete from SystemTagVO s" +
                 " where s.resourceType in (:resourceTypes)" +
@@ -0,0 +1,197 @@
+package org.zstack.test.integration.configuration.systemTag
+
+import org.zstack.compute.zone.ZoneSystemTags
+import org.zstack.core.Platform
+import org.zstack.core.cloudbus.CanonicalEvent
+import org.zstack.core.cloudbus.EventFacade
+import org.zstack.core.cloudbus.EventFacadeImpl
+import org.zstack.core.db.DatabaseFacade
+import org.zstack.core.db.Q
+import org.zstack.core.db.SQL
+import org.zstack.header.tag.SystemTagInventory
+import org.zstack.header.tag.SystemTagVO
+import org.zstack.header.tag.SystemTagVO_
+import org.zstack.header.tag.TagType
+import org.zstack.header.zone.ZoneVO
+import org.zstack.sdk.ZoneInventory
+import org.zstack.tag.SystemTagIndex
+import org.zstack.tag.TagGlobalProperty
+import org.zstack.tag.TagManagerImpl
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.utils.gson.JSONObjectUtil
+
+/**
+ * system tags served from the index are the ones the database query returns, and a tag
+ * changed through TagManager, on this node or on another one, is seen on the next read
+ */
+class SystemTagIndexCase extends SubCase {
+    EnvSpec env
+    TagManagerImpl tagMgr
+    int ttl
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            tagMgr = bean(TagManagerImpl.class)
+            ttl = TagGlobalProperty.SYSTEM_TAG_INDEX_TTL
+            TagGlobalProperty.SYSTEM_TAG_INDEX_TTL = 600
+            // the index isn't started when the management node boots with the index disabled
+            tagMgr.tagIndex.start(bean(EventFacade.class))
+
+            testLikeSameAsDatabase()
+            testChangeThroughTagManager()
+            testChangeOnOtherNode()
+            testDeleteResource()
+
+            tagMgr.tagIndex.drop(null)
+            TagGlobalProperty.SYSTEM_TAG_INDEX_TTL = ttl
+        }
+    }
+
+    private ZoneInventory newZone(String n) {
+        return createZone {
+            name = n
+        } as ZoneInventory
+    }
+
+    private static String reservedMemory(String zoneUuid) {
+        return ZoneSystemTags.HOST_RESERVED_MEMORY_CAPACITY.getTokenByResourceUuid(zoneUuid, "capacity")
+    }
+
+    private static void setTagByDatabase(String tagUuid, String tag) {
+        // not through TagManager, nothing is invalidated
+        SQL.New(SystemTagVO.class).eq(SystemTagVO_.uuid, tagUuid).set(SystemTagVO_.tag, tag).update()
+    }
+
+    void testLikeSameAsDatabase() {
+        String zoneUuid = newZone("like").uuid
+        List<String> tags = ["key::value", "Key::VALUE", "a_b::c", "axb::c", "percent::100%", "percent::100",
+                             "back\\slash", "capability::liveSnapshot", "host::reservedMemory::10G", "", "a"]
+        tags.each {
+            SystemTagVO vo = new SystemTagVO()
+            vo.uuid = Platform.getUuid()
+            vo.resourceUuid = zoneUuid
+            vo.resourceType = ZoneVO.class.getSimpleName()
+            vo.inherent = false
+            vo.type = TagType.System
+            vo.tag = it
+            bean(DatabaseFacade.class).persist(vo)
+        }
+
+        List<String> indexed = tagMgr.tagIndex.getRows(zoneUuid).collect { it.tag }
+        assert indexed.sort() == Q.New(SystemTagVO.class).select(SystemTagVO_.tag)
+                .eq(SystemTagVO_.resourceUuid, zoneUuid).listValues().sort()
+        assert indexed.containsAll(tags)
+
+        List<String> patterns = ["key::%", "KEY::%", "%::value", "a\\_b::%", "a_b::c", "a_b%", "%", "_", "",
+                                 "%100\\%", "%100%", "percent::100", "%::%::%", "%%::%", "host::reservedMemory::%",
+                                 "back\\\\slash", "back%", "capability::livesnapshot", "_%_::_", "%a%", "a%b"]
+        patterns.each { String p ->
+            Set<String> db = Q.New(SystemTagVO.class).select(SystemTagVO_.tag)
+                    .eq(SystemTagVO_.resourceUuid, zoneUuid)
+                    .like(SystemTagVO_.tag, p)
+                    .listValues() as Set
+            Set<String> mem = indexed.findAll { SystemTagIndex.like(p, it) } as Set
+            assert mem == db : "pattern[${p}] matches ${mem} in memory but ${db} in the database"
+        }
+
+        // the patterned tags query by the same condition
+        assert reservedMemory(zoneUuid) == "10G"
+    }
+
+    void testChangeThroughTagManager() {
+        String zoneUuid = newZone("tagManager").uuid
+        assert reservedMemory(zoneUuid) == null
+
+        SystemTagInventory tag = tagMgr.createNonInherentSystemTag(zoneUuid, "host::reservedMemory::1G", ZoneVO.class.getSimpleName())
+        assert reservedMemory(zoneUuid) == "1G"
+
+        // served from the index, the database is not read again
+        setTagByDatabase(tag.uuid, "host::reservedMemory::2G")
+        assert reservedMemory(zoneUuid) == "1G"
+
+        tagMgr.updateSystemTag(tag.uuid, "host::reservedMemory::3G")
+        assert reservedMemory(zoneUuid) == "3G"
+
+        tagMgr.deleteSystemTag(tag.uuid)
+        assert reservedMemory(zoneUuid) == null
+
+        tagMgr.createNonInherentSystemTag(zoneUuid, "host::reservedMemory::1G", ZoneVO.class.getSimpleName())
+        assert reservedMemory(zoneUuid) == "1G"
+
+        ZoneSystemTags.HOST_RESERVED_MEMORY_CAPACITY.updateTagByToken(zoneUuid, "capacity", "4G")
+        assert reservedMemory(zoneUuid) == "4G"
+
+        ZoneSystemTags.HOST_RESERVED_MEMORY_CAPACITY.delete(zoneUuid)
+        assert reservedMemory(zoneUuid) == null
+    }
+
+    private static CanonicalEvent invalidationEvent(String managementNodeId, List<String> resourceUuids) {
+        SystemTagIndex.InvalidationData data = new SystemTagIndex.InvalidationData()
+        data.resourceUuids = resourceUuids
+
+        CanonicalEvent evt = new CanonicalEvent()
+        evt.path = SystemTagIndex.INVALIDATION_CANONICAL_EVENT_PATH
+        evt.managementNodeId = managementNodeId
+        evt.content = JSONObjectUtil.toJsonString(data)
+        return evt
+    }
+
+    void testChangeOnOtherNode() {
+        String zoneUuid = newZone("otherNode").uuid
+        String otherZoneUuid = newZone("otherNode-1").uuid
+        SystemTagInventory tag = tagMgr.createNonInherentSystemTag(zoneUuid, "host::reservedMemory::1G", ZoneVO.class.getSimpleName())
+        SystemTagInventory otherTag = tagMgr.createNonInherentSystemTag(otherZoneUuid, "host::reservedMemory::1G", ZoneVO.class.getSimpleName())
+        assert reservedMemory(zoneUuid) == "1G"
+        assert reservedMemory(otherZoneUuid) == "1G"
+
+        // another node updates the tag in the database and tells the others
+        setTagByDatabase(tag.uuid, "host::reservedMemory::2G")
+        setTagByDatabase(otherTag.uuid, "host::reservedMemory::2G")
+        assert reservedMemory(zoneUuid) == "1G"
+
+        EventFacadeImpl evtf = bean(EventFacadeImpl.class)
+        // events of this node are handled when they are fired already
+        evtf.handleEvent(invalidationEvent(Platform.getManagementServerId(), [zoneUuid]))
+        assert reservedMemory(zoneUuid) == "1G"
+
+        evtf.handleEvent(invalidationEvent("other", [zoneUuid]))
+        assert reservedMemory(zoneUuid) == "2G"
+        // only the resources in the event are dropped
+        assert reservedMemory(otherZoneUuid) == "1G"
+
+        // no resource uuid drops everything
+        evtf.handleEvent(invalidationEvent("other", null))
+        assert reservedMemory(otherZoneUuid) == "2G"
+    }
+
+    void testDeleteResource() {
+        ZoneInventory zone = newZone("deleted")
+        tagMgr.createNonInherentSystemTag(zone.uuid, "host::reservedMemory::1G", ZoneVO.class.getSimpleName())
+        assert reservedMemory(zone.uuid) == "1G"
+
+        deleteZone {
+            uuid = zone.uuid
+        }
+        assert !Q.New(SystemTagVO.class).eq(SystemTagVO_.resourceUuid, zone.uuid).isExists()
+        assert reservedMemory(zone.uuid) == null
+    }
+}
@@ -0,0 +1,241 @@
+package org.zstack.test.integration.core.cloudbus
+
+import com.google.gson.JsonArray
+import com.google.gson.JsonObject
+import com.google.gson.JsonPrimitive
+import org.springframework.http.HttpEntity
+import org.springframework.http.HttpStatus
+import org.zstack.core.Platform
+import org.zstack.core.cloudbus.*
+import org.zstack.header.AbstractService
+import org.zstack.header.managementnode.ManagementNodeVO
+import org.zstack.header.message.AbstractBeforeDeliveryMessageInterceptor
+import org.zstack.header.message.Message
+import org.zstack.header.message.MessageReply
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.SubCase
+import org.zstack.testlib.WebBeanConstructor
+
+import javax.servlet.http.HttpServletResponse
+import java.nio.charset.StandardCharsets
+
+/**
+ * messages to another management node are posted in batches through the CloudBus HTTP
+ * endpoint, here the endpoint of this node stands for the other node. A bad message in a
+ * batch doesn't stop the others, and a failed post replies an error to every message
+ */
+class CloudBusBatchCase extends SubCase {
+    CloudBusImpl3 bus
+    // the node the messages are sent to, its service is registered on this node
+    String nodeUuid = Platform.uuid
+    String serviceId
+    Set<String> received = Collections.synchronizedSet(new HashSet<String>())
+    Set<String> errorReplied = Collections.synchronizedSet(new HashSet<String>())
+
+    @Override
+    void clean() {
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        bus = bean(CloudBusImpl3.class)
+        serviceId = bus.makeServiceIdByManagementNodeId("cloudBusBatchCase", nodeUuid)
+        def service = new AbstractService() {
+            @Override
+            void handleMessage(Message msg) {
+                received.add(msg.id)
+            }
+
+            @Override
+            String getId() {
+                return serviceId
+            }
+
+            @Override
+            boolean start() {
+                return true
+            }
+
+            @Override
+            boolean stop() {
+                return true
+            }
+        }
+        bus.registerService(service)
+
+        bus.installBeforeDeliveryMessageInterceptor(new AbstractBeforeDeliveryMessageInterceptor() {
+            @Override
+            void beforeDeliveryMessage(Message msg) {
+                String correlationId = msg.getHeaderEntry(CloudBus.HEADER_CORRELATION_ID)
+                if (!((MessageReply) msg).success && correlationId != null) {
+                    errorReplied.add(correlationId)
+                }
+            }
+        }, MessageReply.class)
+
+        int port = CloudBusGlobalProperty.HTTP_PORT
+        String contextPath = CloudBusGlobalProperty.HTTP_CONTEXT_PATH
+        int batchMaxMessages = CloudBusGlobalProperty.HTTP_BATCH_MAX_MESSAGES
+        boolean binary = CloudBusGlobalProperty.BINARY_WIRE_FORMAT
+        CloudBusGlobalProperty.HTTP_PORT = WebBeanConstructor.port
+        CloudBusGlobalProperty.HTTP_CONTEXT_PATH = ""
+        CloudBusGlobalProperty.HTTP_BATCH_MAX_MESSAGES = 3
+
+        testReceiveJsonBatchWithBadMessages()
+        testReceiveBinaryBatchWithBadMessages()
+        testSendInBatches()
+        testSendBinaryBatches()
+        testFailedPostRepliesEveryMessage()
+
+        CloudBusGlobalProperty.HTTP_PORT = port
+        CloudBusGlobalProperty.HTTP_CONTEXT_PATH = contextPath
+        CloudBusGlobalProperty.HTTP_BATCH_MAX_MESSAGES = batchMaxMessages
+        CloudBusGlobalProperty.BINARY_WIRE_FORMAT = binary
+        bus.unregisterService(service)
+    }
+
+    private List<FakeNeedReplyMessage> newMessages(int num) {
+        return (0..<num).collect {
+            FakeNeedReplyMessage msg = new FakeNeedReplyMessage()
+            msg.serviceId = serviceId
+            return msg
+        }
+    }
+
+    private static Set<String> ids(List<? extends Message> msgs) {
+        return msgs.collect { it.id } as Set
+    }
+
+    private JsonArray batchWithBadMessages(List<? extends Message> msgs) {
+        JsonObject unknown = new JsonObject()
+        unknown.add("org.zstack.header.NoSuchMessage", new JsonObject())
+
+        JsonArray arr = new JsonArray()
+        arr.add(CloudBusGson.toJsonTree(msgs[0]))
+        arr.add(new JsonPrimitive("not a message"))
+        arr.add(CloudBusGson.toJsonTree(msgs[1]))
+        arr.add(unknown)
+        arr.add(CloudBusGson.toJsonTree(msgs[2]))
+        return arr
+    }
+
+    private void assertAllDeliveredWithOk(byte[] body, List<? extends Message> msgs) {
+        Integer status = null
+        HttpServletResponse rsp = [setStatus: { int s -> status = s }] as HttpServletResponse
+        bus.handleBatchHttpRequest(new HttpEntity<byte[]>(body), rsp)
+
+        retryInSecs {
+            assert status == HttpStatus.OK.value()
+            assert received.containsAll(ids(msgs))
+        }
+    }
+
+    void testReceiveJsonBatchWithBadMessages() {
+        List<FakeNeedReplyMessage> msgs = newMessages(3)
+        byte[] body = batchWithBadMessages(msgs).toString().getBytes(StandardCharsets.UTF_8)
+        assertAllDeliveredWithOk(body, msgs)
+    }
+
+    void testReceiveBinaryBatchWithBadMessages() {
+        List<FakeNeedReplyMessage> msgs = newMessages(3)
+        byte[] body = CloudBusBinaryCodec.encode(batchWithBadMessages(msgs), 0)
+        assert CloudBusBinaryCodec.isBinary(body)
+        assertAllDeliveredWithOk(body, msgs)
+    }
+
+    private ResourceDestinationMaker.NodeInfo node(String ip, String wireFormats) {
+        ManagementNodeVO vo = new ManagementNodeVO()
+        vo.uuid = nodeUuid
+        vo.hostName = ip
+        vo.cloudBusWireFormats = wireFormats
+        return new ResourceDestinationMaker.NodeInfo(vo)
+    }
+
+    private CloudBusImpl3.BatchSender batchSender(ResourceDestinationMaker.NodeInfo node) {
+        CloudBusImpl3.BatchSender sender = new CloudBusImpl3.BatchSender(bus, nodeUuid)
+        sender.@node = node
+        return sender
+    }
+
+    // queues all messages before the sender gets a connection, like messages sent
+    // while the connections are busy
+    private static void sendQueued(CloudBusImpl3.BatchSender sender, CloudBusImpl3 bus, List<? extends Message> msgs) {
+        msgs.each { sender.@queue.add(new CloudBusImpl3.MessageSender(bus, it)) }
+        sender.schedule()
+    }
+
+    private CloudBusBatchStatistic statistic() {
+        CloudBusBatchStatistic s = bus.getBatchStatistics()[nodeUuid]
+        return s == null ? new CloudBusBatchStatistic(nodeUuid) : s
+    }
+
+    void testSendInBatches() {
+        CloudBusGlobalProperty.BINARY_WIRE_FORMAT = false
+        long batches = statistic().batches
+        long messages = statistic().messages
+
+        // 3 + 3 + 1, the last one is posted alone in JSON
+        List<FakeNeedReplyMessage> msgs = newMessages(7)
+        sendQueued(batchSender(node("127.0.0.1", "Json,Batch")), bus, msgs)
+
+        retryInSecs {
+            assert received.containsAll(ids(msgs))
+            assert statistic().batches == batches + 3
+            assert statistic().messages == messages + 7
+        }
+        assert statistic().maxBatchSize == 3
+        assert statistic().failures == 0
+    }
+
+    void testSendBinaryBatches() {
+        CloudBusGlobalProperty.BINARY_WIRE_FORMAT = true
+        CloudBusImpl3.BatchSender sender = batchSender(node("127.0.0.1", "Json,Binary,Batch"))
+
+        List<FakeNeedReplyMessage> msgs = newMessages(3)
+        HttpEntity<byte[]> entity = sender.buildHttpEntity(msgs.collect { new CloudBusImpl3.MessageSender(bus, it) })
+        assert CloudBusWireFormat.fromContentType(entity.headers.getContentType().toString()) == CloudBusWireFormat.Batch
+        assert CloudBusBinaryCodec.isBinary(entity.body)
+        JsonArray arr = CloudBusBinaryCodec.decode(entity.body).getAsJsonArray()
+        assert arr.size() == 3
+        assert arr.collect { CloudBusGson.fromJsonTree(it).id } == msgs.collect { it.id }
+
+        // a node not supporting binary gets JSON
+        entity = batchSender(node("127.0.0.1", "Json,Batch")).buildHttpEntity(msgs.collect { new CloudBusImpl3.MessageSender(bus, it) })
+        assert !CloudBusBinaryCodec.isBinary(entity.body)
+
+        long batches = statistic().batches
+        msgs = newMessages(6)
+        sendQueued(sender, bus, msgs)
+        retryInSecs {
+            assert received.containsAll(ids(msgs))
+            assert statistic().batches == batches + 2
+        }
+        assert statistic().failures == 0
+    }
+
+    void testFailedPostRepliesEveryMessage() {
+        CloudBusGlobalProperty.BINARY_WIRE_FORMAT = false
+        // nothing listens on the port, every post fails after its retries
+        CloudBusGlobalProperty.HTTP_PORT = 1
+        long failures = statistic().failures
+
+        List<FakeNeedReplyMessage> msgs = newMessages(7)
+        sendQueued(batchSender(node("127.0.0.1", "Json,Batch")), bus, msgs)
+
+        retryInSecs(60) {
+            assert errorReplied.containsAll(ids(msgs))
+            assert statistic().failures == failures + 3
+        }
+        assert !received.any { it in ids(msgs) }
+        CloudBusGlobalProperty.HTTP_PORT = WebBeanConstructor.port
+    }
+}
@@ -0,0 +1,134 @@
+package org.zstack.test.integration.core.config
+
+import org.zstack.core.config.GlobalConfig
+import org.zstack.identity.IdentityGlobalConfig
+import org.zstack.kvm.KVMGlobalConfig
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+/**
+ * global config values are parsed once to the declared type, and reads of other
+ * types convert from it instead of parsing again
+ */
+class GlobalConfigTypedValueCase extends SubCase {
+    EnvSpec env
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            testUpdateParsesOnce()
+            testMixedTypeReads()
+            testNormalizeStoresParsedValue()
+        }
+    }
+
+    private static Object cached(GlobalConfig config) {
+        return config.@typedValue
+    }
+
+    void testUpdateParsesOnce() {
+        GlobalConfig config = IdentityGlobalConfig.SESSION_TIMEOUT
+        String origin = config.value()
+
+        config.updateValue(100)
+        def t = cached(config)
+        // parsed when the value is applied, not by the first reader
+        assert t != null
+        assert t.raw.is(config.value())
+        assert t.value == 100
+        assert t.value instanceof Integer
+
+        assert config.value(Integer.class) == 100
+        assert config.intValue() == 100
+        assert cached(config).is(t)
+
+        config.updateValue(200)
+        assert !cached(config).is(t)
+        assert cached(config).value == 200
+        assert config.value(Integer.class) == 200
+        assert config.longValue() == 200L
+
+        // a value set without update is parsed by the next reader
+        config.@value = "300"
+        assert config.intValue() == 300
+        assert cached(config).raw.is(config.value())
+
+        config.updateValue(origin)
+    }
+
+    void testMixedTypeReads() {
+        GlobalConfig config = IdentityGlobalConfig.SESSION_TIMEOUT
+        String origin = config.value()
+        config.updateValue(7200)
+        def t = cached(config)
+
+        // the declared type is Integer, reading it as Long doesn't replace the cached value
+        for (int i = 0; i < 3; i++) {
+            assert config.value(Long.class) == 7200L
+            assert config.value(Long.class) instanceof Long
+            assert config.value(Integer.class) == 7200
+            assert config.value(int.class) == 7200
+            assert config.value(Double.class) == 7200d
+            assert config.longValue() == 7200L
+            assert config.intValue() == 7200
+            assert config.value(String.class) == "7200"
+            assert cached(config).is(t)
+        }
+
+        // the same for a Long config read as Integer
+        GlobalConfig timeout = KVMGlobalConfig.TEST_SSH_PORT_ON_CONNECT_TIMEOUT
+        String timeoutOrigin = timeout.value()
+        timeout.updateValue(5)
+        t = cached(timeout)
+        assert t.value instanceof Long
+        assert timeout.value(Integer.class) == 5
+        assert timeout.value(Integer.class) instanceof Integer
+        assert timeout.intValue() == 5
+        assert timeout.value(Long.class) == 5L
+        assert cached(timeout).is(t)
+
+        // converted as if parsed from the string
+        config.@value = "10.7"
+        assert config.value(Long.class) == 10L
+        assert config.intValue() == 10
+
+        config.updateValue(origin)
+        timeout.updateValue(timeoutOrigin)
+    }
+
+    void testNormalizeStoresParsedValue() {
+        GlobalConfig config = IdentityGlobalConfig.SESSION_TIMEOUT
+        String origin = config.value()
+
+        config.@value = "500.0"
+        config.normalize()
+        assert config.value() == "500"
+        def t = cached(config)
+        assert t.raw.is(config.value())
+        assert t.value == 500
+        assert t.value instanceof Integer
+
+        assert config.value(Integer.class) == 500
+        assert config.longValue() == 500L
+        assert cached(config).is(t)
+
+        config.updateValue(origin)
+    }
+}
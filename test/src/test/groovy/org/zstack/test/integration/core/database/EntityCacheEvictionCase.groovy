@@ -0,0 +1,244 @@
+package org.zstack.test.integration.core.database
+
+import org.zstack.core.cloudbus.CanonicalEvent
+import org.zstack.core.cloudbus.EventCallback
+import org.zstack.core.cloudbus.EventFacade
+import org.zstack.core.cloudbus.EventFacadeImpl
+import org.zstack.core.Platform
+import org.zstack.core.db.DbGlobalProperty
+import org.zstack.core.db.EntityCache
+import org.zstack.core.db.EntityCacheImpl
+import org.zstack.core.db.Q
+import org.zstack.core.db.SQL
+import org.zstack.core.db.SQLBatch
+import org.zstack.header.cluster.ClusterVO
+import org.zstack.header.cluster.ClusterVO_
+import org.zstack.header.zone.ZoneVO
+import org.zstack.header.zone.ZoneVO_
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.ClusterSpec
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.testlib.ZoneSpec
+import org.zstack.utils.gson.JSONObjectUtil
+
+/**
+ * the evictions of a transaction are published in one event, and evictions published
+ * by other management nodes drop the cached entities
+ */
+class EntityCacheEvictionCase extends SubCase {
+    EnvSpec env
+    EntityCacheImpl cache
+    List<EntityCacheImpl.EvictionData> published = []
+    String zone1
+    String zone2
+    String cluster1
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+            zone {
+                name = "zone1"
+
+                cluster {
+                    name = "cluster1"
+                }
+            }
+
+            zone {
+                name = "zone2"
+            }
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            zone1 = (env.specByName("zone1") as ZoneSpec).inventory.uuid
+            zone2 = (env.specByName("zone2") as ZoneSpec).inventory.uuid
+            cluster1 = (env.specByName("cluster1") as ClusterSpec).inventory.uuid
+
+            String entities = DbGlobalProperty.ENTITY_CACHE_ENTITIES
+            int ttl = DbGlobalProperty.ENTITY_CACHE_TTL
+            DbGlobalProperty.ENTITY_CACHE_ENTITIES = "ZoneVO,ClusterVO"
+            DbGlobalProperty.ENTITY_CACHE_TTL = 600
+            // the cache isn't started when the management node boots without cached entities
+            cache = bean(EntityCacheImpl.class)
+            cache.start()
+
+            EventFacade evtf = bean(EventFacade.class)
+            EventCallback cb = new EventCallback() {
+                @Override
+                protected void run(Map tokens, Object data) {
+                    published.add(JSONObjectUtil.toObject((String) data, EntityCacheImpl.EvictionData.class))
+                }
+            }
+            evtf.onLocal(EntityCache.EVICTION_CANONICAL_EVENT_PATH, cb)
+
+            testOneEventPerTransaction()
+            testOneEventPerCall()
+            testEvictionFromOtherNode()
+
+            evtf.off(cb)
+            cache.regions.clear()
+            cache.affectedRegions.clear()
+            DbGlobalProperty.ENTITY_CACHE_ENTITIES = entities
+            DbGlobalProperty.ENTITY_CACHE_TTL = ttl
+        }
+    }
+
+    private static String zoneName(String uuid) {
+        return Q.New(ZoneVO.class).eq(ZoneVO_.uuid, uuid).select(ZoneVO_.name).findValue()
+    }
+
+    private static String clusterName(String uuid) {
+        return Q.New(ClusterVO.class).eq(ClusterVO_.uuid, uuid).select(ClusterVO_.name).findValue()
+    }
+
+    // not tracked by the cache, like a change made by another management node
+    private static void setNameByNativeSql(String table, String uuid, String name) {
+        new SQLBatch() {
+            @Override
+            protected void scripts() {
+                databaseFacade.getEntityManager().createNativeQuery("update ${table} set name = :name where uuid = :uuid")
+                        .setParameter("name", name)
+                        .setParameter("uuid", uuid)
+                        .executeUpdate()
+            }
+        }.execute()
+    }
+
+    private static CanonicalEvent evictionEvent(String managementNodeId, EntityCacheImpl.EvictionData data) {
+        CanonicalEvent evt = new CanonicalEvent()
+        evt.path = EntityCache.EVICTION_CANONICAL_EVENT_PATH
+        evt.managementNodeId = managementNodeId
+        evt.content = JSONObjectUtil.toJsonString(data)
+        return evt
+    }
+
+    void testOneEventPerTransaction() {
+        assert zoneName(zone1) == "zone1"
+        assert zoneName(zone2) == "zone2"
+        assert clusterName(cluster1) == "cluster1"
+
+        published.clear()
+        new SQLBatch() {
+            @Override
+            protected void scripts() {
+                [zone1, zone2].each {
+                    ZoneVO z = findByUuid(it, ZoneVO.class)
+                    z.name = z.name + "-1"
+                    merge(z)
+                }
+
+                ClusterVO c = findByUuid(cluster1, ClusterVO.class)
+                c.name = "cluster1-1"
+                merge(c)
+                flush()
+
+                // more changes flushed in the same transaction
+                ZoneVO z = findByUuid(zone1, ZoneVO.class)
+                z.name = "zone1-2"
+                merge(z)
+            }
+        }.execute()
+
+        retryInSecs {
+            assert published.size() == 1
+        }
+        EntityCacheImpl.EvictionData data = published[0]
+        assert data.all.isEmpty()
+        assert data.primaryKeys.keySet() == ["ZoneVO", "ClusterVO"] as Set
+        assert data.primaryKeys["ZoneVO"] as Set == [zone1, zone2] as Set
+        assert data.primaryKeys["ClusterVO"] == [cluster1]
+
+        assert zoneName(zone1) == "zone1-2"
+        assert zoneName(zone2) == "zone2-1"
+        assert clusterName(cluster1) == "cluster1-1"
+
+        // a rolled back transaction publishes nothing
+        published.clear()
+        expect(RuntimeException.class) {
+            new SQLBatch() {
+                @Override
+                protected void scripts() {
+                    ZoneVO z = findByUuid(zone2, ZoneVO.class)
+                    z.name = "rolled back"
+                    merge(z)
+                    flush()
+                    throw new RuntimeException("on purpose")
+                }
+            }.execute()
+        }
+        assert zoneName(zone2) == "zone2-1"
+        assert published.isEmpty()
+    }
+
+    void testOneEventPerCall() {
+        published.clear()
+        SQL.New(ZoneVO.class).eq(ZoneVO_.uuid, zone2).set(ZoneVO_.name, "zone2-2").update()
+        retryInSecs {
+            assert published.size() == 1
+        }
+        assert published[0].all == ["ZoneVO"]
+        assert published[0].primaryKeys.isEmpty()
+        assert zoneName(zone2) == "zone2-2"
+
+        // outside of transactions
+        published.clear()
+        cache.evict(ZoneVO.class, [zone1, zone2])
+        retryInSecs {
+            assert published.size() == 1
+        }
+        assert published[0].primaryKeys.keySet() == ["ZoneVO"] as Set
+        assert published[0].primaryKeys["ZoneVO"] as Set == [zone1, zone2] as Set
+        assert published[0].all.isEmpty()
+    }
+
+    void testEvictionFromOtherNode() {
+        EventFacadeImpl evtf = bean(EventFacadeImpl.class)
+
+        assert zoneName(zone1) == "zone1-2"
+        assert zoneName(zone2) == "zone2-2"
+        assert clusterName(cluster1) == "cluster1-1"
+
+        setNameByNativeSql("ZoneEO", zone1, "zone1-3")
+        setNameByNativeSql("ZoneEO", zone2, "zone2-3")
+        setNameByNativeSql("ClusterEO", cluster1, "cluster1-3")
+        // served from the cache
+        assert zoneName(zone1) == "zone1-2"
+
+        EntityCacheImpl.EvictionData data = new EntityCacheImpl.EvictionData()
+        data.primaryKeys["ZoneVO"] = [zone1]
+        // entities this node doesn't know or doesn't cache are skipped
+        data.primaryKeys["NoSuchVO"] = ["uuid"]
+        data.all.add("HostVO")
+
+        // events of this node are handled when they are made already
+        evtf.handleEvent(evictionEvent(Platform.getManagementServerId(), data))
+        assert zoneName(zone1) == "zone1-2"
+
+        evtf.handleEvent(evictionEvent("other", data))
+        assert zoneName(zone1) == "zone1-3"
+        // only the entities in the event are evicted
+        assert zoneName(zone2) == "zone2-2"
+        assert clusterName(cluster1) == "cluster1-1"
+
+        data = new EntityCacheImpl.EvictionData()
+        data.all.add("ZoneVO")
+        data.primaryKeys["ClusterVO"] = [cluster1]
+        evtf.handleEvent(evictionEvent("other", data))
+        assert zoneName(zone2) == "zone2-3"
+        assert clusterName(cluster1) == "cluster1-3"
+    }
+}
@@ -0,0 +1,166 @@
+package org.zstack.test.integration.core.gc
+
+import org.zstack.core.Platform
+import org.zstack.core.gc.GCCompletion
+import org.zstack.core.gc.GCGlobalProperty
+import org.zstack.core.gc.GarbageCollectorManagerImpl
+import org.zstack.core.gc.TimeBasedGarbageCollector
+import org.zstack.testlib.SubCase
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+class GarbageCollectorJobCase extends SubCase {
+    GarbageCollectorManagerImpl gcMgr
+
+    static class NoopGC extends TimeBasedGarbageCollector {
+        @Override
+        protected void triggerNow(GCCompletion completion) {
+            completion.success()
+        }
+    }
+
+    @Override
+    void setup() {
+    }
+
+    @Override
+    void environment() {
+    }
+
+    @Override
+    void test() {
+        gcMgr = bean(GarbageCollectorManagerImpl.class)
+
+        testRetryBackoff()
+        testSlotReleasedWhenJobDone()
+        testSlotReleasedOnTimeout()
+    }
+
+    @Override
+    void clean() {
+    }
+
+    private NoopGC newGC(long next, TimeUnit unit) {
+        NoopGC gc = new NoopGC()
+        gc.uuid = Platform.getUuid()
+        gc.NAME = "noop"
+        gc.NEXT_TIME = next
+        gc.NEXT_TIME_UNIT = unit
+        return gc
+    }
+
+    void testRetryBackoff() {
+        double jitter = GCGlobalProperty.RETRY_JITTER
+        long maxInterval = GCGlobalProperty.MAX_RETRY_INTERVAL
+        GCGlobalProperty.RETRY_JITTER = 0
+        GCGlobalProperty.MAX_RETRY_INTERVAL = 3600
+
+        NoopGC gc = newGC(1, TimeUnit.SECONDS)
+        def delayAfter = { int retries ->
+            gc.retries = retries
+            return gc.nextDelayInMillis()
+        }
+
+        assert delayAfter(0) == 1000
+        // the first retry waits the interval given, then it doubles
+        assert delayAfter(1) == 1000
+        assert delayAfter(2) == 2000
+        assert delayAfter(3) == 4000
+        assert delayAfter(12) == 2048000
+        // capped at GC.maxRetryIntervalInSeconds
+        assert delayAfter(13) == 3600000
+        // the shift is bounded and doesn't overflow
+        assert delayAfter(40) == 3600000
+        assert delayAfter(Integer.MAX_VALUE) == 3600000
+
+        // an interval longer than the cap is kept, not shortened
+        gc = newGC(2, TimeUnit.HOURS)
+        assert delayAfter(0) == TimeUnit.HOURS.toMillis(2)
+        assert delayAfter(5) == TimeUnit.HOURS.toMillis(2)
+        gc = newGC(Long.MAX_VALUE >> 2, TimeUnit.MILLISECONDS)
+        assert delayAfter(10) == Long.MAX_VALUE >> 2
+        // shifted by 30 it wraps around to 2^30, which is positive
+        gc = newGC((1L << 40) + 1, TimeUnit.MILLISECONDS)
+        assert delayAfter(31) == (1L << 40) + 1
+
+        GCGlobalProperty.RETRY_JITTER = 0.2
+        gc = newGC(1, TimeUnit.SECONDS)
+        100.times {
+            long d = delayAfter(2)
+            assert d >= 2000 && d < 2400
+        }
+
+        GCGlobalProperty.RETRY_JITTER = jitter
+        GCGlobalProperty.MAX_RETRY_INTERVAL = maxInterval
+    }
+
+    private Map<Integer, Runnable> runHoldingJobs(int num, int from = 0) {
+        Map<Integer, Runnable> started = new ConcurrentHashMap<>()
+        for (int i = from; i < from + num; i++) {
+            int id = i
+            gcMgr.runJob(newGC(1, TimeUnit.SECONDS), { Runnable done -> started.put(id, done) })
+        }
+        return started
+    }
+
+    void testSlotReleasedWhenJobDone() {
+        int slots = GCGlobalProperty.MAX_CONCURRENT_JOBS
+        int running = gcMgr.getRunningJobs()
+
+        Map<Integer, Runnable> started = runHoldingJobs(slots)
+        retryInSecs {
+            assert started.size() == slots
+            assert gcMgr.getRunningJobs() == running + slots
+        }
+
+        Map<Integer, Runnable> waiting = runHoldingJobs(1, slots)
+        TimeUnit.SECONDS.sleep(1)
+        assert waiting.isEmpty()
+
+        started[0].run()
+        retryInSecs {
+            assert waiting.size() == 1
+        }
+
+        // done twice gives back one slot only
+        started[0].run()
+        assert gcMgr.getRunningJobs() == running + slots
+
+        // a job throwing gives back its slot too
+        gcMgr.runJob(newGC(1, TimeUnit.SECONDS), { Runnable done -> throw new RuntimeException("on purpose") })
+        started.values().each { it.run() }
+        waiting.values().each { it.run() }
+        retryInSecs {
+            assert gcMgr.getRunningJobs() == running
+        }
+    }
+
+    void testSlotReleasedOnTimeout() {
+        long timeout = GCGlobalProperty.JOB_SLOT_TIMEOUT
+        GCGlobalProperty.JOB_SLOT_TIMEOUT = 1
+
+        int slots = GCGlobalProperty.MAX_CONCURRENT_JOBS
+        int running = gcMgr.getRunningJobs()
+
+        // never done
+        Map<Integer, Runnable> started = runHoldingJobs(slots)
+        Map<Integer, Runnable> waiting = runHoldingJobs(1, slots)
+
+        retryInSecs {
+            assert started.size() == slots
+            assert waiting.size() == 1
+        }
+
+        retryInSecs {
+            assert gcMgr.getRunningJobs() == running
+        }
+
+        // done after the timeout changes nothing
+        started.values().each { it.run() }
+        waiting.values().each { it.run() }
+        assert gcMgr.getRunningJobs() == running
+
+        GCGlobalProperty.JOB_SLOT_TIMEOUT = timeout
+    }
+}
@@ -0,0 +1,457 @@
+package org.zstack.test.integration.identity.account
+
+import org.zstack.core.db.Q
+import org.zstack.header.identity.role.RolePolicyStatementVO
+import org.zstack.header.identity.role.RolePolicyStatementVO_
+import org.zstack.identity.rbac.RBACPolicyCache
+import org.zstack.sdk.AccountInventory
+import org.zstack.sdk.CreateSecurityGroupAction
+import org.zstack.sdk.PolicyInventory
+import org.zstack.sdk.PolicyStatement
+import org.zstack.sdk.PolicyStatementEffect
+import org.zstack.sdk.SessionInventory
+import org.zstack.sdk.UserGroupInventory
+import org.zstack.sdk.UserInventory
+import org.zstack.sdk.identity.role.RoleInventory
+import org.zstack.sdk.identity.role.RoleStateEvent
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+/**
+ * every change of what a user is granted takes effect on the very next API call,
+ * although decisions are cached for identity.rbac.policyCache.ttl seconds
+ */
+class RBACPolicyCacheCase extends SubCase {
+    EnvSpec env
+    AccountInventory account
+    SessionInventory accountSession
+    UserInventory user
+    SessionInventory userSession
+    PolicyInventory allowPolicy
+    PolicyInventory denyPolicy
+
+    static final String CREATE_SECURITY_GROUP = "org.zstack.network.securitygroup.APICreateSecurityGroupMsg"
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            prepare()
+
+            testAttachAndDetachPolicyToUser()
+            testAttachAndDetachPoliciesToUser()
+            testUserGroupMembership()
+            testAttachAndDetachPolicyToUserGroup()
+            testDeleteUserGroup()
+            testDenyPolicy()
+            testDeletePolicy()
+            testDeleteUser()
+            testRoleChanges()
+            testDeleteAccount()
+        }
+    }
+
+    private static long generation() {
+        return RBACPolicyCache.generation.get()
+    }
+
+    private void assertPoliciesChanged(Closure c) {
+        long gen = generation()
+        c()
+        assert generation() > gen
+    }
+
+    private boolean allowed(SessionInventory session = userSession) {
+        CreateSecurityGroupAction a = new CreateSecurityGroupAction()
+        a.name = "sg"
+        a.sessionId = session.uuid
+        CreateSecurityGroupAction.Result res = a.call()
+        if (res.error != null) {
+            return false
+        }
+
+        deleteSecurityGroup {
+            uuid = res.value.inventory.uuid
+        }
+        return true
+    }
+
+    private SessionInventory createUserAndLogIn(String n) {
+        user = createUser {
+            name = n
+            password = "password"
+            sessionId = accountSession.uuid
+        } as UserInventory
+
+        return logInByUser {
+            accountName = account.name
+            userName = n
+            password = "password"
+        } as SessionInventory
+    }
+
+    private PolicyInventory newPolicy(String policyName, PolicyStatementEffect e) {
+        return createPolicy {
+            name = policyName
+            statements = [new PolicyStatement(
+                    name: policyName,
+                    effect: e,
+                    actions: [CREATE_SECURITY_GROUP]
+            )]
+            sessionId = accountSession.uuid
+        } as PolicyInventory
+    }
+
+    void prepare() {
+        account = createAccount {
+            name = "rbac"
+            password = "password"
+        } as AccountInventory
+
+        accountSession = logInByAccount {
+            accountName = "rbac"
+            password = "password"
+        } as SessionInventory
+
+        userSession = createUserAndLogIn("user")
+        allowPolicy = newPolicy("allow", PolicyStatementEffect.Allow)
+        denyPolicy = newPolicy("deny", PolicyStatementEffect.Deny)
+
+        assert allowed(accountSession)
+    }
+
+    void testAttachAndDetachPolicyToUser() {
+        // cached twice to make sure the decision is served from the cache
+        assert !allowed()
+        assert !allowed()
+
+        assertPoliciesChanged {
+            attachPolicyToUser {
+                userUuid = user.uuid
+                policyUuid = allowPolicy.uuid
+                sessionId = accountSession.uuid
+            }
+        }
+        assert allowed()
+        assert allowed()
+
+        assertPoliciesChanged {
+            detachPolicyFromUser {
+                userUuid = user.uuid
+                policyUuid = allowPolicy.uuid
+                sessionId = accountSession.uuid
+            }
+        }
+        assert !allowed()
+    }
+
+    void testAttachAndDetachPoliciesToUser() {
+        assert !allowed()
+
+        assertPoliciesChanged {
+            attachPoliciesToUser {
+                userUuid = user.uuid
+                policyUuids = [allowPolicy.uuid]
+                sessionId = accountSession.uuid
+            }
+        }
+        assert allowed()
+
+        assertPoliciesChanged {
+            detachPoliciesFromUser {
+                userUuid = user.uuid
+                policyUuids = [allowPolicy.uuid]
+                sessionId = accountSession.uuid
+            }
+        }
+        assert !allowed()
+    }
+
+    void testUserGroupMembership() {
+        UserGroupInventory group = createUserGroup {
+            name = "membership"
+            sessionId = accountSession.uuid
+        } as UserGroupInventory
+
+        attachPolicyToUserGroup {
+            groupUuid = group.uuid
+            policyUuid = allowPolicy.uuid
+            sessionId = accountSession.uuid
+        }
+        // not in the group yet
+        assert !allowed()
+
+        assertPoliciesChanged {
+            addUserToGroup {
+                userUuid = user.uuid
+                groupUuid = group.uuid
+                sessionId = accountSession.uuid
+            }
+        }
+        assert allowed()
+
+        assertPoliciesChanged {
+            removeUserFromGroup {
+                userUuid = user.uuid
+                groupUuid = group.uuid
+                sessionId = accountSession.uuid
+            }
+        }
+        assert !allowed()
+
+        deleteUserGroup {
+            uuid = group.uuid
+            sessionId = accountSession.uuid
+        }
+    }
+
+    void testAttachAndDetachPolicyToUserGroup() {
+        UserGroupInventory group = createUserGroup {
+            name = "policy"
+            sessionId = accountSession.uuid
+        } as UserGroupInventory
+
+        addUserToGroup {
+            userUuid = user.uuid
+            groupUuid = group.uuid
+            sessionId = accountSession.uuid
+        }
+        assert !allowed()
+
+        assertPoliciesChanged {
+            attachPolicyToUserGroup {
+                groupUuid = group.uuid
+                policyUuid = allowPolicy.uuid
+                sessionId = accountSession.uuid
+            }
+        }
+        assert allowed()
+
+        assertPoliciesChanged {
+            detachPolicyFromUserGroup {
+                groupUuid = group.uuid
+                policyUuid = allowPolicy.uuid
+                sessionId = accountSession.uuid
+            }
+        }
+        assert !allowed()
+
+        deleteUserGroup {
+            uuid = group.uuid
+            sessionId = accountSession.uuid
+        }
+    }
+
+    void testDeleteUserGroup() {
+        UserGroupInventory group = createUserGroup {
+            name = "deleted"
+            sessionId = accountSession.uuid
+        } as UserGroupInventory
+
+        addUserToGroup {
+            userUuid = user.uuid
+            groupUuid = group.uuid
+            sessionId = accountSession.uuid
+        }
+        attachPolicyToUserGroup {
+            groupUuid = group.uuid
+            policyUuid = allowPolicy.uuid
+            sessionId = accountSession.uuid
+        }
+        assert allowed()
+
+        assertPoliciesChanged {
+            deleteUserGroup {
+                uuid = group.uuid
+                sessionId = accountSession.uuid
+            }
+        }
+        assert !allowed()
+    }
+
+    void testDenyPolicy() {
+        attachPolicyToUser {
+            userUuid = user.uuid
+            policyUuid = allowPolicy.uuid
+            sessionId = accountSession.uuid
+        }
+        assert allowed()
+
+        // a deny statement wins over the allow one
+        attachPolicyToUser {
+            userUuid = user.uuid
+            policyUuid = denyPolicy.uuid
+            sessionId = accountSession.uuid
+        }
+        assert !allowed()
+
+        detachPolicyFromUser {
+            userUuid = user.uuid
+            policyUuid = denyPolicy.uuid
+            sessionId = accountSession.uuid
+        }
+        assert allowed()
+
+        detachPolicyFromUser {
+            userUuid = user.uuid
+            policyUuid = allowPolicy.uuid
+            sessionId = accountSession.uuid
+        }
+        assert !allowed()
+    }
+
+    void testDeletePolicy() {
+        PolicyInventory policy = newPolicy("deleted", PolicyStatementEffect.Allow)
+        attachPolicyToUser {
+            userUuid = user.uuid
+            policyUuid = policy.uuid
+            sessionId = accountSession.uuid
+        }
+        assert allowed()
+
+        assertPoliciesChanged {
+            deletePolicy {
+                uuid = policy.uuid
+                sessionId = accountSession.uuid
+            }
+        }
+        assert !allowed()
+    }
+
+    void testDeleteUser() {
+        UserInventory oldUser = user
+        SessionInventory oldSession = userSession
+        userSession = createUserAndLogIn("deleted")
+
+        attachPolicyToUser {
+            userUuid = user.uuid
+            policyUuid = allowPolicy.uuid
+            sessionId = accountSession.uuid
+        }
+        assert allowed()
+
+        assertPoliciesChanged {
+            deleteUser {
+                uuid = user.uuid
+                sessionId = accountSession.uuid
+            }
+        }
+        assert !allowed()
+
+        user = oldUser
+        userSession = oldSession
+    }
+
+    void testRoleChanges() {
+        RoleInventory role
+
+        assertPoliciesChanged {
+            role = createRole {
+                name = "role"
+            } as RoleInventory
+        }
+
+        assertPoliciesChanged {
+            updateRole {
+                uuid = role.uuid
+                name = "role-1"
+            }
+        }
+
+        assertPoliciesChanged {
+            addPolicyStatementsToRole {
+                uuid = role.uuid
+                statements = [new PolicyStatement(
+                        name: "role-statement",
+                        effect: PolicyStatementEffect.Allow,
+                        actions: [CREATE_SECURITY_GROUP]
+                )]
+            }
+        }
+
+        List<String> statementUuids = Q.New(RolePolicyStatementVO.class).select(RolePolicyStatementVO_.uuid)
+                .eq(RolePolicyStatementVO_.roleUuid, role.uuid).listValues()
+        assertPoliciesChanged {
+            removePolicyStatementsFromRole {
+                uuid = role.uuid
+                policyStatementUuids = statementUuids
+            }
+        }
+
+        assertPoliciesChanged {
+            attachPolicyToRole {
+                roleUuid = role.uuid
+                policyUuid = allowPolicy.uuid
+            }
+        }
+
+        assertPoliciesChanged {
+            detachPolicyFromRole {
+                roleUuid = role.uuid
+                policyUuid = allowPolicy.uuid
+            }
+        }
+
+        assertPoliciesChanged {
+            attachRoleToAccount {
+                roleUuid = role.uuid
+                accountUuid = account.uuid
+            }
+        }
+
+        assertPoliciesChanged {
+            detachRoleFromAccount {
+                roleUuid = role.uuid
+                accountUuid = account.uuid
+            }
+        }
+
+        assertPoliciesChanged {
+            changeRoleState {
+                uuid = role.uuid
+                stateEvent = RoleStateEvent.disable
+            }
+        }
+
+        assertPoliciesChanged {
+            deleteRole {
+                uuid = role.uuid
+            }
+        }
+    }
+
+    void testDeleteAccount() {
+        attachPolicyToUser {
+            userUuid = user.uuid
+            policyUuid = allowPolicy.uuid
+            sessionId = accountSession.uuid
+        }
+        assert allowed()
+
+        assertPoliciesChanged {
+            deleteAccount {
+                uuid = account.uuid
+            }
+        }
+
+        // the sessions are gone with the account, nothing is served from the cache
+        assert !allowed()
+        assert !allowed(accountSession)
+    }
+}
@@ -1,6 +1,11 @@
 package org.zstack.test.integration.kvm.capacity
 
 import org.zstack.compute.allocator.HostAllocatorGlobalConfig
+import org.zstack.compute.allocator.HostCapacityReserveManager
+import org.zstack.core.db.Q
+import org.zstack.header.allocator.HostCapacityVO
+import org.zstack.header.allocator.HostCapacityVO_
+import org.zstack.header.allocator.UnableToReserveHostCapacityException
 import org.zstack.kvm.KVMGlobalConfig
 import org.zstack.sdk.CreateVmInstanceAction
 import org.zstack.sdk.GetCpuMemoryCapacityResult
@@ -106,6 +111,7 @@ class CheckHostMemCapacityWhenCreateVmCase extends SubCase {
         env.create {
             createVmWithHostSameMemTest()
             createVmWithBiggerHostMemTest()
+            testConcurrentCpuReservation()
         }
     }
 
@@ -147,6 +153,33 @@ class CheckHostMemCapacityWhenCreateVmCase extends SubCase {
         assert null != createVmInstanceAction.call().error
     }
 
+    void testConcurrentCpuReservation() {
+        HostInventory host = env.inventoryByName("kvm")
+        HostCapacityReserveManager reserveMgr = bean(HostCapacityReserveManager.class)
+        long availableCpu = Q.New(HostCapacityVO.class).select(HostCapacityVO_.availableCpu)
+                .eq(HostCapacityVO_.uuid, host.uuid).findValue()
+
+        def threads = (1..10).collect {
+            Thread.start { reserveMgr.reserveCapacity(host.uuid, 1, 0, false) }
+        }
+        threads.each { it.join() }
+
+        assert Q.New(HostCapacityVO.class).select(HostCapacityVO_.availableCpu)
+                .eq(HostCapacityVO_.uuid, host.uuid).findValue() == availableCpu - 10
+
+        expect(UnableToReserveHostCapacityException.class) {
+            reserveMgr.reserveCapacity(host.uuid, availableCpu, 0, false)
+        }
+
+        threads = (1..10).collect {
+            Thread.start { reserveMgr.reserveCapacity(host.uuid, -1, 0, false) }
+        }
+        threads.each { it.join() }
+
+        assert Q.New(HostCapacityVO.class).select(HostCapacityVO_.availableCpu)
+                .eq(HostCapacityVO_.uuid, host.uuid).findValue() == availableCpu
+    }
+
     @Override
     void clean() {
         env.delete()
@@ -0,0 +1,110 @@
+package org.zstack.test.integration.kvm.globalconfig
+
+import org.zstack.compute.vm.VmGlobalConfig
+import org.zstack.resourceconfig.ResourceConfigFacade
+import org.zstack.sdk.*
+import org.zstack.storage.volume.VolumeGlobalConfig
+import org.zstack.test.integration.kvm.Env
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+class ResourceConfigReparentCase extends SubCase {
+    EnvSpec env
+    ResourceConfigFacade rcf
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = Env.oneVmBasicEnv()
+    }
+
+    @Override
+    void test() {
+        env.create {
+            rcf = bean(ResourceConfigFacade.class)
+
+            testVolumeInheritsPrimaryStorageAfterInstantiated()
+            testVmInheritsClusterAfterStarted()
+        }
+    }
+
+    void testVolumeInheritsPrimaryStorageAfterInstantiated() {
+        DiskOfferingInventory diskOffering = env.inventoryByName("diskOffering") as DiskOfferingInventory
+        PrimaryStorageInventory ps = env.inventoryByName("local") as PrimaryStorageInventory
+        VmInstanceInventory vm = env.inventoryByName("vm") as VmInstanceInventory
+
+        // the value is read while the volume has no parent, then the volume is
+        // instantiated on the primary storage having the config
+        updateResourceConfig {
+            category = VolumeGlobalConfig.CATEGORY
+            name = VolumeGlobalConfig.VOLUME_PHYSICAL_BLOCK_SIZE.name
+            value = "512"
+            resourceUuid = ps.uuid
+        }
+        VolumeInventory volume = createDataVolume {
+            name = "data"
+            diskOfferingUuid = diskOffering.uuid
+        } as VolumeInventory
+        assert rcf.getResourceConfigValue(VolumeGlobalConfig.VOLUME_PHYSICAL_BLOCK_SIZE, volume.uuid, Integer.class) == 0
+
+        attachDataVolumeToVm {
+            volumeUuid = volume.uuid
+            vmInstanceUuid = vm.uuid
+        }
+        assert rcf.getResourceConfigValue(VolumeGlobalConfig.VOLUME_PHYSICAL_BLOCK_SIZE, volume.uuid, Integer.class) == 512
+
+        deleteResourceConfig {
+            category = VolumeGlobalConfig.CATEGORY
+            name = VolumeGlobalConfig.VOLUME_PHYSICAL_BLOCK_SIZE.name
+            resourceUuid = ps.uuid
+        }
+    }
+
+    void testVmInheritsClusterAfterStarted() {
+        ClusterInventory cluster = env.inventoryByName("cluster") as ClusterInventory
+        InstanceOfferingInventory instanceOffering = env.inventoryByName("instanceOffering") as InstanceOfferingInventory
+        ImageInventory image = env.inventoryByName("image1") as ImageInventory
+        L3NetworkInventory l3 = env.inventoryByName("l3") as L3NetworkInventory
+
+        updateResourceConfig {
+            category = VmGlobalConfig.CATEGORY
+            name = VmGlobalConfig.KVM_HIDDEN_STATE.name
+            value = "true"
+            resourceUuid = cluster.uuid
+        }
+
+        VmInstanceInventory vm = createVmInstance {
+            name = "stopped"
+            instanceOfferingUuid = instanceOffering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [l3.uuid]
+            strategy = "CreateStopped"
+        } as VmInstanceInventory
+
+        // no cluster before the first start
+        assert vm.clusterUuid == null
+        assert !rcf.getResourceConfigValue(VmGlobalConfig.KVM_HIDDEN_STATE, vm.uuid, Boolean.class)
+
+        startVmInstance {
+            uuid = vm.uuid
+        }
+        assert rcf.getResourceConfigValue(VmGlobalConfig.KVM_HIDDEN_STATE, vm.uuid, Boolean.class)
+
+        deleteResourceConfig {
+            category = VmGlobalConfig.CATEGORY
+            name = VmGlobalConfig.KVM_HIDDEN_STATE.name
+            resourceUuid = cluster.uuid
+        }
+        assert !rcf.getResourceConfigValue(VmGlobalConfig.KVM_HIDDEN_STATE, vm.uuid, Boolean.class)
+    }
+}
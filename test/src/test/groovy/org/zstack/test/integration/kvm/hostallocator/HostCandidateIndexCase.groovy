@@ -0,0 +1,272 @@
+package org.zstack.test.integration.kvm.hostallocator
+
+import org.zstack.compute.allocator.HostAllocatorGlobalConfig
+import org.zstack.compute.allocator.HostCandidateIndex
+import org.zstack.core.cloudbus.CloudBus
+import org.zstack.core.db.Q
+import org.zstack.core.db.SQL
+import org.zstack.header.allocator.DesignatedAllocateHostMsg
+import org.zstack.header.allocator.HostAllocatorConstant
+import org.zstack.header.allocator.HostCapacityVO
+import org.zstack.header.allocator.HostCapacityVO_
+import org.zstack.header.host.HostState
+import org.zstack.header.host.HostStatus
+import org.zstack.header.host.HostVO
+import org.zstack.header.host.HostVO_
+import org.zstack.header.image.ImageVO
+import org.zstack.header.message.MessageReply
+import org.zstack.header.vm.VmInstanceInventory
+import org.zstack.header.vm.VmInstanceVO
+import org.zstack.header.vm.VmInstanceVO_
+import org.zstack.header.vm.VmOperation
+import org.zstack.sdk.HostInventory
+import org.zstack.sdk.ImageInventory
+import org.zstack.sdk.InstanceOfferingInventory
+import org.zstack.sdk.L3NetworkInventory
+import org.zstack.test.integration.kvm.Env
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+/**
+ * hosts are allocated through the candidate index with and without pagination, the index
+ * follows host state, status and deletion by their canonical events, and an allocation
+ * the index gets wrong or fails runs on the database with the same result as without it
+ */
+class HostCandidateIndexCase extends SubCase {
+    EnvSpec env
+    HostCandidateIndex index
+    InstanceOfferingInventory instanceOffering
+    ImageInventory image
+    L3NetworkInventory l3
+    HostInventory host1
+    HostInventory host2
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = Env.noVmTwoHostsEnv()
+    }
+
+    @Override
+    void test() {
+        env.create {
+            index = bean(HostCandidateIndex.class)
+            instanceOffering = env.inventoryByName("instanceOffering") as InstanceOfferingInventory
+            image = env.inventoryByName("image1") as ImageInventory
+            l3 = env.inventoryByName("l3") as L3NetworkInventory
+            host1 = env.inventoryByName("kvm1") as HostInventory
+            host2 = env.inventoryByName("kvm2") as HostInventory
+
+            boolean useIndex = HostAllocatorGlobalConfig.USE_CANDIDATE_INDEX.value(Boolean.class)
+            boolean usePagination = HostAllocatorGlobalConfig.USE_PAGINATION.value(Boolean.class)
+            int paginationLimit = HostAllocatorGlobalConfig.PAGINATION_LIMIT.value(Integer.class)
+            HostAllocatorGlobalConfig.USE_CANDIDATE_INDEX.updateValue(true)
+            HostAllocatorGlobalConfig.USE_PAGINATION.updateValue(false)
+
+            testAllocateThroughIndex()
+            testHostStateChangeUpdatesIndex()
+            testStaleIndexFallsBackToDatabase()
+            testDesignatedDisconnectedHostErrorUnchanged()
+
+            HostAllocatorGlobalConfig.USE_PAGINATION.updateValue(true)
+            HostAllocatorGlobalConfig.PAGINATION_LIMIT.updateValue(1)
+            testAllocateByPagesThroughIndex()
+            testAllPagesFailedErrorUnchanged()
+
+            HostAllocatorGlobalConfig.PAGINATION_LIMIT.updateValue(paginationLimit)
+            HostAllocatorGlobalConfig.USE_PAGINATION.updateValue(usePagination)
+            testDeletedHostDroppedFromIndex()
+            HostAllocatorGlobalConfig.USE_CANDIDATE_INDEX.updateValue(useIndex)
+        }
+    }
+
+    private Set<String> indexedEnabledAndConnectedHosts() {
+        HostCandidateIndex.Snapshot snapshot = index.getSnapshot()
+        return snapshot.getHostUuids(snapshot.getEnabledAndConnectedHosts(null)) as Set
+    }
+
+    private org.zstack.sdk.VmInstanceInventory newVm(String vmName) {
+        return createVmInstance {
+            name = vmName
+            instanceOfferingUuid = instanceOffering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [l3.uuid]
+        } as org.zstack.sdk.VmInstanceInventory
+    }
+
+    void testAllocateThroughIndex() {
+        assert indexedEnabledAndConnectedHosts() == [host1.uuid, host2.uuid] as Set
+
+        long indexed = index.getIndexedAllocations()
+        long database = index.getDatabaseAllocations()
+        org.zstack.sdk.VmInstanceInventory vm = newVm("vm")
+        assert vm.hostUuid in [host1.uuid, host2.uuid]
+        assert index.getIndexedAllocations() == indexed + 1
+        assert index.getDatabaseAllocations() == database
+    }
+
+    void testHostStateChangeUpdatesIndex() {
+        changeHostState {
+            uuid = host1.uuid
+            stateEvent = "disable"
+        }
+        // the event is delivered asynchronously
+        retryInSecs {
+            assert indexedEnabledAndConnectedHosts() == [host2.uuid] as Set
+        }
+
+        long indexed = index.getIndexedAllocations()
+        for (int i = 0; i < 3; i++) {
+            assert newVm("vm-disabled-" + i).hostUuid == host2.uuid
+        }
+        assert index.getIndexedAllocations() == indexed + 3
+
+        changeHostState {
+            uuid = host1.uuid
+            stateEvent = "enable"
+        }
+        retryInSecs {
+            assert indexedEnabledAndConnectedHosts() == [host1.uuid, host2.uuid] as Set
+        }
+    }
+
+    void testStaleIndexFallsBackToDatabase() {
+        changeHostState {
+            uuid = host1.uuid
+            stateEvent = "disable"
+        }
+        retryInSecs {
+            assert indexedEnabledAndConnectedHosts() == [host2.uuid] as Set
+        }
+
+        // changed without HostBase, no event tells the index
+        SQL.New(HostVO.class).eq(HostVO_.uuid, host1.uuid).set(HostVO_.state, HostState.Enabled).update()
+        SQL.New(HostVO.class).eq(HostVO_.uuid, host2.uuid).set(HostVO_.status, HostStatus.Disconnected).update()
+        assert indexedEnabledAndConnectedHosts() == [host2.uuid] as Set
+
+        // host2 from the index is rejected by the flows, host1 is found on the database
+        long database = index.getDatabaseAllocations()
+        assert newVm("vm-stale").hostUuid == host1.uuid
+        assert index.getDatabaseAllocations() == database + 1
+
+        // changes through HostBase refresh the hosts from the database
+        SQL.New(HostVO.class).eq(HostVO_.uuid, host1.uuid).set(HostVO_.state, HostState.Disabled).update()
+        changeHostState {
+            uuid = host1.uuid
+            stateEvent = "enable"
+        }
+        reconnectHost {
+            uuid = host2.uuid
+        }
+        retryInSecs {
+            assert indexedEnabledAndConnectedHosts() == [host1.uuid, host2.uuid] as Set
+        }
+    }
+
+    private MessageReply allocateOnHost(String hostUuid) {
+        String vmUuid = Q.New(VmInstanceVO.class).select(VmInstanceVO_.uuid).limit(1).findValue()
+
+        DesignatedAllocateHostMsg msg = new DesignatedAllocateHostMsg()
+        msg.vmInstance = VmInstanceInventory.valueOf(dbFindByUuid(vmUuid, VmInstanceVO.class))
+        msg.image = org.zstack.header.image.ImageInventory.valueOf(dbFindByUuid(image.uuid, ImageVO.class))
+        msg.cpuCapacity = instanceOffering.cpuNum
+        msg.memoryCapacity = instanceOffering.memorySize
+        msg.l3NetworkUuids = [l3.uuid]
+        msg.hostUuid = hostUuid
+        msg.vmOperation = VmOperation.NewCreate.toString()
+        msg.allocatorStrategy = HostAllocatorConstant.LEAST_VM_PREFERRED_HOST_ALLOCATOR_STRATEGY_TYPE
+        bean(CloudBus.class).makeLocalServiceId(msg, HostAllocatorConstant.SERVICE_ID)
+        return bean(CloudBus.class).call(msg)
+    }
+
+    private void assertErrorUnchangedWithoutIndex(Closure<MessageReply> allocate) {
+        MessageReply indexed = allocate()
+        assert !indexed.success
+
+        HostAllocatorGlobalConfig.USE_CANDIDATE_INDEX.updateValue(false)
+        MessageReply notIndexed = allocate()
+        HostAllocatorGlobalConfig.USE_CANDIDATE_INDEX.updateValue(true)
+        assert !notIndexed.success
+
+        assert indexed.error.details == notIndexed.error.details
+    }
+
+    void testDesignatedDisconnectedHostErrorUnchanged() {
+        SQL.New(HostVO.class).eq(HostVO_.uuid, host1.uuid).set(HostVO_.status, HostStatus.Disconnected).update()
+        // the index still finds host1
+        assert host1.uuid in indexedEnabledAndConnectedHosts()
+
+        assertErrorUnchangedWithoutIndex { allocateOnHost(host1.uuid) }
+        MessageReply reply = allocateOnHost(host1.uuid)
+        // the state flow reports the designated host, not the designated flow
+        assert reply.error.details.contains("no Connected hosts")
+
+        reconnectHost {
+            uuid = host1.uuid
+        }
+        retryInSecs {
+            assert indexedEnabledAndConnectedHosts() == [host1.uuid, host2.uuid] as Set
+        }
+    }
+
+    private Map<String, Long> availableCpus() {
+        return Q.New(HostCapacityVO.class).list().collectEntries { HostCapacityVO c -> [(c.uuid): c.availableCpu] }
+    }
+
+    private static void setAvailableCpu(String hostUuid, long cpu) {
+        SQL.New(HostCapacityVO.class).eq(HostCapacityVO_.uuid, hostUuid).set(HostCapacityVO_.availableCpu, cpu).update()
+    }
+
+    void testAllocateByPagesThroughIndex() {
+        // one host a page, the page of host1 fails in the capacity flow
+        Map<String, Long> cpus = availableCpus()
+        setAvailableCpu(host1.uuid, 0)
+
+        long indexed = index.getIndexedAllocations()
+        for (int i = 0; i < 2; i++) {
+            assert newVm("vm-page-" + i).hostUuid == host2.uuid
+        }
+        assert index.getIndexedAllocations() == indexed + 2
+
+        setAvailableCpu(host1.uuid, cpus[host1.uuid])
+    }
+
+    void testAllPagesFailedErrorUnchanged() {
+        Map<String, Long> cpus = availableCpus()
+        setAvailableCpu(host1.uuid, 0)
+        setAvailableCpu(host2.uuid, 0)
+
+        long database = index.getDatabaseAllocations()
+        assertErrorUnchangedWithoutIndex { allocateOnHost(null) }
+        // the indexed pages are exhausted, then the flows run on the database
+        assert index.getDatabaseAllocations() == database + 2
+
+        cpus.each { k, v -> setAvailableCpu(k, v) }
+    }
+
+    void testDeletedHostDroppedFromIndex() {
+        assert index.getSnapshot().size() == 2
+
+        deleteHost {
+            uuid = host2.uuid
+        }
+        retryInSecs {
+            assert index.getSnapshot().size() == 1
+            assert indexedEnabledAndConnectedHosts() == [host1.uuid] as Set
+        }
+
+        long indexed = index.getIndexedAllocations()
+        assert newVm("vm-deleted").hostUuid == host1.uuid
+        assert index.getIndexedAllocations() == indexed + 1
+    }
+}
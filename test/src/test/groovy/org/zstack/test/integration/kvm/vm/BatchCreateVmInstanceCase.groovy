@@ -0,0 +1,383 @@
+package org.zstack.test.integration.kvm.vm
+
+import org.zstack.compute.vm.VmQuotaConstant
+import org.zstack.core.Platform
+import org.zstack.core.cloudbus.AbstractBeforeDeliveryMessageInterceptor
+import org.zstack.core.cloudbus.CloudBus
+import org.zstack.core.db.Q
+import org.zstack.core.db.SQL
+import org.zstack.core.progress.ProgressReportService
+import org.zstack.header.allocator.DesignatedAllocateHostMsg
+import org.zstack.header.allocator.HostCapacityVO
+import org.zstack.header.allocator.HostCapacityVO_
+import org.zstack.header.core.progress.TaskProgressVO
+import org.zstack.header.core.progress.TaskProgressVO_
+import org.zstack.header.core.progress.TaskType
+import org.zstack.header.identity.AccountType
+import org.zstack.header.image.ImageVO
+import org.zstack.header.message.Message
+import org.zstack.header.network.l3.AllocateIpMsg
+import org.zstack.header.network.l3.AllocateIpsMsg
+import org.zstack.header.network.l3.UsedIpVO
+import org.zstack.header.network.l3.UsedIpVO_
+import org.zstack.sdk.AccountInventory
+import org.zstack.sdk.BatchCreateVmInstanceResult
+import org.zstack.sdk.BatchCreateVmInstanceStruct
+import org.zstack.sdk.DiskOfferingInventory
+import org.zstack.sdk.ImageInventory
+import org.zstack.sdk.InstanceOfferingInventory
+import org.zstack.sdk.L3NetworkInventory
+import org.zstack.sdk.SessionInventory
+import org.zstack.sdk.VmNicInventory
+import org.zstack.utils.data.SizeUnit
+
+import java.util.concurrent.atomic.AtomicBoolean
+import org.zstack.test.integration.kvm.Env
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+class BatchCreateVmInstanceCase extends SubCase {
+    EnvSpec env
+    InstanceOfferingInventory instanceOffering
+    ImageInventory image
+    L3NetworkInventory l3
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = Env.noVmTwoHostsEnv()
+    }
+
+    @Override
+    void test() {
+        env.create {
+            instanceOffering = env.inventoryByName("instanceOffering") as InstanceOfferingInventory
+            image = env.inventoryByName("image1") as ImageInventory
+            l3 = env.inventoryByName("l3") as L3NetworkInventory
+
+            testBatchCreateVmsSpreadOnHosts()
+            testRetryWhenPlannedHostIsFull()
+            testIpsAllocatedForTheBatchAtOnce()
+            testUnusedIpsReturnedWhenVmsFail()
+            testProgressReportedPerVm()
+            testQuotaMultipliedByAmount()
+            testTagsOfOneVmNotAllowed()
+        }
+    }
+
+    // frees the capacity of the hosts for the next batch
+    private void destroyVms(BatchCreateVmInstanceResult res) {
+        res.results.findAll { it.success }.each { BatchCreateVmInstanceStruct r ->
+            destroyVmInstance {
+                uuid = r.inventory.uuid
+            }
+        }
+    }
+
+    void testBatchCreateVmsSpreadOnHosts() {
+        BatchCreateVmInstanceResult res = batchCreateVmInstance {
+            name = "web"
+            amount = 4
+            instanceOfferingUuid = instanceOffering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [l3.uuid]
+        } as BatchCreateVmInstanceResult
+
+        List<BatchCreateVmInstanceStruct> results = res.results
+        assert results.size() == 4
+        assert results.every { it.success }
+        assert results.collect { it.name } == ["web-1", "web-2", "web-3", "web-4"]
+        assert results.collect { it.inventory.hostUuid }.toSet().size() == 2
+
+        destroyVms(res)
+    }
+
+    void testRetryWhenPlannedHostIsFull() {
+        // host of every allocation after the dry run, null if left to the allocator
+        List<String> allocatedOn = Collections.synchronizedList([])
+        Map<String, HostCapacityVO> full = [:]
+
+        // the first planned host gets full between the dry run and the allocation of its vms
+        bean(CloudBus.class).installBeforeDeliveryMessageInterceptor(new AbstractBeforeDeliveryMessageInterceptor() {
+            @Override
+            void beforeDeliveryMessage(Message msg) {
+                DesignatedAllocateHostMsg amsg = (DesignatedAllocateHostMsg) msg
+                if (amsg.isDryRun() || !amsg.vmInstance?.name?.startsWith("full-")) {
+                    return
+                }
+
+                allocatedOn.add(amsg.hostUuid)
+                synchronized (allocatedOn) {
+                    if (full.isEmpty() && amsg.hostUuid != null) {
+                        full[amsg.hostUuid] = Q.New(HostCapacityVO.class).eq(HostCapacityVO_.uuid, amsg.hostUuid).find()
+                        SQL.New(HostCapacityVO.class).eq(HostCapacityVO_.uuid, amsg.hostUuid)
+                                .set(HostCapacityVO_.availableMemory, 0L)
+                                .set(HostCapacityVO_.availableCpu, 0L)
+                                .update()
+                    }
+                }
+            }
+        }, DesignatedAllocateHostMsg.class)
+
+        BatchCreateVmInstanceResult res = batchCreateVmInstance {
+            name = "full"
+            amount = 2
+            instanceOfferingUuid = instanceOffering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [l3.uuid]
+        } as BatchCreateVmInstanceResult
+
+        assert full.size() == 1
+        String fullHostUuid = full.keySet().first()
+        HostCapacityVO capacity = full[fullHostUuid]
+        assert res.results.every { it.success }
+        assert res.results.every { it.inventory.hostUuid != fullHostUuid }
+        // every vm failed on the full host is tried once more on any host
+        assert allocatedOn.count(fullHostUuid) >= 1
+        assert allocatedOn.count(null) == allocatedOn.count(fullHostUuid)
+
+        SQL.New(HostCapacityVO.class).eq(HostCapacityVO_.uuid, fullHostUuid)
+                .set(HostCapacityVO_.availableMemory, capacity.availableMemory)
+                .set(HostCapacityVO_.availableCpu, capacity.availableCpu)
+                .update()
+        destroyVms(res)
+    }
+
+    void testIpsAllocatedForTheBatchAtOnce() {
+        List<AllocateIpsMsg> batchAllocations = Collections.synchronizedList([])
+        List<AllocateIpMsg> vmAllocations = Collections.synchronizedList([])
+        AtomicBoolean counting = new AtomicBoolean(true)
+
+        bean(CloudBus.class).installBeforeDeliveryMessageInterceptor(new AbstractBeforeDeliveryMessageInterceptor() {
+            @Override
+            void beforeDeliveryMessage(Message msg) {
+                if (!counting.get()) {
+                    return
+                }
+
+                if (msg instanceof AllocateIpsMsg) {
+                    batchAllocations.add(msg)
+                } else {
+                    vmAllocations.add((AllocateIpMsg) msg)
+                }
+            }
+        }, AllocateIpsMsg.class, AllocateIpMsg.class)
+
+        BatchCreateVmInstanceResult res = batchCreateVmInstance {
+            name = "ip"
+            amount = 3
+            instanceOfferingUuid = instanceOffering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [l3.uuid]
+        } as BatchCreateVmInstanceResult
+        counting.set(false)
+
+        assert res.results.every { it.success }
+        // one message for the batch, none for the vms
+        assert batchAllocations.size() == 1
+        assert batchAllocations[0].l3NetworkUuid == l3.uuid
+        assert batchAllocations[0].num == 3
+        assert vmAllocations.isEmpty()
+
+        List<VmNicInventory> nics = res.results.collect { it.inventory.vmNics[0] as VmNicInventory }
+        assert nics.collect { it.ip }.toSet().size() == 3
+        nics.each { VmNicInventory nic ->
+            UsedIpVO ip = dbFindByUuid(nic.usedIpUuid, UsedIpVO.class)
+            assert ip.vmNicUuid == nic.uuid
+            assert ip.ip == nic.ip
+        }
+
+        destroyVms(res)
+    }
+
+    private long unusedIpCount() {
+        return Q.New(UsedIpVO.class).eq(UsedIpVO_.l3NetworkUuid, l3.uuid).isNull(UsedIpVO_.vmNicUuid).count()
+    }
+
+    void testUnusedIpsReturnedWhenVmsFail() {
+        long unused = unusedIpCount()
+        Map<String, HostCapacityVO> capacities = [:]
+
+        // every host gets full after the dry run, the vms fail before creating their nics
+        bean(CloudBus.class).installBeforeDeliveryMessageInterceptor(new AbstractBeforeDeliveryMessageInterceptor() {
+            @Override
+            void beforeDeliveryMessage(Message msg) {
+                DesignatedAllocateHostMsg amsg = (DesignatedAllocateHostMsg) msg
+                if (amsg.isDryRun() || !amsg.vmInstance?.name?.startsWith("leak-")) {
+                    return
+                }
+
+                synchronized (capacities) {
+                    if (capacities.isEmpty()) {
+                        Q.New(HostCapacityVO.class).list().each { HostCapacityVO c -> capacities[c.uuid] = c }
+                        SQL.New(HostCapacityVO.class)
+                                .set(HostCapacityVO_.availableMemory, 0L)
+                                .set(HostCapacityVO_.availableCpu, 0L)
+                                .update()
+                    }
+                }
+            }
+        }, DesignatedAllocateHostMsg.class)
+
+        BatchCreateVmInstanceResult res = batchCreateVmInstance {
+            name = "leak"
+            amount = 2
+            instanceOfferingUuid = instanceOffering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [l3.uuid]
+        } as BatchCreateVmInstanceResult
+
+        assert !capacities.isEmpty()
+        assert res.results.every { !it.success }
+        // the ips allocated for the batch are returned, they are returned asynchronously
+        retryInSecs {
+            assert unusedIpCount() == unused
+        }
+
+        capacities.each { String huuid, HostCapacityVO c ->
+            SQL.New(HostCapacityVO.class).eq(HostCapacityVO_.uuid, huuid)
+                    .set(HostCapacityVO_.availableMemory, c.availableMemory)
+                    .set(HostCapacityVO_.availableCpu, c.availableCpu)
+                    .update()
+        }
+    }
+
+    void testProgressReportedPerVm() {
+        ProgressReportService progressReportService = bean(ProgressReportService.class)
+        int deleteDelay = progressReportService.getDELETE_DELAY()
+        // keep the progress entries after the api returns
+        progressReportService.setDELETE_DELAY(1000)
+
+        String apiUuid = Platform.getUuid()
+        BatchCreateVmInstanceResult res = batchCreateVmInstance {
+            apiId = apiUuid
+            name = "progress"
+            amount = 3
+            instanceOfferingUuid = instanceOffering.uuid
+            imageUuid = image.uuid
+            l3NetworkUuids = [l3.uuid]
+        } as BatchCreateVmInstanceResult
+        assert res.results.every { it.success }
+
+        List<TaskProgressVO> tasks = Q.New(TaskProgressVO.class).eq(TaskProgressVO_.apiId, apiUuid)
+                .eq(TaskProgressVO_.type, TaskType.Task)
+                .eq(TaskProgressVO_.content, "%s vm[name:%s] (%s/%s)")
+                .list()
+        // one entry for every vm
+        assert tasks.size() == 3
+        ["progress-1", "progress-2", "progress-3"].each { String vmName ->
+            assert tasks.count { it.arguments.contains(vmName) } == 1
+        }
+
+        List<String> progresses = Q.New(TaskProgressVO.class).select(TaskProgressVO_.content)
+                .eq(TaskProgressVO_.apiId, apiUuid)
+                .eq(TaskProgressVO_.type, TaskType.Progress)
+                .listValues()
+        assert progresses.containsAll(["0", "33", "66", "100"])
+
+        progressReportService.setDELETE_DELAY(deleteDelay)
+        SQL.New(TaskProgressVO.class).eq(TaskProgressVO_.apiId, apiUuid).hardDelete()
+        destroyVms(res)
+    }
+
+    void testQuotaMultipliedByAmount() {
+        DiskOfferingInventory diskOffering = createDiskOffering {
+            name = "data"
+            diskSize = SizeUnit.GIGABYTE.toByte(10)
+        } as DiskOfferingInventory
+
+        AccountInventory account = createAccount {
+            name = "batch"
+            password = "password"
+            type = AccountType.Normal.toString()
+        } as AccountInventory
+
+        shareResource {
+            resourceUuids = [instanceOffering.uuid, image.uuid, l3.uuid, diskOffering.uuid]
+            accountUuids = [account.uuid]
+        }
+
+        SessionInventory session = logInByAccount {
+            accountName = account.name
+            password = "password"
+        } as SessionInventory
+
+        long imageSize = dbFindByUuid(image.uuid, ImageVO.class).size
+        // quota taken by one vm with one data volume
+        Map<String, Long> perVm = [
+                (VmQuotaConstant.VM_TOTAL_NUM)          : 1L,
+                (VmQuotaConstant.VM_RUNNING_NUM)        : 1L,
+                (VmQuotaConstant.VM_RUNNING_CPU_NUM)    : instanceOffering.cpuNum as long,
+                (VmQuotaConstant.VM_RUNNING_MEMORY_SIZE): instanceOffering.memorySize,
+                (VmQuotaConstant.DATA_VOLUME_NUM)       : 1L,
+                (VmQuotaConstant.VOLUME_SIZE)           : imageSize + diskOffering.diskSize
+        ]
+
+        def setQuota = { String quotaName, long vmNum ->
+            updateQuota {
+                identityUuid = account.uuid
+                name = quotaName
+                value = perVm[quotaName] * vmNum
+            }
+        }
+
+        def batchCreate = { int vmNum ->
+            return batchCreateVmInstance {
+                name = "quota"
+                amount = vmNum
+                instanceOfferingUuid = instanceOffering.uuid
+                imageUuid = image.uuid
+                l3NetworkUuids = [l3.uuid]
+                dataDiskOfferingUuids = [diskOffering.uuid]
+                sessionId = session.uuid
+            } as BatchCreateVmInstanceResult
+        }
+
+        perVm.keySet().each { setQuota(it, 3) }
+
+        // every quota in turn fits 2 vms, 3 vms exceed it
+        perVm.keySet().each { String quotaName ->
+            setQuota(quotaName, 2)
+
+            AssertionError error = null
+            try {
+                batchCreate(3)
+            } catch (AssertionError e) {
+                error = e
+            }
+            assert error != null
+            assert error.toString().contains(quotaName)
+
+            setQuota(quotaName, 3)
+        }
+
+        // 2 vms fit all quotas exactly
+        perVm.keySet().each { setQuota(it, 2) }
+        BatchCreateVmInstanceResult res = batchCreate(2)
+        assert res.results.size() == 2
+        assert res.results.every { it.success }
+    }
+
+    void testTagsOfOneVmNotAllowed() {
+        expect(AssertionError.class) {
+            batchCreateVmInstance {
+                name = "db"
+                amount = 2
+                instanceOfferingUuid = instanceOffering.uuid
+                imageUuid = image.uuid
+                l3NetworkUuids = [l3.uuid]
+                systemTags = [String.format("staticIp::%s::192.168.100.20", l3.uuid)]
+            }
+        }
+    }
+}
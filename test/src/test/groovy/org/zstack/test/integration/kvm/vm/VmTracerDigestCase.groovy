@@ -0,0 +1,104 @@
+package org.zstack.test.integration.kvm.vm
+
+import org.zstack.compute.vm.VmTracerHelperImpl
+import org.zstack.core.cloudbus.CloudBus
+import org.zstack.header.host.HostConstant
+import org.zstack.header.host.PingHostMsg
+import org.zstack.header.vm.VmInstanceState
+import org.zstack.header.vm.VmInstanceVO
+import org.zstack.kvm.KVMAgentCommands
+import org.zstack.kvm.KVMConstant
+import org.zstack.sdk.VmInstanceInventory
+import org.zstack.test.integration.kvm.Env
+import org.zstack.test.integration.kvm.KvmTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+class VmTracerDigestCase extends SubCase {
+    EnvSpec env
+    VmInstanceInventory vm
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(KvmTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = Env.oneVmBasicEnv()
+    }
+
+    @Override
+    void test() {
+        env.create {
+            vm = env.inventoryByName("vm") as VmInstanceInventory
+            testSkipReconciliationIfVmStatesUnchanged()
+            testReconcileIfVmStatesChangedOnHost()
+            testDropStatesOfDeletedHost()
+        }
+    }
+
+    void pingHost() {
+        PingHostMsg msg = new PingHostMsg()
+        msg.hostUuid = vm.hostUuid
+        CloudBus bus = bean(CloudBus.class)
+        bus.makeTargetServiceIdByResourceUuid(msg, HostConstant.SERVICE_ID, vm.hostUuid)
+        assert bus.call(msg).success
+    }
+
+    void testSkipReconciliationIfVmStatesUnchanged() {
+        VmTracerHelperImpl helper = bean(VmTracerHelperImpl.class)
+        long skipped = helper.reconciliationsSkipped
+
+        pingHost()
+        pingHost()
+
+        retryInSecs {
+            assert helper.reconciliationsSkipped > skipped
+        }
+        assert dbFindByUuid(vm.uuid, VmInstanceVO.class).state == VmInstanceState.Running
+    }
+
+    void testReconcileIfVmStatesChangedOnHost() {
+        VmTracerHelperImpl helper = bean(VmTracerHelperImpl.class)
+        long performed = helper.reconciliationsPerformed
+
+        env.afterSimulator(KVMConstant.KVM_VM_SYNC_PATH) { KVMAgentCommands.VmSyncResponse rsp ->
+            rsp.states.remove(vm.uuid)
+            return rsp
+        }
+
+        pingHost()
+
+        retryInSecs {
+            assert helper.reconciliationsPerformed > performed
+            assert dbFindByUuid(vm.uuid, VmInstanceVO.class).state == VmInstanceState.Stopped
+        }
+
+        env.cleanAfterSimulatorHandlers()
+    }
+
+    void testDropStatesOfDeletedHost() {
+        VmTracerHelperImpl helper = bean(VmTracerHelperImpl.class)
+        String hostUuid = vm.hostUuid
+
+        pingHost()
+        retryInSecs {
+            assert helper.vmStatesGenerations.containsKey(hostUuid)
+        }
+
+        deleteHost {
+            uuid = hostUuid
+        }
+
+        retryInSecs {
+            assert !helper.vmStatesGenerations.containsKey(hostUuid)
+            assert !helper.reconciledVmStates.containsKey(hostUuid)
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.zstack.sdk.CreateVmInstanceAction
 import org.zstack.sdk.GetL3NetworkRouterInterfaceIpResult
 import org.zstack.sdk.L2NetworkInventory
 import org.zstack.sdk.L3NetworkInventory
+import org.zstack.sdk.VmInstanceInventory
 import org.zstack.test.integration.kvm.KvmTest
 import org.zstack.test.integration.network.NetworkTest
 import org.zstack.testlib.EnvSpec
@@ -42,6 +43,7 @@ class OneIpL3NetworkCase extends SubCase {
         env.create {
             createVmSuccessOnOneIpL3Network()
             add3IpRangeToL3Andcreate3VmSuccessButCreateOneMoreVmFailure()
+            testAllocateReturnedIpInFullL3()
             testSpecifyL3RouterInterfaceIp()
         }
     }
@@ -126,6 +128,30 @@ class OneIpL3NetworkCase extends SubCase {
         res.error != null
     }
 
+    void testAllocateReturnedIpInFullL3() {
+        InstanceOfferingSpec  ioSpec= env.specByName("instanceOffering")
+        ImageSpec iSpec = env.specByName("image1")
+        L3NetworkSpec l3Spec = env.specByName("l3")
+
+        VmInstanceInventory vm = queryVmInstance {
+            conditions = ["name=vm4"]
+        }[0]
+        destroyVmInstance {
+            uuid = vm.uuid
+        }
+        expungeVmInstance {
+            uuid = vm.uuid
+        }
+
+        VmInstanceInventory vm5 = createVmInstance {
+            name = "vm5"
+            instanceOfferingUuid = ioSpec.inventory.uuid
+            imageUuid = iSpec.inventory.uuid
+            l3NetworkUuids = asList((l3Spec.inventory.uuid))
+        } as VmInstanceInventory
+        assert vm5.vmNics[0].ip == vm.vmNics[0].ip
+    }
+
     void testSpecifyL3RouterInterfaceIp(){
         InstanceOfferingSpec  ioSpec= env.specByName("instanceOffering")
         ImageSpec iSpec = env.specByName("image1")
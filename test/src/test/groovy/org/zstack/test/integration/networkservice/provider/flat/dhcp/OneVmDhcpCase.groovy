@@ -47,6 +47,7 @@ class OneVmDhcpCase extends SubCase {
             testSetDhcpWhenStartVm()
             testSetDhcpMtu()
             testSetDhcpReleaseDhcpWhenRebootVm()
+            testPrepareDhcpWhenRebootVmAgain()
             testSetDhcpWhenReconnectHost()
             testReleaseDhcpWhenDestroyVm()
             testDeleteNamespaceAndDhcpIpWhenDeleteL3Network()
@@ -113,6 +114,25 @@ class OneVmDhcpCase extends SubCase {
         }
     }
 
+    void testPrepareDhcpWhenRebootVmAgain() {
+        // the namespace was prepared by the last reboot just now, a dead dnsmasq
+        // would not be repaired if the prepare was skipped
+        int count = 0
+        env.afterSimulator(FlatDhcpBackend.PREPARE_DHCP_PATH) { rsp ->
+            count ++
+            return rsp
+        }
+
+        rebootVmInstance {
+            uuid = vm.uuid
+        }
+        rebootVmInstance {
+            uuid = vm.uuid
+        }
+
+        assert count == 2
+    }
+
     void testSetDhcpWhenStartVm() {
         testSetDhcpWhenVmOperations {
             startVmInstance {
@@ -92,7 +92,7 @@ class AddRulesRemoteGroupsCase extends SubCase{
             testAddVmNicToSecurityGroup([vm1.vmNics.get(0).uuid], sg1.uuid, [host1.uuid, host2.uuid, host3.uuid])
             sgVmIp.get(sg1.uuid).add(vm1.vmNics.get(0).ip)
 
-            addRule(sg1.uuid, 1, [sg3.uuid], 4) //[sg3.uuid] is remoteSecurityGroup 4 is existed rule count on sg1
+            addRule(sg1.uuid, 1, [sg3.uuid]) //[sg3.uuid] is remoteSecurityGroup
 
             // after action, sg3's ipset is in host1, host2 and host3, should update its ipset member on host1, host2 and host3
             testRemoveVmNicFromSecurityGroup([vm4.vmNics.get(0).uuid], sg3.uuid, [host1.uuid, host2.uuid, host3.uuid])
@@ -244,17 +244,17 @@ class AddRulesRemoteGroupsCase extends SubCase{
             stateEvent = "disable"
         }
 
-        KVMAgentCommands.ApplySecurityGroupRuleCmd cmd
+        KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd cmd
         APIAddSecurityGroupRuleMsg.SecurityGroupRuleAO rulex = returnRandomRule()
-        env.simulator(KVMSecurityGroupBackend.SECURITY_GROUP_APPLY_RULE_PATH ){ HttpEntity<String> e ->
-            cmd = JSONObjectUtil.toObject(e.getBody(), KVMAgentCommands.ApplySecurityGroupRuleCmd.class)
+        env.simulator(KVMSecurityGroupBackend.SECURITY_GROUP_APPLY_RULE_DELTAS_PATH ){ HttpEntity<String> e ->
+            cmd = JSONObjectUtil.toObject(e.getBody(), KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd.class)
             List<SecurityGroupRuleTO> ruleTOs = cmd.getRuleTOs()
             ruleTOs.each {
                 if (sgUuid == it.getRules().get(0).securityGroupUuid ) {
                     called = true
                 }
             }
-            return new KVMAgentCommands.ApplySecurityGroupRuleResponse()
+            return new KVMAgentCommands.ApplySecurityGroupRuleDeltasResponse()
         }
         addSecurityGroupRule {
             rules = [rulex]
@@ -285,11 +285,12 @@ class AddRulesRemoteGroupsCase extends SubCase{
         }
     }
 
-    private void addRule(String sgUuid, int ruleCounts, int existedRuleCount){
-        addRule(sgUuid, ruleCounts, null, existedRuleCount)
+    private void addRule(String sgUuid, int ruleCounts){
+        addRule(sgUuid, ruleCounts, null)
     }
 
-    private void addRule(String sgUuid, int ruleCounts, List<String> remoteSgUuids, int existedRuleCount){
+    // only the added rules are sent to the hosts of the group
+    private void addRule(String sgUuid, int ruleCounts, List<String> remoteSgUuids){
         // initial
         List<APIAddSecurityGroupRuleMsg.SecurityGroupRuleAO> sgRules = new ArrayList<>()
         for (int i = 0; i < ruleCounts; i++) {
@@ -297,11 +298,11 @@ class AddRulesRemoteGroupsCase extends SubCase{
         }
 
         // action
-        KVMAgentCommands.ApplySecurityGroupRuleCmd cmd
+        KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd cmd
 
-        env.simulator(KVMSecurityGroupBackend.SECURITY_GROUP_APPLY_RULE_PATH ){ HttpEntity<String> e ->
-            cmd = JSONObjectUtil.toObject(e.getBody(), KVMAgentCommands.ApplySecurityGroupRuleCmd.class)
-            return new KVMAgentCommands.ApplySecurityGroupRuleResponse()
+        env.simulator(KVMSecurityGroupBackend.SECURITY_GROUP_APPLY_RULE_DELTAS_PATH ){ HttpEntity<String> e ->
+            cmd = JSONObjectUtil.toObject(e.getBody(), KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd.class)
+            return new KVMAgentCommands.ApplySecurityGroupRuleDeltasResponse()
         }
 
         addSecurityGroupRule {
@@ -315,14 +316,17 @@ class AddRulesRemoteGroupsCase extends SubCase{
             assert cmd != null
         }
         for (SecurityGroupRuleTO rule : cmd.ruleTOs){
+            assert rule.actionCode == SecurityGroupRuleTO.ACTION_CODE_ADD_RULES
             if(remoteSgUuids != null && !remoteSgUuids.isEmpty()){
-                assert rule.getSecurityGroupBaseRules().size() == remoteSgUuids.size() * ruleCounts + existedRuleCount
+                assert rule.rules.isEmpty()
+                assert rule.getSecurityGroupBaseRules().size() == remoteSgUuids.size() * ruleCounts
                 rule.getSecurityGroupBaseRules().forEach{ it ->
                     assert it.remoteGroupVmIps.size() == sgVmIp.get(it.remoteGroupUuid).size()
                     assert it.remoteGroupVmIps.containsAll(sgVmIp.get(it.remoteGroupUuid))
                 }
             }else {
-                assert rule.rules.size() == ruleCounts + existedRuleCount
+                assert rule.getSecurityGroupBaseRules().isEmpty()
+                assert rule.rules.size() == ruleCounts
                 rule.rules.forEach{ it ->
                     assert it.remoteGroupUuid == null
                     assert it.remoteGroupVmIps == null
@@ -357,13 +361,13 @@ class AddRulesRemoteGroupsCase extends SubCase{
         sg3 = createSecurityGroup(vm3, vm4) // sg3'vm in host3
     }
 
-    void testAddRule(){ // 2 is default rule count
-        addRule(sg1.uuid, 4, 0)
-        addRule(sg2.uuid, 2, 0)
-        addRule(sg3.uuid, 3, 0)
-        addRule(sg1.uuid, 2, [sg2.uuid], 2)
-        addRule(sg2.uuid, 3, [sg1.uuid, sg3.uuid], 2)
-        addRule(sg3.uuid, 1, [sg2.uuid, sg1.uuid], 2)
+    void testAddRule(){
+        addRule(sg1.uuid, 4)
+        addRule(sg2.uuid, 2)
+        addRule(sg3.uuid, 3)
+        addRule(sg1.uuid, 2, [sg2.uuid])
+        addRule(sg2.uuid, 3, [sg1.uuid, sg3.uuid])
+        addRule(sg3.uuid, 1, [sg2.uuid, sg1.uuid])
     }
 
     void testRemoveVmNicFromSecurityGroup(List<String> nicUuids, String sgUuid, List<String> expectHostUuids){
@@ -41,9 +41,9 @@ class AddSecurityGroupRulesCase extends SubCase{
     }
 
     void testAddMultiRulesToSecurityGroup(int num) {
-        KVMAgentCommands.ApplySecurityGroupRuleCmd cmd = null
-        env.afterSimulator(KVMSecurityGroupBackend.SECURITY_GROUP_APPLY_RULE_PATH) { rsp, HttpEntity<String> e ->
-            cmd = JSONObjectUtil.toObject(e.body, KVMAgentCommands.ApplySecurityGroupRuleCmd.class)
+        KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd cmd = null
+        env.afterSimulator(KVMSecurityGroupBackend.SECURITY_GROUP_APPLY_RULE_DELTAS_PATH) { rsp, HttpEntity<String> e ->
+            cmd = JSONObjectUtil.toObject(e.body, KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd.class)
             return rsp
         }
 
@@ -70,6 +70,7 @@ class AddSecurityGroupRulesCase extends SubCase{
         retryInSecs {
             assert cmd != null
         }
+        cmd.ruleTOs.each { assert it.rules.size() == num }
     }
 
     @Override
@@ -0,0 +1,490 @@
+package org.zstack.test.integration.networkservice.provider.virtualrouter.securitygroup
+
+import org.zstack.core.db.Q
+import org.zstack.core.db.SQL
+import org.zstack.header.network.l3.L3NetworkInventory
+import org.zstack.header.network.l3.L3NetworkVO
+import org.zstack.header.network.l3.L3NetworkVO_
+import org.zstack.header.network.service.NetworkServiceType
+import org.zstack.header.vm.VmInstanceState
+import org.zstack.network.l3.IpRangeHelper
+import org.zstack.network.securitygroup.APIAddSecurityGroupRuleMsg
+import org.zstack.network.securitygroup.HostRuleTO
+import org.zstack.network.securitygroup.RuleTO
+import org.zstack.network.securitygroup.SecurityGroupConstant
+import org.zstack.network.securitygroup.SecurityGroupGlobalConfig
+import org.zstack.network.securitygroup.SecurityGroupL3NetworkRefVO
+import org.zstack.network.securitygroup.SecurityGroupL3NetworkRefVO_
+import org.zstack.network.securitygroup.SecurityGroupManagerImpl
+import org.zstack.network.securitygroup.SecurityGroupRuleTO
+import org.zstack.network.securitygroup.SecurityGroupRuleVO
+import org.zstack.network.securitygroup.SecurityGroupRuleVO_
+import org.zstack.network.securitygroup.SecurityGroupState
+import org.zstack.network.securitygroup.SecurityGroupVO
+import org.zstack.network.securitygroup.SecurityGroupVO_
+import org.zstack.network.service.virtualrouter.vyos.VyosConstants
+import org.zstack.sdk.HostInventory
+import org.zstack.sdk.SecurityGroupInventory
+import org.zstack.sdk.VmInstanceInventory
+import org.zstack.sdk.VmNicInventory
+import org.zstack.test.integration.networkservice.provider.NetworkServiceProviderTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.utils.data.SizeUnit
+
+import javax.persistence.Tuple
+import java.lang.reflect.Constructor
+import java.lang.reflect.Field
+
+/**
+ * rules calculated for vms with nics in several security groups, on several l3 networks, are
+ * the ones calculated nic by nic and group by group
+ */
+class SecurityGroupRuleCalculationCase extends SubCase {
+    EnvSpec env
+    VmNicInventory vm1Nic1, vm1Nic2, vm2Nic1, vm2Nic2, vm3Nic
+    SecurityGroupInventory sg1, sg2, sg3, sg4
+    List<String> hostUuids
+
+    @Override
+    void setup() {
+        useSpring(NetworkServiceProviderTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+            instanceOffering {
+                name = "instanceOffering"
+                memory = SizeUnit.GIGABYTE.toByte(4)
+                cpu = 2
+            }
+
+            sftpBackupStorage {
+                name = "sftp"
+                url = "/sftp"
+                username = "root"
+                password = "password"
+                hostname = "localhost"
+
+                image {
+                    name = "image"
+                    url = "http://zstack.org/download/test.qcow2"
+                }
+
+                image {
+                    name = "vr"
+                    url = "http://zstack.org/download/vr.qcow2"
+                }
+            }
+
+            zone {
+                name = "zone"
+
+                cluster {
+                    name = "cluster"
+                    hypervisorType = "KVM"
+
+                    kvm {
+                        name = "kvm1"
+                        managementIp = "localhost"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    kvm {
+                        name = "kvm2"
+                        managementIp = "127.0.0.2"
+                        username = "root"
+                        password = "password"
+                    }
+
+                    attachPrimaryStorage("local")
+                    attachL2Network("l2")
+                    attachL2Network("l2-2")
+                }
+
+                localPrimaryStorage {
+                    name = "local"
+                    url = "/local_ps"
+                }
+
+                l2NoVlanNetwork {
+                    name = "l2"
+                    physicalInterface = "eth0"
+
+                    l3Network {
+                        name = "l3"
+
+                        service {
+                            provider = SecurityGroupConstant.SECURITY_GROUP_PROVIDER_TYPE
+                            types = [SecurityGroupConstant.SECURITY_GROUP_NETWORK_SERVICE_TYPE]
+                        }
+
+                        service {
+                            provider = VyosConstants.VYOS_ROUTER_PROVIDER_TYPE
+                            types = [NetworkServiceType.DHCP.toString(),
+                                     NetworkServiceType.DNS.toString(),
+                                     NetworkServiceType.SNAT.toString()]
+                        }
+
+                        ip {
+                            startIp = "192.168.100.10"
+                            endIp = "192.168.100.100"
+                            netmask = "255.255.255.0"
+                            gateway = "192.168.100.1"
+                        }
+                    }
+
+                    l3Network {
+                        name = "pubL3"
+
+                        ip {
+                            startIp = "11.168.100.10"
+                            endIp = "11.168.100.100"
+                            netmask = "255.255.255.0"
+                            gateway = "11.168.100.1"
+                        }
+                    }
+                }
+
+                l2NoVlanNetwork {
+                    name = "l2-2"
+                    physicalInterface = "eth1"
+
+                    l3Network {
+                        name = "l3-2"
+
+                        service {
+                            provider = SecurityGroupConstant.SECURITY_GROUP_PROVIDER_TYPE
+                            types = [SecurityGroupConstant.SECURITY_GROUP_NETWORK_SERVICE_TYPE]
+                        }
+
+                        ip {
+                            startIp = "192.168.200.10"
+                            endIp = "192.168.200.100"
+                            netmask = "255.255.255.0"
+                            gateway = "192.168.200.1"
+                        }
+                    }
+                }
+
+                attachBackupStorage("sftp")
+
+                virtualRouterOffering {
+                    name = "vro"
+                    memory = SizeUnit.MEGABYTE.toByte(512)
+                    cpu = 2
+                    useManagementL3Network("pubL3")
+                    usePublicL3Network("pubL3")
+                    useImage("vr")
+                }
+            }
+
+            vm {
+                name = "vm1"
+                useImage("image")
+                useL3Networks("l3", "l3-2")
+                useHost("kvm1")
+                useInstanceOffering("instanceOffering")
+            }
+
+            vm {
+                name = "vm2"
+                useImage("image")
+                useL3Networks("l3", "l3-2")
+                useHost("kvm2")
+                useInstanceOffering("instanceOffering")
+            }
+
+            vm {
+                name = "vm3"
+                useImage("image")
+                useL3Networks("l3")
+                useHost("kvm2")
+                useInstanceOffering("instanceOffering")
+            }
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            prepare()
+
+            testCalculateByVmNic()
+            testCalculateBySecurityGroup()
+            testCalculateByHost()
+            testRemoteGroupVmIps()
+        }
+    }
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    private VmNicInventory nicOf(String vmName, String l3Name) {
+        VmInstanceInventory vm = env.inventoryByName(vmName) as VmInstanceInventory
+        String l3Uuid = env.inventoryByName(l3Name).uuid
+        return vm.vmNics.find { it.l3NetworkUuid == l3Uuid }
+    }
+
+    private SecurityGroupInventory newSecurityGroup(String sgName, List<String> l3Names, List<VmNicInventory> nics) {
+        SecurityGroupInventory sg = createSecurityGroup {
+            name = sgName
+        } as SecurityGroupInventory
+
+        l3Names.each { l3Name ->
+            attachSecurityGroupToL3Network {
+                securityGroupUuid = sg.uuid
+                l3NetworkUuid = env.inventoryByName(l3Name).uuid
+            }
+        }
+
+        addVmNicToSecurityGroup {
+            securityGroupUuid = sg.uuid
+            vmNicUuids = nics.collect { it.uuid }
+        }
+
+        return sg
+    }
+
+    private static APIAddSecurityGroupRuleMsg.SecurityGroupRuleAO rule(String type, String protocol, int port, String cidr) {
+        APIAddSecurityGroupRuleMsg.SecurityGroupRuleAO ao = new APIAddSecurityGroupRuleMsg.SecurityGroupRuleAO()
+        ao.type = type
+        ao.protocol = protocol
+        ao.startPort = port
+        ao.endPort = port
+        ao.allowedCidr = cidr
+        return ao
+    }
+
+    private void addRules(SecurityGroupInventory sg, List<APIAddSecurityGroupRuleMsg.SecurityGroupRuleAO> aos, List<SecurityGroupInventory> remotes = null) {
+        addSecurityGroupRule {
+            securityGroupUuid = sg.uuid
+            rules = aos
+            remoteSecurityGroupUuids = remotes?.collect { it.uuid }
+        }
+    }
+
+    void prepare() {
+        vm1Nic1 = nicOf("vm1", "l3")
+        vm1Nic2 = nicOf("vm1", "l3-2")
+        vm2Nic1 = nicOf("vm2", "l3")
+        vm2Nic2 = nicOf("vm2", "l3-2")
+        vm3Nic = nicOf("vm3", "l3")
+        hostUuids = ["kvm1", "kvm2"].collect { (env.inventoryByName(it) as HostInventory).uuid }
+
+        // vm1 has both nics in two groups, sg1 spans both l3 networks
+        sg1 = newSecurityGroup("sg1", ["l3", "l3-2"], [vm1Nic1, vm1Nic2, vm3Nic])
+        sg2 = newSecurityGroup("sg2", ["l3-2"], [vm1Nic2, vm2Nic2])
+        sg3 = newSecurityGroup("sg3", ["l3"], [vm1Nic1, vm2Nic1])
+        // a disabled group, neither its rules nor rules referring to it are applied
+        sg4 = newSecurityGroup("sg4", ["l3"], [vm1Nic1])
+
+        addRules(sg1, [rule("Ingress", "TCP", 22, "0.0.0.0/0"), rule("Egress", "UDP", 53, "10.0.0.0/8")])
+        addRules(sg1, [rule("Ingress", "TCP", 80, null)], [sg2, sg4])
+        addRules(sg2, [rule("Ingress", "UDP", 123, "172.16.0.0/12")])
+        addRules(sg2, [rule("Ingress", "TCP", 443, null), rule("Egress", "TCP", 8080, null)], [sg1, sg3])
+        addRules(sg3, [rule("Ingress", "TCP", 3306, null)], [sg3])
+        addRules(sg4, [rule("Ingress", "TCP", 6379, "0.0.0.0/0")])
+
+        changeSecurityGroupState {
+            uuid = sg4.uuid
+            stateEvent = "disable"
+        }
+    }
+
+    private List<HostRuleTO> calculate(Map<String, Object> fields) {
+        Class clz = Class.forName(SecurityGroupManagerImpl.class.name + '$RuleCalculator')
+        Constructor ctor = clz.getDeclaredConstructor(SecurityGroupManagerImpl.class)
+        ctor.setAccessible(true)
+        Object calculator = ctor.newInstance(bean(SecurityGroupManagerImpl.class))
+        fields.each { String name, Object value ->
+            Field f = clz.getDeclaredField(name)
+            f.setAccessible(true)
+            f.set(calculator, value)
+        }
+
+        def m = clz.getDeclaredMethod("calculate")
+        m.setAccessible(true)
+        return m.invoke(calculator) as List<HostRuleTO>
+    }
+
+    private static String ruleToString(RuleTO r) {
+        return [r.type, r.protocol, r.startPort, r.endPort, r.allowedCidr, r.ipVersion, r.securityGroupUuid,
+                r.remoteGroupUuid, r.remoteGroupVmIps?.sort()].join("|")
+    }
+
+    private static Map<String, Object> toMap(SecurityGroupRuleTO sgto) {
+        return [
+                nicName: sgto.vmNicInternalName,
+                mac: sgto.vmNicMac,
+                ips: sgto.vmNicIp.sort(),
+                actionCode: sgto.actionCode,
+                ingressDefaultPolicy: sgto.ingressDefaultPolicy,
+                egressDefaultPolicy: sgto.egressDefaultPolicy,
+                rules: sgto.rules.collect { ruleToString(it) }.sort(),
+                baseRules: sgto.securityGroupBaseRules.collect { ruleToString(it) }.sort()
+        ]
+    }
+
+    // host uuid/nic uuid/ip version -> what is applied to the nic
+    private static Map<String, Map<String, Object>> flatten(List<HostRuleTO> htos) {
+        Map<String, Map<String, Object>> ret = [:]
+        htos.each { hto ->
+            [(4): hto.rules, (6): hto.ipv6Rules].each { int version, List<SecurityGroupRuleTO> sgtos ->
+                sgtos.each { sgto ->
+                    String key = "${hto.hostUuid}/${sgto.vmNicUuid}/${version}"
+                    assert !ret.containsKey(key) : "nic ${sgto.vmNicUuid} is calculated twice"
+                    ret[key] = toMap(sgto)
+                }
+            }
+        }
+        return ret
+    }
+
+    private static RuleTO toRuleTO(SecurityGroupRuleVO r) {
+        RuleTO rto = new RuleTO()
+        rto.ipVersion = r.ipVersion
+        rto.allowedCidr = r.allowedCidr
+        rto.startPort = r.startPort
+        rto.endPort = r.endPort
+        rto.protocol = r.protocol.toString()
+        rto.type = r.type.toString()
+        rto.securityGroupUuid = r.securityGroupUuid
+        return rto
+    }
+
+    private static boolean isEnabled(String sgUuid) {
+        return Q.New(SecurityGroupVO.class).eq(SecurityGroupVO_.uuid, sgUuid)
+                .eq(SecurityGroupVO_.state, SecurityGroupState.Enabled).isExists()
+    }
+
+    private static List<String> vmIpsOfSecurityGroup(String sgUuid) {
+        List<String> ret = SQL.New("select ip.ip from VmNicSecurityGroupRefVO ref, SecurityGroupVO sg, UsedIpVO ip" +
+                " where sg.uuid = ref.securityGroupUuid and ref.securityGroupUuid = :sgUuid" +
+                " and ref.vmNicUuid = ip.vmNicUuid and ip.ipVersion = sg.ipVersion", String.class)
+                .param("sgUuid", sgUuid).list()
+
+        List<String> l3Uuids = Q.New(SecurityGroupL3NetworkRefVO.class).select(SecurityGroupL3NetworkRefVO_.l3NetworkUuid)
+                .eq(SecurityGroupL3NetworkRefVO_.securityGroupUuid, sgUuid).listValues()
+        l3Uuids.each { l3Uuid ->
+            L3NetworkInventory l3 = L3NetworkInventory.valueOf(Q.New(L3NetworkVO.class).eq(L3NetworkVO_.uuid, l3Uuid).find() as L3NetworkVO)
+            def iprs = IpRangeHelper.getNormalIpRanges(l3)
+            if (!iprs.isEmpty()) {
+                ret.add(iprs[0].gateway)
+            }
+        }
+        return ret
+    }
+
+    // what the calculation did before it was set based, one nic and one group at a time
+    private static Map<String, Map<String, Object>> calculateNicByNic(Collection<String> nicUuids, List<VmInstanceState> vmStates = null) {
+        Map<String, Map<String, Object>> ret = [:]
+        for (String nicUuid : nicUuids.unique(false)) {
+            String sql = "select ref.securityGroupUuid, vm.hostUuid, nic.internalName, nic.mac, ip.ip, ip.ipVersion" +
+                    " from VmNicSecurityGroupRefVO ref, VmInstanceVO vm, VmNicVO nic, SecurityGroupVO sg, UsedIpVO ip" +
+                    " where ref.vmNicUuid = nic.uuid and nic.vmInstanceUuid = vm.uuid and ref.vmNicUuid = :nicUuid" +
+                    " and ref.securityGroupUuid = sg.uuid and sg.state = :sgState" +
+                    " and nic.uuid = ip.vmNicUuid and sg.ipVersion = ip.ipVersion" +
+                    (vmStates ? " and vm.state in (:vmStates)" : "")
+            SQL q = SQL.New(sql, Tuple.class).param("nicUuid", nicUuid).param("sgState", SecurityGroupState.Enabled)
+            if (vmStates) {
+                q.param("vmStates", vmStates)
+            }
+            List<Tuple> ts = q.list()
+
+            ts.groupBy { it.get(5, Integer.class) }.each { Integer version, List<Tuple> vts ->
+                List<String> sgUuids = vts.collect { it.get(0, String.class) }.unique()
+
+                List<RuleTO> rules = []
+                List<RuleTO> baseRules = []
+                sgUuids.each { sgUuid ->
+                    Q.New(SecurityGroupRuleVO.class).eq(SecurityGroupRuleVO_.securityGroupUuid, sgUuid)
+                            .isNull(SecurityGroupRuleVO_.remoteSecurityGroupUuid).list().each {
+                        rules.add(toRuleTO(it as SecurityGroupRuleVO))
+                    }
+
+                    Q.New(SecurityGroupRuleVO.class).eq(SecurityGroupRuleVO_.securityGroupUuid, sgUuid)
+                            .notNull(SecurityGroupRuleVO_.remoteSecurityGroupUuid).list().each { SecurityGroupRuleVO r ->
+                        if (isEnabled(r.remoteSecurityGroupUuid)) {
+                            RuleTO rto = toRuleTO(r)
+                            rto.remoteGroupUuid = r.remoteSecurityGroupUuid
+                            rto.remoteGroupVmIps = vmIpsOfSecurityGroup(r.remoteSecurityGroupUuid)
+                            baseRules.add(rto)
+                        }
+                    }
+                }
+
+                SecurityGroupRuleTO sgto = new SecurityGroupRuleTO()
+                sgto.vmNicInternalName = vts[0].get(2, String.class)
+                sgto.vmNicMac = vts[0].get(3, String.class)
+                // an ip shows up once per group of the nic
+                sgto.vmNicIp = vts.collect { it.get(4, String.class) }
+                sgto.ingressDefaultPolicy = SecurityGroupGlobalConfig.INGRESS_RULE_DEFAULT_POLICY.value(String.class)
+                sgto.egressDefaultPolicy = SecurityGroupGlobalConfig.EGRESS_RULE_DEFAULT_POLICY.value(String.class)
+                sgto.rules = rules
+                sgto.securityGroupBaseRules = baseRules
+
+                ret["${vts[0].get(1, String.class)}/${nicUuid}/${version}".toString()] = toMap(sgto)
+            }
+        }
+        return ret
+    }
+
+    void testCalculateByVmNic() {
+        List<String> nics = [vm1Nic1, vm1Nic2, vm2Nic1, vm2Nic2, vm3Nic, vm1Nic1].collect { it.uuid }
+        Map<String, Map<String, Object>> actual = flatten(calculate([vmNicUuids: nics]))
+        assert actual == calculateNicByNic(nics)
+        assert actual.size() == 5
+
+        // vm1's first nic is in sg1, sg3 and the disabled sg4
+        Map<String, Object> nic = actual["${hostUuids[0]}/${vm1Nic1.uuid}/4".toString()]
+        assert nic.ips == [vm1Nic1.ip, vm1Nic1.ip]
+        assert nic.rules.size() == 2
+        assert nic.baseRules.count { it.contains(sg4.uuid) } == 0
+        assert nic.rules.count { it.startsWith("Ingress|TCP|6379") } == 0
+    }
+
+    void testCalculateBySecurityGroup() {
+        // nics in several of the groups are calculated once
+        List<HostRuleTO> htos = calculate([securityGroupUuids: [sg1.uuid, sg2.uuid, sg3.uuid]])
+        List<String> nics = SQL.New("select ref.vmNicUuid from VmNicSecurityGroupRefVO ref" +
+                " where ref.securityGroupUuid in (:sgUuids)", String.class)
+                .param("sgUuids", [sg1.uuid, sg2.uuid, sg3.uuid]).list()
+        assert flatten(htos) == calculateNicByNic(nics)
+
+        htos = calculate([securityGroupUuids: [sg2.uuid]])
+        assert flatten(htos) == calculateNicByNic([vm1Nic2.uuid, vm2Nic2.uuid])
+    }
+
+    void testCalculateByHost() {
+        List<HostRuleTO> htos = calculate([hostUuids: hostUuids, vmStates: [VmInstanceState.Running]])
+        Map<String, Map<String, Object>> actual = flatten(htos)
+
+        // nics of the virtual routers are in no group, their chains are deleted
+        Map<String, Map<String, Object>> deleted = actual.findAll { it.value.actionCode == SecurityGroupRuleTO.ACTION_CODE_DELETE_CHAIN }
+        List<String> nics = [vm1Nic1, vm1Nic2, vm2Nic1, vm2Nic2, vm3Nic].collect { it.uuid }
+        assert deleted.keySet().every { key -> nics.every { !key.contains(it) } }
+        assert actual - deleted == calculateNicByNic(nics, [VmInstanceState.Running])
+    }
+
+    void testRemoteGroupVmIps() {
+        Map<String, Map<String, Object>> actual = flatten(calculate([vmNicUuids: [vm2Nic2.uuid]]))
+        Map<String, Object> nic = actual["${hostUuids[1]}/${vm2Nic2.uuid}/4".toString()]
+
+        // sg2 refers to sg1 and sg3, the members of each and the gateways of their l3 networks
+        List<String> sg1Ips = [vm1Nic1.ip, vm1Nic2.ip, vm3Nic.ip, "192.168.100.1", "192.168.200.1"].sort()
+        List<String> sg3Ips = [vm1Nic1.ip, vm2Nic1.ip, "192.168.100.1"].sort()
+        // and the default rules of sg2 refer to sg2 itself
+        List<String> sg2Ips = [vm1Nic2.ip, vm2Nic2.ip, "192.168.200.1"].sort()
+        assert nic.baseRules.size() == 6
+        assert nic.baseRules.count { it.endsWith("|${sg2.uuid}|${sg2Ips}") } == 2
+        assert nic.baseRules.count { it.endsWith("|${sg1.uuid}|${sg1Ips}") } == 2
+        assert nic.baseRules.count { it.endsWith("|${sg3.uuid}|${sg3Ips}") } == 2
+        assert nic.rules.size() == 1
+        assert nic.ips == [vm2Nic2.ip]
+    }
+}
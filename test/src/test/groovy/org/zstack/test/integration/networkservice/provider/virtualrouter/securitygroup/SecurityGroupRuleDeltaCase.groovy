@@ -0,0 +1,227 @@
+package org.zstack.test.integration.networkservice.provider.virtualrouter.securitygroup
+
+import org.springframework.http.HttpEntity
+import org.zstack.header.Constants
+import org.zstack.kvm.KVMAgentCommands
+import org.zstack.kvm.KVMSecurityGroupBackend
+import org.zstack.network.securitygroup.APIAddSecurityGroupRuleMsg
+import org.zstack.network.securitygroup.SecurityGroupGlobalConfig
+import org.zstack.network.securitygroup.SecurityGroupMembershipIndex
+import org.zstack.network.securitygroup.SecurityGroupRuleTO
+import org.zstack.sdk.HostInventory
+import org.zstack.sdk.L3NetworkInventory
+import org.zstack.sdk.SecurityGroupInventory
+import org.zstack.sdk.SecurityGroupRuleInventory
+import org.zstack.sdk.VmInstanceInventory
+import org.zstack.test.integration.networkservice.provider.NetworkServiceProviderTest
+import org.zstack.test.integration.networkservice.provider.virtualrouter.VirtualRouterNetworkServiceEnv
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.utils.gson.JSONObjectUtil
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * an added or deleted rule is sent alone to the hosts of the running members of the group,
+ * the members are kept by SecurityGroupMembershipIndex, and a host failing the delta gets
+ * all its rules refreshed
+ */
+class SecurityGroupRuleDeltaCase extends SubCase {
+    EnvSpec env
+
+    L3NetworkInventory l3Net
+    VmInstanceInventory vm1, vm2, vm3, vm4
+    HostInventory host1, host2, host3
+    SecurityGroupInventory sg
+    SecurityGroupMembershipIndex index
+
+    Map<String, KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd> deltas = new ConcurrentHashMap<>()
+
+    @Override
+    void setup() {
+        useSpring(NetworkServiceProviderTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = VirtualRouterNetworkServiceEnv.fourVmThreeHostNoEipForSecurityGroupEnv()
+    }
+
+    @Override
+    void test() {
+        env.create {
+            l3Net = env.inventoryByName("l3") as L3NetworkInventory
+            vm1 = env.inventoryByName("vm1") as VmInstanceInventory // vm1 in host1
+            vm2 = env.inventoryByName("vm2") as VmInstanceInventory // vm2 in host2
+            vm3 = env.inventoryByName("vm3") as VmInstanceInventory // vm3 in host3
+            vm4 = env.inventoryByName("vm4") as VmInstanceInventory // vm4 in host3
+            host1 = env.inventoryByName("kvm1") as HostInventory
+            host2 = env.inventoryByName("kvm2") as HostInventory
+            host3 = env.inventoryByName("kvm3") as HostInventory
+            index = bean(SecurityGroupMembershipIndex.class)
+
+            env.simulator(KVMSecurityGroupBackend.SECURITY_GROUP_APPLY_RULE_DELTAS_PATH) { HttpEntity<String> e ->
+                String huuid = e.getHeaders().getFirst(Constants.AGENT_HTTP_HEADER_RESOURCE_UUID)
+                deltas.put(huuid, JSONObjectUtil.toObject(e.getBody(), KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd.class))
+                return new KVMAgentCommands.ApplySecurityGroupRuleDeltasResponse()
+            }
+
+            testCreateSecurityGroup()
+            testAddRuleSendsDeltas()
+            testDeleteRuleSendsDeltas()
+            testStoppedVmNotSentDeltas()
+            testRemovedNicNotSentDeltas()
+            testFailedDeltaRefreshesHost()
+        }
+    }
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    private static APIAddSecurityGroupRuleMsg.SecurityGroupRuleAO newRule(int port) {
+        return new APIAddSecurityGroupRuleMsg.SecurityGroupRuleAO(
+                type: "Ingress",
+                ipVersion: 4,
+                startPort: port,
+                endPort: port,
+                allowedCidr: "192.168.100.0/24",
+                protocol: "TCP"
+        )
+    }
+
+    private SecurityGroupRuleInventory addRule(int port) {
+        deltas.clear()
+        sg = addSecurityGroupRule {
+            securityGroupUuid = sg.uuid
+            rules = [newRule(port)]
+        } as SecurityGroupInventory
+        return sg.rules.find { it.startPort == port }
+    }
+
+    private void assertDeltas(Map<String, List<String>> nicUuidsByHost, String actionCode, int port) {
+        retryInSecs {
+            assert deltas.keySet() == nicUuidsByHost.keySet()
+        }
+
+        nicUuidsByHost.each { String huuid, List<String> nicUuids ->
+            KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd cmd = deltas[huuid]
+            assert cmd.ruleTOs.collect { it.vmNicUuid } as Set == nicUuids as Set
+            cmd.ruleTOs.each { SecurityGroupRuleTO rto ->
+                assert rto.actionCode == actionCode
+                assert rto.securityGroupBaseRules.isEmpty()
+                assert rto.rules.size() == 1
+                assert rto.rules[0].startPort == port
+                assert rto.rules[0].securityGroupUuid == sg.uuid
+            }
+        }
+    }
+
+    void testCreateSecurityGroup() {
+        sg = createSecurityGroup {
+            name = "sg-delta"
+            ipVersion = 4
+        } as SecurityGroupInventory
+
+        attachSecurityGroupToL3Network {
+            securityGroupUuid = sg.uuid
+            l3NetworkUuid = l3Net.uuid
+        }
+
+        addVmNicToSecurityGroup {
+            securityGroupUuid = sg.uuid
+            vmNicUuids = [vm1.vmNics[0].uuid, vm2.vmNics[0].uuid, vm3.vmNics[0].uuid, vm4.vmNics[0].uuid]
+        }
+
+        assert index.getMembers(sg.uuid).collect { it.vmNicUuid } as Set ==
+                [vm1.vmNics[0].uuid, vm2.vmNics[0].uuid, vm3.vmNics[0].uuid, vm4.vmNics[0].uuid] as Set
+        assert index.getHypervisorTypesOfHosts([sg.uuid], null).keySet() == [host1.uuid, host2.uuid, host3.uuid] as Set
+    }
+
+    void testAddRuleSendsDeltas() {
+        addRule(20000)
+        assertDeltas([(host1.uuid): [vm1.vmNics[0].uuid],
+                      (host2.uuid): [vm2.vmNics[0].uuid],
+                      (host3.uuid): [vm3.vmNics[0].uuid, vm4.vmNics[0].uuid]], SecurityGroupRuleTO.ACTION_CODE_ADD_RULES, 20000)
+    }
+
+    void testDeleteRuleSendsDeltas() {
+        SecurityGroupRuleInventory rule = addRule(20001)
+
+        deltas.clear()
+        deleteSecurityGroupRule {
+            ruleUuids = [rule.uuid]
+        }
+        assertDeltas([(host1.uuid): [vm1.vmNics[0].uuid],
+                      (host2.uuid): [vm2.vmNics[0].uuid],
+                      (host3.uuid): [vm3.vmNics[0].uuid, vm4.vmNics[0].uuid]], SecurityGroupRuleTO.ACTION_CODE_DELETE_RULES, 20001)
+    }
+
+    void testStoppedVmNotSentDeltas() {
+        stopVmInstance {
+            uuid = vm2.uuid
+        }
+        // dropped from the index by the state change, not by the expiry
+        assert index.getHypervisorTypesOfHosts([sg.uuid], null).keySet() == [host1.uuid, host3.uuid] as Set
+
+        addRule(20002)
+        assertDeltas([(host1.uuid): [vm1.vmNics[0].uuid],
+                      (host3.uuid): [vm3.vmNics[0].uuid, vm4.vmNics[0].uuid]], SecurityGroupRuleTO.ACTION_CODE_ADD_RULES, 20002)
+
+        startVmInstance {
+            uuid = vm2.uuid
+            hostUuid = host2.uuid
+        }
+        addRule(20003)
+        assertDeltas([(host1.uuid): [vm1.vmNics[0].uuid],
+                      (host2.uuid): [vm2.vmNics[0].uuid],
+                      (host3.uuid): [vm3.vmNics[0].uuid, vm4.vmNics[0].uuid]], SecurityGroupRuleTO.ACTION_CODE_ADD_RULES, 20003)
+    }
+
+    void testRemovedNicNotSentDeltas() {
+        deleteVmNicFromSecurityGroup {
+            securityGroupUuid = sg.uuid
+            vmNicUuids = [vm4.vmNics[0].uuid]
+        }
+
+        addRule(20004)
+        assertDeltas([(host1.uuid): [vm1.vmNics[0].uuid],
+                      (host2.uuid): [vm2.vmNics[0].uuid],
+                      (host3.uuid): [vm3.vmNics[0].uuid]], SecurityGroupRuleTO.ACTION_CODE_ADD_RULES, 20004)
+    }
+
+    void testFailedDeltaRefreshesHost() {
+        int interval = SecurityGroupGlobalConfig.FAILURE_HOST_WORKER_INTERVAL.value(Integer.class)
+        SecurityGroupGlobalConfig.FAILURE_HOST_WORKER_INTERVAL.updateValue(1)
+
+        env.simulator(KVMSecurityGroupBackend.SECURITY_GROUP_APPLY_RULE_DELTAS_PATH) { HttpEntity<String> e ->
+            String huuid = e.getHeaders().getFirst(Constants.AGENT_HTTP_HEADER_RESOURCE_UUID)
+            deltas.put(huuid, JSONObjectUtil.toObject(e.getBody(), KVMAgentCommands.ApplySecurityGroupRuleDeltasCmd.class))
+            def rsp = new KVMAgentCommands.ApplySecurityGroupRuleDeltasResponse()
+            if (huuid == host1.uuid) {
+                rsp.success = false
+                rsp.error = "on purpose"
+            }
+            return rsp
+        }
+
+        KVMAgentCommands.RefreshAllRulesOnHostCmd refresh = null
+        env.afterSimulator(KVMSecurityGroupBackend.SECURITY_GROUP_REFRESH_RULE_ON_HOST_PATH) { rsp, HttpEntity<String> e ->
+            if (e.getHeaders().getFirst(Constants.AGENT_HTTP_HEADER_RESOURCE_UUID) == host1.uuid) {
+                refresh = JSONObjectUtil.toObject(e.getBody(), KVMAgentCommands.RefreshAllRulesOnHostCmd.class)
+            }
+            return rsp
+        }
+
+        addRule(20005)
+        retryInSecs {
+            assert deltas.containsKey(host1.uuid)
+            // the refresh carries all rules of the nic, including the one failed as a delta
+            assert refresh != null
+            assert refresh.ruleTOs.find { it.vmNicUuid == vm1.vmNics[0].uuid }.rules.any { it.startPort == 20005 }
+        }
+
+        SecurityGroupGlobalConfig.FAILURE_HOST_WORKER_INTERVAL.updateValue(interval)
+    }
+}
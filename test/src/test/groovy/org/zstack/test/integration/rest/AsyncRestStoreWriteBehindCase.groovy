@@ -0,0 +1,110 @@
+package org.zstack.test.integration.rest
+
+import org.zstack.core.Platform
+import org.zstack.core.db.DatabaseFacade
+import org.zstack.core.db.Q
+import org.zstack.core.db.SQL
+import org.zstack.header.zone.APICreateZoneEvent
+import org.zstack.rest.AsyncRestState
+import org.zstack.rest.AsyncRestVO
+import org.zstack.rest.AsyncRestVO_
+import org.zstack.rest.MysqlAsyncRestStore
+import org.zstack.sdk.ZoneInventory
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class AsyncRestStoreWriteBehindCase extends SubCase {
+    EnvSpec env
+    MysqlAsyncRestStore store
+
+    @Override
+    void clean() {
+        store.setWriteBehind(false)
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            store = bean(MysqlAsyncRestStore.class)
+            store.setWriteBehind(true)
+
+            testApiCompletedByFlushThread()
+            testConcurrentFlushesCompleteOnce()
+            testStopFlushesPendingCompletions()
+        }
+    }
+
+    void testApiCompletedByFlushThread() {
+        // the SDK waits for the web hook, which is called after the record is flushed
+        ZoneInventory zone = createZone {
+            name = "zone"
+        } as ZoneInventory
+
+        assert zone != null
+        retryInSecs {
+            assert Q.New(AsyncRestVO.class).like(AsyncRestVO_.requestData, "%APICreateZoneMsg%")
+                    .eq(AsyncRestVO_.state, AsyncRestState.done).isExists()
+        }
+    }
+
+    private String saveRecord() {
+        String requestData = Q.New(AsyncRestVO.class).select(AsyncRestVO_.requestData)
+                .like(AsyncRestVO_.requestData, "%APICreateZoneMsg%").limit(1).findValue()
+
+        AsyncRestVO vo = new AsyncRestVO()
+        vo.uuid = Platform.getUuid()
+        vo.requestData = requestData
+        vo.state = AsyncRestState.processing
+        bean(DatabaseFacade.class).persist(vo)
+        return vo.uuid
+    }
+
+    void testConcurrentFlushesCompleteOnce() {
+        String apiId = saveRecord()
+        AtomicInteger called = new AtomicInteger()
+        store.complete(new APICreateZoneEvent(apiId), { called.incrementAndGet() })
+
+        // races with the periodic flush too
+        List<Thread> threads = (1..4).collect { Thread.start { store.flushPendingCompletions() } }
+        threads.each { it.join() }
+
+        retryInSecs {
+            assert called.get() == 1
+            assert Q.New(AsyncRestVO.class).select(AsyncRestVO_.state).eq(AsyncRestVO_.uuid, apiId).findValue() == AsyncRestState.done
+        }
+
+        sleep(500)
+        assert called.get() == 1
+    }
+
+    void testStopFlushesPendingCompletions() {
+        String apiId = saveRecord()
+        AtomicInteger called = new AtomicInteger()
+        store.complete(new APICreateZoneEvent(apiId), { called.incrementAndGet() })
+        // answered from memory before it's written
+        assert store.query(apiId).state == AsyncRestState.done
+
+        store.setWriteBehind(false)
+        assert Q.New(AsyncRestVO.class).select(AsyncRestVO_.state).eq(AsyncRestVO_.uuid, apiId).findValue() == AsyncRestState.done
+        retryInSecs {
+            assert called.get() == 1
+        }
+
+        SQL.New(AsyncRestVO.class).delete()
+    }
+}
@@ -0,0 +1,158 @@
+package org.zstack.test.integration.zql
+
+import org.zstack.query.QueryGlobalConfig
+import org.zstack.sdk.QueryZoneAction
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.zql.ZQL
+import org.zstack.zql.ZQLQueryReturn
+
+class ZQLCompiledQueryCacheCase extends SubCase {
+    EnvSpec env
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            testSameTextReusesParseTree()
+            testLeastRecentlyUsedEvicted()
+            testCacheDisabled()
+
+            for (int i = 1; i <= 5; i++) {
+                createZone {
+                    name = "zone-" + i
+                }
+            }
+
+            testReplyWithCount()
+            testReplyWithCountSerially()
+            testReturnWithTotal()
+        }
+    }
+
+    private static Map cachedQueries() {
+        return ZQL.compiledQueries
+    }
+
+    private static Object parse(String text) {
+        return ZQL.fromString(text).parse()
+    }
+
+    void testSameTextReusesParseTree() {
+        cachedQueries().clear()
+
+        def tree = parse("query zone where name='zone-1'")
+        assert parse("query zone where name='zone-1'").is(tree)
+        // trailing ';' and blanks are trimmed before the lookup
+        assert parse(" query zone where name='zone-1'; ").is(tree)
+        assert !parse("query zone where name='zone-2'").is(tree)
+        assert cachedQueries().size() == 2
+    }
+
+    void testLeastRecentlyUsedEvicted() {
+        QueryGlobalConfig.ZQL_COMPILED_QUERY_CACHE_SIZE.updateValue(2)
+        cachedQueries().clear()
+
+        def a = parse("query zone where name='a'")
+        parse("query zone where name='b'")
+        // touch a so b is the eldest
+        assert parse("query zone where name='a'").is(a)
+        parse("query zone where name='c'")
+
+        assert cachedQueries().size() == 2
+        assert cachedQueries().containsKey("query zone where name='a'")
+        assert cachedQueries().containsKey("query zone where name='c'")
+        assert !cachedQueries().containsKey("query zone where name='b'")
+
+        QueryGlobalConfig.ZQL_COMPILED_QUERY_CACHE_SIZE.resetValue()
+    }
+
+    void testCacheDisabled() {
+        QueryGlobalConfig.ZQL_COMPILED_QUERY_CACHE_SIZE.updateValue(0)
+        cachedQueries().clear()
+
+        def tree = parse("query zone where name='zone-1'")
+        assert !parse("query zone where name='zone-1'").is(tree)
+        assert cachedQueries().isEmpty()
+
+        QueryGlobalConfig.ZQL_COMPILED_QUERY_CACHE_SIZE.resetValue()
+    }
+
+    private QueryZoneAction.Result queryZones(Closure c) {
+        QueryZoneAction a = new QueryZoneAction()
+        a.sessionId = adminSession()
+        c.delegate = a
+        c.resolveStrategy = Closure.DELEGATE_FIRST
+        c()
+        QueryZoneAction.Result res = a.call()
+        assert res.error == null
+        return res
+    }
+
+    void testReplyWithCount() {
+        def res = queryZones {
+            replyWithCount = true
+            limit = 2
+        }
+        assert res.value.total == 5
+        assert res.value.inventories.size() == 2
+
+        // the count honors the conditions, not the limit
+        res = queryZones {
+            replyWithCount = true
+            conditions = ["name=zone-3"]
+        }
+        assert res.value.total == 1
+        assert res.value.inventories.size() == 1
+
+        res = queryZones {
+            replyWithCount = true
+            conditions = ["name=not-exists"]
+        }
+        assert res.value.total == 0
+        assert res.value.inventories.isEmpty()
+
+        res = queryZones {
+            limit = 2
+        }
+        assert res.value.total == null
+    }
+
+    void testReplyWithCountSerially() {
+        QueryGlobalConfig.ZQL_PARALLELISM.updateValue(0)
+
+        def res = queryZones {
+            replyWithCount = true
+            limit = 1
+        }
+        assert res.value.total == 5
+        assert res.value.inventories.size() == 1
+
+        QueryGlobalConfig.ZQL_PARALLELISM.resetValue()
+    }
+
+    void testReturnWithTotal() {
+        ZQLQueryReturn ret = ZQL.fromString("query zone return with (total) limit 3").getSingleResult()
+        assert ret.total == 5
+        assert ret.inventories.size() == 3
+
+        ret = ZQL.fromString("count zone").getSingleResult()
+        assert ret.total == 5
+    }
+}
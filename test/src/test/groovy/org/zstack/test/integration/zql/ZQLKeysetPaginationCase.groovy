@@ -0,0 +1,237 @@
+package org.zstack.test.integration.zql
+
+import org.zstack.header.zone.ZoneInventory
+import org.zstack.sdk.QueryZoneAction
+import org.zstack.test.integration.ZStackTest
+import org.zstack.testlib.EnvSpec
+import org.zstack.testlib.SubCase
+import org.zstack.zql.ZQL
+import org.zstack.zql.ZQLError
+import org.zstack.zql.ZQLQueryReturn
+
+class ZQLKeysetPaginationCase extends SubCase {
+    EnvSpec env
+    List<String> uuids
+
+    @Override
+    void clean() {
+        env.delete()
+    }
+
+    @Override
+    void setup() {
+        useSpring(ZStackTest.springSpec)
+    }
+
+    @Override
+    void environment() {
+        env = env {
+        }
+    }
+
+    @Override
+    void test() {
+        env.create {
+            uuids = []
+            for (int i = 1; i <= 7; i++) {
+                uuids.add(createZone {
+                    name = "zone-" + i
+                }.uuid)
+            }
+            uuids.sort()
+
+            testZQLPagesAscending()
+            testZQLPagesDescending()
+            testZQLRejectInvalidAfter()
+            testAPIPages()
+            testAPIRejectInvalidAfter()
+            testCountWithCursor()
+            testCursorHavingQuotes()
+        }
+    }
+
+    private static List<String> zqlUuids(String text) {
+        ZQLQueryReturn ret = ZQL.fromString(text).getSingleResult()
+        return ret.inventories.collect { (it as ZoneInventory).uuid }
+    }
+
+    private static List<String> zqlPages(String orderBy, int pageSize) {
+        List<String> ret = []
+        List<String> page = zqlUuids("query zone ${orderBy} limit ${pageSize}")
+        while (!page.isEmpty()) {
+            assert page.size() <= pageSize
+            ret.addAll(page)
+            page = zqlUuids("query zone ${orderBy} limit ${pageSize} after '${page.last()}'")
+        }
+        return ret
+    }
+
+    private QueryZoneAction.Result queryZones(Closure c) {
+        QueryZoneAction a = new QueryZoneAction()
+        a.sessionId = adminSession()
+        c.delegate = a
+        c.resolveStrategy = Closure.DELEGATE_FIRST
+        c()
+        return a.call()
+    }
+
+    void testZQLPagesAscending() {
+        // without an order by the key is sorted ascending
+        assert zqlPages("", 2) == uuids
+        assert zqlPages("order by uuid asc", 3) == uuids
+        assert zqlPages("", 7) == uuids
+        assert zqlPages("", 10) == uuids
+
+        assert zqlUuids("query zone limit 2 after '${uuids[2]}'") == uuids[3..4]
+        assert zqlUuids("query zone limit 2 after '${uuids.last()}'").isEmpty()
+        // the cursor is combined with the conditions
+        assert zqlUuids("query zone where name in ('zone-1', 'zone-2', 'zone-3') limit 10 after '${uuids[0]}'") ==
+                zqlUuids("query zone where name in ('zone-1', 'zone-2', 'zone-3') order by uuid asc").findAll { it > uuids[0] }
+    }
+
+    void testZQLPagesDescending() {
+        assert zqlPages("order by uuid desc", 2) == uuids.reverse()
+        assert zqlPages("order by uuid desc", 3) == uuids.reverse()
+
+        assert zqlUuids("query zone order by uuid desc limit 2 after '${uuids[4]}'") == [uuids[3], uuids[2]]
+        assert zqlUuids("query zone order by uuid desc limit 2 after '${uuids.first()}'").isEmpty()
+    }
+
+    void testZQLRejectInvalidAfter() {
+        expect(ZQLError.class) {
+            ZQL.fromString("query zone limit 2 after '${uuids[0]}' offset 2").getSingleResult()
+        }
+
+        expect(ZQLError.class) {
+            ZQL.fromString("query zone order by name limit 2 after '${uuids[0]}'").getSingleResult()
+        }
+
+        expect(ZQLError.class) {
+            ZQL.fromString("query zone order by uuid, name limit 2 after '${uuids[0]}'").getSingleResult()
+        }
+    }
+
+    void testAPIPages() {
+        List<String> ret = []
+        String cursor = null
+        while (true) {
+            QueryZoneAction.Result res = queryZones {
+                limit = 3
+                after = cursor
+            }
+            assert res.error == null
+
+            List<String> page = res.value.inventories.collect { it.uuid }
+            if (page.isEmpty()) {
+                break
+            }
+
+            ret.addAll(page)
+            cursor = page.last()
+        }
+        assert ret == uuids
+
+        ret = []
+        cursor = null
+        while (true) {
+            QueryZoneAction.Result res = queryZones {
+                limit = 3
+                sortBy = "uuid"
+                sortDirection = "desc"
+                after = cursor
+            }
+            assert res.error == null
+
+            List<String> page = res.value.inventories.collect { it.uuid }
+            if (page.isEmpty()) {
+                break
+            }
+
+            ret.addAll(page)
+            cursor = page.last()
+        }
+        assert ret == uuids.reverse()
+
+        // a field query returning the key pages as well
+        QueryZoneAction.Result res = queryZones {
+            limit = 2
+            fields = ["uuid", "name"]
+            after = uuids[1]
+        }
+        assert res.error == null
+        assert res.value.inventories.collect { it.uuid } == uuids[2..3]
+    }
+
+    void testAPIRejectInvalidAfter() {
+        QueryZoneAction.Result res = queryZones {
+            limit = 2
+            start = 2
+            after = uuids[0]
+        }
+        assert res.error != null
+
+        res = queryZones {
+            limit = 2
+            sortBy = "name"
+            after = uuids[0]
+        }
+        assert res.error != null
+
+        res = queryZones {
+            limit = 2
+            fields = ["name"]
+            after = uuids[0]
+        }
+        assert res.error != null
+    }
+
+    void testCountWithCursor() {
+        // the total counts the rows after the cursor, not the page only
+        ZQLQueryReturn ret = ZQL.fromString("query zone return with (total) limit 2 after '${uuids[2]}'").getSingleResult()
+        assert ret.total == 4
+        assert ret.inventories.collect { (it as ZoneInventory).uuid } == uuids[3..4]
+
+        ret = ZQL.fromString("query zone return with (total) order by uuid desc limit 2 after '${uuids[2]}'").getSingleResult()
+        assert ret.total == 2
+        assert ret.inventories.collect { (it as ZoneInventory).uuid } == [uuids[1], uuids[0]]
+
+        QueryZoneAction.Result res = queryZones {
+            replyWithCount = true
+            limit = 2
+            after = uuids[4]
+        }
+        assert res.error == null
+        assert res.value.total == 2
+        assert res.value.inventories.collect { it.uuid } == uuids[5..6]
+    }
+
+    void testCursorHavingQuotes() {
+        // a zone uuid is hex, so every uuid sorts before "it's"
+        assert zqlUuids("query zone limit 10 after \"it's\"").isEmpty()
+        assert zqlUuids("query zone order by uuid desc limit 10 after \"it's\"") == uuids.reverse()
+        assert zqlUuids("query zone order by uuid desc limit 10 after 'say \"hi\"'") == uuids.reverse()
+
+        QueryZoneAction.Result res = queryZones {
+            limit = 10
+            sortBy = "uuid"
+            sortDirection = "desc"
+            after = "it's"
+        }
+        assert res.error == null
+        assert res.value.inventories.collect { it.uuid } == uuids.reverse()
+
+        res = queryZones {
+            limit = 10
+            after = 'say "hi"'
+        }
+        assert res.error == null
+        assert res.value.inventories.isEmpty()
+
+        // a ZQL string can't hold both quotes
+        res = queryZones {
+            limit = 10
+            after = "a'b\"c"
+        }
+        assert res.error != null
+    }
+}
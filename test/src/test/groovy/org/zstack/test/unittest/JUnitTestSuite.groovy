@@ -6,6 +6,11 @@ import org.junit.runner.RunWith
 import org.junit.runner.notification.Failure
 import org.junit.runners.Suite
 import org.zstack.configuration.OfferingUserConfigUtils
+import org.zstack.test.unittest.core.AgentTransportCase
+import org.zstack.test.unittest.core.CloudBusBinaryCodecCase
+import org.zstack.test.unittest.core.EventPathTrieCase
+import org.zstack.test.unittest.core.TimingWheelCase
+import org.zstack.test.unittest.kvm.KVMAgentCommandEncoderCase
 import org.zstack.test.unittest.utils.NetworkUtilsCase
 import org.zstack.test.unittest.utils.OfferingUserConfigUtilsCase
 import org.zstack.test.unittest.utils.SizeUnitUtilsCase
@@ -18,6 +23,11 @@ import java.util.stream.Collectors
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses([
+        AgentTransportCase.class,
+        CloudBusBinaryCodecCase.class,
+        EventPathTrieCase.class,
+        TimingWheelCase.class,
+        KVMAgentCommandEncoderCase.class,
         NetworkUtilsCase.class,
         OfferingUserConfigUtilsCase.class,
         SizeUnitUtilsCase.class
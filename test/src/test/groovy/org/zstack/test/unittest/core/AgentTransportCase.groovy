@@ -0,0 +1,140 @@
+package org.zstack.test.unittest.core
+
+import com.google.gson.JsonParser
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.HttpResponse
+import org.apache.http.concurrent.FutureCallback
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.zstack.core.rest.AgentTransportType
+import org.zstack.core.rest.PooledAgentTransport
+import org.zstack.core.rest.RESTFacadeImpl
+import org.zstack.header.rest.RESTConstant
+
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+class AgentTransportCase {
+    private HttpServer server
+    private BlockingQueue<Map> requests = new LinkedBlockingQueue<>()
+    private volatile int status = 200
+    private PooledAgentTransport transport
+
+    @Before
+    void setUp() {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/", { HttpExchange ex ->
+            requests.add([
+                    method: ex.requestMethod,
+                    path: ex.requestURI.path,
+                    contentType: ex.requestHeaders.getFirst("Content-Type"),
+                    taskUuid: ex.requestHeaders.getFirst(RESTConstant.TASK_UUID),
+                    body: ex.requestBody.getText("UTF-8")
+            ])
+            ex.sendResponseHeaders(status, -1)
+            ex.close()
+        } as HttpHandler)
+        server.start()
+
+        transport = new PooledAgentTransport(5000, 5000, 2, 4)
+    }
+
+    @After
+    void tearDown() {
+        transport.stop()
+        server.stop(0)
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:${server.address.port}${path}"
+    }
+
+    private HttpResponse send(Object body, Map<String, String> headers = [:]) {
+        CompletableFuture<HttpResponse> f = new CompletableFuture<>()
+        transport.send(url("/vm/start"), body, headers, new FutureCallback<HttpResponse>() {
+            @Override
+            void completed(HttpResponse rsp) {
+                f.complete(rsp)
+            }
+
+            @Override
+            void failed(Exception e) {
+                f.completeExceptionally(e)
+            }
+
+            @Override
+            void cancelled() {
+                f.cancel(false)
+            }
+        })
+        return f.get(10, TimeUnit.SECONDS)
+    }
+
+    private Map received() {
+        Map req = requests.poll(10, TimeUnit.SECONDS)
+        assert req != null : "the agent got nothing"
+        return req
+    }
+
+    @Test
+    void testCommandObjectPosted() {
+        HttpResponse rsp = send([vmUuid: "uuid", cpuNum: 2], [(RESTConstant.TASK_UUID): "task"])
+        assert rsp.statusLine.statusCode == 200
+
+        Map req = received()
+        assert req.method == "POST"
+        assert req.path == "/vm/start"
+        assert req.contentType.startsWith("application/json")
+        assert req.taskUuid == "task"
+        assert new JsonParser().parse(req.body as String) == new JsonParser().parse('{"vmUuid":"uuid","cpuNum":2}')
+    }
+
+    @Test
+    void testEncodedStringPostedAsIs() {
+        String body = '{"name":"中文 vm","tags":[]}'
+        send(body)
+
+        Map req = received()
+        assert req.method == "POST"
+        assert req.body == body
+    }
+
+    @Test
+    void testErrorStatusReturned() {
+        status = 503
+        // failures of the agent are told by the caller from the status, the transport only delivers
+        assert send([:]).statusLine.statusCode == 503
+        assert received().method == "POST"
+    }
+
+    @Test
+    void testManyCommandsOnFewConnections() {
+        100.times { send([index: it]) }
+        assert requests.size() == 100
+        assert requests.every { it.method == "POST" }
+        assert transport.getLeasedConnections() + transport.getAvailableConnections() <= 2
+    }
+
+    @Test
+    void testRoute() {
+        assert PooledAgentTransport.getRoute("http://10.0.0.1:7070/host/ping") == "http://10.0.0.1:7070"
+        assert transport.getRouteStatistic("http://10.0.0.1:7070/host/ping").is(transport.getRouteStatistic("http://10.0.0.1:7070/vm/start"))
+        assert !transport.getRouteStatistic("http://10.0.0.1:7070/host/ping").is(transport.getRouteStatistic("http://10.0.0.2:7070/host/ping"))
+    }
+
+    @Test
+    void testTransportTypeProperty() {
+        assert RESTFacadeImpl.getAgentTransportType("Pooled") == AgentTransportType.Pooled
+        assert RESTFacadeImpl.getAgentTransportType("pooled") == AgentTransportType.Pooled
+        assert RESTFacadeImpl.getAgentTransportType("AsyncRestTemplate") == AgentTransportType.AsyncRestTemplate
+        // a mistyped value doesn't stop the management node from starting
+        assert RESTFacadeImpl.getAgentTransportType("Poold") == AgentTransportType.AsyncRestTemplate
+        assert RESTFacadeImpl.getAgentTransportType("") == AgentTransportType.AsyncRestTemplate
+        assert RESTFacadeImpl.getAgentTransportType(null) == AgentTransportType.AsyncRestTemplate
+    }
+}
@@ -0,0 +1,198 @@
+package org.zstack.test.unittest.core
+
+import com.google.gson.JsonArray
+import com.google.gson.JsonElement
+import com.google.gson.JsonNull
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+import com.google.gson.JsonPrimitive
+import com.google.gson.internal.LazilyParsedNumber
+import org.junit.Test
+import org.zstack.core.cloudbus.CloudBusBinaryCodec
+import org.zstack.header.exception.CloudRuntimeException
+
+import java.util.zip.GZIPOutputStream
+
+class CloudBusBinaryCodecCase {
+    private static final int T_STRING = 6
+    private static final int T_STRING_REF = 7
+    private static final int T_BEGIN_ARRAY = 8
+
+    private static JsonElement roundTrip(JsonElement e, int compressThreshold = 0) {
+        byte[] data = CloudBusBinaryCodec.encode(e, compressThreshold)
+        assert CloudBusBinaryCodec.isBinary(data)
+        JsonElement ret = CloudBusBinaryCodec.decode(data)
+        assert ret.toString() == e.toString()
+        return ret
+    }
+
+    private static byte[] bytes(int... v) {
+        return v.collect { (byte) it } as byte[]
+    }
+
+    private static byte[] payload(int flags, byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+        out.write(0x5a)
+        out.write(1)
+        out.write(flags)
+        out.write(body)
+        return out.toByteArray()
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+        new GZIPOutputStream(out).withStream { it.write(body) }
+        return out.toByteArray()
+    }
+
+    private static void assertCorrupted(byte[] data) {
+        try {
+            CloudBusBinaryCodec.decode(data)
+            assert false : "corrupted payload is decoded"
+        } catch (CloudRuntimeException ignored) {
+        }
+    }
+
+    @Test
+    void testEveryTag() {
+        JsonObject obj = new JsonObject()
+        obj.add("null", JsonNull.INSTANCE)
+        obj.addProperty("true", true)
+        obj.addProperty("false", false)
+        obj.addProperty("long", 42L)
+        obj.addProperty("int", 7)
+        obj.addProperty("double", 0.1d)
+        obj.addProperty("string", "hello")
+        obj.addProperty("empty", "")
+        obj.addProperty("unicode", "中文 😀")
+        obj.add("emptyArray", new JsonArray())
+        obj.add("emptyObject", new JsonObject())
+
+        JsonArray array = new JsonArray()
+        array.add(new JsonPrimitive(1))
+        array.add(JsonNull.INSTANCE)
+        array.add(new JsonPrimitive("hello"))
+        JsonObject nested = new JsonObject()
+        nested.addProperty("string", "hello")
+        array.add(nested)
+        obj.add("array", array)
+
+        roundTrip(obj)
+        roundTrip(JsonNull.INSTANCE)
+        roundTrip(new JsonPrimitive("top level string"))
+    }
+
+    @Test
+    void testZigZagVarLong() {
+        [0L, 1L, -1L, 63L, -64L, 64L, -65L, 127L, 128L, -128L, 16383L, 16384L,
+         Integer.MAX_VALUE as long, Integer.MIN_VALUE as long, (Integer.MAX_VALUE as long) + 1,
+         Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1].each { long v ->
+            JsonElement ret = roundTrip(new JsonPrimitive(v))
+            assert ret.asLong == v
+        }
+
+        // small magnitudes of either sign take one byte after the header and the tag
+        assert CloudBusBinaryCodec.encode(new JsonPrimitive(-64L), 0).length == 5
+        assert CloudBusBinaryCodec.encode(new JsonPrimitive(63L), 0).length == 5
+        assert CloudBusBinaryCodec.encode(new JsonPrimitive(64L), 0).length == 6
+    }
+
+    @Test
+    void testNumbersKeepTheirTextualForm() {
+        JsonArray array = new JsonArray()
+        array.add(new JsonPrimitive(new BigDecimal("1.50")))
+        array.add(new JsonPrimitive(new BigDecimal("-12345678901234567890.000000001")))
+        array.add(new JsonPrimitive(new BigInteger("123456789012345678901234567890")))
+        array.add(new JsonPrimitive(1.5f))
+        array.add(new JsonPrimitive(new LazilyParsedNumber("98765432109876543210")))
+        array.add(new JsonPrimitive(Double.MAX_VALUE))
+        array.add(new JsonPrimitive(-0.0d))
+
+        JsonArray ret = roundTrip(array).asJsonArray
+        assert ret.get(0).asBigDecimal == new BigDecimal("1.50")
+        assert ret.get(2).asBigInteger == new BigInteger("123456789012345678901234567890")
+    }
+
+    @Test
+    void testStringReferenceTable() {
+        String longString = "x" * 65
+
+        JsonArray array = new JsonArray()
+        ["a", longString, "b", "a", longString, "b", "a"].each { array.add(new JsonPrimitive(it)) }
+        JsonObject obj = new JsonObject()
+        obj.add("a", array)
+        obj.addProperty("b", "a")
+        roundTrip(obj)
+
+        // strings longer than 64 chars are not interned and don't shift indexes of later strings
+        JsonArray repeated = new JsonArray()
+        100.times { repeated.add(new JsonPrimitive("uuid")) }
+        byte[] data = CloudBusBinaryCodec.encode(repeated, 0)
+        // header, array tags, the first string and 99 two bytes references
+        assert data.length == 3 + 2 + 6 + 99 * 2
+
+        JsonArray longRepeated = new JsonArray()
+        3.times { longRepeated.add(new JsonPrimitive(longString)) }
+        assert CloudBusBinaryCodec.encode(longRepeated, 0).length == 3 + 2 + 3 * 67
+        roundTrip(longRepeated)
+    }
+
+    @Test
+    void testGzip() {
+        JsonArray array = new JsonArray()
+        200.times {
+            JsonObject obj = new JsonObject()
+            obj.addProperty("uuid", UUID.randomUUID().toString().replace("-", ""))
+            obj.addProperty("name", "vm-" + it)
+            obj.addProperty("memorySize", it * 1024L * 1024L * 1024L)
+            array.add(obj)
+        }
+
+        byte[] plain = CloudBusBinaryCodec.encode(array, 0)
+        assert plain[2] == 0
+        byte[] zipped = CloudBusBinaryCodec.encode(array, 100)
+        assert zipped[2] == 1
+        assert zipped.length < plain.length
+
+        roundTrip(array, 100)
+        // below the threshold
+        assert CloudBusBinaryCodec.encode(new JsonPrimitive("short"), 100)[2] == 0
+    }
+
+    @Test
+    void testDecodedJsonEqualsGsonText() {
+        String json = '{"org.zstack.header.vm.StartVmInstanceMsg":{"vmInstanceUuid":"36c27e8ff05c4780bf6d2fa65700f22e",' +
+                '"headers":{"correlationId":"36c27e8ff05c4780bf6d2fa65700f22e","replyTo":"zstack.message.cloudbus.1"},' +
+                '"timeout":1800000,"createdTime":1539768943016,"id":"0dd8d4c5e6e74d35aefd9f6c55a18b1d",' +
+                '"serviceId":"vmInstance.36c27e8ff05c4780bf6d2fa65700f22e","priority":-1,"ratio":0.75,"tags":[]}}'
+        JsonElement e = new JsonParser().parse(json)
+        assert CloudBusBinaryCodec.decode(CloudBusBinaryCodec.encode(e, 0)).toString() == e.toString()
+        assert CloudBusBinaryCodec.decode(CloudBusBinaryCodec.encode(e, 1)).toString() == e.toString()
+    }
+
+    @Test
+    void testRejectCorruptedLength() {
+        // length -1
+        assertCorrupted(payload(0, bytes(T_STRING, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x01)))
+        // length 65536 with 1 byte left
+        assertCorrupted(payload(0, bytes(T_STRING, 0x80, 0x80, 0x04, 0x61)))
+        // length 2^31, truncated by an int cast it would be negative
+        assertCorrupted(payload(0, bytes(T_STRING, 0x80, 0x80, 0x80, 0x80, 0x08)))
+        // the same in a gzipped body
+        assertCorrupted(payload(1, gzip(bytes(T_STRING, 0x80, 0x80, 0x04, 0x61))))
+        // a variable length number longer than 64 bits
+        assertCorrupted(payload(0, bytes(T_STRING, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x01)))
+    }
+
+    @Test
+    void testRejectCorruptedStructure() {
+        // a reference to a string not seen yet
+        assertCorrupted(payload(0, bytes(T_STRING_REF, 0)))
+        // an array never closed
+        assertCorrupted(payload(0, bytes(T_BEGIN_ARRAY, T_STRING, 1, 0x61)))
+        // unknown tag
+        assertCorrupted(payload(0, bytes(0x7f)))
+        // unknown version
+        assertCorrupted(bytes(0x5a, 2, 0, T_STRING, 0))
+    }
+}
@@ -0,0 +1,205 @@
+package org.zstack.test.unittest.core
+
+import org.junit.Test
+import org.zstack.core.cloudbus.EventFacadeImpl
+import org.zstack.core.cloudbus.EventPathTrie
+
+import java.util.regex.Pattern
+
+class EventPathTrieCase {
+    private static final EventFacadeImpl evtf = new EventFacadeImpl()
+
+    static class Subscriber {
+        String template
+        Pattern pattern
+
+        Subscriber(String template) {
+            this.template = template
+            // the same regex EventFacadeImpl compiles for a callback
+            pattern = Pattern.compile(evtf.createRegexFromGlob(template.replaceAll("\\{.*\\}", ".*")))
+        }
+
+        @Override
+        String toString() {
+            return template
+        }
+    }
+
+    private EventPathTrie<Subscriber> trie = new EventPathTrie<>({ Subscriber s -> s.pattern })
+    private Map<String, Subscriber> subscribers = [:]
+
+    private void put(String template) {
+        Subscriber s = new Subscriber(template)
+        subscribers[template] = s
+        trie.put(template, template, s)
+    }
+
+    private void remove(String template) {
+        assert trie.remove(template).is(subscribers.remove(template))
+    }
+
+    private Set<String> match(String path) {
+        return trie.match(path).collect { it.template } as Set
+    }
+
+    // what EventFacadeImpl did before the trie, every template is checked
+    private Set<String> scan(String path) {
+        return subscribers.values().findAll { it.pattern.matcher(path).matches() }.collect { it.template } as Set
+    }
+
+    // templates stored on the node of the literal segments
+    private List<String> storedAt(String... segments) {
+        def node = trie.root
+        for (String s : segments) {
+            node = node.children[s]
+            if (node == null) {
+                return null
+            }
+        }
+        return node.values.collect { it.value.template }
+    }
+
+    @Test
+    void testLiteralTemplate() {
+        put("/vm/state/change")
+        assert storedAt("vm", "state", "change") == ["/vm/state/change"]
+
+        assert match("/vm/state/change") == ["/vm/state/change"] as Set
+        assert match("/vm/state").isEmpty()
+        assert match("/vm/state/change/more").isEmpty()
+        assert match("/vm/state/changed").isEmpty()
+        assert match("/host/state/change").isEmpty()
+        assert match("/").isEmpty()
+        assert match("").isEmpty()
+    }
+
+    @Test
+    void testVariableInTheMiddle() {
+        put("/vm/{uuid}/state/change")
+        assert storedAt("vm") == ["/vm/{uuid}/state/change"]
+
+        assert match("/vm/36c27e8f/state/change") == ["/vm/{uuid}/state/change"] as Set
+        // a variable matches any number of segments, as the regex it becomes does
+        assert match("/vm/a/b/state/change") == ["/vm/{uuid}/state/change"] as Set
+        assert match("/vm/36c27e8f/state").isEmpty()
+        assert match("/host/36c27e8f/state/change").isEmpty()
+    }
+
+    @Test
+    void testStarInsideSegment() {
+        put("/vm/sta*/change")
+        put("/vm/*")
+        assert storedAt("vm") as Set == ["/vm/sta*/change", "/vm/*"] as Set
+
+        assert match("/vm/state/change") == ["/vm/sta*/change", "/vm/*"] as Set
+        assert match("/vm/sta/change") == ["/vm/sta*/change", "/vm/*"] as Set
+        assert match("/vm/start/x/change") == ["/vm/sta*/change", "/vm/*"] as Set
+        assert match("/vm/xstate/change") == ["/vm/*"] as Set
+        assert match("/vm").isEmpty()
+    }
+
+    @Test
+    void testQuestionMark() {
+        put("/vm/stat?")
+        assert storedAt("vm") == ["/vm/stat?"]
+
+        assert match("/vm/state") == ["/vm/stat?"] as Set
+        assert match("/vm/stat/") == ["/vm/stat?"] as Set
+        assert match("/vm/stat").isEmpty()
+        assert match("/vm/states").isEmpty()
+    }
+
+    @Test
+    void testNoLiteralPrefix() {
+        put("*/change")
+        put("{resource}/state")
+        put("/*")
+        put("/a.b/c")
+        assert storedAt() as Set == ["*/change", "{resource}/state", "/*", "/a.b/c"] as Set
+
+        assert match("/vm/state/change") == ["*/change", "/*"] as Set
+        assert match("/vm/state") == ["{resource}/state", "/*"] as Set
+        // '.' is a regex wildcard, so the template can't be stored under a literal segment
+        assert match("/a.b/c") == ["/*", "/a.b/c"] as Set
+        assert match("/axb/c") == ["/*", "/a.b/c"] as Set
+        assert match("vm").isEmpty()
+    }
+
+    @Test
+    void testRemovePrunesNodes() {
+        put("/a/b/c/d")
+        put("/a/b/x")
+        put("/a/{uuid}")
+        assert trie.size() == 3
+
+        remove("/a/b/c/d")
+        assert storedAt("a", "b", "c") == null
+        assert storedAt("a", "b") == []
+        assert storedAt("a", "b", "x") == ["/a/b/x"]
+        assert match("/a/b/c/d") == ["/a/{uuid}"] as Set
+
+        remove("/a/b/x")
+        assert storedAt("a", "b") == null
+        assert storedAt("a") == ["/a/{uuid}"]
+
+        remove("/a/{uuid}")
+        assert trie.root.children.isEmpty()
+        assert trie.root.values.isEmpty()
+        assert trie.size() == 0
+        assert match("/a/b/x").isEmpty()
+
+        assert trie.remove("/not/exists") == null
+    }
+
+    @Test
+    void testPutSameKeyReplaces() {
+        Subscriber s = new Subscriber("/vm/state")
+        trie.put("key", s.template, s)
+        Subscriber s2 = new Subscriber("/host/state")
+        trie.put("key", s2.template, s2)
+
+        assert trie.size() == 1
+        assert trie.match("/vm/state").isEmpty()
+        assert trie.match("/host/state") == [s2]
+        assert trie.root.children.keySet() == ["host"] as Set
+    }
+
+    @Test
+    void testSameAsFullScan() {
+        Random rnd = new Random(1)
+        List<String> templateSegments = ["vm", "host", "state", "change", "sta*", "stat?", "*", "{uuid}", "a.b", "?", ""]
+        List<String> pathSegments = ["vm", "host", "state", "change", "start", "states", "stat", "a.b", "axb", "36c27e8f", ""]
+
+        def randomOf = { List<String> segments, int maxLength ->
+            int n = rnd.nextInt(maxLength) + 1
+            String s = (1..n).collect { segments[rnd.nextInt(segments.size())] }.join("/")
+            return rnd.nextInt(4) == 0 ? s : "/" + s
+        }
+
+        Set<String> templates = []
+        while (templates.size() < 300) {
+            templates.add(randomOf(templateSegments, 5))
+        }
+        templates.each { put(it) }
+        assert trie.size() == templates.size()
+
+        List<String> paths = (1..2000).collect { randomOf(pathSegments, 6) }
+        int matched = 0
+        paths.each { String path ->
+            Set<String> ret = match(path)
+            assert ret == scan(path) : path
+            matched += ret.size()
+        }
+        // make sure the comparison is not between empty results only
+        assert matched > 1000
+
+        templates.findAll { rnd.nextBoolean() }.each { remove(it) }
+        paths.each { String path ->
+            assert match(path) == scan(path) : path
+        }
+
+        subscribers.keySet().collect().each { remove(it) }
+        assert trie.root.children.isEmpty()
+        assert trie.root.values.isEmpty()
+    }
+}
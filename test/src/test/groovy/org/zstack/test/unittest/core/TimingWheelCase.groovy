@@ -0,0 +1,231 @@
+package org.zstack.test.unittest.core
+
+import org.junit.Before
+import org.junit.Test
+import org.zstack.core.gc.TimingWheel
+
+import java.util.concurrent.TimeUnit
+import java.util.function.LongSupplier
+
+class TimingWheelCase {
+    private long now
+    private TimingWheel wheel
+    private List<Long> fired
+
+    @Before
+    void setUp() {
+        now = 0
+        fired = []
+        // one tick per millisecond, so ticks and delays read the same
+        wheel = new TimingWheel("test", 1, { now } as LongSupplier)
+    }
+
+    private TimingWheel.Timeout schedule(long delay) {
+        return wheel.schedule({ fired.add(delay) } as Runnable, delay, TimeUnit.MILLISECONDS)
+    }
+
+    private void advanceTo(long tick) {
+        now = tick
+        wheel.advance()
+    }
+
+    // moves the wheel to the tick at once instead of processing every tick on the way,
+    // only for ranges in which no slot holds a task
+    private void skipTo(long tick) {
+        now = tick
+        wheel.currentTick = tick
+    }
+
+    private boolean inSlot(int level, int slot, TimingWheel.Timeout t) {
+        List entries = wheel.slots[level][slot]
+        return entries != null && entries.any { it.is(t) }
+    }
+
+    @Test
+    void testInsertAtLevelBoundaries() {
+        def expected = [
+                (0L): [0, 0],
+                (63L): [0, 63],
+                (64L): [1, 1],
+                (4095L): [1, 63],
+                (4096L): [2, 1],
+                ((1L << 18) - 1): [2, 63],
+                (1L << 18): [3, 1],
+                ((1L << 24) - 1): [3, 63],
+                (1L << 24): [4, 1],
+                ((1L << 30) - 1): [4, 63],
+                // beyond the range of the wheel, parked in the last slot of the round
+                (1L << 30): [4, 63],
+                ((1L << 40)): [4, 63],
+        ]
+
+        expected.each { long delay, List<Integer> pos ->
+            assert inSlot(pos[0], pos[1], schedule(delay)) : "delay ${delay} is not in slot ${pos}"
+        }
+        assert wheel.getPendingTasks() == expected.size()
+    }
+
+    @Test
+    void testCascadeToDeadline() {
+        List<Long> delays = [1L, 63L, 64L, 65L, 127L, 128L, 4095L, 4096L, 4097L,
+                             (1L << 18) - 1, 1L << 18, (1L << 18) + 1,
+                             (1L << 24) - 1, 1L << 24, (1L << 24) + 1]
+        Map<Long, TimingWheel.Timeout> timeouts = delays.collectEntries { [(it): schedule(it)] }
+
+        delays.each { long d ->
+            advanceTo(d - 1)
+            assert !fired.contains(d) : "delay ${d} fired early"
+            advanceTo(d)
+            assert fired.last() == d : "delay ${d} didn't fire at its deadline"
+        }
+
+        assert fired == delays
+        assert wheel.getPendingTasks() == 0
+        assert timeouts.values().every { !it.cancel() }
+    }
+
+    @Test
+    void testCascadeMovesTaskDownOneBoundaryAtATime() {
+        long d = (1L << 24) + (1L << 18) + 4096 + 64 + 1
+        TimingWheel.Timeout t = schedule(d)
+        assert inSlot(4, 1, t)
+
+        advanceTo(1L << 24)
+        assert inSlot(3, 1, t)
+        advanceTo((1L << 24) + (1L << 18))
+        assert inSlot(2, 1, t)
+        advanceTo((1L << 24) + (1L << 18) + 4096)
+        assert inSlot(1, 1, t)
+        advanceTo(d - 1)
+        assert inSlot(0, 1, t)
+        assert fired.isEmpty()
+
+        advanceTo(d)
+        assert fired == [d]
+    }
+
+    @Test
+    void testBeyondRangeParkedAndFiredAtDeadline() {
+        long d = (1L << 30) + 5
+        TimingWheel.Timeout t = schedule(d)
+        assert inSlot(4, 63, t)
+
+        // just before the parking slot comes round
+        skipTo(63L * (1L << 24) - 1)
+        wheel.advance()
+        assert fired.isEmpty()
+
+        // looked again, now in range
+        advanceTo(63L * (1L << 24))
+        assert wheel.slots[4][63] == null
+        assert inSlot(4, 0, t)
+
+        skipTo((1L << 30) - 1)
+        wheel.advance()
+        advanceTo(1L << 30)
+        assert inSlot(0, 5, t)
+
+        advanceTo(d - 1)
+        assert fired.isEmpty()
+        advanceTo(d)
+        assert fired == [d]
+        assert wheel.getPendingTasks() == 0
+    }
+
+    @Test
+    void testCancelBeforeCascade() {
+        TimingWheel.Timeout t = schedule(100)
+        assert inSlot(1, 1, t)
+
+        assert t.cancel()
+        assert !t.cancel()
+        assert wheel.getPendingTasks() == 0
+
+        // dropped instead of moved down
+        advanceTo(64)
+        assert wheel.slots[1][1] == null
+        assert wheel.slots[0][36] == null
+
+        advanceTo(200)
+        assert fired.isEmpty()
+        assert wheel.getPendingTasks() == 0
+    }
+
+    @Test
+    void testCancelAfterCascade() {
+        TimingWheel.Timeout t = schedule(100)
+        advanceTo(64)
+        assert inSlot(0, 36, t)
+
+        assert t.cancel()
+        assert wheel.getPendingTasks() == 0
+
+        advanceTo(100)
+        assert fired.isEmpty()
+        assert wheel.getPendingTasks() == 0
+    }
+
+    @Test
+    void testCancelAfterFired() {
+        TimingWheel.Timeout t = schedule(10)
+        advanceTo(10)
+        assert fired == [10L]
+
+        assert !t.cancel()
+        assert wheel.getPendingTasks() == 0
+    }
+
+    @Test
+    void testCatchUpAfterLateTick() {
+        schedule(5000)
+        schedule(70)
+        schedule(10)
+        TimingWheel.Timeout cancelled = schedule(80)
+        cancelled.cancel()
+
+        // the driver was late by 10000 ticks, everything due runs in deadline order
+        advanceTo(10000)
+        assert fired == [10L, 70L, 5000L]
+        assert wheel.getPendingTasks() == 0
+
+        // the current tick is processed already, a task without delay runs on the next one
+        schedule(-5)
+        wheel.advance()
+        assert fired.size() == 3
+        advanceTo(10001)
+        assert fired.last() == -5L
+    }
+
+    @Test
+    void testPendingCount() {
+        schedule(10)
+        wheel.schedule({ throw new RuntimeException("on purpose") } as Runnable, 20, TimeUnit.MILLISECONDS)
+        TimingWheel.Timeout t = schedule(30)
+        assert wheel.getPendingTasks() == 3
+
+        t.cancel()
+        assert wheel.getPendingTasks() == 2
+
+        advanceTo(10)
+        assert wheel.getPendingTasks() == 1
+
+        // a failing task is done as well and doesn't stop the wheel
+        advanceTo(20)
+        assert wheel.getPendingTasks() == 0
+        schedule(1)
+        advanceTo(21)
+        assert fired == [10L, 1L]
+        assert wheel.getPendingTasks() == 0
+    }
+
+    @Test
+    void testDelayRoundedUpToTick() {
+        wheel = new TimingWheel("test", 10, { now } as LongSupplier)
+        schedule(15)
+
+        advanceTo(19)
+        assert fired.isEmpty()
+        advanceTo(20)
+        assert fired == [15L]
+    }
+}
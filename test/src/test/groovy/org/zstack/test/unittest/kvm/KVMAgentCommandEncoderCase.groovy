@@ -0,0 +1,94 @@
+package org.zstack.test.unittest.kvm
+
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+import org.junit.Test
+import org.zstack.kvm.KVMAgentCommandEncoder
+import org.zstack.kvm.KVMAgentCommands
+import org.zstack.kvm.KVMConstant
+import org.zstack.kvm.KVMHostAddons
+import org.zstack.utils.gson.JSONObjectUtil
+
+class KVMAgentCommandEncoderCase {
+    private static KVMHostAddons addons(Map m) {
+        KVMHostAddons addons = new KVMHostAddons()
+        addons.putAll(m)
+        return addons
+    }
+
+    private static JsonObject parse(String json) {
+        return new JsonParser().parse(json).asJsonObject
+    }
+
+    // what KVMHost did before the single pass encoder
+    private static String legacyEncode(String commandStr, KVMHostAddons addons) {
+        String json = JSONObjectUtil.toJsonString(addons.asMap())
+        if (commandStr == "{}") {
+            return commandStr.replaceAll("\\}\$", String.format("\"%s\":%s}", KVMConstant.KVM_HOST_ADDONS, json))
+        }
+        return commandStr.replaceAll("\\}\$", String.format(",\"%s\":%s}", KVMConstant.KVM_HOST_ADDONS, json))
+    }
+
+    @Test
+    void testEmptyBody() {
+        KVMHostAddons a = addons([key: "value"])
+        assert KVMAgentCommandEncoder.encode("{}", a) == '{"kvmHostAddons":{"key":"value"}}'
+        assert KVMAgentCommandEncoder.encode(new KVMAgentCommands.AgentCommand(), a) == '{"kvmHostAddons":{"key":"value"}}'
+
+        // blanks inside the braces, no comma is added before the addons
+        String ret = KVMAgentCommandEncoder.encode("{ \n }", a)
+        assert parse(ret) == parse('{"kvmHostAddons":{"key":"value"}}')
+
+        // no addons contributed, the field is written anyway as it was before
+        assert KVMAgentCommandEncoder.encode("{}", new KVMHostAddons()) == '{"kvmHostAddons":{}}'
+    }
+
+    @Test
+    void testBodyWithFields() {
+        KVMHostAddons a = addons([key: "value", nested: [n: 1]])
+
+        KVMAgentCommands.PingCmd cmd = new KVMAgentCommands.PingCmd()
+        cmd.hostUuid = "uuid"
+        String ret = KVMAgentCommandEncoder.encode(cmd, a)
+        assert ret == '{"hostUuid":"uuid","kvmHostAddons":{"key":"value","nested":{"n":1}}}'
+        assert ret == legacyEncode(JSONObjectUtil.toJsonString(cmd), a)
+
+        String str = '{"a":1,"b":{"c":[1,2]}}'
+        assert KVMAgentCommandEncoder.encode(str, a) == legacyEncode(str, a)
+    }
+
+    @Test
+    void testWhitespaceAroundFields() {
+        KVMHostAddons a = addons([key: "value"])
+        JsonObject expected = parse('{"a":1,"b":{"c":2},"kvmHostAddons":{"key":"value"}}')
+
+        // the legacy regex left the addons out when blanks other than a final line break followed the closing brace
+        ["{\"a\":1,\"b\":{\"c\":2}}\n",
+         "{\"a\":1,\"b\":{\"c\":2}}  \r\n",
+         "{ \"a\" : 1 , \"b\" : { \"c\" : 2 } }",
+         "{\n  \"a\": 1,\n  \"b\": {\"c\": 2}\n}\n"].each { String str ->
+            assert parse(KVMAgentCommandEncoder.encode(str, a)) == expected : str
+        }
+    }
+
+    @Test
+    void testAddonsEscaped() {
+        KVMHostAddons a = addons([quote: 'a"}b', slash: "c\\d", "key\"": "e"])
+        String ret = KVMAgentCommandEncoder.encode('{"f":"}"}', a)
+
+        JsonObject o = parse(ret)
+        assert o.get("f").asString == "}"
+        JsonObject addons = o.getAsJsonObject(KVMConstant.KVM_HOST_ADDONS)
+        assert addons.get("quote").asString == 'a"}b'
+        assert addons.get("slash").asString == "c\\d"
+        assert addons.get("key\"").asString == "e"
+    }
+
+    @Test
+    void testNotAnObject() {
+        KVMHostAddons a = addons([key: "value"])
+        assert KVMAgentCommandEncoder.encode("", a) == ""
+        assert KVMAgentCommandEncoder.encode("  ", a) == "  "
+        assert KVMAgentCommandEncoder.encode("[1,2]", a) == "[1,2]"
+    }
+}
@@ -3,6 +3,7 @@ package org.zstack.utils.gson;
 import com.google.gson.*;
 import org.json.JSONArray;
 
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.LinkedHashMap;
@@ -58,6 +59,18 @@ public class JSONObjectUtil {
         return gson.toJson(obj);
     }
 
+    public static <T> T toObject(Reader reader, Class<T> clazz) {
+        return gson.fromJson(reader, clazz);
+    }
+
+    public static <T> T toObject(JsonElement element, Class<T> clazz) {
+        return gson.fromJson(element, clazz);
+    }
+
+    public static void toJson(Object obj, Appendable writer) {
+        gson.toJson(obj, writer);
+    }
+
     public static <T> T rehashObject(Object obj, Class<T> clazz) {
         String str = toJsonString(obj);
         return toObject(str, clazz);
@@ -9,13 +9,66 @@ public class ConsistentHash<T> {
     private final CLogger logger = Utils.getLogger(ConsistentHash.class);
     private final HashFunction hashFunction;
     private final int numberOfReplicas;
-    private final SortedMap<Integer, T> circle = Collections.synchronizedSortedMap(new TreeMap<Integer, T>());
+    private final TreeMap<Integer, T> circle = new TreeMap<>();
     private final Set<T> nodes = Collections.synchronizedSet(new HashSet<T>());
+    // 0 or less means no bound
+    private final double loadFactor;
+    private volatile Ring<T> ring;
+
+    private static final double HASH_SPACE = Math.pow(2, 32);
+
+    /**
+     * an immutable view of the circle, lookups on it need no lock. It is replaced
+     * as a whole when nodes are added or removed
+     */
+    public static class Ring<N> {
+        private final HashFunction hashFunction;
+        private final int[] hashes;
+        private final Object[] owners;
+
+        private Ring(HashFunction hashFunction, int[] hashes, Object[] owners) {
+            this.hashFunction = hashFunction;
+            this.hashes = hashes;
+            this.owners = owners;
+        }
+
+        public N get(Object key) {
+            if (hashes.length == 0) {
+                return null;
+            }
+
+            int i = Arrays.binarySearch(hashes, hashFunction.hash(key));
+            if (i < 0) {
+                i = -i - 1;
+            }
+
+            return (N) owners[i == hashes.length ? 0 : i];
+        }
+
+        public boolean isEmpty() {
+            return hashes.length == 0;
+        }
+    }
 
     public ConsistentHash(HashFunction hashFunction, int numberOfReplicas,
                           Collection<T> nodes) {
+        this(hashFunction, numberOfReplicas, 0, nodes);
+    }
+
+    /**
+     * @param loadFactor with a value greater than 0, no node owns more than loadFactor times
+     *                   the mean share of the hash space. The virtual node arcs a node would own
+     *                   beyond that are passed to the next nodes clockwise that still have room,
+     *                   so the result only depends on the nodes in the circle. Shares of the
+     *                   hash space are shares of the keys only with a uniform hash function,
+     *                   see MixedHash
+     */
+    public ConsistentHash(HashFunction hashFunction, int numberOfReplicas, double loadFactor,
+                          Collection<T> nodes) {
         this.hashFunction = hashFunction;
         this.numberOfReplicas = numberOfReplicas;
+        this.loadFactor = loadFactor;
+        this.ring = new Ring<>(hashFunction, new int[0], new Object[0]);
 
         for (T node : nodes) {
             add(node);
@@ -26,18 +79,19 @@ public class ConsistentHash<T> {
         return nodes;
     }
 
-    public void add(T node) {
+    public synchronized void add(T node) {
         nodes.add(node);
 
         for (int i = 0; i < numberOfReplicas; i++) {
             String nodeName = node.toString() + i;
             circle.put(hashFunction.hash(nodeName), node);
         }
+        rebuild();
         logger.debug(String.format("after adding, consistent hash circle has management nodes%s, %s virtual nodes now",
                 nodes, circle.size()));
     }
 
-    public void remove(T node) {
+    public synchronized void remove(T node) {
         nodes.remove(node);
         logger.debug(String.format("the consistent hash ring currently has nodes%s", nodes));
 
@@ -45,30 +99,76 @@ public class ConsistentHash<T> {
             String nodeName = node.toString() + i;
             circle.remove(hashFunction.hash(nodeName));
         }
+        rebuild();
         logger.debug(String.format("after removing, consistent hash circle has management nodes%s, %s virtual nodes now",
                 nodes, circle.size()));
     }
 
+    private void rebuild() {
+        int[] hashes = new int[circle.size()];
+        Object[] owners = new Object[circle.size()];
+        int i = 0;
+        for (Map.Entry<Integer, T> e : circle.entrySet()) {
+            hashes[i] = e.getKey();
+            owners[i] = e.getValue();
+            i++;
+        }
+
+        if (loadFactor > 0 && hashes.length > 0) {
+            owners = boundLoad(hashes, owners);
+        }
+
+        ring = new Ring<>(hashFunction, hashes, owners);
+    }
+
+    private Object[] boundLoad(int[] hashes, Object[] owners) {
+        Set<Object> distinct = new HashSet<>(Arrays.asList(owners));
+        double capacity = loadFactor * HASH_SPACE / distinct.size();
+        Map<Object, Double> loads = new HashMap<>();
+        Object[] ret = new Object[owners.length];
+
+        for (int i = 0; i < hashes.length; i++) {
+            // the arc ending at virtual node i, the first one wraps around from the last
+            double arc = i == 0 ? (double) hashes[0] - hashes[hashes.length - 1] + HASH_SPACE
+                    : (double) hashes[i] - hashes[i - 1];
+            if (hashes.length == 1) {
+                arc = HASH_SPACE;
+            }
+
+            Object owner = owners[i];
+            for (int j = 0; j < owners.length; j++) {
+                Object candidate = owners[(i + j) % owners.length];
+                if (loads.getOrDefault(candidate, 0D) + arc <= capacity) {
+                    owner = candidate;
+                    break;
+                }
+            }
+
+            loads.merge(owner, arc, Double::sum);
+            ret[i] = owner;
+        }
+
+        return ret;
+    }
+
     public boolean hasNode(T node) {
-        for (int i = 0; i < numberOfReplicas; i++) {
-            String nodeName = node.toString() + i;
-            if (circle.containsKey(hashFunction.hash(nodeName))) {
-                return true;
+        synchronized (this) {
+            for (int i = 0; i < numberOfReplicas; i++) {
+                String nodeName = node.toString() + i;
+                if (circle.containsKey(hashFunction.hash(nodeName))) {
+                    return true;
+                }
             }
         }
 
         return false;
     }
 
+    public Ring<T> getRing() {
+        return ring;
+    }
+
     public T get(Object key) {
-        if (circle.isEmpty()) {
-            return null;
-        }
-        int hash = hashFunction.hash(key);
-        if (!circle.containsKey(hash)) {
-            SortedMap<Integer, T> tailMap = circle.tailMap(hash);
-            hash = tailMap.isEmpty() ? circle.firstKey() : tailMap.firstKey();
-        }
-        return circle.get(hash);
+        return ring.get(key);
     }
 }
@@ -0,0 +1,25 @@
+package org.zstack.utils.hash;
+
+/**
+ * spreads the values of another hash function over the whole int range with
+ * the MurmurHash3 finalizer. String.hashCode() of UUIDs clusters, which leaves
+ * nodes of a ConsistentHash owning very different shares of the keys
+ */
+public class MixedHash implements HashFunction {
+    private final HashFunction hashFunction;
+
+    public MixedHash(HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+    }
+
+    @Override
+    public int hash(Object obj) {
+        int h = hashFunction.hash(obj);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
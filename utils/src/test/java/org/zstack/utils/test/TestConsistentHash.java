@@ -3,6 +3,7 @@ package org.zstack.utils.test;
 import org.junit.Test;
 import org.zstack.utils.hash.ApacheHash;
 import org.zstack.utils.hash.ConsistentHash;
+import org.zstack.utils.hash.MixedHash;
 
 import java.util.*;
 
@@ -22,6 +23,34 @@ public class TestConsistentHash {
     public void test() {
         testNodeHash();
         testNodeAdd();
+        testBoundedLoad();
+    }
+
+    private void testBoundedLoad() {
+        List<String> nodes = new ArrayList<String>();
+        for (int i=0; i<5; i++) {
+            nodes.add(uuid());
+        }
+
+        ConsistentHash<String> chash = new ConsistentHash<>(new MixedHash(new ApacheHash()), 500, 1.05, nodes);
+        ConsistentHash.Ring<String> before = chash.getRing();
+
+        List<String> uuids = new ArrayList<>();
+        Map<String, Integer> m = new HashMap<>();
+        for (int i=0; i<100000; i++) {
+            String uuid = uuid();
+            uuids.add(uuid);
+            m.merge(chash.get(uuid), 1, Integer::sum);
+        }
+
+        // some slack for the keys not being spread exactly as the hash space
+        m.values().forEach(c -> {
+            assert c < 100000 / 5 * 1.1 : m;
+        });
+
+        chash.remove(nodes.get(0));
+        long moved = uuids.stream().filter(uuid -> !before.get(uuid).equals(nodes.get(0)) && !before.get(uuid).equals(chash.get(uuid))).count();
+        assert moved < uuids.size() / 20 : moved;
     }
 
     private void testNodeHash() {